@@ -15,7 +15,10 @@
 package org.opengroup.osdu.wd.azure.cosmosdb;
 
 import com.azure.cosmos.CosmosContainer;
+import org.opengroup.osdu.core.client.model.http.AppException;
 import org.opengroup.osdu.wd.core.dataaccess.interfaces.IEntityDBClient;
+import org.opengroup.osdu.wd.core.models.EntityBatchItem;
+import org.opengroup.osdu.wd.core.models.EntityBatchResult;
 import org.opengroup.osdu.wd.core.models.EntityDtoReturn;
 import org.opengroup.osdu.wd.core.models.EntityDto;
 import org.opengroup.osdu.wd.core.models.Relationship;
@@ -24,6 +27,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -40,23 +44,58 @@ public class CosmosEntityClient implements IEntityDBClient {
     public EntityDtoReturn saveEntity(EntityDto dto, List<Relationship> relationships) {
         CosmosContainer container = cosmosInit.createOrGetEntityContainer(dto.getEntityType());
 
+        CosmosContainer heads = cosmosInit.getHeadContainer(dto.getEntityType());
+
         CosmosEntity entity = new CosmosEntity(dto, relationships);
         try {
             mutex.lock();
             CosmosdbFacade.upsertItem(container, entity);
+            CosmosdbFacade.upsertHead(heads, entity.getEntityId(), entity.getVersion(), entity.getId());
         } finally {
             mutex.unlock();
         }
         return new EntityDtoReturn(dto, null);
     }
 
+    @Override
+    public List<EntityBatchResult> saveEntities(List<EntityBatchItem> items) {
+        List<EntityBatchResult> list = new ArrayList<>(items.size());
+        try {
+            mutex.lock();
+            for (int i = 0; i < items.size(); i++) {
+                EntityBatchItem item = items.get(i);
+                try {
+                    CosmosContainer container = cosmosInit.createOrGetEntityContainer(item.getDto().getEntityType());
+                    CosmosContainer heads = cosmosInit.getHeadContainer(item.getDto().getEntityType());
+                    CosmosEntity entity = new CosmosEntity(item.getDto(), item.getRelationships());
+                    CosmosdbFacade.upsertItem(container, entity);
+                    CosmosdbFacade.upsertHead(heads, entity.getEntityId(), entity.getVersion(), entity.getId());
+                    list.add(EntityBatchResult.created(i, item.getDto()));
+                } catch (AppException ex) {
+                    list.add(EntityBatchResult.failed(i, item.getDto(), ex.getError().getCode(), ex.getError().getMessage()));
+                }
+            }
+        } finally {
+            mutex.unlock();
+        }
+        return list;
+    }
+
     @Override
     public EntityDtoReturn getLatestEntityVersion(String entityType, String entityId) {
         CosmosContainer container = cosmosInit.getEntityContainer(entityType);
-
-        CosmosEntity res = CosmosdbFacade.findLatestItem(container, entityId);
-        if (res == null)
-            return null;
+        CosmosContainer heads = cosmosInit.getHeadContainer(entityType);
+
+        CosmosEntityHead head = CosmosdbFacade.findHead(heads, entityId);
+        CosmosEntity res = head == null ? null : CosmosdbFacade.findSpecificItem(container, head.getDocId(), entityId);
+        if (res == null) {
+            // entities saved before the head was maintained
+            res = CosmosdbFacade.findLatestItem(container, entityId);
+            if (res == null)
+                return null;
+            if (!res.isDeleted())
+                CosmosdbFacade.upsertHead(heads, entityId, res.getVersion(), res.getId());
+        }
         return res.ToEntityDtoReturn();
     }
 
@@ -83,7 +122,16 @@ public class CosmosEntityClient implements IEntityDBClient {
     public long deleteEntity(String entityType, String entityId) {
         CosmosContainer container = cosmosInit.getEntityContainer(entityType);
 
-        int cnt = CosmosdbFacade.deleteEntity(container, entityId);
+        CosmosContainer heads = cosmosInit.getHeadContainer(entityType);
+
+        int cnt;
+        try {
+            mutex.lock();
+            cnt = CosmosdbFacade.deleteEntity(container, entityId);
+            CosmosdbFacade.deleteHead(heads, entityId);
+        } finally {
+            mutex.unlock();
+        }
         return cnt;
     }
 
@@ -91,7 +139,16 @@ public class CosmosEntityClient implements IEntityDBClient {
     public long purgeEntity(String entityType, String entityId) {
         CosmosContainer container = cosmosInit.getEntityContainer(entityType);
 
-        int cnt = CosmosdbFacade.purgeEntity(container, entityId, entityId);
+        CosmosContainer heads = cosmosInit.getHeadContainer(entityType);
+
+        int cnt;
+        try {
+            mutex.lock();
+            cnt = CosmosdbFacade.purgeEntity(container, entityId, entityId);
+            CosmosdbFacade.deleteHead(heads, entityId);
+        } finally {
+            mutex.unlock();
+        }
         return cnt;
     }
 
@@ -100,7 +157,16 @@ public class CosmosEntityClient implements IEntityDBClient {
         CosmosContainer container = cosmosInit.getEntityContainer(entityType);
 
         String id = Common.buildId(entityId, version);
-        int cnt = CosmosdbFacade.deleteItem(container, id, entityId);
+        CosmosContainer heads = cosmosInit.getHeadContainer(entityType);
+
+        int cnt;
+        try {
+            mutex.lock();
+            cnt = CosmosdbFacade.deleteItem(container, id, entityId);
+            CosmosdbFacade.refreshHead(container, heads, entityId, version);
+        } finally {
+            mutex.unlock();
+        }
         return cnt;
     }
 
@@ -109,7 +175,25 @@ public class CosmosEntityClient implements IEntityDBClient {
         CosmosContainer container = cosmosInit.getEntityContainer(entityType);
 
         String id = Common.buildId(entityId, version);
-        int cnt = CosmosdbFacade.purgeItem(container, id, entityId);
+        CosmosContainer heads = cosmosInit.getHeadContainer(entityType);
+
+        int cnt;
+        try {
+            mutex.lock();
+            cnt = CosmosdbFacade.purgeItem(container, id, entityId);
+            CosmosdbFacade.refreshHead(container, heads, entityId, version);
+        } finally {
+            mutex.unlock();
+        }
         return cnt;
     }
+
+    @Override
+    public long backfillRelationshipKeys(String entityType) {
+        CosmosContainer container = cosmosInit.getEntityContainerOrNull(entityType);
+        if (container == null)
+            return 0;
+
+        return CosmosdbFacade.backfillRelationshipKeys(container);
+    }
 }
@@ -0,0 +1,36 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.wd.azure.cosmosdb;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Points an entity at the document of its latest version, the id is the entity id.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CosmosEntityHead {
+    private String id;
+    private String entityId;
+    private long version;
+    private String docId;
+
+    public CosmosEntityHead(String entityId, long version, String docId) {
+        this(entityId, entityId, version, docId);
+    }
+}
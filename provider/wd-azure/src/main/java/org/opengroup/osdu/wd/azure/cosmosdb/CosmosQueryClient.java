@@ -20,7 +20,9 @@ import org.apache.http.HttpStatus;
 import org.opengroup.osdu.core.client.model.http.AppException;
 import org.opengroup.osdu.wd.core.dataaccess.interfaces.IQueryClient;
 import org.opengroup.osdu.wd.core.models.EntityDtoReturn;
+import org.opengroup.osdu.wd.core.models.EntityDtoReturnList;
 import org.opengroup.osdu.wd.core.models.ENTITY_TYPE;
+import org.opengroup.osdu.wd.core.models.Relationship;
 import org.opengroup.osdu.wd.core.util.DateTimeUtil;
 import org.opengroup.osdu.wd.core.util.RecordConversion;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,6 +33,7 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 @Service
 @ConditionalOnProperty(name = "app.entity.source", havingValue = "cosmosdb", matchIfMissing = true)
@@ -46,15 +49,16 @@ public class CosmosQueryClient implements IQueryClient {
     //BHARun
 
     @Override
-    public List<EntityDtoReturn> getBHARunsBySection(String existenceKind, String segmentEntityId) {
+    public EntityDtoReturnList getBHARunsBySection(String existenceKind, String segmentEntityId, Set<String> aclGroups) {
         CosmosContainer runCollection = cosmosdbInit.getEntityContainer(ENTITY_TYPE.BHA_RUN.toLowerCase());
         List<String> ids = CosmosdbFacade.getIdList_LatestPerEntity_ByRelatedEntityId(runCollection, existenceKind, ENTITY_TYPE.HOLE_SECTION, segmentEntityId);
-        List<CosmosEntity> entityList = CosmosdbFacade.getEntityList_ByIdList(runCollection, ids);
-        return toEntityDtoReturnList(entityList);
+        List<CosmosEntity> entityList = CosmosdbFacade.getEntityList_ByIdList(runCollection, ids, aclGroups);
+        return EntityDtoReturnList.ofAclGroups(toEntityDtoReturnList(entityList), aclGroups,
+                () -> CosmosdbFacade.countAclFiltered_ByIdList(runCollection, ids, aclGroups));
     }
 
     @Override
-    public List<EntityDtoReturn> getBHARunsByWells(String existenceKind, List<String> wellEntityIds) {
+    public EntityDtoReturnList getBHARunsByWells(String existenceKind, List<String> wellEntityIds, Set<String> aclGroups) {
         List<String> wellboreIds = getWellboreIdsByWells(existenceKind, wellEntityIds);
 
         CosmosContainer runContainer = cosmosdbInit.getEntityContainer(ENTITY_TYPE.BHA_RUN.toLowerCase());
@@ -62,38 +66,41 @@ public class CosmosQueryClient implements IQueryClient {
         for (String wellboreId : wellboreIds) {
             List<String> ids = CosmosdbFacade.getIdList_LatestPerEntity_ByRelatedId(runContainer, existenceKind, ENTITY_TYPE.WELLBORE, wellboreId);
             if (ids == null || ids.size() <= 0) {
-                String wellboreEntityId = wellboreId.split(":")[0];
+                String wellboreEntityId = Relationship.parseEntityId(wellboreId);
                 throw new AppException(HttpStatus.SC_NOT_FOUND, "Not found", "Could not find BHA run with wellbore id: " + wellboreEntityId);
             }
             runIdList.addAll(ids);
         }
-        List<CosmosEntity> entityList = CosmosdbFacade.getEntityList_ByIdList(runContainer, runIdList);
-        return toEntityDtoReturnList(entityList);
+        List<CosmosEntity> entityList = CosmosdbFacade.getEntityList_ByIdList(runContainer, runIdList, aclGroups);
+        return EntityDtoReturnList.ofAclGroups(toEntityDtoReturnList(entityList), aclGroups,
+                () -> CosmosdbFacade.countAclFiltered_ByIdList(runContainer, runIdList, aclGroups));
     }
 
 
     @Override
-    public List<EntityDtoReturn> getBHARunsByWellbore(String existenceKind, String wellboreEntityId) {
+    public EntityDtoReturnList getBHARunsByWellbore(String existenceKind, String wellboreEntityId, Set<String> aclGroups) {
         CosmosContainer runContainer = cosmosdbInit.getEntityContainer(ENTITY_TYPE.BHA_RUN.toLowerCase());
         List<String> ids = CosmosdbFacade.getIdList_LatestPerEntity_ByRelatedEntityId(runContainer, existenceKind, ENTITY_TYPE.WELLBORE, wellboreEntityId);
-        List<CosmosEntity> entityList = CosmosdbFacade.getEntityList_ByIdList(runContainer, ids);
-        return toEntityDtoReturnList(entityList);
+        List<CosmosEntity> entityList = CosmosdbFacade.getEntityList_ByIdList(runContainer, ids, aclGroups);
+        return EntityDtoReturnList.ofAclGroups(toEntityDtoReturnList(entityList), aclGroups,
+                () -> CosmosdbFacade.countAclFiltered_ByIdList(runContainer, ids, aclGroups));
     }
 
     //WellboreSegment
 
     @Override
-    public List<EntityDtoReturn> getHoleSectionsByWellbore(String existenceKind, String wellboreEntityId) {
+    public EntityDtoReturnList getHoleSectionsByWellbore(String existenceKind, String wellboreEntityId, Set<String> aclGroups) {
         CosmosContainer segmentContainer = cosmosdbInit.getEntityContainer(ENTITY_TYPE.HOLE_SECTION.toLowerCase());
         List<String> ids = CosmosdbFacade.getIdList_LatestPerEntity_ByRelatedEntityId(segmentContainer, existenceKind, ENTITY_TYPE.WELLBORE, wellboreEntityId);
-        List<CosmosEntity> entityList = CosmosdbFacade.getEntityList_ByIdList(segmentContainer, ids);
-        return toEntityDtoReturnList(entityList);
+        List<CosmosEntity> entityList = CosmosdbFacade.getEntityList_ByIdList(segmentContainer, ids, aclGroups);
+        return EntityDtoReturnList.ofAclGroups(toEntityDtoReturnList(entityList), aclGroups,
+                () -> CosmosdbFacade.countAclFiltered_ByIdList(segmentContainer, ids, aclGroups));
     }
 
     //WellboreTrajectory
 
     @Override
-    public List<EntityDtoReturn> getWellboreTrajectoriesByWells(String existenceKind, List<String> wellEntityIds) {
+    public EntityDtoReturnList getWellboreTrajectoriesByWells(String existenceKind, List<String> wellEntityIds, Set<String> aclGroups) {
         List<String> wellboreIds = getWellboreIdsByWells(existenceKind, wellEntityIds);
 
         CosmosContainer trajectoryContainer = cosmosdbInit.getEntityContainer(ENTITY_TYPE.WELLBORE_TRAJECTORY.toLowerCase());
@@ -101,13 +108,14 @@ public class CosmosQueryClient implements IQueryClient {
         for (String wellboreId : wellboreIds) {
             List<String> ids = CosmosdbFacade.getIdList_LatestPerEntity_ByRelatedId(trajectoryContainer, existenceKind, ENTITY_TYPE.WELLBORE, wellboreId);
             if (ids == null || ids.size() <= 0) {
-                String wellboreEntityId = wellboreId.split(":")[0];
+                String wellboreEntityId = Relationship.parseEntityId(wellboreId);
                 throw new AppException(HttpStatus.SC_NOT_FOUND, "Not found", "Could not find wellbore trajectory with wellbore id: " + wellboreEntityId);
             }
             IdList.addAll(ids);
         }
-        List<CosmosEntity> entityList = CosmosdbFacade.getEntityList_ByIdList(trajectoryContainer, IdList);
-        return toEntityDtoReturnList(entityList);
+        List<CosmosEntity> entityList = CosmosdbFacade.getEntityList_ByIdList(trajectoryContainer, IdList, aclGroups);
+        return EntityDtoReturnList.ofAclGroups(toEntityDtoReturnList(entityList), aclGroups,
+                () -> CosmosdbFacade.countAclFiltered_ByIdList(trajectoryContainer, IdList, aclGroups));
     }
 
     //ActivityPlan
@@ -263,11 +271,12 @@ public class CosmosQueryClient implements IQueryClient {
     //DrillingReport
 
     @Override
-    public List<EntityDtoReturn> getDrillingReportsByWellbore(String existenceKind, String wellboreEntityId) {
+    public EntityDtoReturnList getDrillingReportsByWellbore(String existenceKind, String wellboreEntityId, Set<String> aclGroups) {
         CosmosContainer drCollection = cosmosdbInit.getEntityContainer(ENTITY_TYPE.DRILL_REPORT.toLowerCase());
         List<String> ids = CosmosdbFacade.getIdList_LatestPerEntity_ByRelatedEntityId(drCollection, existenceKind, ENTITY_TYPE.WELLBORE, wellboreEntityId);
-        List<CosmosEntity> docs = CosmosdbFacade.getEntityList_ByIdList(drCollection, ids);
-        return toEntityDtoReturnList(docs);
+        List<CosmosEntity> docs = CosmosdbFacade.getEntityList_ByIdList(drCollection, ids, aclGroups);
+        return EntityDtoReturnList.ofAclGroups(toEntityDtoReturnList(docs), aclGroups,
+                () -> CosmosdbFacade.countAclFiltered_ByIdList(drCollection, ids, aclGroups));
     }
 
     @Override
@@ -281,7 +290,7 @@ public class CosmosQueryClient implements IQueryClient {
     }
 
     @Override
-    public List<EntityDtoReturn> getDrillingReportsByTimeRange(String existenceKind, String startTimeString, String endTimeString) {
+    public EntityDtoReturnList getDrillingReportsByTimeRange(String existenceKind, String startTimeString, String endTimeString, Set<String> aclGroups) {
         CosmosContainer drCollection = cosmosdbInit.getEntityContainer(ENTITY_TYPE.DRILL_REPORT.toLowerCase());
 
         try {
@@ -294,8 +303,9 @@ public class CosmosQueryClient implements IQueryClient {
         }
 
         List<String> ids = CosmosdbFacade.getIdList_LatestPerEntity_ByTimeRange(drCollection, existenceKind, startTimeString, endTimeString);
-        List<CosmosEntity> docs = CosmosdbFacade.getEntityList_ByIdList(drCollection, ids);
-        return toEntityDtoReturnList(docs);
+        List<CosmosEntity> docs = CosmosdbFacade.getEntityList_ByIdList(drCollection, ids, aclGroups);
+        return EntityDtoReturnList.ofAclGroups(toEntityDtoReturnList(docs), aclGroups,
+                () -> CosmosdbFacade.countAclFiltered_ByIdList(drCollection, ids, aclGroups));
     }
 
     @Override
@@ -312,11 +322,12 @@ public class CosmosQueryClient implements IQueryClient {
     //FluidsReports
 
     @Override
-    public List<EntityDtoReturn> getFluidsReportsByWellbore(String existenceKind, String wellboreEntityId) {
+    public EntityDtoReturnList getFluidsReportsByWellbore(String existenceKind, String wellboreEntityId, Set<String> aclGroups) {
         CosmosContainer dfCollection = cosmosdbInit.getEntityContainer(ENTITY_TYPE.FLUIDS_REPORT.toLowerCase());
         List<String> ids = CosmosdbFacade.getIdList_LatestPerEntity_ByRelatedEntityId(dfCollection, existenceKind, ENTITY_TYPE.WELLBORE, wellboreEntityId);
-        List<CosmosEntity> docs = CosmosdbFacade.getEntityList_ByIdList(dfCollection, ids);
-        return toEntityDtoReturnList(docs);
+        List<CosmosEntity> docs = CosmosdbFacade.getEntityList_ByIdList(dfCollection, ids, aclGroups);
+        return EntityDtoReturnList.ofAclGroups(toEntityDtoReturnList(docs), aclGroups,
+                () -> CosmosdbFacade.countAclFiltered_ByIdList(dfCollection, ids, aclGroups));
     }
 
     private String getWellboreEntityIdByWell(String existenceKind, String wellEntityId) {
@@ -324,7 +335,7 @@ public class CosmosQueryClient implements IQueryClient {
         String wellboreId = CosmosdbFacade.getLatestId_ByRelatedEntityId(wellboreCollection, existenceKind, ENTITY_TYPE.WELL, wellEntityId);
         if (wellboreId == null)
             throw new AppException(HttpStatus.SC_NOT_FOUND, "Not found", "Could not find wellbore with well id: " + wellEntityId);
-        return wellboreId.split(":")[0];
+        return Relationship.parseEntityId(wellboreId);
     }
 
     private List<String> getWellboreIdsByWells(String existenceKind, List<String> wellEntityIds) {
@@ -15,22 +15,24 @@
 package org.opengroup.osdu.wd.azure.cosmosdb;
 
 import com.azure.cosmos.CosmosContainer;
-import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import org.apache.commons.lang3.StringUtils;
+import org.opengroup.osdu.wd.core.dataaccess.interfaces.ITreeNodeSource;
+import org.opengroup.osdu.wd.core.models.EntityDto;
 import org.opengroup.osdu.wd.core.models.Relationship;
+import org.opengroup.osdu.wd.core.util.TreeTraversalEngine;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.annotation.RequestScope;
 
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @Component
 @RequestScope
-public class CosmosTreeTraversal {
+public class CosmosTreeTraversal implements ITreeNodeSource<CosmosEntity> {
     @Autowired
     CosmosdbInit cosmosdbInit;
 
@@ -42,98 +44,36 @@ public class CosmosTreeTraversal {
     }
 
     public JsonObject buildEntityRef(CosmosEntity entity) {
-        JsonObject res = new JsonObject();
-
-        String entityId = entity.getEntityId();
-        String entityType = entity.getEntityType();
-        if (!this.idSet.contains(entityType + entityId))
-            this.idSet.add(entityType + entityId);
-
-        res.addProperty("id", entityId);
-        res.addProperty("version", entity.getVersion());
-        res.addProperty("type", entityType);
-
-        List<Relationship> relationships = entity.getRelationships();
-        if (relationships == null || relationships.size() == 0)
-            return res;
-
-        JsonArray arr = new JsonArray();
-        for (Relationship rs : relationships) {
-            String id = rs.getId();
-            String type = rs.getEntityType();
-            if (StringUtils.isBlank(id) || StringUtils.isBlank(type) || !id.matches("^[^:]+:[0-9]+$"))
-                continue;
-            if (this.idSet.contains(type + id.split(":")[0]))
-                continue;
-            else
-                this.idSet.add(type + id.split(":")[0]);
-
-            CosmosContainer subCollection = cosmosdbInit.getEntityContainerOrNull(type);
-            if(subCollection != null) {
-                CosmosEntity sub = getSpecificEntity(subCollection, id);
-                if (sub != null) {
-                    JsonObject children = buildEntityRef(sub);
-                    arr.add(children);
-                }
-            }
-        }
-        if (arr.size() > 0)
-            res.add("items", arr);
-
-        return res;
+        return new TreeTraversalEngine<>(this, this.idSet).buildRef(entity);
     }
 
     public List<CosmosEntity> buildEntityList(CosmosEntity entity) {
-        List<CosmosEntity> res = new ArrayList<>();
-
-        String entityId = entity.getEntityId();
-        String entityType = entity.getEntityType();
-        if (!this.idSet.contains(entityType + entityId))
-            this.idSet.add(entityType + entityId);
-        res.add(entity);
-
-        List<Relationship> relationships = entity.getRelationships();
-        if (relationships == null || relationships.size() == 0)
-            return res;
-
-        for (Relationship rs : relationships) {
-            String id = rs.getId();
-            String type = rs.getEntityType();
-            if (StringUtils.isBlank(id) || StringUtils.isBlank(type))
-                continue;
-            if (this.idSet.contains(type + id.split(":")[0]))
-                continue;
-            else
-                this.idSet.add(type + id.split(":")[0]);
+        return new TreeTraversalEngine<>(this, this.idSet).buildList(entity);
+    }
 
-            CosmosContainer subCollection = cosmosdbInit.getEntityContainerOrNull(type);
-            if(subCollection != null) {
-                CosmosEntity sub = getSpecificEntity(subCollection, id);
-                if (sub != null) {
-                    List<CosmosEntity> children = buildEntityList(sub);
-                    res.addAll(children);
-                }
-            }
-        }
-        return res;
+    @Override
+    public EntityDto getHeader(CosmosEntity entity) {
+        EntityDto header = new EntityDto();
+        header.setEntityId(entity.getEntityId());
+        header.setEntityType(entity.getEntityType());
+        header.setVersion(entity.getVersion());
+        return header;
     }
 
-    private CosmosEntity getLatestEntity(CosmosContainer container, String entityId) {
-        if (StringUtils.isBlank(entityId))
-            return null;
-        CosmosEntity entity = CosmosdbFacade.findLatestItem(container, entityId);
-        if (entity == null)
-            return null;
-        return  entity;
+    @Override
+    public List<Relationship> getRelationships(CosmosEntity entity) {
+        return entity.getRelationships();
     }
 
-    private CosmosEntity getSpecificEntity(CosmosContainer container, String id) {
-        if (StringUtils.isBlank(id))
-            return null;
-        String partitionKey = id.split(":")[0];
-        CosmosEntity entity = CosmosdbFacade.findSpecificItem(container, id, partitionKey);
-        if (entity == null)
-            return null;
-        return  entity;
+    @Override
+    public Map<String, CosmosEntity> findByIds(String entityType, List<String> ids) {
+        Map<String, CosmosEntity> res = new HashMap<>();
+        CosmosContainer container = cosmosdbInit.getEntityContainerOrNull(entityType);
+        if (container == null)
+            return res;
+        for (CosmosEntity entity : CosmosdbFacade.getEntityList_ByIdList(container, ids)) {
+            res.put(entity.getId(), entity);
+        }
+        return res;
     }
 }
@@ -34,6 +34,7 @@ import java.util.stream.Collectors;
 public class CosmosdbFacade {
 
     private static final Logger LOGGER = Logger.getLogger(CosmosdbFacade.class.getName());
+    private static final int HEAD_UPDATE_ATTEMPTS = 10;
     private static final String selectSQL = "c.id, c.origId, c.entityId, c.entityType, c.kind, c.version, c.deleted, c.acl, c.legal, c.existenceKind, c.timeStamp, c.startTime, c.endTime, c.relationships, c.valid, c.data, c.meta";
 
     /////////////////////////////////////////
@@ -71,7 +72,7 @@ public class CosmosdbFacade {
     }
 
     public static CosmosEntity findLatestItem(CosmosContainer container, String entityId) {
-        String query = String.format("SELECT top 1 * FROM c WHERE c.entityId = '%s' ORDER BY c.id desc", entityId);
+        String query = String.format("SELECT top 1 * FROM c WHERE c.entityId = '%s' ORDER BY c.version desc", entityId);
         List<CosmosEntity> list = queryItems(container, query, CosmosEntity.class);
         if (list.size() > 0)
             return list.iterator().next();
@@ -178,12 +179,134 @@ public class CosmosdbFacade {
     }
 
 
+    /////////////////////////////////////////
+    // Head version
+    ////////////////////////////////////////
+
+    public static CosmosEntityHead findHead(CosmosContainer heads, String entityId) {
+        CosmosItemProperties properties = readHead(heads, entityId);
+        return properties == null ? null : toHead(properties, entityId);
+    }
+
+    /**
+     * Points the head at the given version unless a newer version is already the head.
+     * The head is created if absent and otherwise replaced only if it is unchanged since it was read, a concurrent
+     * update of the head makes it read and compare the head again.
+     */
+    public static void upsertHead(CosmosContainer heads, String entityId, long version, String docId) {
+        CosmosEntityHead head = new CosmosEntityHead(entityId, version, docId);
+        try {
+            for (int attempt = 0; attempt < HEAD_UPDATE_ATTEMPTS; attempt++) {
+                CosmosItemProperties current = readHead(heads, entityId);
+                if (current == null) {
+                    try {
+                        heads.createItem(head);
+                        return;
+                    } catch (ConflictException e) {
+                        continue;
+                    }
+                }
+                CosmosEntityHead currentHead = toHead(current, entityId);
+                if (currentHead != null && currentHead.getVersion() > version)
+                    return;
+                try {
+                    heads.getItem(entityId, entityId).replace(head, ifMatch(entityId, current.getETag()));
+                    return;
+                } catch (PreconditionFailedException | NotFoundException e) {
+                    // changed or deleted since it was read
+                }
+            }
+        } catch (CosmosClientException e) {
+            String errorMessage = "Unexpectedly failed to put head into CosmosDB";
+            LOGGER.log(Level.WARNING, errorMessage, e);
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, e.getMessage(), e);
+        }
+        throw new AppException(HttpStatus.SC_CONFLICT, "Conflict", String.format("The head of entity %s is updated concurrently", entityId));
+    }
+
+    public static void deleteHead(CosmosContainer heads, String entityId) {
+        purgeItem(heads, entityId, entityId);
+    }
+
+    /**
+     * Re-points the head at the latest live version if it currently points at the given version, or deletes it if no
+     * live version is left. Both only succeed if the head is unchanged since it was read, so a head written by a
+     * concurrent save is kept, and the head is never missing in between.
+     */
+    public static void refreshHead(CosmosContainer container, CosmosContainer heads, String entityId, long version) {
+        try {
+            for (int attempt = 0; attempt < HEAD_UPDATE_ATTEMPTS; attempt++) {
+                CosmosItemProperties current = readHead(heads, entityId);
+                CosmosEntityHead currentHead = current == null ? null : toHead(current, entityId);
+                if (currentHead == null || currentHead.getVersion() != version)
+                    return;
+                CosmosEntity latest = findLatestLiveItem(container, entityId);
+                try {
+                    if (latest == null)
+                        heads.getItem(entityId, entityId).delete(ifMatch(entityId, current.getETag()));
+                    else
+                        heads.getItem(entityId, entityId).replace(new CosmosEntityHead(entityId, latest.getVersion(), latest.getId()),
+                                ifMatch(entityId, current.getETag()));
+                    return;
+                } catch (PreconditionFailedException | NotFoundException e) {
+                    // changed or deleted since it was read
+                }
+            }
+        } catch (CosmosClientException e) {
+            String errorMessage = "Unexpectedly failed to refresh head in CosmosDB";
+            LOGGER.log(Level.WARNING, errorMessage, e);
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, e.getMessage(), e);
+        }
+        throw new AppException(HttpStatus.SC_CONFLICT, "Conflict", String.format("The head of entity %s is updated concurrently", entityId));
+    }
+
+    private static CosmosItemProperties readHead(CosmosContainer heads, String entityId) {
+        try {
+            return heads.getItem(entityId, entityId)
+                    .read(new CosmosItemRequestOptions(entityId))
+                    .getProperties();
+        } catch (NotFoundException e) {
+            return null;
+        } catch (CosmosClientException e) {
+            String errorMessage = "Unexpectedly encountered error calling CosmosDB";
+            LOGGER.log(Level.WARNING, errorMessage, e);
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, e.getMessage(), e);
+        }
+    }
+
+    private static CosmosEntityHead toHead(CosmosItemProperties properties, String entityId) {
+        try {
+            return properties.getObject(CosmosEntityHead.class);
+        } catch (IOException e) {
+            LOGGER.warning(String.format("Malformed head for entity with ID=%s", entityId));
+            return null;
+        }
+    }
+
+    private static CosmosItemRequestOptions ifMatch(String partitionKey, String etag) {
+        AccessCondition condition = new AccessCondition();
+        condition.setType(AccessConditionType.IF_MATCH);
+        condition.setCondition(etag);
+        CosmosItemRequestOptions options = new CosmosItemRequestOptions(partitionKey);
+        options.setAccessCondition(condition);
+        return options;
+    }
+
+    public static CosmosEntity findLatestLiveItem(CosmosContainer container, String entityId) {
+        String query = String.format("SELECT top 1 * FROM c WHERE c.entityId = '%s' and c.deleted = false ORDER BY c.version desc", entityId);
+        List<CosmosEntity> list = queryItems(container, query, CosmosEntity.class);
+        if (list.size() > 0)
+            return list.iterator().next();
+        else
+            return null;
+    }
+
     /////////////////////////////////////////
     // Query Operation
     ////////////////////////////////////////
 
     public static CosmosEntity getLatestEntity_ByName(CosmosContainer container, String existenceKind, String name) {
-        String query = String.format("SELECT top 1 %s FROM c WHERE c.deleted = false and c.existenceKind = '%s' and c.data.FacilityName = '%s' ORDER BY c.id desc",
+        String query = String.format("SELECT top 1 %s FROM c WHERE c.deleted = false and c.existenceKind = '%s' and c.data.FacilityName = '%s' ORDER BY c.version desc",
                 selectSQL, existenceKind.toLowerCase(), name);
         List<CosmosEntity> entities = queryItems(container, query, CosmosEntity.class);
         if (entities.size() < 1 || entities.get(0) == null)
@@ -217,7 +340,7 @@ public class CosmosdbFacade {
     }
 
     public static List<String> getIdList_Relationships_ByEntityId(CosmosContainer container, String existenceKind, String entityId, String relationshipType){
-        String query = String.format("SELECT top 1 %s FROM c WHERE c.deleted = false and c.existenceKind = '%s' and c.entityId = '%s' ORDER BY c.id desc",
+        String query = String.format("SELECT top 1 %s FROM c WHERE c.deleted = false and c.existenceKind = '%s' and c.entityId = '%s' ORDER BY c.version desc",
                 selectSQL, existenceKind.toLowerCase(), entityId);
         List<CosmosEntity> entities = queryItems(container, query, CosmosEntity.class);
         if(entities.size() < 1 || entities.get(0) == null)
@@ -237,7 +360,7 @@ public class CosmosdbFacade {
     }
 
     public static String getId_Relationship_ByEntityId(CosmosContainer container, String existenceKind, String entityId, String relationshipType) {
-        String query = String.format("SELECT top 1 %s FROM c WHERE c.deleted = false and c.existenceKind = '%s' and c.entityId = '%s' ORDER BY c.id desc",
+        String query = String.format("SELECT top 1 %s FROM c WHERE c.deleted = false and c.existenceKind = '%s' and c.entityId = '%s' ORDER BY c.version desc",
                 selectSQL, existenceKind.toLowerCase(), entityId);
         List<CosmosEntity> entities = queryItems(container, query, CosmosEntity.class);
         if (entities.size() < 1 || entities.get(0) == null)
@@ -256,8 +379,8 @@ public class CosmosdbFacade {
     }
 
     public static CosmosEntity getLatestEntity_ByRelatedEntityId(CosmosContainer container, String existenceKind, String relatedType, String relatedEntityId) {
-        String query = String.format("SELECT top 1 %s FROM c join a in c.relationships WHERE c.deleted = false and c.existenceKind = '%s' and a.entityType = '%s' and STARTSWITH(a.id, '%s:') ORDER BY c.version desc",
-                selectSQL, existenceKind.toLowerCase(), relatedType.toLowerCase(), relatedEntityId);
+        String query = String.format("SELECT top 1 %s FROM c join a in c.relationships WHERE c.deleted = false and c.existenceKind = '%s' and a.entityType = '%s' and %s ORDER BY c.version desc",
+                selectSQL, existenceKind.toLowerCase(), relatedType.toLowerCase(), relatedEntity(relatedEntityId));
         List<CosmosEntity> entities = queryItems(container, query, CosmosEntity.class);
         if (entities.size() < 1 || entities.get(0) == null)
             return null;
@@ -266,8 +389,8 @@ public class CosmosdbFacade {
     }
 
     public static String getLatestId_ByRelatedEntityId(CosmosContainer container, String existenceKind, String relatedType, String relatedEntityId) {
-        String query = String.format("SELECT top 1 %s FROM c join a in c.relationships WHERE c.deleted = false and c.existenceKind = '%s' and a.entityType = '%s' and STARTSWITH(a.id, '%s:') ORDER BY c.version desc",
-                selectSQL, existenceKind.toLowerCase(), relatedType.toLowerCase(), relatedEntityId);
+        String query = String.format("SELECT top 1 %s FROM c join a in c.relationships WHERE c.deleted = false and c.existenceKind = '%s' and a.entityType = '%s' and %s ORDER BY c.version desc",
+                selectSQL, existenceKind.toLowerCase(), relatedType.toLowerCase(), relatedEntity(relatedEntityId));
         List<CosmosEntity> entities = queryItems(container, query, CosmosEntity.class);
         if (entities.size() < 1 || entities.get(0) == null)
             return null;
@@ -296,8 +419,8 @@ public class CosmosdbFacade {
     }
 
     public static CosmosEntity getSpecificEntity_ByRelatedEntityId(CosmosContainer container, String existenceKind, long verison, String relatedType, String relatedEntityId) {
-        String query = String.format("SELECT top 1 %s FROM c join a in c.relationships WHERE c.deleted = false and c.existenceKind = '%s' and c.version = %d and a.entityType = '%s' and STARTSWITH(a.id, '%s:') ORDER BY c.version desc",
-                selectSQL, existenceKind.toLowerCase(), verison, relatedType.toLowerCase(), relatedEntityId);
+        String query = String.format("SELECT top 1 %s FROM c join a in c.relationships WHERE c.deleted = false and c.existenceKind = '%s' and c.version = %d and a.entityType = '%s' and %s ORDER BY c.version desc",
+                selectSQL, existenceKind.toLowerCase(), verison, relatedType.toLowerCase(), relatedEntity(relatedEntityId));
         List<CosmosEntity> entities = queryItems(container, query, CosmosEntity.class);
         if (entities.size() < 1 || entities.get(0) == null)
             return null;
@@ -306,8 +429,8 @@ public class CosmosdbFacade {
     }
 
     public static List<String> getIdList_LatestPerEntity_ByRelatedEntityId(CosmosContainer container, String existenceKind, String relatedType, String relatedEntityId) {
-        String query = String.format("SELECT c.entityId, c.id FROM c join a in c.relationships WHERE c.deleted = false and c.existenceKind = '%s' and a.entityType = '%s' and STARTSWITH(a.id, '%s:')",
-                existenceKind.toLowerCase(), relatedType.toLowerCase(), relatedEntityId);
+        String query = String.format("SELECT c.entityId, c.id FROM c join a in c.relationships WHERE c.deleted = false and c.existenceKind = '%s' and a.entityType = '%s' and %s",
+                existenceKind.toLowerCase(), relatedType.toLowerCase(), relatedEntity(relatedEntityId));
         List<ReturnRelationship> relationships = queryItems(container, query, ReturnRelationship.class);
         Map<String, String> map = new HashMap<>();
         for (ReturnRelationship relationship : relationships) {
@@ -348,8 +471,8 @@ public class CosmosdbFacade {
     }
 
     public static List<Long> getEntityVersionNumberList_ByRelatedEntityId(CosmosContainer container, String existenceKind, String relatedType, String relatedEntityId) {
-        String query = String.format("SELECT c.version FROM c join a in c.relationships WHERE c.deleted = false and c.existenceKind = '%s'  and a.entityType = '%s' and STARTSWITH(a.id, '%s:') ORDER BY c.version desc",
-                existenceKind.toLowerCase(), relatedType.toLowerCase(), relatedEntityId);
+        String query = String.format("SELECT c.version FROM c join a in c.relationships WHERE c.deleted = false and c.existenceKind = '%s'  and a.entityType = '%s' and %s ORDER BY c.version desc",
+                existenceKind.toLowerCase(), relatedType.toLowerCase(), relatedEntity(relatedEntityId));
         List<CosmosEntity> entities = queryItems(container, query, CosmosEntity.class);
         List<Long> list = new ArrayList<>();
         for (CosmosEntity entity : entities) {
@@ -360,16 +483,71 @@ public class CosmosdbFacade {
         return list;
     }
 
+    /**
+     * Relationships stored before entityId and version were kept separately are matched on the id prefix
+     * until the relationship-keys backfill has run for the type
+     **/
+    private static String relatedEntity(String relatedEntityId) {
+        return String.format("(a.entityId = '%s' or (NOT IS_DEFINED(a.entityId) and STARTSWITH(a.id, '%s:')))", relatedEntityId, relatedEntityId);
+    }
+
     public static List<CosmosEntity> getEntityList_ByIdList(CosmosContainer container, List<String> idList) {
-        if(idList == null || idList.size() == 0)
+        return getEntityList_ByIdList(container, idList, null);
+    }
+
+    /**
+     * Entities of the id list which have one of the acl groups as viewer or owner, all of them when aclGroups is null.
+     * The containers keep the default policy which indexes every path, ARRAY_CONTAINS is served by that index.
+     **/
+    public static List<CosmosEntity> getEntityList_ByIdList(CosmosContainer container, List<String> idList, Collection<String> aclGroups) {
+        if(idList == null || idList.size() == 0 || (aclGroups != null && aclGroups.isEmpty()))
             return new ArrayList<>();
 
-        String inClause = idList.stream().map(s -> "\"" + s + "\"").collect(Collectors.joining(","));
-        String query = "SELECT " + selectSQL + " FROM c WHERE c.id in (" + inClause + ")";
+        String query = "SELECT " + selectSQL + " FROM c WHERE c.id in (" + inClause(idList) + ")";
+        if (aclGroups != null)
+            query += " AND (" + aclClause(aclGroups) + ")";
         List<CosmosEntity> entities = queryItems(container, query, CosmosEntity.class);
         return entities;
     }
 
+    /**
+     * Number of entities of the id list which have none of the acl groups as viewer or owner
+     **/
+    public static long countAclFiltered_ByIdList(CosmosContainer container, List<String> idList, Collection<String> aclGroups) {
+        if(idList == null || idList.size() == 0)
+            return 0;
+
+        String query = "SELECT c.entityId, c.id FROM c WHERE c.id in (" + inClause(idList) + ")";
+        if (!aclGroups.isEmpty())
+            query += " AND NOT (" + aclClause(aclGroups) + ")";
+        return queryItems(container, query, ReturnRelationship.class).size();
+    }
+
+    private static String inClause(List<String> idList) {
+        return idList.stream().map(s -> "\"" + s + "\"").collect(Collectors.joining(","));
+    }
+
+    private static String aclClause(Collection<String> aclGroups) {
+        return aclGroups.stream()
+                .map(g -> "\"" + g.replace("\\", "\\\\").replace("\"", "\\\"") + "\"")
+                .map(g -> "ARRAY_CONTAINS(c.acl.viewers, " + g + ") OR ARRAY_CONTAINS(c.acl.owners, " + g + ")")
+                .collect(Collectors.joining(" OR "));
+    }
+
+    /////////////////////////////////////////
+    // Migration
+    ////////////////////////////////////////
+
+    public static int backfillRelationshipKeys(CosmosContainer container) {
+        String query = "SELECT * FROM c WHERE EXISTS(SELECT VALUE a FROM a IN c.relationships WHERE IS_STRING(a.id) and NOT IS_STRING(a.entityId))";
+        List<CosmosEntity> entities = queryItems(container, query, CosmosEntity.class);
+        for (CosmosEntity entity : entities) {
+            entity.getRelationships().forEach(Relationship::normalize);
+            upsertItem(container, entity);
+        }
+        return entities.size();
+    }
+
     private static List<CosmosEntity> getEntites(CosmosContainer container, String entityId) {
         String query = String.format("SELECT * FROM c WHERE c.entityId = '%s'", entityId);
         List<CosmosEntity> list = queryItems(container, query, CosmosEntity.class);
@@ -36,6 +36,7 @@ public class CosmosdbInit {
 
     private CosmosClient cosmosClient;
     private CosmosContainer entityContainer;
+    private CosmosContainer headContainer;
 
     public CosmosContainer getEntityContainer(String entityType) {
         if (cosmosClient == null)
@@ -64,6 +65,15 @@ public class CosmosdbInit {
         return entityContainer;
     }
 
+    public CosmosContainer getHeadContainer(String entityType) {
+        if (cosmosClient == null)
+            cosmosClient = getCosmosClient();
+        String containerName = entityType + "HeadContainer";
+        if (headContainer == null || !headContainer.getId().equalsIgnoreCase(containerName))
+            headContainer = CosmosdbFacade.createOrGetContainer(cosmosClient, this.cosmosDBName, containerName);
+        return headContainer;
+    }
+
     private CosmosClient getCosmosClient() {
         String partitionId = requestInfo.getDpsHeaders().getPartitionId();
         PartitionAndCacheService.CosmosConfig config = partitionService.getCosmosConfig(partitionId);
@@ -17,6 +17,7 @@
 
 package org.opengroup.osdu.wd.gcp;
 
+import org.opengroup.osdu.wd.core.dataaccess.impl.MongoClientRegistry;
 import org.opengroup.osdu.wd.core.dataaccess.impl.MongodbInit;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -32,7 +33,7 @@ import org.springframework.context.annotation.FilterType;
 },
         excludeFilters = @Filter(
                 type = FilterType.ASSIGNABLE_TYPE,
-                classes = MongodbInit.class
+                classes = {MongodbInit.class, MongoClientRegistry.class}
         )
 )
 @SpringBootApplication(exclude={
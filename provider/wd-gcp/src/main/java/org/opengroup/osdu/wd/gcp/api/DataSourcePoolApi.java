@@ -0,0 +1,49 @@
+/*
+ *   Copyright 2020-2021 Google LLC
+ *   Copyright 2020-2021 EPAM Systems, Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.opengroup.osdu.wd.gcp.api;
+
+import lombok.RequiredArgsConstructor;
+import org.opengroup.osdu.wd.core.auth.EntityRole;
+import org.opengroup.osdu.wd.core.util.Common;
+import org.opengroup.osdu.wd.gcp.dataaccess.db.postgres.config.PartitionRoutingDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("admin/v1/datasource")
+@ConditionalOnProperty(name = "app.datasource.routing.enabled", havingValue = "true")
+public class DataSourcePoolApi {
+
+    private final PartitionRoutingDataSource routingDataSource;
+
+    /**
+     * Connection counts of the default pool and of the pool of every data partition in use
+     **/
+    @GetMapping("/pools")
+    @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.ADMIN + "')")
+    public ResponseEntity<StreamingResponseBody> getPools() {
+        return Common.toResponse(routingDataSource.getPoolStats(), HttpStatus.OK);
+    }
+}
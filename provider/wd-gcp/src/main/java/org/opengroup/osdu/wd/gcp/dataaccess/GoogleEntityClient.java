@@ -17,20 +17,25 @@
 
 package org.opengroup.osdu.wd.gcp.dataaccess;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.opengroup.osdu.core.client.model.http.AppException;
 import org.opengroup.osdu.wd.core.dataaccess.interfaces.IEntityDBClient;
+import org.opengroup.osdu.wd.core.models.EntityBatchItem;
+import org.opengroup.osdu.wd.core.models.EntityBatchResult;
 import org.opengroup.osdu.wd.core.models.EntityDto;
 import org.opengroup.osdu.wd.core.models.EntityDtoReturn;
 import org.opengroup.osdu.wd.core.models.Relationship;
 import org.opengroup.osdu.wd.gcp.dataaccess.db.postgres.JdbcEntityRepository;
-import org.opengroup.osdu.wd.gcp.model.JdbcEntity;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @RequiredArgsConstructor
 @Service
@@ -41,18 +46,38 @@ public class GoogleEntityClient implements IEntityDBClient {
     private final JdbcEntityRepository jdbcEntityRepository;
 
     @Override
+    @Transactional
     public EntityDtoReturn saveEntity(EntityDto dto, List<Relationship> relationships) {
-        Optional<JdbcEntity> entity = jdbcEntityRepository.getSpecificVersionByIdAndType(dto.getEntityType(), dto.getEntityId(), dto.getVersion());
-        EntityDto entityDto = null;
-        if (entity.isPresent()) {
-            entityDto = jdbcEntityRepository.updateEntity(entity.get().getId(), dto, relationships).getEntityDtoFromData();
-        } else {
-            entityDto = jdbcEntityRepository.insertEntity(dto, relationships).getEntityDtoFromData();
-        }
+        EntityDto entityDto = jdbcEntityRepository.upsertEntity(dto, relationships).getEntityDtoFromData();
+        jdbcEntityRepository.upsertHead(dto.getEntityType(), dto.getEntityId(), dto.getVersion());
 
         return new EntityDtoReturn(entityDto);
     }
 
+    @Override
+    @Transactional
+    public List<EntityBatchResult> saveEntities(List<EntityBatchItem> items) {
+        // the same entity version may appear more than once in a batch, the last one wins
+        Map<String, EntityBatchItem> latestItems = new LinkedHashMap<>();
+        for (EntityBatchItem item : items) {
+            EntityDto dto = item.getDto();
+            latestItems.put(dto.getEntityType() + "/" + dto.getEntityId() + ":" + dto.getVersion(), item);
+        }
+        List<EntityBatchItem> distinctItems = new ArrayList<>(latestItems.values());
+
+        jdbcEntityRepository.upsertEntities(distinctItems);
+        jdbcEntityRepository.upsertHeads(distinctItems.stream()
+            .map(EntityBatchItem::getDto)
+            .collect(Collectors.toList()));
+
+        // one transaction, an error fails the whole batch and is raised to the caller
+        List<EntityBatchResult> res = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            res.add(EntityBatchResult.created(i, items.get(i).getDto()));
+        }
+        return res;
+    }
+
     @Override
     public EntityDtoReturn getLatestEntityVersion(String entityType, String entityId) {
         EntityDto entityDto = jdbcEntityRepository.getLatestByIdAndType(entityType, entityId).orElseThrow(() ->
@@ -79,23 +104,36 @@ public class GoogleEntityClient implements IEntityDBClient {
     }
 
     @Override
+    @Transactional
     public long deleteEntity(String entityType, String entityId) {
+        jdbcEntityRepository.deleteHead(entityType, entityId);
         return jdbcEntityRepository.deleteEntity(entityType, entityId);
     }
 
     @Override
+    @Transactional
     public long purgeEntity(String entityType, String entityId) {
+        jdbcEntityRepository.deleteHead(entityType, entityId);
         return jdbcEntityRepository.purgeEntity(entityType, entityId);
     }
 
     @Override
+    @Transactional
     public long deleteEntityVersion(String entityType, String entityId, long version) {
-        return jdbcEntityRepository.deleteSpecificEntityVersion(entityType, entityId, version);
+        long deleted = jdbcEntityRepository.deleteSpecificEntityVersion(entityType, entityId, version);
+        if (jdbcEntityRepository.deleteHeadVersion(entityType, entityId, version))
+            jdbcEntityRepository.refreshHead(entityType, entityId);
+        return deleted;
     }
 
     @Override
+    @Transactional
     public long purgeEntityVersion(String entityType, String entityId, long version) {
         return deleteEntityVersion(entityType, entityId, version);
     }
 
+    @Override
+    public long backfillRelationshipKeys(String entityType) {
+        return jdbcEntityRepository.backfillRelationshipKeys(entityType);
+    }
 }
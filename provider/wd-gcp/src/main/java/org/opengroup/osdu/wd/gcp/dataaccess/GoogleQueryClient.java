@@ -25,18 +25,23 @@ import static org.opengroup.osdu.wd.core.models.ENTITY_TYPE.WELLBORE;
 import static org.opengroup.osdu.wd.core.models.ENTITY_TYPE.WELLBORE_TRAJECTORY;
 import static org.opengroup.osdu.wd.core.models.ENTITY_TYPE.WELL_ACTIVITY_PROGRAM;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.opengroup.osdu.core.client.model.http.AppException;
 import org.opengroup.osdu.wd.core.dataaccess.interfaces.IQueryClient;
 import org.opengroup.osdu.wd.core.models.EntityDtoReturn;
+import org.opengroup.osdu.wd.core.models.EntityDtoReturnList;
 import org.opengroup.osdu.wd.gcp.dataaccess.db.postgres.JdbcEntityRepository;
 import org.opengroup.osdu.wd.gcp.model.JdbcEntity;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
@@ -47,16 +52,16 @@ public class GoogleQueryClient implements IQueryClient {
 
     private final JdbcTreeTraversal treeTraversal;
 
+    @Value("${app.entity.read.passthrough:false}")
+    private boolean passthrough;
+
     @Override
-    public List<EntityDtoReturn> getBHARunsBySection(String existenceKind, String sectionId) {
-        return jdbcEntityRepository
-            .getEntitiesByExistenceKindAndRelationshipEntityId(BHA_RUN, existenceKind, HOLE_SECTION, sectionId).stream()
-            .map(e -> new EntityDtoReturn(e.getEntityDtoFromData()))
-            .collect(Collectors.toList());
+    public EntityDtoReturnList getBHARunsBySection(String existenceKind, String sectionId, Set<String> aclGroups) {
+        return getEntitiesByRelatedEntity(BHA_RUN, existenceKind, HOLE_SECTION, sectionId, aclGroups);
     }
 
     @Override
-    public List<EntityDtoReturn> getBHARunsByWells(String existenceKind, List<String> wellIds) {
+    public EntityDtoReturnList getBHARunsByWells(String existenceKind, List<String> wellIds, Set<String> aclGroups) {
         List<JdbcEntity> wellboresByWells =
             jdbcEntityRepository.getEntitiesByExistenceKindAndRelationshipEntityMultipleIds(WELLBORE, existenceKind, WELL, wellIds);
 
@@ -69,29 +74,21 @@ public class GoogleQueryClient implements IQueryClient {
             .map(e -> e.getEntityDtoFromData().getEntityId())
             .collect(Collectors.toList());
 
-        return jdbcEntityRepository.getEntitiesByExistenceKindAndRelationshipEntityMultipleIds(BHA_RUN, existenceKind, WELLBORE, wellboreIds).stream()
-            .map(e -> new EntityDtoReturn(e.getEntityDtoFromData()))
-            .collect(Collectors.toList());
+        return getEntitiesByRelatedEntities(BHA_RUN, existenceKind, WELLBORE, wellboreIds, aclGroups);
     }
 
     @Override
-    public List<EntityDtoReturn> getBHARunsByWellbore(String existenceKind, String wellboreId) {
-        return jdbcEntityRepository
-            .getEntitiesByExistenceKindAndRelationshipEntityId(BHA_RUN, existenceKind, WELLBORE, wellboreId).stream()
-            .map(e -> new EntityDtoReturn(e.getEntityDtoFromData()))
-            .collect(Collectors.toList());
+    public EntityDtoReturnList getBHARunsByWellbore(String existenceKind, String wellboreId, Set<String> aclGroups) {
+        return getEntitiesByRelatedEntity(BHA_RUN, existenceKind, WELLBORE, wellboreId, aclGroups);
     }
 
     @Override
-    public List<EntityDtoReturn> getHoleSectionsByWellbore(String existenceKind, String wellboreId) {
-        return jdbcEntityRepository
-            .getEntitiesByExistenceKindAndRelationshipEntityId(HOLE_SECTION, existenceKind, WELLBORE, wellboreId).stream()
-            .map(e -> new EntityDtoReturn(e.getEntityDtoFromData()))
-            .collect(Collectors.toList());
+    public EntityDtoReturnList getHoleSectionsByWellbore(String existenceKind, String wellboreId, Set<String> aclGroups) {
+        return getEntitiesByRelatedEntity(HOLE_SECTION, existenceKind, WELLBORE, wellboreId, aclGroups);
     }
 
     @Override
-    public List<EntityDtoReturn> getWellboreTrajectoriesByWells(String existenceKind, List<String> wellIds) {
+    public EntityDtoReturnList getWellboreTrajectoriesByWells(String existenceKind, List<String> wellIds, Set<String> aclGroups) {
         List<JdbcEntity> wellboresByWells =
             jdbcEntityRepository.getEntitiesByExistenceKindAndRelationshipEntityMultipleIds(WELLBORE, existenceKind, WELL, wellIds);
 
@@ -104,10 +101,7 @@ public class GoogleQueryClient implements IQueryClient {
             .map(e -> e.getEntityDtoFromData().getEntityId())
             .collect(Collectors.toList());
 
-        return jdbcEntityRepository.getEntitiesByExistenceKindAndRelationshipEntityMultipleIds(WELLBORE_TRAJECTORY, existenceKind, WELLBORE, wellboreIds)
-            .stream()
-            .map(e -> new EntityDtoReturn(e.getEntityDtoFromData()))
-            .collect(Collectors.toList());
+        return getEntitiesByRelatedEntities(WELLBORE_TRAJECTORY, existenceKind, WELLBORE, wellboreIds, aclGroups);
     }
 
     @Override
@@ -120,7 +114,7 @@ public class GoogleQueryClient implements IQueryClient {
                 HttpStatus.NOT_FOUND.getReasonPhrase(),
                 "Could not find latest activity plan with well id: " + wellId));
 
-        return new EntityDtoReturn(entity.getEntityDtoFromData());
+        return toEntityDtoReturn(entity);
     }
 
     @Override
@@ -134,7 +128,7 @@ public class GoogleQueryClient implements IQueryClient {
                     HttpStatus.NOT_FOUND.getReasonPhrase(),
                     "Could not find latest well activity program with well id:" + wellId));
 
-        return new EntityDtoReturn(entity.getEntityDtoFromData());
+        return toEntityDtoReturn(entity);
     }
 
     @Override
@@ -148,7 +142,7 @@ public class GoogleQueryClient implements IQueryClient {
                 HttpStatus.NOT_FOUND.getReasonPhrase(),
                 "Could not find specific well activity program with well id: " + wellId + ", version: " + dpVersion));
 
-        return new EntityDtoReturn(entity.getEntityDtoFromData());
+        return toEntityDtoReturn(entity);
     }
 
     @Override
@@ -193,7 +187,7 @@ public class GoogleQueryClient implements IQueryClient {
                     "Could not find specific well activity program with well id: " + wellId));
 
         List<JdbcEntity> entities = treeTraversal.buildEntityList(entity);
-        return entities.stream().map(e -> new EntityDtoReturn(e.getEntityDtoFromData()))
+        return entities.stream().map(this::toEntityDtoReturn)
             .collect(Collectors.toList());
     }
 
@@ -211,7 +205,7 @@ public class GoogleQueryClient implements IQueryClient {
                 HttpStatus.NOT_FOUND.getReasonPhrase(),
                 "Could not find latest wellbore with well id: " + wellId));
 
-        return new EntityDtoReturn(entity.getEntityDtoFromData());
+        return toEntityDtoReturn(entity);
     }
 
     @Override
@@ -222,7 +216,7 @@ public class GoogleQueryClient implements IQueryClient {
                 HttpStatus.NOT_FOUND.getReasonPhrase(),
                 "Could not find specific wellbore with well id: " + wellId + ", version: " + wellboreVersion));
 
-        return new EntityDtoReturn(entity.getEntityDtoFromData());
+        return toEntityDtoReturn(entity);
     }
 
     @Override
@@ -237,7 +231,7 @@ public class GoogleQueryClient implements IQueryClient {
             HttpStatus.NOT_FOUND.getReasonPhrase(),
             "Could not find well with well name: " + name + ", and existence kind: " + existenceKind));
 
-        return new EntityDtoReturn(entity.getEntityDtoFromData());
+        return toEntityDtoReturn(entity);
     }
 
     @Override
@@ -248,14 +242,17 @@ public class GoogleQueryClient implements IQueryClient {
                 HttpStatus.NOT_FOUND.getReasonPhrase(),
                 "Could not find well with well name: " + name + ", and existence kind: " + existenceKind + ", and version: " + version));
 
-        return new EntityDtoReturn(entity.getEntityDtoFromData());
+        return toEntityDtoReturn(entity);
     }
 
     @Override
-    public List<EntityDtoReturn> getDrillingReportsByWellbore(String existenceKind, String wellboreId) {
-        return jdbcEntityRepository.getDrillingReportsByWellbore(existenceKind, wellboreId).stream()
-            .map(e -> new EntityDtoReturn(e.getEntityDtoFromData()))
-            .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public EntityDtoReturnList getDrillingReportsByWellbore(String existenceKind, String wellboreId, Set<String> aclGroups) {
+        String[] groups = toArray(aclGroups);
+        List<EntityDtoReturn> reports = new ArrayList<>();
+        jdbcEntityRepository.forEachDrillingReportByWellbore(existenceKind, wellboreId, groups, entity -> reports.add(toEntityDtoReturn(entity)));
+        return EntityDtoReturnList.ofAclGroups(reports, aclGroups,
+            () -> jdbcEntityRepository.countAclFilteredDrillingReportsByWellbore(existenceKind, wellboreId, groups));
     }
 
     @Override
@@ -265,14 +262,19 @@ public class GoogleQueryClient implements IQueryClient {
             HttpStatus.NOT_FOUND.getReasonPhrase(),
             "Could not find latest drilling report by well bore id: " + wellboreId));
 
-        return new EntityDtoReturn(entity.getEntityDtoFromData());
+        return toEntityDtoReturn(entity);
     }
 
     @Override
-    public List<EntityDtoReturn> getDrillingReportsByTimeRange(String existenceKind, String startTimeString, String endTimeString) {
-        return jdbcEntityRepository.getDrillingReportsByTimeRange(existenceKind, startTimeString, endTimeString).stream()
-            .map(e -> new EntityDtoReturn(e.getEntityDtoFromData()))
-            .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public EntityDtoReturnList getDrillingReportsByTimeRange(String existenceKind, String startTimeString, String endTimeString,
+        Set<String> aclGroups) {
+        String[] groups = toArray(aclGroups);
+        List<EntityDtoReturn> reports = new ArrayList<>();
+        jdbcEntityRepository.forEachDrillingReportByTimeRange(existenceKind, startTimeString, endTimeString, groups,
+            entity -> reports.add(toEntityDtoReturn(entity)));
+        return EntityDtoReturnList.ofAclGroups(reports, aclGroups,
+            () -> jdbcEntityRepository.countAclFilteredDrillingReportsByTimeRange(existenceKind, startTimeString, endTimeString, groups));
     }
 
     @Override
@@ -286,10 +288,13 @@ public class GoogleQueryClient implements IQueryClient {
     }
 
     @Override
-    public List<EntityDtoReturn> getFluidsReportsByWellbore(String existenceKind, String wellboreId) {
-        return jdbcEntityRepository.getFluidReportsByWellbore(existenceKind, wellboreId).stream()
-            .map(e -> new EntityDtoReturn(e.getEntityDtoFromData()))
-            .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public EntityDtoReturnList getFluidsReportsByWellbore(String existenceKind, String wellboreId, Set<String> aclGroups) {
+        String[] groups = toArray(aclGroups);
+        List<EntityDtoReturn> reports = new ArrayList<>();
+        jdbcEntityRepository.forEachFluidReportByWellbore(existenceKind, wellboreId, groups, entity -> reports.add(toEntityDtoReturn(entity)));
+        return EntityDtoReturnList.ofAclGroups(reports, aclGroups,
+            () -> jdbcEntityRepository.countAclFilteredFluidReportsByWellbore(existenceKind, wellboreId, groups));
     }
 
     private String getWellboreIdByWell(String existenceKind, String wellEntityId) {
@@ -301,11 +306,41 @@ public class GoogleQueryClient implements IQueryClient {
                 "Could not find wellbore with well id: " + wellEntityId));
     }
 
+    private EntityDtoReturnList getEntitiesByRelatedEntity(String entityType, String existenceKind, String relatedType, String relatedId,
+        Set<String> aclGroups) {
+        String[] groups = toArray(aclGroups);
+        List<EntityDtoReturn> entities = jdbcEntityRepository
+            .getEntitiesByExistenceKindAndRelationshipEntityId(entityType, existenceKind, relatedType, relatedId, groups).stream()
+            .map(this::toEntityDtoReturn)
+            .collect(Collectors.toList());
+        return EntityDtoReturnList.ofAclGroups(entities, aclGroups,
+            () -> jdbcEntityRepository.countAclFilteredByExistenceKindAndRelationshipEntityId(entityType, existenceKind, relatedType, relatedId, groups));
+    }
+
+    private EntityDtoReturnList getEntitiesByRelatedEntities(String entityType, String existenceKind, String relatedType, List<String> relatedIds,
+        Set<String> aclGroups) {
+        String[] groups = toArray(aclGroups);
+        List<EntityDtoReturn> entities = jdbcEntityRepository
+            .getEntitiesByExistenceKindAndRelationshipEntityMultipleIds(entityType, existenceKind, relatedType, relatedIds, groups).stream()
+            .map(this::toEntityDtoReturn)
+            .collect(Collectors.toList());
+        return EntityDtoReturnList.ofAclGroups(entities, aclGroups,
+            () -> jdbcEntityRepository.countAclFilteredByExistenceKindAndRelationshipEntityMultipleIds(entityType, existenceKind, relatedType, relatedIds, groups));
+    }
+
+    private static String[] toArray(Set<String> aclGroups) {
+        return aclGroups == null ? null : aclGroups.toArray(new String[0]);
+    }
+
+    private EntityDtoReturn toEntityDtoReturn(JdbcEntity entity) {
+        return passthrough ? new EntityDtoReturn(entity.getEntityDtoFromRawData()) : entity.getEntityDtoReturnFromData();
+    }
+
     private boolean idNotPresentInRelationships(String id, List<JdbcEntity> entities) {
         return entities.stream()
             .map(JdbcEntity::getRelationshipsDto)
             .flatMap(Collection::stream)
-            .noneMatch(relationship -> relationship.getId().split(":")[0].equals(id));
+            .noneMatch(relationship -> id.equals(relationship.getEntityId()));
     }
 
 }
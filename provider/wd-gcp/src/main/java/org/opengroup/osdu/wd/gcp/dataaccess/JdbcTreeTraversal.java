@@ -17,107 +17,90 @@
 
 package org.opengroup.osdu.wd.gcp.dataaccess;
 
-import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Optional;
-import java.util.Set;
+import java.util.Map;
 import lombok.RequiredArgsConstructor;
-import org.apache.commons.lang3.StringUtils;
+import org.opengroup.osdu.wd.core.dataaccess.interfaces.ITreeNodeSource;
 import org.opengroup.osdu.wd.core.models.EntityDto;
 import org.opengroup.osdu.wd.core.models.Relationship;
+import org.opengroup.osdu.wd.core.util.TreeTraversalEngine;
 import org.opengroup.osdu.wd.gcp.dataaccess.db.postgres.JdbcEntityRepository;
 import org.opengroup.osdu.wd.gcp.model.JdbcEntity;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.web.context.annotation.RequestScope;
 
+/**
+ * Loads the whole reference tree with one recursive query and rebuilds it in memory.
+ */
 @Component
-@RequestScope
 @RequiredArgsConstructor
 public class JdbcTreeTraversal {
 
+    private static final int DEFAULT_MAX_DEPTH = 32;
+
     private final JdbcEntityRepository jdbcEntityRepository;
-    private Set<String> idSet = new HashSet<>();
+
+    @Value("${app.entity.tree.max-depth:32}")
+    private int maxDepth = DEFAULT_MAX_DEPTH;
 
     public JsonObject buildEntityRef(JdbcEntity entity) {
-        JsonObject res = new JsonObject();
+        return new TreeTraversalEngine<>(loadTree(entity), new HashSet<>()).buildRef(entity);
+    }
 
-        EntityDto entityDto = entity.getEntityDtoFromData();
-        String entityId = entityDto.getEntityId();
-        String entityType = entityDto.getEntityType();
+    public List<JdbcEntity> buildEntityList(JdbcEntity entity) {
+        return new TreeTraversalEngine<>(loadTree(entity), new HashSet<>()).buildList(entity);
+    }
 
-        idSet.add(entityType + entityId);
+    private EntityTree loadTree(JdbcEntity root) {
+        String rootType = root.getEntityType() != null ? root.getEntityType() : root.getEntityDtoFromData().getEntityType();
+        return new EntityTree(jdbcEntityRepository.getEntityTree(rootType, root.getId(), maxDepth));
+    }
 
-        res.addProperty("id", entityId);
-        res.addProperty("version", entityDto.getVersion());
-        res.addProperty("type", entityType);
+    private static String buildKey(String entityType, String entityId) {
+        return entityType.toLowerCase() + "/" + entityId.toLowerCase();
+    }
 
-        List<Relationship> relationships = entity.getRelationshipsDto();
-        if (relationships == null || relationships.isEmpty()) {
-            return res;
-        }
+    /**
+     * Result of the recursive query, relationships are resolved to the latest version of the referenced entity.
+     */
+    private static class EntityTree implements ITreeNodeSource<JdbcEntity> {
 
-        JsonArray arr = new JsonArray();
-        for (Relationship rs : relationships) {
-            String id = rs.getId();
-            String type = rs.getEntityType();
-            if (StringUtils.isBlank(id) || StringUtils.isBlank(type) || !id.matches("^[^:]+:[0-9]+$")) {
-                continue;
-            }
-            if (idSet.add(type + id.split(":")[0])) {
-                Optional<JdbcEntity> latestByIdAndType = getSpecificEntity(type, id);
-                if (latestByIdAndType.isPresent()) {
-                    JsonObject children = buildEntityRef(latestByIdAndType.get());
-                    arr.add(children);
+        private final Map<JdbcEntity, EntityDto> headers = new IdentityHashMap<>();
+        private final Map<String, JdbcEntity> entities = new HashMap<>();
+
+        EntityTree(List<JdbcEntity> rows) {
+            for (JdbcEntity row : rows) {
+                EntityDto header = getHeader(row);
+                if (header.getEntityType() != null && header.getEntityId() != null) {
+                    entities.put(buildKey(header.getEntityType(), header.getEntityId()), row);
                 }
             }
         }
-        if (arr.size() > 0) {
-            res.add("items", arr);
-        }
 
-        return res;
-    }
-
-    public List<JdbcEntity> buildEntityList(JdbcEntity entity) {
-        List<JdbcEntity> res = new ArrayList<>();
-
-        EntityDto entityDto = entity.getEntityDtoFromData();
-        String entityId = entityDto.getEntityId();
-        String entityType = entityDto.getEntityType();
-
-        idSet.add(entityType + entityId);
-        res.add(entity);
+        @Override
+        public EntityDto getHeader(JdbcEntity entity) {
+            return headers.computeIfAbsent(entity, JdbcEntity::getEntityDtoFromRawData);
+        }
 
-        List<Relationship> relationships = entity.getRelationshipsDto();
-        if (relationships == null || relationships.isEmpty()) {
-            return res;
+        @Override
+        public List<Relationship> getRelationships(JdbcEntity entity) {
+            return entity.getRelationshipsDto();
         }
 
-        for (Relationship rs : relationships) {
-            String id = rs.getId();
-            String type = rs.getEntityType();
-            if (StringUtils.isBlank(id) || StringUtils.isBlank(type)) {
-                continue;
-            }
-            if (idSet.add(type + id.split(":")[0])) {
-                Optional<JdbcEntity> latestByIdAndType = getSpecificEntity(type, id);
-                if (latestByIdAndType.isPresent()) {
-                    List<JdbcEntity> children = buildEntityList(latestByIdAndType.get());
-                    res.addAll(children);
+        @Override
+        public Map<String, JdbcEntity> findByIds(String entityType, List<String> ids) {
+            Map<String, JdbcEntity> res = new HashMap<>();
+            for (String id : ids) {
+                JdbcEntity entity = entities.get(buildKey(entityType, Relationship.parseEntityId(id)));
+                if (entity != null) {
+                    res.put(id, entity);
                 }
             }
+            return res;
         }
-        return res;
-    }
-
-    private Optional<JdbcEntity> getSpecificEntity(String entityType, String idWithVersion) {
-        if (StringUtils.isBlank(idWithVersion)) {
-            return Optional.empty();
-        }
-        String id = idWithVersion.split(":")[0];
-        return jdbcEntityRepository.getLatestByIdAndType(entityType, id);
     }
 }
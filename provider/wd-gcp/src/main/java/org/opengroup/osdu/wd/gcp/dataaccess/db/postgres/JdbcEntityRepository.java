@@ -17,104 +17,297 @@
 
 package org.opengroup.osdu.wd.gcp.dataaccess.db.postgres;
 
-import static org.opengroup.osdu.wd.gcp.util.QueryArgsConcatUtil.buildEndTimeParam;
-import static org.opengroup.osdu.wd.gcp.util.QueryArgsConcatUtil.buildEntityIdParam;
-import static org.opengroup.osdu.wd.gcp.util.QueryArgsConcatUtil.buildEntityTypeParam;
-import static org.opengroup.osdu.wd.gcp.util.QueryArgsConcatUtil.buildExistenceKindParam;
-import static org.opengroup.osdu.wd.gcp.util.QueryArgsConcatUtil.buildFacilityNameParam;
-import static org.opengroup.osdu.wd.gcp.util.QueryArgsConcatUtil.buildRelationshipEntityTypeParam;
-import static org.opengroup.osdu.wd.gcp.util.QueryArgsConcatUtil.buildRelationshipIdParam;
-import static org.opengroup.osdu.wd.gcp.util.QueryArgsConcatUtil.buildRelationshipMultipleIdsParam;
-import static org.opengroup.osdu.wd.gcp.util.QueryArgsConcatUtil.buildStartTimeParam;
-import static org.opengroup.osdu.wd.gcp.util.QueryArgsConcatUtil.buildVersionParam;
+import static org.opengroup.osdu.wd.gcp.util.QueryArgsConcatUtil.buildRelatedEntityParam;
+import static org.opengroup.osdu.wd.gcp.util.QueryArgsConcatUtil.buildRelatedVersionParam;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
-import java.sql.Statement;
+import java.sql.SQLException;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import javax.sql.DataSource;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.opengroup.osdu.core.client.model.http.AppException;
+import org.opengroup.osdu.wd.core.models.EntityBatchItem;
 import org.opengroup.osdu.wd.core.models.EntityDto;
 import org.opengroup.osdu.wd.core.models.Relationship;
+import org.opengroup.osdu.wd.gcp.dataaccess.db.postgres.config.PartitionRoutingDataSource;
 import org.opengroup.osdu.wd.gcp.model.JdbcEntity;
 import org.opengroup.osdu.wd.gcp.util.StatementBuilder;
 import org.postgresql.util.PGTimestamp;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.http.HttpStatus;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Repository
 @Slf4j
 @RequiredArgsConstructor
 public class JdbcEntityRepository {
 
-    private final JdbcTemplate jdbcTemplate;
+    private static final String RELATIONSHIP_KEY =
+        "lower(rel->>'entityType') || '/' || lower(rel->>'entityId')";
+
+    /**
+     * Walks the tree one level per iteration. Every level is one row holding the entities found on it, and the keys of all
+     * entities found so far, so an entity reached through several relationships is expanded only once.
+     */
+    private static final String ENTITY_TREE_SQL =
+        "WITH RECURSIVE levels(depth, types, ids, visited) AS ( "
+            + "SELECT 0, ARRAY[entity_type], ARRAY[id], ARRAY[entity_type || '/' || entity_id] "
+            + "FROM jdbc_entity WHERE entity_type = ? AND id = ? "
+            + "UNION ALL "
+            + "SELECT levels.depth + 1, found.types, found.ids, levels.visited || found.keys "
+            + "FROM levels "
+            + "CROSS JOIN LATERAL ( "
+            + "SELECT array_agg(child.entity_type) AS types, array_agg(child.id) AS ids, array_agg(rels.key) AS keys "
+            + "FROM ( "
+            + "SELECT DISTINCT lower(rel->>'entityType') AS entity_type, lower(rel->>'entityId') AS entity_id, "
+            + RELATIONSHIP_KEY + " AS key "
+            + "FROM jdbc_entity p "
+            + "CROSS JOIN LATERAL jsonb_array_elements(p.relationships) rel "
+            + "WHERE (p.entity_type, p.id) IN (SELECT * FROM unnest(levels.types, levels.ids)) "
+            + "AND coalesce(rel->>'entityId', '') <> '' AND coalesce(rel->>'entityType', '') <> '') rels "
+            + "CROSS JOIN LATERAL ( "
+            + "SELECT c.entity_type, c.id FROM jdbc_entity c "
+            + "WHERE c.deleted_at IS null "
+            + "AND c.entity_type = rels.entity_type AND c.entity_id = rels.entity_id "
+            + "ORDER BY c.version DESC LIMIT 1) child "
+            + "WHERE NOT rels.key = ANY (levels.visited)) found "
+            + "WHERE levels.depth < ? AND found.ids IS NOT NULL) "
+            + "SELECT * FROM jdbc_entity WHERE (entity_type, id) IN ("
+            + "SELECT node.entity_type, node.id FROM levels CROSS JOIN LATERAL unnest(levels.types, levels.ids) AS node(entity_type, id))";
+
+    private static final String RELATIONSHIP_KEYS =
+        "CASE WHEN rel->>'id' ~ ':[0-9]{1,18}$' "
+            + "THEN rel || jsonb_build_object('entityId', regexp_replace(rel->>'id', ':[0-9]+$', ''), "
+            + "'version', substring(rel->>'id' from ':([0-9]+)$')::bigint) "
+            + "ELSE rel || jsonb_build_object('entityId', rel->>'id') END";
+
+    private static final String MISSING_RELATIONSHIP_KEYS =
+        "coalesce(rel->>'entityId', '') = '' AND coalesce(rel->>'id', '') <> ''";
+
+    /**
+     * Rebuilds the relationship edges of the rows returned by a "saved" CTE as (id, entity_type, relationships).
+     */
+    private static final String INSERT_SAVED_EDGES =
+        "INSERT INTO jdbc_relationship(entity_pk, entity_type, related_type, related_entity_id, related_version) "
+            + "SELECT saved.id, saved.entity_type, lower(rel->>'entityType'), lower(rel->>'entityId'), (rel->>'version')::bigint "
+            + "FROM saved CROSS JOIN LATERAL jsonb_array_elements("
+            + "CASE WHEN jsonb_typeof(saved.relationships) = 'array' THEN saved.relationships ELSE '[]'::jsonb END) rel "
+            + "WHERE coalesce(rel->>'entityType', '') <> '' AND coalesce(rel->>'entityId', '') <> ''";
+
+    private static final String DELETE_SAVED_EDGES =
+        "DELETE FROM jdbc_relationship WHERE (entity_type, entity_pk) IN (SELECT entity_type, id FROM saved)";
+
+    /**
+     * Inserts the entity version or overwrites the existing row of it, reviving the row if it was soft deleted.
+     * Kept free of RETURNING and CTEs so that the driver can rewrite batches of it into multi-row inserts.
+     */
+    private static final String UPSERT_ENTITY =
+        "INSERT INTO jdbc_entity(entity_type, data, relationships) VALUES (?, ?, ?) "
+            + "ON CONFLICT (entity_type, entity_id, version) "
+            + "DO UPDATE SET data = EXCLUDED.data, relationships = EXCLUDED.relationships, deleted_at = null";
+
+    private static final String UPSERT_ENTITY_SQL =
+        "WITH saved AS (" + UPSERT_ENTITY + " RETURNING id, entity_type, relationships), "
+            + "stale AS (" + DELETE_SAVED_EDGES + "), "
+            + "edges AS (" + INSERT_SAVED_EDGES + ") "
+            + "SELECT id FROM saved";
+
+    private static final String REBUILD_EDGES_SQL =
+        "WITH saved AS (SELECT id, entity_type, relationships FROM jdbc_entity "
+            + "WHERE entity_type = ? AND (entity_id, version) IN (SELECT * FROM unnest(?::text[], ?::bigint[]))), "
+            + "stale AS (" + DELETE_SAVED_EDGES + ") "
+            + INSERT_SAVED_EDGES;
+
+    private static final String BACKFILL_RELATIONSHIP_KEYS_SQL =
+        "WITH saved AS ("
+            + "UPDATE jdbc_entity e SET relationships = ( "
+            + "SELECT jsonb_agg(CASE WHEN " + MISSING_RELATIONSHIP_KEYS + " THEN " + RELATIONSHIP_KEYS + " ELSE rel END ORDER BY ord) "
+            + "FROM jsonb_array_elements(e.relationships) WITH ORDINALITY AS r(rel, ord)) "
+            + "WHERE e.entity_type = ? AND jsonb_typeof(e.relationships) = 'array' "
+            + "AND EXISTS (SELECT 1 FROM jsonb_array_elements(e.relationships) rel WHERE " + MISSING_RELATIONSHIP_KEYS + ") "
+            + "RETURNING e.id, e.entity_type, e.relationships), "
+            + "stale AS (" + DELETE_SAVED_EDGES + "), "
+            + "edges AS (" + INSERT_SAVED_EDGES + ") "
+            + "SELECT count(*) FROM saved";
+
+    private static final String UPSERT_HEAD_SQL =
+        "INSERT INTO jdbc_entity_head(entity_type, entity_id, version, row_id) "
+            + "SELECT lower(entity_type), lower(entity_id), version, id FROM jdbc_entity "
+            + "WHERE deleted_at IS null AND entity_type = ? AND entity_id = ? AND version >= ? "
+            + "ORDER BY version DESC, id DESC LIMIT 1 "
+            + "ON CONFLICT (entity_type, entity_id) DO UPDATE SET version = EXCLUDED.version, row_id = EXCLUDED.row_id "
+            + "WHERE jdbc_entity_head.version <= EXCLUDED.version";
+
+    private static final String LATEST_BY_HEAD_SQL =
+        "SELECT e.* FROM jdbc_entity_head h JOIN jdbc_entity e ON e.entity_type = h.entity_type AND e.id = h.row_id "
+            + "WHERE h.entity_type = ? AND h.entity_id = ? AND e.deleted_at IS null";
+
+    private static final String DELETE_HEAD_SQL =
+        "DELETE FROM jdbc_entity_head WHERE entity_type = ? AND entity_id = ?";
+
+    private static final String DELETE_HEAD_VERSION_SQL =
+        "DELETE FROM jdbc_entity_head WHERE entity_type = ? AND entity_id = ? AND version = ?";
+
+    private static final String ENSURE_PARTITION_SQL = "SELECT wd_ensure_entity_partition(?)";
 
-    public JdbcEntity insertEntity(EntityDto dto, List<Relationship> relationships) {
-        JdbcEntity entity = new JdbcEntity();
-        entity.setDataFromEntityDto(dto);
-        entity.setRelationshipsFromDto(relationships);
+    private final JdbcTemplate jdbcTemplate;
 
-        KeyHolder keyHolder = new GeneratedKeyHolder();
+    /**
+     * Entity types whose partition is known to exist, or which stay in the default partition, per database.
+     */
+    private final Set<String> partitionedTypes = ConcurrentHashMap.newKeySet();
 
-        jdbcTemplate.update(con -> {
-            PreparedStatement ps = con.prepareStatement(
-                "INSERT INTO jdbc_entity(data, relationships) VALUES (?, ?) RETURNING id",
-                Statement.RETURN_GENERATED_KEYS);
-            ps.setObject(1, entity.getData());
-            ps.setObject(2, entity.getRelationships());
+    @Value("${app.entity.read.fetch-size:500}")
+    private int fetchSize = 500;
 
-            return ps;
-        }, keyHolder);
+    /**
+     * Saves the entity version and its relationship edges in one statement.
+     */
+    public JdbcEntity upsertEntity(EntityDto dto, List<Relationship> relationships) {
+        ensurePartition(dto.getEntityType());
 
-        entity.setId((Long) keyHolder.getKey());
+        JdbcEntity entity = new JdbcEntity(null, dto, relationships);
+        entity.setId(jdbcTemplate.queryForObject(UPSERT_ENTITY_SQL, Long.class,
+            entity.getEntityType(), entity.getData(), entity.getRelationships()));
 
         return entity;
     }
 
-    public JdbcEntity updateEntity(Long id, EntityDto dto, List<Relationship> relationships) {
-        JdbcEntity jdbcEntity = new JdbcEntity(id, dto, relationships);
-        jdbcTemplate.update(con -> {
-            PreparedStatement ps = con.prepareStatement("UPDATE jdbc_entity SET data = ?, relationships = ? WHERE id = ?");
-            ps.setObject(1, jdbcEntity.getData());
-            ps.setObject(2, jdbcEntity.getRelationships());
-            ps.setObject(3, id);
+    /**
+     * Saves the entity versions in one JDBC batch, then rebuilds their relationship edges with one statement per entity type.
+     * Every entity version is expected at most once.
+     */
+    public void upsertEntities(List<EntityBatchItem> items) {
+        if (items.isEmpty())
+            return;
+
+        Map<String, List<EntityDto>> dtosByType = items.stream()
+            .map(EntityBatchItem::getDto)
+            .collect(Collectors.groupingBy(EntityDto::getEntityType, LinkedHashMap::new, Collectors.toList()));
+        dtosByType.keySet().forEach(this::ensurePartition);
+
+        jdbcTemplate.batchUpdate(UPSERT_ENTITY, items, items.size(),
+            (ps, item) -> {
+                JdbcEntity entity = new JdbcEntity(null, item.getDto(), item.getRelationships());
+                ps.setString(1, entity.getEntityType());
+                ps.setObject(2, entity.getData());
+                ps.setObject(3, entity.getRelationships());
+            });
+
+        for (Map.Entry<String, List<EntityDto>> entry : dtosByType.entrySet()) {
+            String[] ids = entry.getValue().stream().map(EntityDto::getEntityId).toArray(String[]::new);
+            Long[] versions = entry.getValue().stream().map(EntityDto::getVersion).toArray(Long[]::new);
+
+            jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement(REBUILD_EDGES_SQL);
+                ps.setString(1, entry.getKey());
+                ps.setArray(2, con.createArrayOf("text", ids));
+                ps.setArray(3, con.createArrayOf("bigint", versions));
+
+                return ps;
+            });
+        }
+    }
 
-            return ps;
-        });
+    /**
+     * Creates the partition of the entity type on its first save. Types already in the default partition are left there.
+     */
+    private void ensurePartition(String entityType) {
+        if (entityType == null)
+            return;
+        String key = getDatabaseKey() + "/" + entityType;
+        if (partitionedTypes.contains(key))
+            return;
+
+        Boolean partitioned = jdbcTemplate.queryForObject(ENSURE_PARTITION_SQL, Boolean.class, entityType);
+        if (!Boolean.TRUE.equals(partitioned) && log.isInfoEnabled()) {
+            log.info("Entity type {} is kept in the default partition", entityType);
+        }
 
-        return jdbcEntity;
+        // the partition is created in the write transaction and goes away if it rolls back
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    partitionedTypes.add(key);
+                }
+            });
+        } else {
+            partitionedTypes.add(key);
+        }
+    }
+
+    private String getDatabaseKey() {
+        DataSource dataSource = jdbcTemplate.getDataSource();
+        if (dataSource instanceof PartitionRoutingDataSource) {
+            String lookupKey = ((PartitionRoutingDataSource) dataSource).currentLookupKey();
+            return lookupKey == null ? "" : lookupKey;
+        }
+        return "";
     }
 
     public Optional<JdbcEntity> getLatestByIdAndType(String entityType, String entityId) {
+        Optional<JdbcEntity> head = getJdbcEntity(LATEST_BY_HEAD_SQL, entityType.toLowerCase(), entityId.toLowerCase())
+            .stream()
+            .findFirst();
+        if (head.isPresent())
+            return head;
+
+        // entities saved before the head was maintained
+        Optional<JdbcEntity> latest = getLatestByIdAndTypeSorted(entityType, entityId);
+        latest.ifPresent(entity -> refreshHead(entityType, entityId));
+        return latest;
+    }
+
+    private Optional<JdbcEntity> getLatestByIdAndTypeSorted(String entityType, String entityId) {
         String sql = new StatementBuilder()
             .select().all().fromJdbcEntity()
             .where().entityNotDeleted()
-            .and().filterByJsonB()
-            .and().filterByJsonB()
+            .and().filterByEntityType()
+            .and().filterByEntityId()
             .orderBy().selectVersion().descending()
             .build();
 
-        return getJdbcEntity(sql, buildEntityTypeParam(entityType), buildEntityIdParam(entityId))
+        return getJdbcEntity(sql, entityType.toLowerCase(), entityId.toLowerCase())
             .stream()
             .findFirst();
     }
 
+    /**
+     * Returns the root entity and the latest version of every entity reachable through relationships, in one query.
+     * Every entity is expanded once, at the first level it is found on, and no relationship is followed below maxDepth.
+     */
+    public List<JdbcEntity> getEntityTree(String rootType, Long rootId, int maxDepth) {
+        return getJdbcEntity(ENTITY_TREE_SQL, rootType, rootId, maxDepth);
+    }
+
     public Optional<JdbcEntity> getSpecificVersionByIdAndType(String entityType, String entityId, long version) {
         String sql = new StatementBuilder()
             .select().all().fromJdbcEntity()
             .where().entityNotDeleted()
-            .and().filterByJsonB()
-            .and().filterByJsonB()
-            .and().filterByJsonB()
+            .and().filterByEntityType()
+            .and().filterByEntityId()
+            .and().filterByVersion()
             .build();
 
-        return getJdbcEntity(sql, buildEntityTypeParam(entityType), buildEntityIdParam(entityId), buildVersionParam(version))
+        return getJdbcEntity(sql, entityType.toLowerCase(), entityId.toLowerCase(), version)
             .stream()
             .findFirst();
     }
@@ -122,14 +315,13 @@ public class JdbcEntityRepository {
     public Optional<JdbcEntity> getSpecificEntityVersionByIdAndTypeAndExistenceKind(String entityType, String existenceKind, String name, long version) {
         String sql = new StatementBuilder().select().all().fromJdbcEntity()
             .where().entityNotDeleted()
-            .and().filterByJsonB()
-            .and().filterByJsonB()
-            .and().filterByJsonB()
-            .and().filterByJsonB()
+            .and().filterByEntityType()
+            .and().filterByExistenceKind()
+            .and().filterByFacilityName()
+            .and().filterByVersion()
             .build();
 
-        return getJdbcEntity(sql, buildEntityTypeParam(entityType), buildExistenceKindParam(existenceKind), buildFacilityNameParam(name),
-            buildVersionParam(version))
+        return getJdbcEntity(sql, entityType.toLowerCase(), existenceKind.toLowerCase(), name, version)
             .stream()
             .findFirst();
     }
@@ -138,27 +330,27 @@ public class JdbcEntityRepository {
         String sql = new StatementBuilder()
             .select().selectVersion().fromJdbcEntity()
             .where().entityNotDeleted()
-            .and().filterByJsonB()
-            .and().filterByJsonB()
+            .and().filterByEntityType()
+            .and().filterByEntityId()
             .orderBy().selectVersion().descending()
             .build();
 
-        return jdbcTemplate.queryForList(sql, new Object[]{buildEntityTypeParam(entityType), buildEntityIdParam(entityId)}, Long.class);
+        return jdbcTemplate.queryForList(sql, new Object[]{entityType.toLowerCase(), entityId.toLowerCase()}, Long.class);
     }
 
     public long deleteEntity(String entityType, String entityId) {
         String sql = new StatementBuilder()
             .update().jdbcEntity()
             .setDeletedAt()
-            .where().filterByJsonB()
-            .and().filterByJsonB()
+            .where().filterByEntityType()
+            .and().filterByEntityId()
             .build();
 
         return jdbcTemplate.update(con -> {
             PreparedStatement ps = con.prepareStatement(sql);
             ps.setObject(1, PGTimestamp.from(Instant.now()));
-            ps.setObject(2, buildEntityTypeParam(entityType));
-            ps.setObject(3, buildEntityIdParam(entityId));
+            ps.setString(2, entityType.toLowerCase());
+            ps.setString(3, entityId.toLowerCase());
 
             return ps;
         });
@@ -167,14 +359,14 @@ public class JdbcEntityRepository {
     public long purgeEntity(String entityType, String entityId) {
         String sql = new StatementBuilder()
             .delete().fromJdbcEntity()
-            .where().filterByJsonB()
-            .and().filterByJsonB()
+            .where().filterByEntityType()
+            .and().filterByEntityId()
             .build();
 
         return jdbcTemplate.update(con -> {
             PreparedStatement ps = con.prepareStatement(sql);
-            ps.setObject(1, buildEntityTypeParam(entityType));
-            ps.setObject(2, buildEntityIdParam(entityId));
+            ps.setString(1, entityType.toLowerCase());
+            ps.setString(2, entityId.toLowerCase());
 
             return ps;
         });
@@ -184,66 +376,157 @@ public class JdbcEntityRepository {
         String sql = new StatementBuilder()
             .update().jdbcEntity()
             .setDeletedAt()
-            .where().filterByJsonB()
-            .and().filterByJsonB()
-            .and().filterByJsonB()
+            .where().filterByEntityType()
+            .and().filterByEntityId()
+            .and().filterByVersion()
             .build();
 
         return jdbcTemplate.update(con -> {
             PreparedStatement ps = con.prepareStatement(sql);
             ps.setObject(1, PGTimestamp.from(Instant.now()));
-            ps.setObject(2, buildEntityTypeParam(entityType));
-            ps.setObject(3, buildEntityIdParam(entityId));
-            ps.setObject(4, buildVersionParam(version));
+            ps.setString(2, entityType.toLowerCase());
+            ps.setString(3, entityId.toLowerCase());
+            ps.setLong(4, version);
 
             return ps;
         });
     }
 
+    /**
+     * Points the head of the entity at its latest live version from the given one on, unless a newer version is already the head.
+     */
+    public void upsertHead(String entityType, String entityId, long version) {
+        jdbcTemplate.update(UPSERT_HEAD_SQL, entityType.toLowerCase(), entityId.toLowerCase(), version);
+    }
+
+    public void upsertHeads(List<EntityDto> dtos) {
+        if (dtos.isEmpty())
+            return;
+
+        jdbcTemplate.batchUpdate(UPSERT_HEAD_SQL, dtos, dtos.size(),
+            (ps, dto) -> {
+                ps.setString(1, dto.getEntityType().toLowerCase());
+                ps.setString(2, dto.getEntityId().toLowerCase());
+                ps.setLong(3, dto.getVersion());
+            });
+    }
+
+    /**
+     * Points the head of the entity at its latest live version.
+     */
+    public void refreshHead(String entityType, String entityId) {
+        jdbcTemplate.update(UPSERT_HEAD_SQL, entityType.toLowerCase(), entityId.toLowerCase(), 0L);
+    }
+
+    public void deleteHead(String entityType, String entityId) {
+        jdbcTemplate.update(DELETE_HEAD_SQL, entityType.toLowerCase(), entityId.toLowerCase());
+    }
+
+    /**
+     * Removes the head of the entity if it points at the given version, returns whether it did.
+     */
+    public boolean deleteHeadVersion(String entityType, String entityId, long version) {
+        return jdbcTemplate.update(DELETE_HEAD_VERSION_SQL, entityType.toLowerCase(), entityId.toLowerCase(), version) > 0;
+    }
+
     public List<JdbcEntity> getEntitiesByExistenceKindAndRelationshipEntityId(String entityType, String existenceKind, String relationshipType,
         String relationshipEntityId) {
-        String sql = new StatementBuilder()
-            .select().all().fromJdbcEntity().comma().selectRelationshipsAsOneToMany().value()
-            .where().entityNotDeleted()
-            .and().filterByJsonB()
-            .and().filterByJsonB()
-            .and().filterByRelationship()
-            .and().filterByRelationshipIdLike()
+        return getEntitiesByExistenceKindAndRelationshipEntityId(entityType, existenceKind, relationshipType, relationshipEntityId, null);
+    }
+
+    /**
+     * Entities related to the given one which have one of the acl groups as viewer or owner, all of them when aclGroups is null.
+     */
+    public List<JdbcEntity> getEntitiesByExistenceKindAndRelationshipEntityId(String entityType, String existenceKind, String relationshipType,
+        String relationshipEntityId, String[] aclGroups) {
+        String sql = withAclGroups(relatedEntityStatement(new StatementBuilder().select().all()), aclGroups).build();
+
+        return getJdbcEntity(sql, withAclGroups(aclGroups, entityType.toLowerCase(), existenceKind.toLowerCase(),
+            relationshipType.toLowerCase(), relationshipEntityId.toLowerCase()));
+    }
+
+    /**
+     * Number of entities related to the given one which have none of the acl groups as viewer or owner.
+     */
+    public long countAclFilteredByExistenceKindAndRelationshipEntityId(String entityType, String existenceKind, String relationshipType,
+        String relationshipEntityId, String[] aclGroups) {
+        if (aclGroups == null)
+            return 0;
+
+        String sql = relatedEntityStatement(new StatementBuilder().select().count())
+            .and().not().filterByAclGroups()
             .build();
 
-        return getJdbcEntity(sql, buildEntityTypeParam(entityType), buildExistenceKindParam(existenceKind), buildRelationshipEntityTypeParam(relationshipType),
-            buildRelationshipIdParam(relationshipEntityId));
+        return countJdbcEntity(sql, entityType.toLowerCase(), existenceKind.toLowerCase(),
+            relationshipType.toLowerCase(), relationshipEntityId.toLowerCase(), aclGroups);
     }
 
     public List<JdbcEntity> getEntitiesByExistenceKindAndRelationshipEntityMultipleIds(String entityType, String existenceKind, String relationshipType,
         List<String> relationshipEntityId) {
-        String sql = new StatementBuilder()
-            .select().all().fromJdbcEntity().comma().selectRelationshipsAsOneToMany().value()
-            .where().entityNotDeleted()
-            .and().filterByJsonB()
-            .and().filterByJsonB()
-            .and().filterByRelationship()
-            .and().filterByRelationshipMultipleIdsLike(relationshipEntityId)
+        return getEntitiesByExistenceKindAndRelationshipEntityMultipleIds(entityType, existenceKind, relationshipType, relationshipEntityId, null);
+    }
+
+    /**
+     * Entities related to one of the given ones which have one of the acl groups as viewer or owner, all of them when aclGroups is null.
+     */
+    public List<JdbcEntity> getEntitiesByExistenceKindAndRelationshipEntityMultipleIds(String entityType, String existenceKind, String relationshipType,
+        List<String> relationshipEntityId, String[] aclGroups) {
+        if (relationshipEntityId.isEmpty())
+            return Collections.emptyList();
+
+        String sql = withAclGroups(relatedEntityInStatement(new StatementBuilder().select().all()), aclGroups).build();
+        String[] ids = relationshipEntityId.stream().map(String::toLowerCase).distinct().toArray(String[]::new);
+
+        return getJdbcEntity(sql, withAclGroups(aclGroups, entityType.toLowerCase(), existenceKind.toLowerCase(),
+            relationshipType.toLowerCase(), ids));
+    }
+
+    /**
+     * Number of entities related to one of the given ones which have none of the acl groups as viewer or owner.
+     */
+    public long countAclFilteredByExistenceKindAndRelationshipEntityMultipleIds(String entityType, String existenceKind, String relationshipType,
+        List<String> relationshipEntityId, String[] aclGroups) {
+        if (aclGroups == null || relationshipEntityId.isEmpty())
+            return 0;
+
+        String sql = relatedEntityInStatement(new StatementBuilder().select().count())
+            .and().not().filterByAclGroups()
             .build();
+        String[] ids = relationshipEntityId.stream().map(String::toLowerCase).distinct().toArray(String[]::new);
+
+        return countJdbcEntity(sql, entityType.toLowerCase(), existenceKind.toLowerCase(),
+            relationshipType.toLowerCase(), ids, aclGroups);
+    }
+
+    private static StatementBuilder relatedEntityStatement(StatementBuilder select) {
+        return select.fromJdbcEntity()
+            .where().entityNotDeleted()
+            .and().filterByEntityType()
+            .and().filterByExistenceKind()
+            .and().filterByRelatedEntity();
+    }
 
-        return getJdbcEntity(sql, buildEntityTypeParam(entityType), buildExistenceKindParam(existenceKind), buildRelationshipEntityTypeParam(relationshipType),
-            buildRelationshipMultipleIdsParam(relationshipEntityId));
+    private static StatementBuilder relatedEntityInStatement(StatementBuilder select) {
+        return select.fromJdbcEntity()
+            .where().entityNotDeleted()
+            .and().filterByEntityType()
+            .and().filterByExistenceKind()
+            .and().filterByRelatedEntityIn();
     }
 
     public Optional<JdbcEntity> getLatestEntityByExistenceKindAndRelationshipEntityId(String entityType, String existenceKind, String relationshipType,
         String relationshipEntityId) {
         String sql = new StatementBuilder()
-            .select().all().fromJdbcEntity().comma().selectRelationshipsAsOneToMany().value()
+            .select().all().fromJdbcEntity()
             .where().entityNotDeleted()
-            .and().filterByJsonB()
-            .and().filterByJsonB()
+            .and().filterByEntityType()
+            .and().filterByExistenceKind()
             .and().filterByRelationship()
-            .and().filterByRelationshipIdLike()
             .orderBy().selectVersion().descending()
             .build();
 
-        return getJdbcEntity(sql, buildEntityTypeParam(entityType), buildExistenceKindParam(existenceKind), buildRelationshipEntityTypeParam(relationshipType),
-            buildRelationshipIdParam(relationshipEntityId))
+        return getJdbcEntity(sql, entityType.toLowerCase(), existenceKind.toLowerCase(),
+            buildRelatedEntityParam(relationshipType, relationshipEntityId))
             .stream()
             .findFirst();
     }
@@ -251,18 +534,17 @@ public class JdbcEntityRepository {
     public Optional<JdbcEntity> getSpecificEntityByExistenceKindAndRelationshipEntityId(String entityType, String existenceKind, long version,
         String relationshipType, String relationshipEntityId) {
         String sql = new StatementBuilder()
-            .select().all().fromJdbcEntity().comma().selectRelationshipsAsOneToMany().value()
+            .select().all().fromJdbcEntity()
             .where().entityNotDeleted()
-            .and().filterByJsonB()
-            .and().filterByJsonB()
-            .and().filterByJsonB()
+            .and().filterByEntityType()
+            .and().filterByExistenceKind()
+            .and().filterByVersion()
             .and().filterByRelationship()
-            .and().filterByRelationshipIdLike()
             .orderBy().selectVersion().descending()
             .build();
 
-        return getJdbcEntity(sql, buildEntityTypeParam(entityType), buildExistenceKindParam(existenceKind), buildVersionParam(version),
-            buildRelationshipEntityTypeParam(relationshipType), buildRelationshipIdParam(relationshipEntityId))
+        return getJdbcEntity(sql, entityType.toLowerCase(), existenceKind.toLowerCase(), version,
+            buildRelatedEntityParam(relationshipType, relationshipEntityId))
             .stream()
             .findFirst();
     }
@@ -270,60 +552,75 @@ public class JdbcEntityRepository {
     public List<JdbcEntity> getLatestEntityByExistenceKindAndRelationshipId(String entityType, String existenceKind, String relationshipType,
         String relationshipId) {
         String sql = new StatementBuilder()
-            .select().all().fromJdbcEntity().comma().selectRelationshipsAsOneToMany().value()
+            .select().all().fromJdbcEntity()
             .where().entityNotDeleted()
-            .and().filterByJsonB()
-            .and().filterByJsonB()
+            .and().filterByEntityType()
+            .and().filterByExistenceKind()
             .and().filterByRelationship()
-            .and().filterByRelationshipIdLike()
             .orderBy().selectVersion().descending()
             .build();
 
-        return getJdbcEntity(sql, buildEntityTypeParam(entityType), buildExistenceKindParam(existenceKind), buildRelationshipEntityTypeParam(relationshipType),
-            buildRelationshipIdParam(relationshipId));
+        return getJdbcEntity(sql, entityType.toLowerCase(), existenceKind.toLowerCase(),
+            buildRelatedVersionParam(relationshipType, relationshipId));
     }
 
     public List<Long> getAllVersionsByRelationshipEntityId(String entityType, String existenceKind, String relationshipType, String relationshipEntityId) {
 
         String sql = new StatementBuilder()
-            .select().selectVersion().fromJdbcEntity().comma().selectRelationshipsAsOneToMany().value()
+            .select().selectVersion().fromJdbcEntity()
             .where().entityNotDeleted()
-            .and().filterByJsonB()
-            .and().filterByJsonB()
-            .and().filterByRelationship()
-            .and().filterByRelationshipIdLike()
+            .and().filterByEntityType()
+            .and().filterByExistenceKind()
+            .and().filterByRelatedEntity()
             .orderBy().selectVersion().descending()
             .build();
 
         return jdbcTemplate.queryForList(sql,
-            new Object[]{buildEntityTypeParam(entityType), buildExistenceKindParam(existenceKind), buildRelationshipEntityTypeParam(relationshipType),
-                buildRelationshipIdParam(relationshipEntityId)}, Long.class);
+            new Object[]{entityType.toLowerCase(), existenceKind.toLowerCase(),
+                relationshipType.toLowerCase(), relationshipEntityId.toLowerCase()}, Long.class);
     }
 
 
-    public List<JdbcEntity> getDrillingReportsByTimeRange(String existenceKind, String startTimeString, String endTimeString) {
-        String sql = new StatementBuilder().select().all().fromJdbcEntity()
-            .where().entityNotDeleted()
-            .and().entityTypeIsDrillingReport()
-            .and().filterByJsonB()
-            .and().filterByJsonB()
-            .and().filterByJsonB()
+    /**
+     * Hands the drilling reports of the time range which have one of the acl groups as viewer or owner, all of them when aclGroups is null, to the consumer as they are fetched.
+     */
+    public void forEachDrillingReportByTimeRange(String existenceKind, String startTimeString, String endTimeString, String[] aclGroups,
+        Consumer<JdbcEntity> consumer) {
+        String sql = withAclGroups(drillingReportsByTimeRangeStatement(new StatementBuilder().select().all()), aclGroups).build();
+
+        forEachJdbcEntity(sql, consumer, withAclGroups(aclGroups, existenceKind.toLowerCase(), endTimeString, startTimeString));
+    }
+
+    public long countAclFilteredDrillingReportsByTimeRange(String existenceKind, String startTimeString, String endTimeString, String[] aclGroups) {
+        if (aclGroups == null)
+            return 0;
+
+        String sql = drillingReportsByTimeRangeStatement(new StatementBuilder().select().count())
+            .and().not().filterByAclGroups()
             .build();
 
-        return getJdbcEntity(sql, buildExistenceKindParam(existenceKind), buildStartTimeParam(startTimeString), buildEndTimeParam(endTimeString));
+        return countJdbcEntity(sql, existenceKind.toLowerCase(), endTimeString, startTimeString, aclGroups);
+    }
+
+    private static StatementBuilder drillingReportsByTimeRangeStatement(StatementBuilder select) {
+        return select.fromJdbcEntity()
+            .where().entityNotDeleted()
+            .and().entityTypeIsDrillingReport()
+            .and().filterByExistenceKind()
+            .and().filterByStartTimeNotAfter()
+            .and().filterByEndTimeNotBefore();
     }
 
     public Optional<JdbcEntity> getLatestDrillingReportByWellbore(String existenceKind, String wellboreId) {
         String sql = new StatementBuilder().select().all().fromJdbcEntity()
-            .comma().selectRelationshipsAsOneToMany().value()
             .where().entityNotDeleted()
             .and().entityTypeIsDrillingReport()
-            .and().filterByJsonB()
-            .and().filterByRelationshipIdLike()
+            .and().filterByExistenceKind()
+            .and().filterByRelationship()
             .orderBy().selectVersion().descending()
             .build();
 
-        return getJdbcEntity(sql, buildExistenceKindParam(existenceKind), buildRelationshipIdParam(wellboreId))
+        return getJdbcEntity(sql, existenceKind.toLowerCase(), buildRelatedEntityParam(wellboreId))
             .stream()
             .findFirst();
     }
@@ -332,79 +629,121 @@ public class JdbcEntityRepository {
         String sql = new StatementBuilder().select().all().fromJdbcEntity()
             .where().entityNotDeleted()
             .and().entityTypeIsDrillingReport()
-            .and().filterByJsonB()
-            .and().filterByJsonB()
+            .and().filterByExistenceKind()
+            .and().filterByEntityId()
             .orderBy().id().descending()
             .build();
 
-        return getJdbcEntity(sql, buildExistenceKindParam(existenceKind), buildEntityIdParam(drillingReportId))
+        return getJdbcEntity(sql, existenceKind.toLowerCase(), drillingReportId.toLowerCase())
             .stream()
             .findFirst();
     }
 
-    public List<JdbcEntity> getDrillingReportsByWellbore(String existenceKind, String wellboreId) {
-        String sql = new StatementBuilder().select().all().fromJdbcEntity()
-            .comma().selectRelationshipsAsOneToMany().value()
-            .where().entityNotDeleted()
-            .and().entityTypeIsDrillingReport()
-            .and().filterByJsonB()
-            .and().filterByRelationshipIdLike()
+    /**
+     * Hands the drilling reports of the wellbore which have one of the acl groups as viewer or owner, all of them when aclGroups is null, to the consumer as they are fetched.
+     */
+    public void forEachDrillingReportByWellbore(String existenceKind, String wellboreId, String[] aclGroups, Consumer<JdbcEntity> consumer) {
+        String sql = withAclGroups(drillingReportsByWellboreStatement(new StatementBuilder().select().all()), aclGroups)
             .orderBy().id().descending()
             .build();
 
-        return getJdbcEntity(sql, buildExistenceKindParam(existenceKind), buildRelationshipIdParam(wellboreId));
+        forEachJdbcEntity(sql, consumer, withAclGroups(aclGroups, existenceKind.toLowerCase(), buildRelatedEntityParam(wellboreId)));
     }
 
-    public List<JdbcEntity> getFluidReportsByWellbore(String existenceKind, String wellboreId) {
-        String sql = new StatementBuilder().select().all().fromJdbcEntity()
-            .comma().selectRelationshipsAsOneToMany().value()
+    public long countAclFilteredDrillingReportsByWellbore(String existenceKind, String wellboreId, String[] aclGroups) {
+        if (aclGroups == null)
+            return 0;
+
+        String sql = drillingReportsByWellboreStatement(new StatementBuilder().select().count())
+            .and().not().filterByAclGroups()
+            .build();
+
+        return countJdbcEntity(sql, existenceKind.toLowerCase(), buildRelatedEntityParam(wellboreId), aclGroups);
+    }
+
+    private static StatementBuilder drillingReportsByWellboreStatement(StatementBuilder select) {
+        return select.fromJdbcEntity()
             .where().entityNotDeleted()
-            .and().entityTypeIsFluidReport()
-            .and().filterByJsonB()
-            .and().filterByRelationshipIdLike()
+            .and().entityTypeIsDrillingReport()
+            .and().filterByExistenceKind()
+            .and().filterByRelationship();
+    }
+
+    /**
+     * Hands the fluids reports of the wellbore which have one of the acl groups as viewer or owner, all of them when aclGroups is null, to the consumer as they are fetched.
+     */
+    public void forEachFluidReportByWellbore(String existenceKind, String wellboreId, String[] aclGroups, Consumer<JdbcEntity> consumer) {
+        String sql = withAclGroups(fluidReportsByWellboreStatement(new StatementBuilder().select().all()), aclGroups)
             .orderBy().id().descending()
             .build();
 
-        return getJdbcEntity(sql, buildExistenceKindParam(existenceKind), buildRelationshipIdParam(wellboreId));
+        forEachJdbcEntity(sql, consumer, withAclGroups(aclGroups, existenceKind.toLowerCase(), buildRelatedEntityParam(wellboreId)));
+    }
+
+    public long countAclFilteredFluidReportsByWellbore(String existenceKind, String wellboreId, String[] aclGroups) {
+        if (aclGroups == null)
+            return 0;
+
+        String sql = fluidReportsByWellboreStatement(new StatementBuilder().select().count())
+            .and().not().filterByAclGroups()
+            .build();
+
+        return countJdbcEntity(sql, existenceKind.toLowerCase(), buildRelatedEntityParam(wellboreId), aclGroups);
+    }
+
+    private static StatementBuilder fluidReportsByWellboreStatement(StatementBuilder select) {
+        return select.fromJdbcEntity()
+            .where().entityNotDeleted()
+            .and().entityTypeIsFluidReport()
+            .and().filterByExistenceKind()
+            .and().filterByRelationship();
     }
 
     public Optional<JdbcEntity> getLatestActivityProgramByExistenceKindAndWellId(String existenceKind, String wellId) {
-        String sql = new StatementBuilder().select().all().fromJdbcEntity().comma().selectRelationshipsAsOneToMany().value()
+        String sql = new StatementBuilder().select().all().fromJdbcEntity()
             .where().entityNotDeleted()
             .and().entityTypeIsActivityProgram()
-            .and().filterByJsonB()
-            .and().filterByRelationshipIdLike()
+            .and().filterByExistenceKind()
+            .and().filterByRelationship()
             .orderBy().selectVersion().descending()
             .build();
 
-        return getJdbcEntity(sql, buildExistenceKindParam(existenceKind), buildRelationshipIdParam(wellId))
+        return getJdbcEntity(sql, existenceKind.toLowerCase(), buildRelatedEntityParam(wellId))
             .stream()
             .findFirst();
     }
 
+    /**
+     * Copies entityId and version out of the combined relationship id of the rows written before they were stored separately,
+     * and rebuilds the relationship edges of those rows.
+     */
+    public long backfillRelationshipKeys(String entityType) {
+        return jdbcTemplate.queryForObject(BACKFILL_RELATIONSHIP_KEYS_SQL, Long.class, entityType.toLowerCase());
+    }
+
     public List<Long> getWellVersionNumbersByExistenceKindAndWellName(String existenceKind, String name) {
         String sql = new StatementBuilder()
             .select().selectVersion().fromJdbcEntity()
             .where().entityNotDeleted()
             .and().entityTypeIsWell()
-            .and().filterByJsonB()
-            .and().filterByJsonB()
+            .and().filterByExistenceKind()
+            .and().filterByFacilityName()
             .orderBy().selectVersion().descending()
             .build();
 
-        return jdbcTemplate.queryForList(sql, new Object[]{buildExistenceKindParam(existenceKind), buildFacilityNameParam(name)}, Long.class);
+        return jdbcTemplate.queryForList(sql, new Object[]{existenceKind.toLowerCase(), name}, Long.class);
     }
 
     public Optional<JdbcEntity> getLatestWellVersionByExistenceKindAndWellName(String existenceKind, String name) {
         String sql = new StatementBuilder().select().all().fromJdbcEntity()
             .where().entityNotDeleted()
             .and().entityTypeIsWell()
-            .and().filterByJsonB()
-            .and().filterByJsonB()
+            .and().filterByExistenceKind()
+            .and().filterByFacilityName()
             .orderBy().selectVersion().descending()
             .build();
 
-        return getJdbcEntity(sql, buildExistenceKindParam(existenceKind), buildFacilityNameParam(name))
+        return getJdbcEntity(sql, existenceKind.toLowerCase(), name)
             .stream()
             .findFirst();
     }
@@ -412,9 +751,8 @@ public class JdbcEntityRepository {
     private List<JdbcEntity> getJdbcEntity(String sqlQuery, Object... args) {
         List<JdbcEntity> entities = null;
         try {
-            entities = jdbcTemplate.query(sqlQuery,
-                args,
-                new BeanPropertyRowMapper<>(JdbcEntity.class));
+            entities = jdbcTemplate.query(con -> prepareStatement(con, sqlQuery, args),
+                JdbcEntityRowMapper.INSTANCE);
         } catch (DataAccessException e) {
             if (log.isWarnEnabled()) {
                 log.warn("Database access was finished with error: {}", e.getMessage());
@@ -423,4 +761,69 @@ public class JdbcEntityRepository {
         }
         return entities;
     }
+
+    /**
+     * Hands the rows to the consumer as they are fetched, fetchSize rows at a time, so the result set is not held in memory.
+     * The driver only fetches in chunks inside a transaction, outside of one the whole result is still read at once.
+     * A failure is thrown even after rows were handed over, the consumer never ends up with a silently truncated result.
+     */
+    private void forEachJdbcEntity(String sqlQuery, Consumer<JdbcEntity> consumer, Object... args) {
+        RowCallbackHandler handler = rs -> consumer.accept(JdbcEntityRowMapper.INSTANCE.mapRow(rs, rs.getRow()));
+        try {
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = prepareStatement(con, sqlQuery, args);
+                ps.setFetchSize(fetchSize);
+
+                return ps;
+            }, handler);
+        } catch (DataAccessException e) {
+            if (log.isWarnEnabled()) {
+                log.warn("Database access was finished with error: {}", e.getMessage());
+            }
+            throw new AppException(HttpStatus.INTERNAL_SERVER_ERROR.value(), HttpStatus.INTERNAL_SERVER_ERROR.getReasonPhrase(),
+                "Failed to read the entities from the database", e);
+        }
+    }
+
+    private long countJdbcEntity(String sqlQuery, Object... args) {
+        try {
+            Long count = jdbcTemplate.query(con -> prepareStatement(con, sqlQuery, args),
+                rs -> rs.next() ? rs.getLong(1) : 0L);
+            return count == null ? 0 : count;
+        } catch (DataAccessException e) {
+            if (log.isWarnEnabled()) {
+                log.warn("Database access was finished with error: {}", e.getMessage());
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Binds String[] arguments as text arrays and the others as they are.
+     */
+    private static PreparedStatement prepareStatement(Connection con, String sqlQuery, Object... args) throws SQLException {
+        PreparedStatement ps = con.prepareStatement(sqlQuery);
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] instanceof String[]) {
+                ps.setArray(i + 1, con.createArrayOf("text", (String[]) args[i]));
+            } else {
+                ps.setObject(i + 1, args[i]);
+            }
+        }
+
+        return ps;
+    }
+
+    private static StatementBuilder withAclGroups(StatementBuilder statement, String[] aclGroups) {
+        return aclGroups == null ? statement : statement.and().filterByAclGroups();
+    }
+
+    private static Object[] withAclGroups(String[] aclGroups, Object... args) {
+        if (aclGroups == null)
+            return args;
+
+        Object[] res = Arrays.copyOf(args, args.length + 1);
+        res[args.length] = aclGroups;
+        return res;
+    }
 }
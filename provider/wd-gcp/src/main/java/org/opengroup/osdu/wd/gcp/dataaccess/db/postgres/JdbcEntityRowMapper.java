@@ -0,0 +1,60 @@
+/*
+ *   Copyright 2020-2021 Google LLC
+ *   Copyright 2020-2021 EPAM Systems, Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.opengroup.osdu.wd.gcp.dataaccess.db.postgres;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import org.opengroup.osdu.wd.gcp.model.JdbcEntity;
+import org.postgresql.util.PGTimestamp;
+import org.postgresql.util.PGobject;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Maps a jdbc_entity row by column name. The jsonb columns are kept as text, they are parsed when read from the entity.
+ */
+public enum JdbcEntityRowMapper implements RowMapper<JdbcEntity> {
+    INSTANCE;
+
+    @Override
+    public JdbcEntity mapRow(ResultSet rs, int rowNum) throws SQLException {
+        JdbcEntity entity = new JdbcEntity();
+        entity.setId(rs.getLong("id"));
+        entity.setEntityType(rs.getString("entity_type"));
+        entity.setData(toJsonb(rs.getString("data")));
+        entity.setRelationships(toJsonb(rs.getString("relationships")));
+
+        Timestamp deletedAt = rs.getTimestamp("deleted_at");
+        if (deletedAt != null) {
+            PGTimestamp timestamp = new PGTimestamp(deletedAt.getTime());
+            timestamp.setNanos(deletedAt.getNanos());
+            entity.setDeletedAt(timestamp);
+        }
+        return entity;
+    }
+
+    private static PGobject toJsonb(String value) throws SQLException {
+        if (value == null)
+            return null;
+
+        PGobject json = new PGobject();
+        json.setType("jsonb");
+        json.setValue(value);
+        return json;
+    }
+}
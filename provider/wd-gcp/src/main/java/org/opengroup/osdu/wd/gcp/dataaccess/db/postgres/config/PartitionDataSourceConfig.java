@@ -0,0 +1,62 @@
+/*
+ *   Copyright 2020-2021 Google LLC
+ *   Copyright 2020-2021 EPAM Systems, Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.opengroup.osdu.wd.gcp.dataaccess.db.postgres.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.opengroup.osdu.wd.core.auth.RequestInfo;
+import org.opengroup.osdu.wd.gcp.partition.PartitionJdbcService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Connects every data partition to its own database, as configured in the Partition service.
+ * spring.datasource stays the default pool used outside of requests, e.g. by the startup migrations.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.routing.enabled", havingValue = "true")
+public class PartitionDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource defaultDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public PartitionRoutingDataSource partitionRoutingDataSource(HikariDataSource defaultDataSource, RequestInfo requestInfo,
+        PartitionJdbcService partitionJdbcService,
+        @Value("${app.datasource.routing.max-pools:16}") int maxPools,
+        @Value("${app.datasource.routing.max-pool-size:10}") int maxPoolSize,
+        @Value("${app.datasource.routing.idle-timeout-ms:600000}") long idleTimeoutMs,
+        @Value("${app.datasource.routing.pool-evict-after-ms:1800000}") long poolEvictAfterMs,
+        @Value("${app.datasource.routing.pool-close-grace-ms:60000}") long poolCloseGraceMs,
+        @Value("${app.datasource.routing.migrate:true}") boolean migrate) {
+        return new PartitionRoutingDataSource(defaultDataSource,
+            () -> RequestContextHolder.getRequestAttributes() == null ? null : requestInfo.getDpsHeaders().getPartitionId(),
+            partitionJdbcService::getJdbcSettings,
+            new PartitionRoutingDataSource.PoolSettings(maxPools, maxPoolSize, idleTimeoutMs, poolEvictAfterMs,
+                poolCloseGraceMs, migrate));
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ *   Copyright 2020-2021 Google LLC
+ *   Copyright 2020-2021 EPAM Systems, Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.opengroup.osdu.wd.gcp.dataaccess.db.postgres.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.opengroup.osdu.wd.gcp.partition.PartitionJdbcSettings;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+/**
+ * Routes connections to a pool of the data partition of the current request, or to the default pool outside of requests.
+ * A partition pool is created and migrated on first use, by the first request of the partition while the others wait
+ * for it, and evicted after it has been unused for poolEvictAfterMs. An evicted pool is closed once no connection is
+ * borrowed from it any more, or at the latest after poolCloseGraceMs.
+ */
+@Slf4j
+public class PartitionRoutingDataSource extends AbstractDataSource implements DisposableBean {
+
+    private static final String DEFAULT_POOL = "default";
+    //requests which took a pool just before it was evicted are not counted as its users yet
+    private static final long MIN_CLOSE_DELAY_MS = 1000L;
+
+    private final HikariDataSource defaultDataSource;
+    private final Supplier<String> partitionIdSupplier;
+    private final Function<String, PartitionJdbcSettings> settingsResolver;
+    private final PoolSettings poolSettings;
+
+    private final Map<String, CompletableFuture<PartitionPool>> pools = new ConcurrentHashMap<>();
+    private final Queue<PartitionPool> evictedPools = new ConcurrentLinkedQueue<>();
+    private volatile long nextEvictionAt;
+
+    public PartitionRoutingDataSource(HikariDataSource defaultDataSource, Supplier<String> partitionIdSupplier,
+        Function<String, PartitionJdbcSettings> settingsResolver, PoolSettings poolSettings) {
+        this.defaultDataSource = defaultDataSource;
+        this.partitionIdSupplier = partitionIdSupplier;
+        this.settingsResolver = settingsResolver;
+        this.poolSettings = poolSettings;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(HikariDataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    /**
+     * Returns the data partition the connections are currently routed to, null for the default pool.
+     */
+    public String currentLookupKey() {
+        String partitionId = partitionIdSupplier.get();
+        return partitionId == null || partitionId.isEmpty() ? null : partitionId.toLowerCase();
+    }
+
+    public Map<String, PoolStats> getPoolStats() {
+        Map<String, PoolStats> stats = new LinkedHashMap<>();
+        stats.put(DEFAULT_POOL, toStats(defaultDataSource, 0L));
+        pools.forEach((partitionId, future) -> {
+            PartitionPool pool = openedPool(future);
+            if (pool != null)
+                stats.put(partitionId, toStats(pool.getDataSource(), pool.getLastUsedAt()));
+        });
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        pools.values().forEach(future -> {
+            PartitionPool pool = openedPool(future);
+            if (pool != null)
+                pool.getDataSource().close();
+        });
+        pools.clear();
+        evictedPools.forEach(pool -> pool.getDataSource().close());
+        evictedPools.clear();
+    }
+
+    private Connection connect(ConnectionSource source) throws SQLException {
+        String partitionId = currentLookupKey();
+        if (partitionId == null)
+            return source.getConnection(defaultDataSource);
+
+        evictIdlePools();
+        PartitionPool pool = acquirePool(partitionId);
+        try {
+            return source.getConnection(pool.getDataSource());
+        } finally {
+            pool.getUsers().decrementAndGet();
+        }
+    }
+
+    private PartitionPool acquirePool(String partitionId) {
+        CompletableFuture<PartitionPool> future = pools.get(partitionId);
+        if (future == null) {
+            if (pools.size() >= poolSettings.getMaxPools())
+                evictLeastRecentlyUsedPool();
+
+            CompletableFuture<PartitionPool> created = new CompletableFuture<>();
+            future = pools.putIfAbsent(partitionId, created);
+            if (future == null) {
+                //the pool is created outside of the map, requests of other partitions are not blocked by it
+                try {
+                    created.complete(createPool(partitionId));
+                } catch (RuntimeException e) {
+                    pools.remove(partitionId, created);
+                    created.completeExceptionally(e);
+                    throw e;
+                }
+                future = created;
+            }
+        }
+
+        PartitionPool pool;
+        try {
+            pool = future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+        pool.getUsers().incrementAndGet();
+        pool.setLastUsedAt(System.currentTimeMillis());
+        return pool;
+    }
+
+    private PartitionPool createPool(String partitionId) {
+        PartitionJdbcSettings settings = settingsResolver.apply(partitionId);
+
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("wd-" + partitionId);
+        config.setJdbcUrl(settings.getUrl());
+        config.setUsername(settings.getUsername());
+        config.setPassword(settings.getPassword());
+        config.setMaximumPoolSize(poolSettings.getMaxPoolSize());
+        config.setMinimumIdle(0);
+        config.setIdleTimeout(poolSettings.getIdleTimeoutMs());
+        config.setRegisterMbeans(true);
+        Properties dataSourceProperties = new Properties();
+        dataSourceProperties.putAll(defaultDataSource.getDataSourceProperties());
+        config.setDataSourceProperties(dataSourceProperties);
+
+        HikariDataSource dataSource = new HikariDataSource(config);
+        try {
+            if (poolSettings.isMigrate()) {
+                Flyway.configure()
+                    .dataSource(dataSource)
+                    .baselineOnMigrate(true)
+                    .baselineVersion("0")
+                    .load()
+                    .migrate();
+            }
+        } catch (RuntimeException e) {
+            dataSource.close();
+            throw e;
+        }
+        if (log.isInfoEnabled()) {
+            log.info("Opened connection pool of data partition {}", partitionId);
+        }
+        return new PartitionPool(partitionId, dataSource, System.currentTimeMillis());
+    }
+
+    private void evictIdlePools() {
+        long now = System.currentTimeMillis();
+        if (now < nextEvictionAt)
+            return;
+        nextEvictionAt = now + Math.max(1000L, poolSettings.getPoolEvictAfterMs() / 4);
+
+        pools.forEach((partitionId, future) -> {
+            PartitionPool pool = openedPool(future);
+            if (pool != null && now - pool.getLastUsedAt() > poolSettings.getPoolEvictAfterMs() && !inUse(pool))
+                evictPool(future, pool);
+        });
+        closeEvictedPools(now);
+    }
+
+    private void evictLeastRecentlyUsedPool() {
+        pools.values().stream()
+            .filter(future -> {
+                PartitionPool pool = openedPool(future);
+                return pool != null && !inUse(pool);
+            })
+            .min(Comparator.comparingLong(future -> openedPool(future).getLastUsedAt()))
+            .ifPresent(future -> evictPool(future, openedPool(future)));
+        closeEvictedPools(System.currentTimeMillis());
+    }
+
+    private void evictPool(CompletableFuture<PartitionPool> future, PartitionPool pool) {
+        if (pools.remove(pool.getPartitionId(), future)) {
+            pool.setEvictedAt(System.currentTimeMillis());
+            evictedPools.add(pool);
+        }
+    }
+
+    private void closeEvictedPools(long now) {
+        evictedPools.removeIf(pool -> {
+            long evictedFor = now - pool.getEvictedAt();
+            if (evictedFor < MIN_CLOSE_DELAY_MS || (inUse(pool) && evictedFor < poolSettings.getPoolCloseGraceMs()))
+                return false;
+            pool.getDataSource().close();
+            if (log.isInfoEnabled()) {
+                log.info("Closed idle connection pool of data partition {}", pool.getPartitionId());
+            }
+            return true;
+        });
+    }
+
+    private static PartitionPool openedPool(CompletableFuture<PartitionPool> future) {
+        return future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
+    }
+
+    private static boolean inUse(PartitionPool pool) {
+        return pool.getUsers().get() > 0 || activeConnections(pool.getDataSource()) > 0;
+    }
+
+    private static int activeConnections(HikariDataSource dataSource) {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        return pool == null ? 0 : pool.getActiveConnections();
+    }
+
+    private static PoolStats toStats(HikariDataSource dataSource, long lastUsedAt) {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (pool == null)
+            return new PoolStats(0, 0, 0, 0, dataSource.getMaximumPoolSize(), lastUsedAt);
+        return new PoolStats(pool.getActiveConnections(), pool.getIdleConnections(), pool.getTotalConnections(),
+            pool.getThreadsAwaitingConnection(), dataSource.getMaximumPoolSize(), lastUsedAt);
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class PoolSettings {
+        private int maxPools;
+        private int maxPoolSize;
+        private long idleTimeoutMs;
+        private long poolEvictAfterMs;
+        private long poolCloseGraceMs;
+        private boolean migrate;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class PoolStats {
+        private int active;
+        private int idle;
+        private int total;
+        private int awaiting;
+        private int maxSize;
+        private long lastUsedAt;
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection getConnection(HikariDataSource dataSource) throws SQLException;
+    }
+
+    /**
+     * users counts the requests between taking the pool and getting their connection from it, which Hikari does not
+     * see as active yet.
+     */
+    @Getter
+    private static class PartitionPool {
+        private final String partitionId;
+        private final HikariDataSource dataSource;
+        private final AtomicInteger users = new AtomicInteger();
+        @Setter
+        private volatile long lastUsedAt;
+        @Setter
+        private volatile long evictedAt;
+
+        PartitionPool(String partitionId, HikariDataSource dataSource, long lastUsedAt) {
+            this.partitionId = partitionId;
+            this.dataSource = dataSource;
+            this.lastUsedAt = lastUsedAt;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ *   Copyright 2020-2021 Google LLC
+ *   Copyright 2020-2021 EPAM Systems, Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.opengroup.osdu.wd.gcp.dataaccess.db.postgres.converter;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.IOException;
+import lombok.extern.slf4j.Slf4j;
+import org.opengroup.osdu.wd.core.models.EntityDtoReturn;
+import org.postgresql.util.PGobject;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+
+/**
+ * Reads the stored entity straight into the response model, skipping the intermediate EntityDto.
+ */
+@Slf4j
+@ReadingConverter
+public enum PostgresObjectToEntityDtoReturnConverter implements Converter<PGobject, EntityDtoReturn> {
+    INSTANCE;
+
+    private final ObjectReader reader = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+        .readerFor(EntityDtoReturn.class);
+
+    @Override
+    public EntityDtoReturn convert(PGobject json) {
+        EntityDtoReturn converted = null;
+        try {
+            converted = reader.readValue(json.getValue());
+        } catch (IOException e) {
+            if (log.isWarnEnabled()) {
+                log.warn("Could not convert object from JSON, the issue: {}", e.getMessage());
+            }
+        }
+        return converted;
+    }
+}
@@ -42,6 +42,9 @@ public enum PostgresObjectToRelationshipsConverter implements Converter<PGobject
         String source = json.getValue();
         try {
             converted = objectMapper.readValue(source, type);
+            if (converted != null) {
+                converted.forEach(Relationship::normalize);
+            }
         } catch (JsonProcessingException e) {
             if (log.isWarnEnabled()) {
                 log.warn("Could not convert object from JSON, the issue: {}", e.getMessage());
@@ -19,12 +19,20 @@ package org.opengroup.osdu.wd.gcp.model;
 
 import java.util.Collections;
 import java.util.List;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import org.opengroup.osdu.wd.core.models.EntityDto;
+import org.opengroup.osdu.wd.core.models.EntityDtoReturn;
 import org.opengroup.osdu.wd.core.models.Relationship;
+import org.opengroup.osdu.wd.core.util.RawEntityReader;
 import org.opengroup.osdu.wd.gcp.dataaccess.db.postgres.converter.EntityDtoToPostgresObjectConverter;
 import org.opengroup.osdu.wd.gcp.dataaccess.db.postgres.converter.PostgresObjectToEntityDtoConverter;
+import org.opengroup.osdu.wd.gcp.dataaccess.db.postgres.converter.PostgresObjectToEntityDtoReturnConverter;
 import org.opengroup.osdu.wd.gcp.dataaccess.db.postgres.converter.PostgresObjectToRelationshipsConverter;
 import org.opengroup.osdu.wd.gcp.dataaccess.db.postgres.converter.RelationshipsToPostgresObjectConverter;
 import org.postgresql.util.PGTimestamp;
@@ -37,12 +45,20 @@ public class JdbcEntity {
 
     @Id
     private Long id;
+    private String entityType;
     private PGobject data;
     private PGobject relationships;
     private PGTimestamp deletedAt;
 
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private List<Relationship> relationshipsDto;
+
     public JdbcEntity(Long id, EntityDto entityDto, List<Relationship> relationships) {
         this.id = id;
+        this.entityType = entityDto.getEntityType();
         this.data = EntityDtoToPostgresObjectConverter.INSTANCE.convert(entityDto);
         this.relationships = RelationshipsToPostgresObjectConverter.INSTANCE.convert(relationships);
     }
@@ -51,17 +67,57 @@ public class JdbcEntity {
         data = EntityDtoToPostgresObjectConverter.INSTANCE.convert(entityDto);
     }
 
+    public void setRelationships(PGobject relationships) {
+        this.relationships = relationships;
+        this.relationshipsDto = null;
+    }
+
     public EntityDto getEntityDtoFromData() {
         EntityDto convertedEntityDto = PostgresObjectToEntityDtoConverter.INSTANCE.convert(data);
         return convertedEntityDto == null ? new EntityDto() : convertedEntityDto;
     }
 
+    /**
+     * Convert the stored JSON to EntityDto, data and meta are kept as raw JSON text instead of being parsed.
+     */
+    public EntityDto getEntityDtoFromRawData() {
+        if (data == null || data.getValue() == null) {
+            return new EntityDto();
+        }
+        RawEntityReader.RawEntity parts = RawEntityReader.read(data.getValue());
+        EntityDto convertedEntityDto = RawEntityReader.toValue(parts.getEnvelope(), EntityDto.class);
+        convertedEntityDto.setData(parts.getData());
+        convertedEntityDto.setMeta(parts.getMeta());
+        return convertedEntityDto;
+    }
+
+    /**
+     * Convert the stored JSON to the response model in one pass, with the same fields as new EntityDtoReturn(EntityDto).
+     */
+    public EntityDtoReturn getEntityDtoReturnFromData() {
+        EntityDtoReturn converted = data == null ? null : PostgresObjectToEntityDtoReturnConverter.INSTANCE.convert(data);
+        if (converted == null) {
+            return new EntityDtoReturn();
+        }
+        if (converted.getLegal() != null) {
+            converted.getLegal().setStatus(null);
+        }
+        return converted;
+    }
+
     public void setRelationshipsFromDto(List<Relationship> relationships) {
-        this.relationships = RelationshipsToPostgresObjectConverter.INSTANCE.convert(relationships);
+        setRelationships(RelationshipsToPostgresObjectConverter.INSTANCE.convert(relationships));
     }
 
+    /**
+     * Relationships are parsed on the first call and kept for the later ones.
+     */
     public List<Relationship> getRelationshipsDto() {
-        List<Relationship> convertedRelationships = PostgresObjectToRelationshipsConverter.INSTANCE.convert(this.relationships);
-        return convertedRelationships == null ? Collections.emptyList() : convertedRelationships;
+        if (relationshipsDto == null) {
+            List<Relationship> convertedRelationships = relationships == null ? null
+                : PostgresObjectToRelationshipsConverter.INSTANCE.convert(relationships);
+            relationshipsDto = convertedRelationships == null ? Collections.emptyList() : convertedRelationships;
+        }
+        return relationshipsDto;
     }
 }
@@ -0,0 +1,83 @@
+/*
+ *   Copyright 2020-2021 Google LLC
+ *   Copyright 2020-2021 EPAM Systems, Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.opengroup.osdu.wd.gcp.partition;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import lombok.RequiredArgsConstructor;
+import org.apache.http.HttpStatus;
+import org.opengroup.osdu.core.client.model.http.AppException;
+import org.opengroup.osdu.core.client.model.partition.PartitionException;
+import org.opengroup.osdu.core.client.model.partition.PartitionInfo;
+import org.opengroup.osdu.core.client.model.partition.Property;
+import org.opengroup.osdu.core.client.partition.IPartitionFactory;
+import org.opengroup.osdu.core.client.partition.IPartitionProvider;
+import org.opengroup.osdu.wd.core.auth.RequestInfo;
+import org.springframework.stereotype.Service;
+
+/**
+ * Resolves the Postgres connection of a data partition from the Partition service.
+ * Sensitive values hold the name of the environment variable with the actual value.
+ */
+@Service
+@RequiredArgsConstructor
+public class PartitionJdbcService {
+
+    private final IPartitionFactory partitionFactory;
+
+    private final RequestInfo requestInfo;
+
+    private final Gson gson = new Gson();
+
+    public PartitionJdbcSettings getJdbcSettings(String partitionId) {
+        try {
+            IPartitionProvider serviceClient = partitionFactory.create(requestInfo.getDpsHeaders());
+            PartitionInfo partitionInfo = serviceClient.get(partitionId);
+            PartitionInfoGcp infoGcp = convert(partitionInfo);
+            return new PartitionJdbcSettings(
+                getValue(infoGcp.getJdbcUrlConfig(), "well-delivery-jdbc-url"),
+                getValue(infoGcp.getJdbcUsernameConfig(), "well-delivery-jdbc-username"),
+                getValue(infoGcp.getJdbcPasswordConfig(), "well-delivery-jdbc-password"));
+        } catch (PartitionException e) {
+            throw new AppException(HttpStatus.SC_FORBIDDEN, "Service unavailable",
+                String.format("Error getting partition info for data-partition: %s", partitionId), e);
+        }
+    }
+
+    private PartitionInfoGcp convert(PartitionInfo partitionInfo) {
+        JsonElement jsonElement = gson.toJsonTree(partitionInfo.getProperties());
+        return gson.fromJson(jsonElement, PartitionInfoGcp.class);
+    }
+
+    private String getValue(Property property, String name) {
+        if (property == null || property.getValue() == null) {
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, "Internal Server Error",
+                "The value of " + name + " in Partition Service is null");
+        }
+        String value = String.valueOf(property.getValue());
+        if (!property.isSensitive()) {
+            return value;
+        }
+        String secret = System.getenv(value);
+        if (secret == null) {
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, "Internal Server Error",
+                "The environment variable " + value + " referenced by " + name + " is not set");
+        }
+        return secret;
+    }
+}
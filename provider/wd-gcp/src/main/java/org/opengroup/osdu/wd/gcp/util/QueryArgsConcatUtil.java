@@ -17,51 +17,27 @@
 
 package org.opengroup.osdu.wd.gcp.util;
 
-import java.util.List;
+import org.opengroup.osdu.wd.core.models.Relationship;
 
 public class QueryArgsConcatUtil {
 
     private QueryArgsConcatUtil() {
     }
 
-    public static String buildEntityTypeParam(String value) {
-        return "{\"entityType\":\"" + value.toLowerCase() + "\"}";
+    public static String buildRelatedEntityParam(String entityId) {
+        return "[{\"entityId\":\"" + entityId.toLowerCase() + "\"}]";
     }
 
-    public static String buildEntityIdParam(String value) {
-        return "{\"entityId\":\"" + value.toLowerCase() + "\"}";
+    public static String buildRelatedEntityParam(String entityType, String entityId) {
+        return "[{\"entityType\":\"" + entityType.toLowerCase() + "\",\"entityId\":\"" + entityId.toLowerCase() + "\"}]";
     }
 
-    public static String buildExistenceKindParam(String value) {
-        return "{\"existenceKind\":\"" + value.toLowerCase() + "\"}";
-    }
-
-    public static String buildRelationshipEntityTypeParam(String value) {
-        return "[{\"entityType\":\"" + value.toLowerCase() + "\"}]";
-    }
-
-    public static String buildVersionParam(long value) {
-        return "{\"version\":" + value + "}";
-    }
-
-    public static String buildStartTimeParam(String value) {
-        return "{\"startTime\":\"" + value + "\"}";
-    }
-
-    public static String buildEndTimeParam(String value) {
-        return "{\"endTime\":\"" + value + "\"}";
-    }
-
-    public static String buildFacilityNameParam(String value) {
-        return "{\"data\":{\"FacilityName\":\"" + value + "\"}}";
-    }
-
-    public static String buildRelationshipIdParam(String value) {
-        return value.toLowerCase() + "%";
-    }
-
-    public static String[] buildRelationshipMultipleIdsParam(List<String> value) {
-        return value.stream().map(id -> id + "%").toArray(String[]::new);
+    public static String buildRelatedVersionParam(String entityType, String id) {
+        Long version = Relationship.parseVersion(id);
+        if (version == null)
+            return "[{\"entityType\":\"" + entityType.toLowerCase() + "\",\"id\":\"" + id + "\"}]";
+        return "[{\"entityType\":\"" + entityType.toLowerCase() + "\",\"entityId\":\"" + Relationship.parseEntityId(id).toLowerCase()
+            + "\",\"version\":" + version + "}]";
     }
 
 
@@ -17,9 +17,6 @@
 
 package org.opengroup.osdu.wd.gcp.util;
 
-import java.util.Collections;
-import java.util.List;
-
 public class StatementBuilder {
 
     private final StringBuilder statement = new StringBuilder();
@@ -44,6 +41,11 @@ public class StatementBuilder {
         return this;
     }
 
+    public StatementBuilder count() {
+        statement.append("count(*) ");
+        return this;
+    }
+
     public StatementBuilder jdbcEntity() {
         statement.append("jdbc_entity ");
         return this;
@@ -64,18 +66,8 @@ public class StatementBuilder {
         return this;
     }
 
-    public StatementBuilder selectRelationshipsAsOneToMany() {
-        statement.append("jsonb_array_elements(relationships) ");
-        return this;
-    }
-
-    public StatementBuilder value() {
-        statement.append("value ");
-        return this;
-    }
-
     public StatementBuilder selectVersion() {
-        statement.append("data->>'version' ");
+        statement.append("version ");
         return this;
     }
 
@@ -94,8 +86,43 @@ public class StatementBuilder {
         return this;
     }
 
-    public StatementBuilder filterByJsonB() {
-        statement.append("data @> ?::jsonb ");
+    public StatementBuilder not() {
+        statement.append("NOT ");
+        return this;
+    }
+
+    public StatementBuilder filterByEntityType() {
+        statement.append("entity_type = ? ");
+        return this;
+    }
+
+    public StatementBuilder filterByEntityId() {
+        statement.append("entity_id = ? ");
+        return this;
+    }
+
+    public StatementBuilder filterByVersion() {
+        statement.append("version = ? ");
+        return this;
+    }
+
+    public StatementBuilder filterByExistenceKind() {
+        statement.append("existence_kind = ? ");
+        return this;
+    }
+
+    public StatementBuilder filterByFacilityName() {
+        statement.append("facility_name = ? ");
+        return this;
+    }
+
+    public StatementBuilder filterByStartTimeNotAfter() {
+        statement.append("start_time <= wd_to_timestamptz(?) ");
+        return this;
+    }
+
+    public StatementBuilder filterByEndTimeNotBefore() {
+        statement.append("end_time >= wd_to_timestamptz(?) ");
         return this;
     }
 
@@ -104,14 +131,23 @@ public class StatementBuilder {
         return this;
     }
 
-    public StatementBuilder filterByRelationshipIdLike() {
-        statement.append("value->>'id' LIKE ? ");
+    public StatementBuilder filterByRelatedEntity() {
+        statement.append("EXISTS (SELECT 1 FROM jdbc_relationship r WHERE r.entity_pk = jdbc_entity.id "
+            + "AND r.entity_type = jdbc_entity.entity_type AND r.related_type = ? AND r.related_entity_id = ?) ");
+        return this;
+    }
+
+    public StatementBuilder filterByRelatedEntityIn() {
+        statement.append("EXISTS (SELECT 1 FROM jdbc_relationship r WHERE r.entity_pk = jdbc_entity.id "
+            + "AND r.entity_type = jdbc_entity.entity_type AND r.related_type = ? AND r.related_entity_id = ANY (?)) ");
         return this;
     }
 
-    public StatementBuilder filterByRelationshipMultipleIdsLike(List<String> values) {
-        String inSql = String.join(",", Collections.nCopies(values.size(), "?"));
-        statement.append(String.format("value->>'id' LIKE ANY (array[%s])", inSql));
+    /**
+     * Rows with one of the groups of a text[] parameter as viewer or owner. The driver takes ?? for the ? of the operator.
+     */
+    public StatementBuilder filterByAclGroups() {
+        statement.append("acl_groups ??| ? ");
         return this;
     }
 
@@ -136,22 +172,22 @@ public class StatementBuilder {
     }
 
     public StatementBuilder entityTypeIsDrillingReport() {
-        statement.append("data @> '{\"entityType\":\"drillingreport\"}'");
+        statement.append("entity_type = 'drillingreport' ");
         return this;
     }
 
     public StatementBuilder entityTypeIsFluidReport() {
-        statement.append("data @> '{\"entityType\":\"fluidsreport\"}'");
+        statement.append("entity_type = 'fluidsreport' ");
         return this;
     }
 
     public StatementBuilder entityTypeIsActivityProgram() {
-        statement.append("data @> '{\"entityType\":\"wellactivityprogram\"}' ");
+        statement.append("entity_type = 'wellactivityprogram' ");
         return this;
     }
 
     public StatementBuilder entityTypeIsWell() {
-        statement.append("data @> '{\"entityType\":\"well\"}' ");
+        statement.append("entity_type = 'well' ");
         return this;
     }
 
@@ -0,0 +1,20 @@
+CREATE TABLE IF NOT EXISTS public.jdbc_entity
+(
+    id bigint NOT NULL GENERATED ALWAYS AS IDENTITY ( INCREMENT 1 START 1 MINVALUE 1 MAXVALUE 9223372036854775807 CACHE 1 ),
+    data jsonb,
+    relationships jsonb,
+    deleted_at TIMESTAMP WITH TIME ZONE,
+    CONSTRAINT json_entity_pkey PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS jdbc_entity_relationships_idx
+    ON public.jdbc_entity USING GIN (relationships jsonb_path_ops);
+
+CREATE TABLE IF NOT EXISTS public.jdbc_entity_head
+(
+    entity_type text NOT NULL,
+    entity_id text NOT NULL,
+    version bigint NOT NULL,
+    row_id bigint NOT NULL,
+    CONSTRAINT jdbc_entity_head_pkey PRIMARY KEY (entity_type, entity_id)
+);
@@ -0,0 +1,43 @@
+-- Start and end times are stored as text, with or without an offset. Times without an offset are taken as UTC,
+-- malformed times become null instead of failing the write.
+CREATE OR REPLACE FUNCTION wd_to_timestamptz(value text) RETURNS timestamptz
+    LANGUAGE plpgsql IMMUTABLE AS
+$$
+BEGIN
+    IF value IS NULL OR value = '' THEN
+        RETURN NULL;
+    END IF;
+    IF value ~ '([Zz]|[+-][0-9]{2}(:?[0-9]{2})?)$' THEN
+        RETURN value::timestamptz;
+    END IF;
+    RETURN value::timestamp AT TIME ZONE 'UTC';
+EXCEPTION
+    WHEN others THEN
+        RETURN NULL;
+END
+$$;
+
+ALTER TABLE public.jdbc_entity
+    ADD COLUMN IF NOT EXISTS entity_type text GENERATED ALWAYS AS (data->>'entityType') STORED,
+    ADD COLUMN IF NOT EXISTS entity_id text GENERATED ALWAYS AS (data->>'entityId') STORED,
+    ADD COLUMN IF NOT EXISTS version bigint GENERATED ALWAYS AS ((data->>'version')::bigint) STORED,
+    ADD COLUMN IF NOT EXISTS existence_kind text GENERATED ALWAYS AS (data->>'existenceKind') STORED,
+    ADD COLUMN IF NOT EXISTS start_time timestamptz GENERATED ALWAYS AS (wd_to_timestamptz(data->>'startTime')) STORED,
+    ADD COLUMN IF NOT EXISTS end_time timestamptz GENERATED ALWAYS AS (wd_to_timestamptz(data->>'endTime')) STORED,
+    ADD COLUMN IF NOT EXISTS facility_name text GENERATED ALWAYS AS (data->'data'->>'FacilityName') STORED;
+
+-- deletes and purges, which also touch soft deleted rows
+CREATE INDEX IF NOT EXISTS jdbc_entity_type_entity_idx
+    ON public.jdbc_entity (entity_type, entity_id, version);
+
+CREATE INDEX IF NOT EXISTS jdbc_entity_live_type_entity_idx
+    ON public.jdbc_entity (entity_type, entity_id, version DESC) WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS jdbc_entity_live_type_kind_idx
+    ON public.jdbc_entity (entity_type, existence_kind, version DESC) WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS jdbc_entity_live_type_kind_facility_idx
+    ON public.jdbc_entity (entity_type, existence_kind, facility_name, version DESC) WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS jdbc_entity_live_type_kind_time_idx
+    ON public.jdbc_entity (entity_type, existence_kind, start_time, end_time) WHERE deleted_at IS NULL;
@@ -0,0 +1,26 @@
+-- One row per relationship of an entity row, so relationship lookups are index scans instead of array expansions.
+CREATE TABLE IF NOT EXISTS public.jdbc_relationship
+(
+    entity_pk bigint NOT NULL REFERENCES public.jdbc_entity (id) ON DELETE CASCADE,
+    related_type text NOT NULL,
+    related_entity_id text NOT NULL,
+    related_version bigint
+);
+
+CREATE INDEX IF NOT EXISTS jdbc_relationship_related_idx
+    ON public.jdbc_relationship (related_type, related_entity_id, entity_pk);
+
+CREATE INDEX IF NOT EXISTS jdbc_relationship_related_entity_idx
+    ON public.jdbc_relationship (related_entity_id, entity_pk);
+
+CREATE INDEX IF NOT EXISTS jdbc_relationship_entity_pk_idx
+    ON public.jdbc_relationship (entity_pk);
+
+-- Rows saved before the edge table existed. Relationships without entityId get their edges from the
+-- relationship key backfill.
+INSERT INTO public.jdbc_relationship(entity_pk, related_type, related_entity_id, related_version)
+SELECT e.id, lower(rel->>'entityType'), lower(rel->>'entityId'), (rel->>'version')::bigint
+FROM public.jdbc_entity e
+CROSS JOIN LATERAL jsonb_array_elements(CASE WHEN jsonb_typeof(e.relationships) = 'array' THEN e.relationships ELSE '[]'::jsonb END) rel
+WHERE coalesce(rel->>'entityType', '') <> '' AND coalesce(rel->>'entityId', '') <> ''
+  AND NOT EXISTS (SELECT 1 FROM public.jdbc_relationship r WHERE r.entity_pk = e.id);
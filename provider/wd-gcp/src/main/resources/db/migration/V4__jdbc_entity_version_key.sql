@@ -0,0 +1,18 @@
+-- Saves used to look the version up before inserting, so concurrent saves could leave duplicate rows behind.
+-- Keep one row per entity version: the newest live row, or the newest row if every copy is soft deleted.
+DELETE FROM public.jdbc_entity e
+USING public.jdbc_entity d
+WHERE e.entity_type = d.entity_type
+  AND e.entity_id = d.entity_id
+  AND e.version = d.version
+  AND ((e.deleted_at IS NOT NULL AND d.deleted_at IS NULL)
+    OR ((e.deleted_at IS NULL) = (d.deleted_at IS NULL) AND e.id < d.id));
+
+DELETE FROM public.jdbc_entity_head h
+WHERE NOT EXISTS (SELECT 1 FROM public.jdbc_entity e WHERE e.id = h.row_id);
+
+ALTER TABLE public.jdbc_entity
+    ADD CONSTRAINT jdbc_entity_type_entity_version_key UNIQUE (entity_type, entity_id, version);
+
+-- covered by the unique constraint
+DROP INDEX IF EXISTS public.jdbc_entity_type_entity_idx;
@@ -0,0 +1,108 @@
+-- Rebuilds jdbc_entity as a table list-partitioned by entity type, so that high volume types such as drilling reports
+-- get their own heap and indexes. Generated columns cannot be partition keys, so entity_type becomes a regular column
+-- written by the service and checked against the data.
+
+CREATE OR REPLACE FUNCTION wd_entity_partition_name(p_entity_type text) RETURNS text
+    LANGUAGE sql IMMUTABLE AS
+$$
+SELECT 'jdbc_entity_' || left(regexp_replace(lower(p_entity_type), '[^a-z0-9_]', '_', 'g'), 40) || '_' || left(md5(p_entity_type), 8)
+$$;
+
+-- Creates the partition of an entity type unless it exists. Returns false when rows of the type are already in the
+-- default partition, those stay there.
+CREATE OR REPLACE FUNCTION wd_ensure_entity_partition(p_entity_type text) RETURNS boolean
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    partition_name text := wd_entity_partition_name(p_entity_type);
+BEGIN
+    IF to_regclass(format('public.%I', partition_name)) IS NOT NULL THEN
+        RETURN true;
+    END IF;
+    PERFORM pg_advisory_xact_lock(hashtext(partition_name));
+    IF to_regclass(format('public.%I', partition_name)) IS NOT NULL THEN
+        RETURN true;
+    END IF;
+    IF EXISTS (SELECT 1 FROM public.jdbc_entity_default d WHERE d.entity_type = p_entity_type) THEN
+        RETURN false;
+    END IF;
+    EXECUTE format('CREATE TABLE public.%I PARTITION OF public.jdbc_entity FOR VALUES IN (%L)', partition_name, p_entity_type);
+    RETURN true;
+END
+$$;
+
+ALTER TABLE public.jdbc_entity RENAME TO jdbc_entity_unpartitioned;
+
+CREATE SEQUENCE public.jdbc_entity_row_id_seq;
+
+CREATE TABLE public.jdbc_entity
+(
+    id bigint NOT NULL DEFAULT nextval('public.jdbc_entity_row_id_seq'),
+    entity_type text NOT NULL,
+    data jsonb,
+    relationships jsonb,
+    deleted_at TIMESTAMP WITH TIME ZONE,
+    entity_id text GENERATED ALWAYS AS (data->>'entityId') STORED,
+    version bigint GENERATED ALWAYS AS ((data->>'version')::bigint) STORED,
+    existence_kind text GENERATED ALWAYS AS (data->>'existenceKind') STORED,
+    start_time timestamptz GENERATED ALWAYS AS (wd_to_timestamptz(data->>'startTime')) STORED,
+    end_time timestamptz GENERATED ALWAYS AS (wd_to_timestamptz(data->>'endTime')) STORED,
+    facility_name text GENERATED ALWAYS AS (data->'data'->>'FacilityName') STORED,
+    CONSTRAINT jdbc_entity_type_check CHECK (entity_type = data->>'entityType')
+) PARTITION BY LIST (entity_type);
+
+ALTER SEQUENCE public.jdbc_entity_row_id_seq OWNED BY public.jdbc_entity.id;
+
+CREATE TABLE public.jdbc_entity_default PARTITION OF public.jdbc_entity DEFAULT;
+
+SELECT wd_ensure_entity_partition(t.entity_type)
+FROM (SELECT DISTINCT data->>'entityType' AS entity_type FROM public.jdbc_entity_unpartitioned) t
+WHERE coalesce(t.entity_type, '') <> '';
+
+INSERT INTO public.jdbc_entity(id, entity_type, data, relationships, deleted_at)
+SELECT id, coalesce(data->>'entityType', ''), data, relationships, deleted_at
+FROM public.jdbc_entity_unpartitioned;
+
+SELECT setval('public.jdbc_entity_row_id_seq', coalesce((SELECT max(id) FROM public.jdbc_entity), 0) + 1, false);
+
+-- edges reference entity rows by partition key and id
+ALTER TABLE public.jdbc_relationship ADD COLUMN entity_type text;
+
+UPDATE public.jdbc_relationship r
+SET entity_type = e.entity_type
+FROM public.jdbc_entity e
+WHERE e.id = r.entity_pk;
+
+DELETE FROM public.jdbc_relationship WHERE entity_type IS NULL;
+
+ALTER TABLE public.jdbc_relationship ALTER COLUMN entity_type SET NOT NULL;
+
+DROP TABLE public.jdbc_entity_unpartitioned CASCADE;
+
+ALTER TABLE public.jdbc_entity
+    ADD CONSTRAINT jdbc_entity_pkey PRIMARY KEY (entity_type, id),
+    ADD CONSTRAINT jdbc_entity_type_entity_version_key UNIQUE (entity_type, entity_id, version);
+
+ALTER TABLE public.jdbc_relationship
+    ADD CONSTRAINT jdbc_relationship_entity_fkey FOREIGN KEY (entity_type, entity_pk)
+        REFERENCES public.jdbc_entity (entity_type, id) ON DELETE CASCADE;
+
+DROP INDEX IF EXISTS public.jdbc_relationship_entity_pk_idx;
+
+CREATE INDEX IF NOT EXISTS jdbc_relationship_entity_idx
+    ON public.jdbc_relationship (entity_type, entity_pk);
+
+CREATE INDEX IF NOT EXISTS jdbc_entity_relationships_idx
+    ON public.jdbc_entity USING GIN (relationships jsonb_path_ops);
+
+CREATE INDEX IF NOT EXISTS jdbc_entity_live_type_entity_idx
+    ON public.jdbc_entity (entity_type, entity_id, version DESC) WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS jdbc_entity_live_type_kind_idx
+    ON public.jdbc_entity (entity_type, existence_kind, version DESC) WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS jdbc_entity_live_type_kind_facility_idx
+    ON public.jdbc_entity (entity_type, existence_kind, facility_name, version DESC) WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS jdbc_entity_live_type_kind_time_idx
+    ON public.jdbc_entity (entity_type, existence_kind, start_time, end_time) WHERE deleted_at IS NULL;
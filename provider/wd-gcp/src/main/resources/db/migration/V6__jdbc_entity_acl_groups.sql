@@ -0,0 +1,10 @@
+-- Viewer and owner groups of the entity in one array, so that list queries can filter on the caller's groups
+-- with ?| and an index instead of reading every row and checking its ACL in the service.
+ALTER TABLE public.jdbc_entity
+    ADD COLUMN IF NOT EXISTS acl_groups jsonb GENERATED ALWAYS AS (
+        CASE WHEN jsonb_typeof(data->'acl'->'viewers') = 'array' THEN data->'acl'->'viewers' ELSE '[]'::jsonb END
+        || CASE WHEN jsonb_typeof(data->'acl'->'owners') = 'array' THEN data->'acl'->'owners' ELSE '[]'::jsonb END) STORED;
+
+-- jsonb_ops, jsonb_path_ops does not support ?|
+CREATE INDEX IF NOT EXISTS jdbc_entity_live_acl_groups_idx
+    ON public.jdbc_entity USING GIN (acl_groups) WHERE deleted_at IS NULL;
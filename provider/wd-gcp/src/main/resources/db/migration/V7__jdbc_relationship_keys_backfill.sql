@@ -0,0 +1,31 @@
+-- Copies entityId and version out of the combined relationship id of the rows written before they were stored
+-- separately, so that relationship lookups on entityId find them. Same as the relationship-keys migration endpoint,
+-- for every entity type.
+WITH saved AS (
+    UPDATE public.jdbc_entity e
+    SET relationships = (
+        SELECT jsonb_agg(CASE
+                             WHEN coalesce(rel->>'entityId', '') = '' AND coalesce(rel->>'id', '') <> '' THEN
+                                 CASE
+                                     WHEN rel->>'id' ~ ':[0-9]{1,18}$'
+                                         THEN rel || jsonb_build_object('entityId', regexp_replace(rel->>'id', ':[0-9]+$', ''),
+                                                                        'version', substring(rel->>'id' from ':([0-9]+)$')::bigint)
+                                     ELSE rel || jsonb_build_object('entityId', rel->>'id')
+                                 END
+                             ELSE rel
+                         END ORDER BY ord)
+        FROM jsonb_array_elements(e.relationships) WITH ORDINALITY AS r(rel, ord))
+    WHERE jsonb_typeof(e.relationships) = 'array'
+      AND EXISTS (SELECT 1
+                  FROM jsonb_array_elements(e.relationships) rel
+                  WHERE coalesce(rel->>'entityId', '') = '' AND coalesce(rel->>'id', '') <> '')
+    RETURNING e.id, e.entity_type, e.relationships
+),
+stale AS (
+    DELETE FROM public.jdbc_relationship WHERE (entity_type, entity_pk) IN (SELECT entity_type, id FROM saved)
+)
+INSERT INTO public.jdbc_relationship(entity_pk, entity_type, related_type, related_entity_id, related_version)
+SELECT saved.id, saved.entity_type, lower(rel->>'entityType'), lower(rel->>'entityId'), (rel->>'version')::bigint
+FROM saved
+CROSS JOIN LATERAL jsonb_array_elements(saved.relationships) rel
+WHERE coalesce(rel->>'entityType', '') <> '' AND coalesce(rel->>'entityId', '') <> '';
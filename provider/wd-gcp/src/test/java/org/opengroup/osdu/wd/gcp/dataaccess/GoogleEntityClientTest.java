@@ -0,0 +1,78 @@
+/*
+ *  Copyright 2020-2021 Google LLC
+ *  Copyright 2020-2021 EPAM Systems, Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.opengroup.osdu.wd.gcp.dataaccess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.http.HttpStatus;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.opengroup.osdu.wd.core.models.ACL;
+import org.opengroup.osdu.wd.core.models.EntityBatchItem;
+import org.opengroup.osdu.wd.core.models.EntityBatchResult;
+import org.opengroup.osdu.wd.core.models.EntityDto;
+import org.opengroup.osdu.wd.core.models.Legal;
+import org.opengroup.osdu.wd.gcp.dataaccess.db.postgres.JdbcEntityRepository;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GoogleEntityClientTest {
+
+    @Mock
+    private JdbcEntityRepository jdbcEntityRepository;
+
+    @InjectMocks
+    private GoogleEntityClient entityClient;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_upsertLastItemOnce_when_saveEntities_SameVersionTwice() {
+        EntityBatchItem first = item("wellbore", "wb-1", 1);
+        EntityBatchItem other = item("wellbore", "wb-2", 1);
+        EntityBatchItem last = item("wellbore", "wb-1", 1);
+
+        List<EntityBatchResult> res = entityClient.saveEntities(Arrays.asList(first, other, last));
+
+        ArgumentCaptor<List<EntityBatchItem>> saved = ArgumentCaptor.forClass(List.class);
+        verify(jdbcEntityRepository).upsertEntities(saved.capture());
+        assertEquals(2, saved.getValue().size());
+        assertSame(last, saved.getValue().get(0));
+        assertSame(other, saved.getValue().get(1));
+        assertEquals(3, res.size());
+        assertEquals(HttpStatus.SC_CREATED, res.get(2).getStatus());
+        assertEquals(2, res.get(2).getIndex());
+    }
+
+    private EntityBatchItem item(String entityType, String entityId, long version) {
+        EntityDto dto = new EntityDto();
+        dto.setEntityType(entityType);
+        dto.setEntityId(entityId);
+        dto.setVersion(version);
+        dto.setAcl(new ACL());
+        dto.setLegal(new Legal());
+        return new EntityBatchItem(dto, Collections.emptyList());
+    }
+}
@@ -18,8 +18,12 @@
 package org.opengroup.osdu.wd.gcp.dataaccess;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.opengroup.osdu.wd.core.models.ENTITY_TYPE.ACTIVITY_PLAN;
 import static org.opengroup.osdu.wd.core.models.ENTITY_TYPE.BHA_RUN;
@@ -37,6 +41,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -48,6 +53,7 @@ import org.mockito.junit.MockitoJUnitRunner;
 import org.opengroup.osdu.core.client.model.http.AppException;
 import org.opengroup.osdu.wd.core.models.EntityDto;
 import org.opengroup.osdu.wd.core.models.EntityDtoReturn;
+import org.opengroup.osdu.wd.core.models.EntityDtoReturnList;
 import org.opengroup.osdu.wd.core.models.Relationship;
 import org.opengroup.osdu.wd.gcp.dataaccess.db.postgres.JdbcEntityRepository;
 import org.opengroup.osdu.wd.gcp.model.JdbcEntity;
@@ -105,25 +111,24 @@ public class GoogleQueryClientTest {
 
     @Test
     public void getBHARunsBySegmentShouldReturnValidEntityDtoReturnWhenPresent() {
-        when(jdbcEntityRepository.getEntitiesByExistenceKindAndRelationshipEntityId(BHA_RUN, EXISTENCE_KIND_PLANNED, HOLE_SECTION, ID))
+        when(jdbcEntityRepository.getEntitiesByExistenceKindAndRelationshipEntityId(BHA_RUN, EXISTENCE_KIND_PLANNED, HOLE_SECTION, ID, null))
             .thenReturn(Collections.singletonList(bharunEntity));
-        List<EntityDtoReturn> bhaRunsBySegment = queryClient.getBHARunsBySection(EXISTENCE_KIND_PLANNED, ID);
+        List<EntityDtoReturn> bhaRunsBySegment = queryClient.getBHARunsBySection(EXISTENCE_KIND_PLANNED, ID, null).getEntities();
         assertEquals(bharunEntityDtoReturn, bhaRunsBySegment.get(0));
     }
 
     @Test
     public void getBHARunsBySegmentShouldReturnNotValidEntityDtoReturnWhenPresent() {
-        when(jdbcEntityRepository.getEntitiesByExistenceKindAndRelationshipEntityId(BHA_RUN, EXISTENCE_KIND_PLANNED, HOLE_SECTION, ID))
+        when(jdbcEntityRepository.getEntitiesByExistenceKindAndRelationshipEntityId(BHA_RUN, EXISTENCE_KIND_PLANNED, HOLE_SECTION, ID, null))
             .thenReturn(Collections.singletonList(bharunEntity));
-        List<EntityDtoReturn> bhaRunsBySegment = queryClient.getBHARunsBySection(EXISTENCE_KIND_PLANNED, ID);
+        List<EntityDtoReturn> bhaRunsBySegment = queryClient.getBHARunsBySection(EXISTENCE_KIND_PLANNED, ID, null).getEntities();
         assertEquals(bharunEntityDtoReturn, bhaRunsBySegment.get(0));
     }
 
     @Test
     public void testGetLatestDrillingReportRefTree() {
         when(jdbcEntityRepository.getLatestDrillingReport(any(), any())).thenReturn(Optional.of(drillingReportEntity));
-        when(jdbcEntityRepository.getLatestByIdAndType(WELLBORE, WELLBORE_ID)).thenReturn(Optional.of(wellboreEntity));
-        when(jdbcEntityRepository.getLatestByIdAndType(WELL, WELL_ID)).thenReturn(Optional.of(wellEntity));
+        when(jdbcEntityRepository.getEntityTree(any(), any(), anyInt())).thenReturn(Arrays.asList(drillingReportEntity, wellboreEntity, wellEntity));
 
         Object latestDrillingReportRefTree = queryClient.getLatestDrillingReportRefTree(any(), any());
         assertEquals(drillingReportRefTreeFromFile, latestDrillingReportRefTree);
@@ -135,9 +140,8 @@ public class GoogleQueryClientTest {
             .thenReturn(Optional.of(wellboreEntity));
         when(jdbcEntityRepository.getLatestActivityProgramByExistenceKindAndWellId(EXISTENCE_KIND_PLANNED, WELLBORE_ID))
             .thenReturn(Optional.of(activityProgramEntity));
-        when(jdbcEntityRepository.getLatestByIdAndType(WELLBORE, WELLBORE_ID)).thenReturn(Optional.of(wellboreEntity));
-        when(jdbcEntityRepository.getLatestByIdAndType(WELL, WELL_ID)).thenReturn(Optional.of(wellEntity));
-        when(jdbcEntityRepository.getLatestByIdAndType(ACTIVITY_PLAN.toLowerCase(), ACTIVITY_PLAN_ID)).thenReturn(Optional.of(activityPlanEntity));
+        when(jdbcEntityRepository.getEntityTree(any(), any(), anyInt()))
+            .thenReturn(Arrays.asList(activityProgramEntity, wellboreEntity, wellEntity, activityPlanEntity));
 
         Object latestWellActivityProgramRefTreeByWell = queryClient.getLatestWellActivityProgramRefTreeByWell(EXISTENCE_KIND_PLANNED, WELL_ID);
         assertEquals(activityProgramRefTreeFromFile, latestWellActivityProgramRefTreeByWell);
@@ -150,9 +154,8 @@ public class GoogleQueryClientTest {
         when(jdbcEntityRepository
             .getSpecificEntityByExistenceKindAndRelationshipEntityId(WELL_ACTIVITY_PROGRAM, EXISTENCE_KIND_PLANNED, 1L, WELLBORE, WELLBORE_ID))
             .thenReturn(Optional.of(activityProgramEntity));
-        when(jdbcEntityRepository.getLatestByIdAndType(WELLBORE, WELLBORE_ID)).thenReturn(Optional.of(wellboreEntity));
-        when(jdbcEntityRepository.getLatestByIdAndType(WELL, WELL_ID)).thenReturn(Optional.of(wellEntity));
-        when(jdbcEntityRepository.getLatestByIdAndType(ACTIVITY_PLAN.toLowerCase(), ACTIVITY_PLAN_ID)).thenReturn(Optional.of(activityPlanEntity));
+        when(jdbcEntityRepository.getEntityTree(any(), any(), anyInt()))
+            .thenReturn(Arrays.asList(activityProgramEntity, wellboreEntity, wellEntity, activityPlanEntity));
         Object specificWellActivityProgramRefTreeByWell = queryClient.getSpecificWellActivityProgramRefTreeByWell(EXISTENCE_KIND_PLANNED, WELL_ID, 1L);
         assertEquals(activityProgramRefTreeFromFile, specificWellActivityProgramRefTreeByWell);
     }
@@ -164,9 +167,8 @@ public class GoogleQueryClientTest {
         when(jdbcEntityRepository.getLatestEntityByExistenceKindAndRelationshipEntityId(WELL_ACTIVITY_PROGRAM, EXISTENCE_KIND_PLANNED, WELLBORE, WELLBORE_ID))
             .thenReturn(Optional.of(activityProgramEntity));
 
-        when(jdbcEntityRepository.getLatestByIdAndType(WELLBORE, WELLBORE_ID)).thenReturn(Optional.of(wellboreEntity));
-        when(jdbcEntityRepository.getLatestByIdAndType(WELL, WELL_ID)).thenReturn(Optional.of(wellEntity));
-        when(jdbcEntityRepository.getLatestByIdAndType(ACTIVITY_PLAN.toLowerCase(), ACTIVITY_PLAN_ID)).thenReturn(Optional.of(activityPlanEntity));
+        when(jdbcEntityRepository.getEntityTree(any(), any(), anyInt()))
+            .thenReturn(Arrays.asList(activityProgramEntity, wellboreEntity, wellEntity, activityPlanEntity));
 
         ArrayList<EntityDtoReturn> entityDtoReturns = new ArrayList<>();
         entityDtoReturns.add(getEntityDtoReturnFromFile("/entities/wellbore/wellbore.json"));
@@ -185,9 +187,35 @@ public class GoogleQueryClientTest {
     }
 
 
+    @Test
+    public void getBHARunsBySegmentShouldReturnAclFilteredCountWhenFilteredByGroups() {
+        String[] groups = {"data.default.viewers@opendes.contoso.com"};
+        when(jdbcEntityRepository.getEntitiesByExistenceKindAndRelationshipEntityId(BHA_RUN, EXISTENCE_KIND_PLANNED, HOLE_SECTION, ID, groups))
+            .thenReturn(Collections.singletonList(bharunEntity));
+        when(jdbcEntityRepository.countAclFilteredByExistenceKindAndRelationshipEntityId(BHA_RUN, EXISTENCE_KIND_PLANNED, HOLE_SECTION, ID, groups))
+            .thenReturn(2L);
+
+        EntityDtoReturnList bhaRunsBySegment =
+            queryClient.getBHARunsBySection(EXISTENCE_KIND_PLANNED, ID, Collections.singleton(groups[0]));
+        assertEquals(Collections.singletonList(bharunEntityDtoReturn), bhaRunsBySegment.getEntities());
+        assertTrue(bhaRunsBySegment.isAclFiltered());
+        assertEquals(2L, bhaRunsBySegment.getAclFilteredCount());
+    }
+
+    @Test
+    public void getBHARunsBySegmentShouldNotCountAclFilteredWhenNoGroups() {
+        when(jdbcEntityRepository.getEntitiesByExistenceKindAndRelationshipEntityId(BHA_RUN, EXISTENCE_KIND_PLANNED, HOLE_SECTION, ID, null))
+            .thenReturn(Collections.emptyList());
+
+        EntityDtoReturnList bhaRunsBySegment = queryClient.getBHARunsBySection(EXISTENCE_KIND_PLANNED, ID, null);
+        assertFalse(bhaRunsBySegment.isAclFiltered());
+        assertTrue(bhaRunsBySegment.noneMatched());
+        verify(jdbcEntityRepository, never()).countAclFilteredByExistenceKindAndRelationshipEntityId(any(), any(), any(), any(), any());
+    }
+
     @Test(expected = AppException.class)
     public void getBHARunsByWellsShouldThrowExceptionWhenNoBhaRunsByWellbore() {
-        queryClient.getBHARunsByWells(EXISTENCE_KIND_PLANNED, Collections.singletonList(ID));
+        queryClient.getBHARunsByWells(EXISTENCE_KIND_PLANNED, Collections.singletonList(ID), null);
     }
 
     private JdbcEntity getJdbcEntityFromFile(String entityJsonPath, String relationShipPath) throws IOException {
@@ -0,0 +1,84 @@
+/*
+ *   Copyright 2020-2021 Google LLC
+ *   Copyright 2020-2021 EPAM Systems, Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.opengroup.osdu.wd.gcp.dataaccess.db.postgres;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Scanner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.opengroup.osdu.wd.core.models.EntityDto;
+import org.opengroup.osdu.wd.core.models.EntityDtoReturn;
+import org.opengroup.osdu.wd.core.models.Relationship;
+import org.opengroup.osdu.wd.gcp.model.JdbcEntity;
+
+@RunWith(MockitoJUnitRunner.class)
+public class JdbcEntityRowMapperTest {
+
+    @Mock
+    private ResultSet resultSet;
+
+    @Test
+    public void should_readSameResponseAsEntityDto_when_mappedRow() throws SQLException, IOException {
+        String data = readResource("/entities/bharun/bharun.json");
+        mockRow(data, readResource("/entities/bharun/bhrarun-relationships.json"));
+
+        JdbcEntity entity = JdbcEntityRowMapper.INSTANCE.mapRow(resultSet, 1);
+
+        assertEquals(Long.valueOf(7L), entity.getId());
+        assertEquals("bharun", entity.getEntityType());
+        assertNull(entity.getDeletedAt());
+        EntityDto dto = new ObjectMapper().readValue(data, EntityDto.class);
+        assertEquals(new EntityDtoReturn(dto), entity.getEntityDtoReturnFromData());
+    }
+
+    @Test
+    public void should_parseRelationshipsOnce_when_readTwice() throws SQLException, IOException {
+        mockRow(readResource("/entities/bharun/bharun.json"), readResource("/entities/bharun/bhrarun-relationships.json"));
+
+        JdbcEntity entity = JdbcEntityRowMapper.INSTANCE.mapRow(resultSet, 1);
+        List<Relationship> relationships = entity.getRelationshipsDto();
+
+        assertSame(relationships, entity.getRelationshipsDto());
+    }
+
+    private void mockRow(String data, String relationships) throws SQLException {
+        when(resultSet.getLong("id")).thenReturn(7L);
+        when(resultSet.getString("entity_type")).thenReturn("bharun");
+        when(resultSet.getString("data")).thenReturn(data);
+        when(resultSet.getString("relationships")).thenReturn(relationships);
+    }
+
+    private String readResource(String path) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream(path);
+             Scanner scanner = new Scanner(in, "UTF-8")) {
+            return scanner.useDelimiter("\\A").next();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ *   Copyright 2020-2021 Google LLC
+ *   Copyright 2020-2021 EPAM Systems, Inc
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.opengroup.osdu.wd.gcp.dataaccess.db.postgres.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PartitionRoutingDataSourceTest {
+
+    private static final PartitionRoutingDataSource.PoolSettings SETTINGS =
+        new PartitionRoutingDataSource.PoolSettings(2, 5, 60000L, 60000L, 60000L, false);
+
+    @Mock
+    private HikariDataSource defaultDataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Test
+    public void should_useDefaultPool_when_noPartitionId() throws SQLException {
+        when(defaultDataSource.getConnection()).thenReturn(connection);
+        PartitionRoutingDataSource dataSource = new PartitionRoutingDataSource(defaultDataSource, () -> null,
+            partitionId -> {
+                throw new IllegalStateException("No partition lookup expected");
+            }, SETTINGS);
+
+        assertSame(connection, dataSource.getConnection());
+        assertNull(dataSource.currentLookupKey());
+    }
+
+    @Test
+    public void should_lowerCasePartitionId_when_lookupKey() {
+        PartitionRoutingDataSource dataSource = new PartitionRoutingDataSource(defaultDataSource, () -> "OpenDes", null, SETTINGS);
+
+        assertEquals("opendes", dataSource.currentLookupKey());
+    }
+
+    @Test
+    public void should_retryPoolCreation_when_previousCreationFailed() {
+        AtomicInteger lookups = new AtomicInteger();
+        PartitionRoutingDataSource dataSource = new PartitionRoutingDataSource(defaultDataSource, () -> "opendes",
+            partitionId -> {
+                lookups.incrementAndGet();
+                throw new IllegalStateException("Partition service unavailable");
+            }, SETTINGS);
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                dataSource.getConnection();
+                fail("Expected the pool creation to fail");
+            } catch (IllegalStateException | SQLException e) {
+                assertEquals("Partition service unavailable", e.getMessage());
+            }
+        }
+        assertEquals(2, lookups.get());
+        assertEquals(1, dataSource.getPoolStats().size());
+    }
+}
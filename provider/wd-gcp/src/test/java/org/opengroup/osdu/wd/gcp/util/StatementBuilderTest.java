@@ -0,0 +1,118 @@
+/*
+ *  Copyright 2020-2021 Google LLC
+ *  Copyright 2020-2021 EPAM Systems, Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.opengroup.osdu.wd.gcp.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+import org.junit.Test;
+
+public class StatementBuilderTest {
+
+    @Test
+    public void should_filterOnTypedColumns_when_latestVersionById() {
+        String sql = new StatementBuilder()
+            .select().all().fromJdbcEntity()
+            .where().entityNotDeleted()
+            .and().filterByEntityType()
+            .and().filterByEntityId()
+            .orderBy().selectVersion().descending()
+            .build();
+
+        assertEquals("SELECT * FROM jdbc_entity WHERE deleted_at IS null AND entity_type = ? AND entity_id = ? ORDER BY version DESC ", sql);
+    }
+
+    @Test
+    public void should_compareTimestamps_when_filterByTimeRange() {
+        String sql = new StatementBuilder()
+            .select().all().fromJdbcEntity()
+            .where().entityNotDeleted()
+            .and().entityTypeIsDrillingReport()
+            .and().filterByExistenceKind()
+            .and().filterByStartTimeNotAfter()
+            .and().filterByEndTimeNotBefore()
+            .build();
+
+        assertEquals("SELECT * FROM jdbc_entity WHERE deleted_at IS null AND entity_type = 'drillingreport' AND existence_kind = ? "
+            + "AND start_time <= wd_to_timestamptz(?) AND end_time >= wd_to_timestamptz(?) ", sql);
+    }
+
+    @Test
+    public void should_semiJoinEdgeTable_when_filterByRelatedEntity() {
+        String sql = new StatementBuilder()
+            .select().selectVersion().fromJdbcEntity()
+            .where().entityNotDeleted()
+            .and().filterByRelatedEntityIn()
+            .build();
+
+        assertEquals("SELECT version FROM jdbc_entity WHERE deleted_at IS null AND EXISTS (SELECT 1 FROM jdbc_relationship r "
+            + "WHERE r.entity_pk = jdbc_entity.id AND r.entity_type = jdbc_entity.entity_type "
+            + "AND r.related_type = ? AND r.related_entity_id = ANY (?)) ", sql);
+    }
+
+    @Test
+    public void should_escapeAnyKeyOperator_when_filterByAclGroups() {
+        String sql = new StatementBuilder()
+            .select().count().fromJdbcEntity()
+            .where().entityNotDeleted()
+            .and().filterByRelatedEntity()
+            .and().not().filterByAclGroups()
+            .build();
+
+        assertEquals("SELECT count(*) FROM jdbc_entity WHERE deleted_at IS null AND EXISTS (SELECT 1 FROM jdbc_relationship r "
+            + "WHERE r.entity_pk = jdbc_entity.id AND r.entity_type = jdbc_entity.entity_type "
+            + "AND r.related_type = ? AND r.related_entity_id = ?) AND NOT acl_groups ??| ? ", sql);
+    }
+
+    @Test
+    public void should_indexAclGroupsWithJsonbOps_when_aclGroupsMigrated() throws IOException {
+        String migration = readResource("/db/migration/V6__jdbc_entity_acl_groups.sql");
+
+        assertTrue(migration.contains("USING GIN (acl_groups) WHERE deleted_at IS NULL"));
+    }
+
+    @Test
+    public void should_haveMatchingPartialIndexes_when_typedColumnsMigrated() throws IOException {
+        String migration = readResource("/db/migration/V2__jdbc_entity_typed_columns.sql");
+
+        assertTrue(migration.contains("(entity_type, entity_id, version DESC) WHERE deleted_at IS NULL"));
+        assertTrue(migration.contains("(entity_type, existence_kind, version DESC) WHERE deleted_at IS NULL"));
+        assertTrue(migration.contains("(entity_type, existence_kind, facility_name, version DESC) WHERE deleted_at IS NULL"));
+        assertTrue(migration.contains("(entity_type, existence_kind, start_time, end_time) WHERE deleted_at IS NULL"));
+    }
+
+    @Test
+    public void should_keepPartitionKeyInUniqueKeys_when_partitionedByType() throws IOException {
+        String migration = readResource("/db/migration/V5__jdbc_entity_partition_by_type.sql");
+
+        assertTrue(migration.contains("PARTITION BY LIST (entity_type)"));
+        assertTrue(migration.contains("PRIMARY KEY (entity_type, id)"));
+        assertTrue(migration.contains("UNIQUE (entity_type, entity_id, version)"));
+    }
+
+    private String readResource(String path) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream(path);
+             Scanner scanner = new Scanner(in, StandardCharsets.UTF_8.name())) {
+            return scanner.useDelimiter("\\A").next();
+        }
+    }
+}
@@ -3,6 +3,7 @@
 
 package org.opengroup.osdu.wd.ibm;
 
+import org.opengroup.osdu.wd.core.dataaccess.impl.MongoClientRegistry;
 import org.opengroup.osdu.wd.core.dataaccess.impl.MongodbInit;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -20,7 +21,7 @@ import org.springframework.context.annotation.FilterType;
 },
         excludeFilters = @Filter(
                 type = FilterType.ASSIGNABLE_TYPE,
-                classes = MongodbInit.class
+                classes = {MongodbInit.class, MongoClientRegistry.class}
         )
 )
 @SpringBootApplication(exclude={
@@ -4,12 +4,22 @@
 package org.opengroup.osdu.wd.ibm.dataaccess;
 
 import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.apache.http.HttpStatus;
 
 import org.bson.Document;
 import org.opengroup.osdu.wd.core.dataaccess.impl.MongoEntity;
 
 import org.opengroup.osdu.wd.core.dataaccess.interfaces.IEntityDBClient;
+import org.opengroup.osdu.wd.core.models.EntityBatchItem;
+import org.opengroup.osdu.wd.core.models.EntityBatchResult;
 import org.opengroup.osdu.wd.core.models.EntityDto;
 import org.opengroup.osdu.wd.core.models.EntityDtoReturn;
 import org.opengroup.osdu.wd.core.models.Relationship;
@@ -26,6 +36,8 @@ import com.cloudant.client.api.model.Response;
 @ConditionalOnProperty(name = "app.entity.source", havingValue = "cloudantdb", matchIfMissing = true)
 public class CloudantEntityClient implements IEntityDBClient {
 
+    private static final int BACKFILL_BATCH_SIZE = 200;
+
     @Autowired
     private CloudantdbInit cloudantInit;
 
@@ -35,17 +47,78 @@ public class CloudantEntityClient implements IEntityDBClient {
 				Database entityDB=cloudantInit.getEntityDB(dto.getEntityType());
 				CloudantEntity dbEntity=new CloudantEntity(dto,relationships);
 				Response response=entityDB.save(dbEntity);
+				CloudantdbFacade.upsertHead(cloudantInit.getHeadDB(dto.getEntityType()),
+						dbEntity.getEntityId(), dbEntity.getVersion(), dbEntity.get_id());
 					
 		return null;
 	}
 
+	@Override
+	public List<EntityBatchResult> saveEntities(List<EntityBatchItem> items) {
+
+		Map<String, List<Integer>> indexesByType = new LinkedHashMap<>();
+		for (int i = 0; i < items.size(); i++)
+			indexesByType.computeIfAbsent(items.get(i).getDto().getEntityType(), k -> new ArrayList<>()).add(i);
+
+		EntityBatchResult[] results = new EntityBatchResult[items.size()];
+		for (Map.Entry<String, List<Integer>> entry : indexesByType.entrySet()) {
+			List<CloudantEntity> docs = new ArrayList<>();
+			for (int i : entry.getValue())
+				docs.add(new CloudantEntity(items.get(i).getDto(), items.get(i).getRelationships()));
+
+			// existing versions are updated, which needs their current revision
+			Database entityDB = cloudantInit.getEntityDB(entry.getKey());
+			Map<String, String> revisions = CloudantdbFacade.findRevisions(entityDB,
+					docs.stream().map(CloudantEntity::get_id).collect(Collectors.toList()));
+			docs.forEach(doc -> doc.set_rev(revisions.get(doc.get_id())));
+
+			// _bulk_docs answers with one response per document, in order
+			List<Response> responses = entityDB.bulk(docs);
+			List<CloudantEntity> saved = new ArrayList<>(docs.size());
+			for (int k = 0; k < docs.size(); k++) {
+				int i = entry.getValue().get(k);
+				Response response = k < responses.size() ? responses.get(k) : null;
+				EntityDto dto = items.get(i).getDto();
+				if (response == null)
+					results[i] = EntityBatchResult.failed(i, dto, HttpStatus.SC_INTERNAL_SERVER_ERROR, "No response from CloudantDB");
+				else if (response.getError() != null)
+					results[i] = EntityBatchResult.failed(i, dto, toStatus(response), response.getError() + ": " + response.getReason());
+				else {
+					results[i] = EntityBatchResult.created(i, dto);
+					saved.add(docs.get(k));
+				}
+			}
+			// heads only advance to versions that were written
+			if (!saved.isEmpty())
+				CloudantdbFacade.upsertHeads(cloudantInit.getHeadDB(entry.getKey()), saved);
+		}
+		return Arrays.asList(results);
+	}
+
+	private static int toStatus(Response response) {
+		if ("conflict".equals(response.getError()))
+			return HttpStatus.SC_CONFLICT;
+		if ("forbidden".equals(response.getError()))
+			return HttpStatus.SC_FORBIDDEN;
+		return HttpStatus.SC_INTERNAL_SERVER_ERROR;
+	}
+
 	 @Override
 	    public EntityDtoReturn getLatestEntityVersion(String entityType, String entityId) {
 	        Database entityDb = cloudantInit.getEntityDB(entityType);
-
-	        CloudantEntity doc = CloudantdbFacade.findLatestOne(entityDb, entityId);
-	        if (doc == null)
-	            return null;	      
+	        Database heads = cloudantInit.getHeadDB(entityType);
+
+	        CloudantEntityHead head = CloudantdbFacade.findHead(heads, entityId);
+	        CloudantEntity doc = head == null ? null : CloudantdbFacade.findSpecificList(entityDb, Collections.singletonList(head.getDocId()))
+	                .stream().findFirst().orElse(null);
+	        if (doc == null) {
+	            // entities saved before the head was maintained
+	            doc = CloudantdbFacade.findLatestOne(entityDb, entityId);
+	            if (doc == null)
+	                return null;
+	            if (!doc.isDeleted())
+	                CloudantdbFacade.upsertHead(heads, entityId, doc.getVersion(), doc.get_id());
+	        }
 	        return doc.ToEntityDtoReturn();
 	    }
 
@@ -75,6 +148,7 @@ public class CloudantEntityClient implements IEntityDBClient {
 	        Database entityDb = cloudantInit.getEntityDB(entityType);
 
 	        long cnt = CloudantdbFacade.deleteEntity(entityDb, entityId);
+	        CloudantdbFacade.deleteHead(cloudantInit.getHeadDB(entityType), entityId);
 	        return cnt;
 	    }
 
@@ -83,6 +157,7 @@ public class CloudantEntityClient implements IEntityDBClient {
 	        Database entityDb = cloudantInit.getEntityDB(entityType);
 
 	        long cnt = CloudantdbFacade.purgeEntity(entityDb, entityId);
+	        CloudantdbFacade.deleteHead(cloudantInit.getHeadDB(entityType), entityId);
 	        return cnt;
 	    }
 
@@ -92,6 +167,7 @@ public class CloudantEntityClient implements IEntityDBClient {
 
 	        String _id = Common.buildId(entityId, version);
 	        int cnt = CloudantdbFacade.deleteOne(entityDb, _id);
+	        CloudantdbFacade.refreshHead(entityDb, cloudantInit.getHeadDB(entityType), entityId, version);
 	        return cnt;
 	    }
 
@@ -101,7 +177,15 @@ public class CloudantEntityClient implements IEntityDBClient {
 
 	        String _id = Common.buildId(entityId, version);
 	        int cnt = CloudantdbFacade.purgeOne(entityDb, _id);
+	        CloudantdbFacade.refreshHead(entityDb, cloudantInit.getHeadDB(entityType), entityId, version);
 	        return cnt;
 	    }
+
+	    @Override
+	    public long backfillRelationshipKeys(String entityType) {
+	        Database entityDb = cloudantInit.getEntityDB(entityType);
+
+	        return CloudantdbFacade.backfillRelationshipKeys(entityDb, BACKFILL_BATCH_SIZE);
+	    }
 	}
 
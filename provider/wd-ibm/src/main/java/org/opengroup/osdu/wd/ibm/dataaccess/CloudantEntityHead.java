@@ -0,0 +1,20 @@
+/* Licensed Materials - Property of IBM              */
+/* (c) Copyright IBM Corp. 2020. All Rights Reserved.*/
+
+package org.opengroup.osdu.wd.ibm.dataaccess;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Points an entity at the document of its latest version, the _id is the entity id.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CloudantEntityHead {
+    private String _id;
+    private String _rev;
+    private long version;
+    private String docId;
+}
@@ -7,6 +7,7 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.http.HttpStatus;
 
@@ -16,6 +17,8 @@ import org.opengroup.osdu.core.client.model.http.AppException;
 import org.opengroup.osdu.wd.core.dataaccess.interfaces.IQueryClient;
 import org.opengroup.osdu.wd.core.models.ENTITY_TYPE;
 import org.opengroup.osdu.wd.core.models.EntityDtoReturn;
+import org.opengroup.osdu.wd.core.models.EntityDtoReturnList;
+import org.opengroup.osdu.wd.core.models.Relationship;
 import org.opengroup.osdu.wd.core.util.DateTimeUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -37,15 +40,16 @@ public class CloudantQueryClient implements IQueryClient {
     //BHARun
 
     @Override
-    public List<EntityDtoReturn> getBHARunsBySection(String existenceKind, String segmentEntityId) {
+    public EntityDtoReturnList getBHARunsBySection(String existenceKind, String segmentEntityId, Set<String> aclGroups) {
        Database entityDb = cloudantInit.getEntityDB(ENTITY_TYPE.BHA_RUN.toLowerCase());
         List<String> ids = CloudantdbFacade.getIdList_LatestPerEntity_ByRelatedEntityId(entityDb, existenceKind, ENTITY_TYPE.HOLE_SECTION, segmentEntityId);
-        List<CloudantEntity> docs = CloudantdbFacade.getEntityList_ByIdList(entityDb, ids);
-        return toEntityDtoReturnList(docs);
+        List<CloudantEntity> docs = CloudantdbFacade.getEntityList_ByIdList(entityDb, ids, aclGroups);
+        return EntityDtoReturnList.ofAclGroups(toEntityDtoReturnList(docs), aclGroups,
+                () -> CloudantdbFacade.countAclFiltered_ByIdList(entityDb, ids, aclGroups));
     }
 
     @Override
-    public List<EntityDtoReturn> getBHARunsByWells(String existenceKind, List<String> wellEntityIds) {
+    public EntityDtoReturnList getBHARunsByWells(String existenceKind, List<String> wellEntityIds, Set<String> aclGroups) {
         List<String> wellboreIds = getWellboreIdsByWells(existenceKind, wellEntityIds);
 
        Database entityDb = cloudantInit.getEntityDB(ENTITY_TYPE.BHA_RUN.toLowerCase());
@@ -53,37 +57,40 @@ public class CloudantQueryClient implements IQueryClient {
         for (String wellboreId : wellboreIds) {
             List<String> ids = CloudantdbFacade.getIdList_LatestPerEntity_ByRelatedId(entityDb, existenceKind, ENTITY_TYPE.WELLBORE, wellboreId);
             if (ids.size() == 0) {
-                String wellboreEntityId = wellboreId.split(":")[0];
+                String wellboreEntityId = Relationship.parseEntityId(wellboreId);
                 throw new AppException(HttpStatus.SC_NOT_FOUND, "Not found", "Could not find BHA run with wellbore id: " + wellboreEntityId);
             }
             runIdList.addAll(ids);
         }
-        List<CloudantEntity> docs = CloudantdbFacade.getEntityList_ByIdList(entityDb, runIdList);
-        return toEntityDtoReturnList(docs);
+        List<CloudantEntity> docs = CloudantdbFacade.getEntityList_ByIdList(entityDb, runIdList, aclGroups);
+        return EntityDtoReturnList.ofAclGroups(toEntityDtoReturnList(docs), aclGroups,
+                () -> CloudantdbFacade.countAclFiltered_ByIdList(entityDb, runIdList, aclGroups));
     }
 
     @Override
-    public List<EntityDtoReturn> getBHARunsByWellbore(String existenceKind, String wellboreEntityId) {
+    public EntityDtoReturnList getBHARunsByWellbore(String existenceKind, String wellboreEntityId, Set<String> aclGroups) {
        Database entityDb = cloudantInit.getEntityDB(ENTITY_TYPE.BHA_RUN.toLowerCase());
         List<String> ids = CloudantdbFacade.getIdList_LatestPerEntity_ByRelatedEntityId(entityDb, existenceKind, ENTITY_TYPE.WELLBORE, wellboreEntityId);
-        List<CloudantEntity> docs = CloudantdbFacade.getEntityList_ByIdList(entityDb, ids);
-        return toEntityDtoReturnList(docs);
+        List<CloudantEntity> docs = CloudantdbFacade.getEntityList_ByIdList(entityDb, ids, aclGroups);
+        return EntityDtoReturnList.ofAclGroups(toEntityDtoReturnList(docs), aclGroups,
+                () -> CloudantdbFacade.countAclFiltered_ByIdList(entityDb, ids, aclGroups));
     }
 
     //WellboreSegment
 
     @Override
-    public List<EntityDtoReturn> getHoleSectionsByWellbore(String existenceKind, String wellboreEntityId) {
+    public EntityDtoReturnList getHoleSectionsByWellbore(String existenceKind, String wellboreEntityId, Set<String> aclGroups) {
         Database segmentDB = cloudantInit.getEntityDB(ENTITY_TYPE.HOLE_SECTION.toLowerCase());
         List<String> ids = CloudantdbFacade.getIdList_LatestPerEntity_ByRelatedEntityId(segmentDB, existenceKind, ENTITY_TYPE.WELLBORE, wellboreEntityId);
-        List<CloudantEntity> docs = CloudantdbFacade.getEntityList_ByIdList(segmentDB, ids);
-        return toEntityDtoReturnList(docs);
+        List<CloudantEntity> docs = CloudantdbFacade.getEntityList_ByIdList(segmentDB, ids, aclGroups);
+        return EntityDtoReturnList.ofAclGroups(toEntityDtoReturnList(docs), aclGroups,
+                () -> CloudantdbFacade.countAclFiltered_ByIdList(segmentDB, ids, aclGroups));
     }
 
     //WellboreTrajectory
 
     @Override
-    public List<EntityDtoReturn> getWellboreTrajectoriesByWells(String existenceKind, List<String> wellEntityIds) {
+    public EntityDtoReturnList getWellboreTrajectoriesByWells(String existenceKind, List<String> wellEntityIds, Set<String> aclGroups) {
         List<String> wellboreIds = getWellboreIdsByWells(existenceKind, wellEntityIds);
 
         Database trajectoryDb = cloudantInit.getEntityDB(ENTITY_TYPE.WELLBORE_TRAJECTORY.toLowerCase());
@@ -91,13 +98,14 @@ public class CloudantQueryClient implements IQueryClient {
         for (String wellboreId : wellboreIds) {
             List<String> ids = CloudantdbFacade.getIdList_LatestPerEntity_ByRelatedId(trajectoryDb, existenceKind, ENTITY_TYPE.WELLBORE, wellboreId);
             if (ids.size() == 0) {
-                String wellboreEntityId = wellboreId.split(":")[0];
+                String wellboreEntityId = Relationship.parseEntityId(wellboreId);
                 throw new AppException(HttpStatus.SC_NOT_FOUND, "Not found", "Could not find wellbore trajectory with wellbore id: " + wellboreEntityId);
             }
             IdList.addAll(ids);
         }
-        List<CloudantEntity> docs = CloudantdbFacade.getEntityList_ByIdList(trajectoryDb, IdList);
-        return toEntityDtoReturnList(docs);
+        List<CloudantEntity> docs = CloudantdbFacade.getEntityList_ByIdList(trajectoryDb, IdList, aclGroups);
+        return EntityDtoReturnList.ofAclGroups(toEntityDtoReturnList(docs), aclGroups,
+                () -> CloudantdbFacade.countAclFiltered_ByIdList(trajectoryDb, IdList, aclGroups));
     }
 
 
@@ -257,11 +265,12 @@ public class CloudantQueryClient implements IQueryClient {
     //DrillingReport
 
     @Override
-    public List<EntityDtoReturn> getDrillingReportsByWellbore(String existenceKind, String wellboreEntityId) {
+    public EntityDtoReturnList getDrillingReportsByWellbore(String existenceKind, String wellboreEntityId, Set<String> aclGroups) {
         Database drCollection = cloudantInit.getEntityDB(ENTITY_TYPE.DRILL_REPORT.toLowerCase());
         List<String> ids = CloudantdbFacade.getIdList_LatestPerEntity_ByRelatedEntityId(drCollection, existenceKind, ENTITY_TYPE.WELLBORE, wellboreEntityId);
-        List<CloudantEntity> docs = CloudantdbFacade.getEntityList_ByIdList(drCollection, ids);
-        return toEntityDtoReturnList(docs);
+        List<CloudantEntity> docs = CloudantdbFacade.getEntityList_ByIdList(drCollection, ids, aclGroups);
+        return EntityDtoReturnList.ofAclGroups(toEntityDtoReturnList(docs), aclGroups,
+                () -> CloudantdbFacade.countAclFiltered_ByIdList(drCollection, ids, aclGroups));
     }
 
     @Override
@@ -276,7 +285,7 @@ public class CloudantQueryClient implements IQueryClient {
     }
 
     @Override
-    public List<EntityDtoReturn> getDrillingReportsByTimeRange(String existenceKind, String startTimeString, String endTimeString) {
+    public EntityDtoReturnList getDrillingReportsByTimeRange(String existenceKind, String startTimeString, String endTimeString, Set<String> aclGroups) {
         Database drCollection = cloudantInit.getEntityDB(ENTITY_TYPE.DRILL_REPORT.toLowerCase());
 
         try {
@@ -289,8 +298,9 @@ public class CloudantQueryClient implements IQueryClient {
         }
 
         List<String> ids = CloudantdbFacade.getIdList_LatestPerEntity_ByTimeRange(drCollection, existenceKind, startTimeString, endTimeString);
-        List<CloudantEntity> docs = CloudantdbFacade.getEntityList_ByIdList(drCollection, ids);
-        return toEntityDtoReturnList(docs);
+        List<CloudantEntity> docs = CloudantdbFacade.getEntityList_ByIdList(drCollection, ids, aclGroups);
+        return EntityDtoReturnList.ofAclGroups(toEntityDtoReturnList(docs), aclGroups,
+                () -> CloudantdbFacade.countAclFiltered_ByIdList(drCollection, ids, aclGroups));
     }
 
     @Override
@@ -307,11 +317,12 @@ public class CloudantQueryClient implements IQueryClient {
     //FluidsReports
 
     @Override
-    public List<EntityDtoReturn> getFluidsReportsByWellbore(String existenceKind, String wellboreEntityId) {
+    public EntityDtoReturnList getFluidsReportsByWellbore(String existenceKind, String wellboreEntityId, Set<String> aclGroups) {
         Database entityDb = cloudantInit.getEntityDB(ENTITY_TYPE.FLUIDS_REPORT.toLowerCase());
         List<String> ids = CloudantdbFacade.getIdList_LatestPerEntity_ByRelatedEntityId(entityDb, existenceKind, ENTITY_TYPE.WELLBORE, wellboreEntityId);
-        List<CloudantEntity> docs = CloudantdbFacade.getEntityList_ByIdList(entityDb, ids);
-        return toEntityDtoReturnList(docs);
+        List<CloudantEntity> docs = CloudantdbFacade.getEntityList_ByIdList(entityDb, ids, aclGroups);
+        return EntityDtoReturnList.ofAclGroups(toEntityDtoReturnList(docs), aclGroups,
+                () -> CloudantdbFacade.countAclFiltered_ByIdList(entityDb, ids, aclGroups));
     }
 
     private String getWellboreEntityIdByWell(String existenceKind, String wellEntityId) {
@@ -319,7 +330,7 @@ public class CloudantQueryClient implements IQueryClient {
         String wellboreId = CloudantdbFacade.getLatestId_ByRelatedEntityId(wellboreDb, existenceKind, ENTITY_TYPE.WELL, wellEntityId);
         if (wellboreId == null)
             throw new AppException(HttpStatus.SC_NOT_FOUND, "Not found", "Could not find wellbore with well id: " + wellEntityId);
-        return wellboreId.split(":")[0];
+        return Relationship.parseEntityId(wellboreId);
     }
 
     private List<String> getWellboreIdsByWells(String existenceKind, List<String> wellEntityIds) {
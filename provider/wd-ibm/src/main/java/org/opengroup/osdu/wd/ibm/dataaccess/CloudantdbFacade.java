@@ -6,17 +6,26 @@ package org.opengroup.osdu.wd.ibm.dataaccess;
 import static com.cloudant.client.api.query.Expression.gte;
 import static com.cloudant.client.api.query.Expression.eq;
 import static com.cloudant.client.api.query.Operation.and;
-import static com.cloudant.client.api.query.Expression.regex;
+import static com.cloudant.client.api.query.Operation.not;
+import static com.cloudant.client.api.query.Operation.or;
+import static com.cloudant.client.api.query.Expression.exists;
 import static com.cloudant.client.api.query.Expression.in;
+import static com.cloudant.client.api.query.Expression.regex;
 import static com.cloudant.client.api.query.PredicatedOperation.elemMatch;
 
 
 import java.util.ArrayList;
+import java.util.Collection;
 
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 
@@ -30,12 +39,16 @@ import com.cloudant.client.api.model.Response;
 import com.cloudant.client.api.query.PredicateExpression;
 import com.cloudant.client.api.query.QueryBuilder;
 import com.cloudant.client.api.query.QueryResult;
+import com.cloudant.client.api.query.Selector;
 import com.cloudant.client.api.query.Sort;
+import com.cloudant.client.org.lightcouch.DocumentConflictException;
+import com.cloudant.client.org.lightcouch.NoDocumentException;
 
 
 public class CloudantdbFacade {
 
 	private static final Logger LOGGER = Logger.getLogger(CloudantdbFacade.class.getName());
+	private static final int HEAD_CONFLICT_RETRIES = 5;
 
 	public static CloudantEntity findLatestOne(Database entityDb, String entityId) {
 		try {
@@ -68,6 +81,40 @@ public class CloudantdbFacade {
 		}
 	}
 
+	public static List<CloudantEntity> findSpecificList(Database entityDb, List<String> ids) {
+		try {
+			List<CloudantEntity> docs = entityDb.getAllDocsRequestBuilder()
+					.keys(ids.toArray(new String[0]))
+					.includeDocs(true)
+					.build()
+					.getResponse()
+					.getDocsAs(CloudantEntity.class);
+			// keys which are not found come back as rows without doc
+			return docs.stream().filter(Objects::nonNull).collect(Collectors.toList());
+		} catch (Exception e) {
+			String errorMessage = "Unexpectedly failed to find item from cloudantDB";
+			LOGGER.log(Level.WARNING, errorMessage, e);
+			throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Current revision of each of the documents that exist, by id. Updates sent to _bulk_docs without it are rejected as conflicts.
+	 */
+	public static Map<String, String> findRevisions(Database entityDb, List<String> ids) {
+		try {
+			return entityDb.getAllDocsRequestBuilder()
+					.keys(ids.toArray(new String[0]))
+					.build()
+					.getResponse()
+					.getIdsAndRevs();
+		} catch (Exception e) {
+			String errorMessage = "Unexpectedly failed to find item revisions from cloudantDB";
+			LOGGER.log(Level.WARNING, errorMessage, e);
+			throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, e.getMessage(), e);
+		}
+	}
+
 	public static List<Long> findVersionNumbers(Database entityDb, String entityId) {
 		List<CloudantEntity> list = getEntites(entityDb, entityId);
 		return list.stream().map(x -> x.getVersion()).sorted().collect(Collectors.toList());
@@ -137,6 +184,91 @@ public class CloudantdbFacade {
 		return docList;
 	}
 /////////////////////////////////////////
+// Head version
+////////////////////////////////////////
+
+	public static CloudantEntityHead findHead(Database heads, String entityId) {
+		try {
+			return heads.find(CloudantEntityHead.class, entityId);
+		} catch (NoDocumentException e) {
+			return null;
+		} catch (Exception e) {
+			String errorMessage = "Unexpectedly failed to find head from CloudantDB";
+			LOGGER.log(Level.WARNING, errorMessage, e);
+			throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Points the head at the given version unless a newer version is already the head, retries on revision conflicts.
+	 */
+	public static void upsertHead(Database heads, String entityId, long version, String docId) {
+		try {
+			for (int i = 0; i < HEAD_CONFLICT_RETRIES; i++) {
+				CloudantEntityHead head = findHead(heads, entityId);
+				if (head != null && head.getVersion() > version)
+					return;
+				try {
+					if (head == null) {
+						heads.save(new CloudantEntityHead(entityId, null, version, docId));
+					} else {
+						head.setVersion(version);
+						head.setDocId(docId);
+						heads.update(head);
+					}
+					return;
+				} catch (DocumentConflictException e) {
+					LOGGER.fine(String.format("Head of entity %s changed concurrently, retrying", entityId));
+				}
+			}
+			LOGGER.warning(String.format("Gave up updating head of entity %s, it is repaired on the next read", entityId));
+		} catch (AppException e) {
+			throw e;
+		} catch (Exception e) {
+			String errorMessage = "Unexpectedly failed to update head in CloudantDB";
+			LOGGER.log(Level.WARNING, errorMessage, e);
+			throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, e.getMessage(), e);
+		}
+	}
+
+	public static void upsertHeads(Database heads, List<CloudantEntity> docs) {
+		Map<String, CloudantEntity> latest = new HashMap<>();
+		for (CloudantEntity doc : docs)
+			latest.merge(doc.getEntityId(), doc, (a, b) -> a.getVersion() >= b.getVersion() ? a : b);
+		for (CloudantEntity doc : latest.values())
+			upsertHead(heads, doc.getEntityId(), doc.getVersion(), doc.get_id());
+	}
+
+	public static void deleteHead(Database heads, String entityId) {
+		CloudantEntityHead head = findHead(heads, entityId);
+		if (head == null)
+			return;
+		try {
+			heads.remove(head.get_id(), head.get_rev());
+		} catch (NoDocumentException | DocumentConflictException e) {
+			LOGGER.fine(String.format("Head of entity %s changed concurrently", entityId));
+		} catch (Exception e) {
+			String errorMessage = "Unexpectedly failed to delete head from CloudantDB";
+			LOGGER.log(Level.WARNING, errorMessage, e);
+			throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Re-points the head at the latest live version if it currently points at the given version.
+	 */
+	public static void refreshHead(Database entityDb, Database heads, String entityId, long version) {
+		CloudantEntityHead head = findHead(heads, entityId);
+		if (head == null || head.getVersion() != version)
+			return;
+		deleteHead(heads, entityId);
+		getEntites(entityDb, entityId).stream()
+				.filter(x -> !x.isDeleted())
+				.max(Comparator.comparingLong(CloudantEntity::getVersion))
+				.ifPresent(x -> upsertHead(heads, entityId, x.getVersion(), x.get_id()));
+	}
+
+/////////////////////////////////////////
 // Query Operation
 ////////////////////////////////////////
 
@@ -252,11 +384,7 @@ public class CloudantdbFacade {
 					and(	
 							eq("existenceKind", existenceKind.toLowerCase()),
 							eq("deleted", false),
-							elemMatch("relationships",PredicateExpression.eq(
-									and(
-											eq("entityType", relatedType.toLowerCase()),
-											regex("id", "^" + relatedEntityId + ":")
-											)))))
+							relatedEntity(relatedType, relatedEntityId)))
 							.sort(Sort.desc("version")).limit(1)
 							.build(), CloudantEntity.class);
 			return results != null && (results.getDocs().size()> 0 ) ? results.getDocs().get(0) : null;
@@ -298,9 +426,7 @@ public class CloudantdbFacade {
 							eq("existenceKind", existenceKind.toLowerCase()),
 							eq("version", verison),
 							eq("deleted", false),
-							elemMatch("relationships",PredicateExpression.eq(
-									and(eq("entityType", relatedType.toLowerCase()),
-									regex("id", "^" + relatedEntityId + ":"))))))
+							relatedEntity(relatedType, relatedEntityId)))
 							.limit(1).build(), CloudantEntity.class);
 			return results != null && (results.getDocs().size()> 0 ) ? results.getDocs().get(0) : null;
 		} catch (Exception e) {
@@ -314,10 +440,7 @@ public class CloudantdbFacade {
 			String relatedType, String relatedEntityId) {
 		try {
 			QueryResult<CloudantEntity> results = entityDb.query(new QueryBuilder(and(eq("existenceKind", existenceKind.toLowerCase()), eq("deleted", false),
-							elemMatch("relationships",PredicateExpression.eq(
-									and(
-											eq("entityType", relatedType.toLowerCase()),
-											regex("id", "^" + relatedEntityId + ":"))))))
+							relatedEntity(relatedType, relatedEntityId)))
 					.sort(Sort.desc("version")).limit(1).build(), CloudantEntity.class);
 
 			return results != null && (results.getDocs().size()> 0 ) ? results.getDocs().get(0).get_id() : null;
@@ -356,10 +479,7 @@ public class CloudantdbFacade {
 					and(
 							eq("existenceKind", existenceKind.toLowerCase()), 
 							eq("deleted", false),
-							elemMatch("relationships",PredicateExpression.eq(
-									and(
-											eq("entityType", relatedType.toLowerCase()),
-											regex("id", "^" + relatedEntityId + ":")))))
+							relatedEntity(relatedType, relatedEntityId))
 					//group("$entityId", max("max", "$_id"))
 					).build(), CloudantEntity.class);
 			List<String> list = new ArrayList<>();
@@ -433,10 +553,7 @@ public class CloudantdbFacade {
 					and(
 							eq("existenceKind", existenceKind.toLowerCase()),
 							eq("deleted", false), 
-							elemMatch("relationships",PredicateExpression.eq(
-									and(
-											eq("entityType", relatedType.toLowerCase()),
-											regex("id", "^" + relatedEntityId + ":"))))))
+							relatedEntity(relatedType, relatedEntityId)))
 					.build(), CloudantEntity.class);
 			List<Long> res=results.getDocs().stream().map(x -> x.getVersion()).sorted().collect(Collectors.toList());
 					
@@ -454,10 +571,65 @@ public class CloudantdbFacade {
 		}
 	}
 
+	/**
+	 * Relationships stored before entityId and version were kept separately are matched on the id prefix
+	 * until the relationship-keys backfill has run for the type
+	 */
+	private static Selector relatedEntity(String relatedType, String relatedEntityId) {
+		return or(
+				elemMatch("relationships", PredicateExpression.eq(
+						and(
+								eq("entityType", relatedType.toLowerCase()),
+								eq("entityId", relatedEntityId)))),
+				elemMatch("relationships", PredicateExpression.eq(
+						and(
+								eq("entityType", relatedType.toLowerCase()),
+								exists("entityId", false),
+								regex("id", "^" + Pattern.quote(relatedEntityId) + ":")))));
+	}
+
+	public static long backfillRelationshipKeys(Database entityDb, int batchSize) {
+		try {
+			long cnt = 0;
+			while (true) {
+				QueryResult<CloudantEntity> results = entityDb.query(new QueryBuilder(
+						elemMatch("relationships", PredicateExpression.eq(
+								and(
+										exists("id", true),
+										exists("entityId", false)))))
+						.limit(batchSize).build(), CloudantEntity.class);
+				if (results == null || results.getDocs() == null || results.getDocs().isEmpty())
+					return cnt;
+				for (CloudantEntity doc : results.getDocs()) {
+					doc.getRelationships().forEach(Relationship::normalize);
+				}
+				long updated = entityDb.bulk(results.getDocs()).stream().filter(x -> x.getError() == null).count();
+				if (updated == 0)
+					return cnt;
+				cnt += updated;
+			}
+		} catch (Exception e) {
+			String errorMessage = "Unexpectedly failed to backfill relationships in CloudantDB";
+			LOGGER.log(Level.WARNING, errorMessage, e);
+			throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, e.getMessage(), e);
+		}
+	}
+
 	public static List<CloudantEntity> getEntityList_ByIdList(Database entityDb, List idLlist) {
+		return getEntityList_ByIdList(entityDb, idLlist, null);
+	}
+
+	/**
+	 * Entities of the id list which have one of the acl groups as viewer or owner, all of them when aclGroups is null
+	 **/
+	public static List<CloudantEntity> getEntityList_ByIdList(Database entityDb, List idLlist, Collection<String> aclGroups) {
+		if (aclGroups != null && aclGroups.isEmpty())
+			return new ArrayList<>();
 		try {
-			QueryResult<CloudantEntity> results = entityDb.query(new QueryBuilder(
-													in("_id", idLlist))
+			Selector selector = in("_id", idLlist);
+			if (aclGroups != null)
+				selector = and(selector, aclSelector(aclGroups));
+			QueryResult<CloudantEntity> results = entityDb.query(new QueryBuilder(selector)
 													.build(), CloudantEntity.class);
 			List<CloudantEntity> list = new ArrayList<>();
 			for (CloudantEntity doc : results.getDocs()) {
@@ -471,4 +643,32 @@ public class CloudantdbFacade {
 		}
 	}
 
+	/**
+	 * Number of entities of the id list which have none of the acl groups as viewer or owner
+	 **/
+	public static long countAclFiltered_ByIdList(Database entityDb, List idLlist, Collection<String> aclGroups) {
+		if (idLlist.isEmpty())
+			return 0;
+		try {
+			Selector selector = in("_id", idLlist);
+			if (!aclGroups.isEmpty())
+				selector = and(selector, not(aclSelector(aclGroups)));
+			QueryResult<CloudantEntity> results = entityDb.query(new QueryBuilder(selector)
+													.fields("_id").limit(idLlist.size())
+													.build(), CloudantEntity.class);
+			return results.getDocs().size();
+		} catch (Exception e) {
+			String errorMessage = "Unexpectedly failed to count items from CloudantDB";
+			LOGGER.log(Level.WARNING, errorMessage, e);
+			throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, e.getMessage(), e);
+		}
+	}
+
+	private static Selector aclSelector(Collection<String> aclGroups) {
+		Object[] groups = aclGroups.toArray();
+		return or(
+				elemMatch("acl.viewers", PredicateExpression.in(groups)),
+				elemMatch("acl.owners", PredicateExpression.in(groups)));
+	}
+
 }
\ No newline at end of file
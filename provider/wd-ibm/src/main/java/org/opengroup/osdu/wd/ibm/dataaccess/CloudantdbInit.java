@@ -64,7 +64,11 @@ public class CloudantdbInit {
        return db;
     }
 
-   
+
+    public Database getHeadDB(String entityType) {
+      return getEntityDB(entityType + "-head");
+    }
+
     public void getClient() throws MalformedURLException {
 
 		String url = null;
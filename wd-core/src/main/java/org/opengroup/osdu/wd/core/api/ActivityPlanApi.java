@@ -28,6 +28,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.context.annotation.RequestScope;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
 @RestController
@@ -43,9 +44,9 @@ public class ActivityPlanApi {
      **/
     @GetMapping("/by_well/{well_id}")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getLatestActivityPlanByWell(
+    public ResponseEntity<StreamingResponseBody> getLatestActivityPlanByWell(
             @PathVariable("well_id") String well_id) {
         EntityDtoReturn res = this.service.getLatestActivityPlanByWell(EXISTENCE_KIND.PLANNED, well_id);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 }
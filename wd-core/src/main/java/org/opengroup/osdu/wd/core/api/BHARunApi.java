@@ -16,7 +16,7 @@ package org.opengroup.osdu.wd.core.api;
 
 import org.opengroup.osdu.wd.core.auth.EntityRole;
 import org.opengroup.osdu.wd.core.models.EXISTENCE_KIND;
-import org.opengroup.osdu.wd.core.models.EntityDtoReturn;
+import org.opengroup.osdu.wd.core.models.EntityDtoReturnList;
 import org.opengroup.osdu.wd.core.services.BHARunQueryService;
 import org.opengroup.osdu.wd.core.util.Common;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,6 +28,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.context.annotation.RequestScope;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -44,10 +45,10 @@ public class BHARunApi {
      **/
     @GetMapping("/by_holeSection/{hole_section_id}")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getBHARunsBySegment(
+    public ResponseEntity<StreamingResponseBody> getBHARunsBySegment(
             @PathVariable("hole_section_id") String hole_section_id) {
-        List<EntityDtoReturn> res = this.service.getBHARunsBySection(EXISTENCE_KIND.PLANNED, hole_section_id);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        EntityDtoReturnList res = this.service.getBHARunsBySection(EXISTENCE_KIND.PLANNED, hole_section_id);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 
     /**
@@ -56,17 +57,17 @@ public class BHARunApi {
      **/
     @GetMapping("/by_wells/{well_ids}:planned")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getBHARunsByWells_planned(
+    public ResponseEntity<StreamingResponseBody> getBHARunsByWells_planned(
             @PathVariable("well_ids") List<String> well_ids) {
-        List<EntityDtoReturn> res = this.service.getBHARunsByWells(EXISTENCE_KIND.PLANNED, well_ids);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        EntityDtoReturnList res = this.service.getBHARunsByWells(EXISTENCE_KIND.PLANNED, well_ids);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 
     @GetMapping("/by_wellbore/{wellbore_id}:actual")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getBHARunsByWellbore_actual(
+    public ResponseEntity<StreamingResponseBody> getBHARunsByWellbore_actual(
             @PathVariable("wellbore_id") String wellbore_id) {
-        List<EntityDtoReturn> res = this.service.getBHARunsByWellbore(EXISTENCE_KIND.ACTUAL, wellbore_id);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        EntityDtoReturnList res = this.service.getBHARunsByWellbore(EXISTENCE_KIND.ACTUAL, wellbore_id);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 }
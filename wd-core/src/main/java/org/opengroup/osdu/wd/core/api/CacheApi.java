@@ -0,0 +1,83 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.wd.core.api;
+
+import com.google.common.cache.CacheStats;
+import org.opengroup.osdu.wd.core.auth.EntityRole;
+import org.opengroup.osdu.wd.core.cache.CompiledSchemaCache;
+import org.opengroup.osdu.wd.core.cache.CountryCodeCache;
+import org.opengroup.osdu.wd.core.cache.GroupCache;
+import org.opengroup.osdu.wd.core.cache.LegalTagCache;
+import org.opengroup.osdu.wd.core.cache.SchemaCache;
+import org.opengroup.osdu.wd.core.util.Common;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("admin/v1/caches")
+public class CacheApi {
+
+    @Autowired
+    private GroupCache groupCache;
+    @Autowired
+    private SchemaCache schemaCache;
+    @Autowired
+    private CompiledSchemaCache compiledSchemaCache;
+    @Autowired
+    private LegalTagCache legalTagCache;
+    @Autowired
+    private CountryCodeCache countryCodeCache;
+
+    /**
+     * Hit, miss and eviction counts of the caches of the core services,
+     * and the number of callers that waited on a lookup already running for the same key instead of calling the service.
+     * The groups also report the count, failures and latency of their background refreshes.
+     **/
+    @GetMapping("/stats")
+    @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.ADMIN + "')")
+    public ResponseEntity<StreamingResponseBody> getStats() {
+        Map<String, Object> res = new LinkedHashMap<>();
+        Map<String, Object> groups = toMap(groupCache.stats(), groupCache.coalescedCount());
+        groups.put("refreshes", groupCache.refreshCount());
+        groups.put("refreshFailures", groupCache.refreshFailureCount());
+        groups.put("refreshesRejected", groupCache.refreshRejectedCount());
+        groups.put("averageRefreshMillis", groupCache.averageRefreshMillis());
+        groups.put("maxRefreshMillis", groupCache.maxRefreshMillis());
+        res.put("groups", groups);
+        res.put("schemas", toMap(schemaCache.stats(), schemaCache.coalescedCount()));
+        res.put("compiledSchemas", toMap(compiledSchemaCache.stats(), compiledSchemaCache.coalescedCount()));
+        res.put("legalTags", toMap(legalTagCache.stats(), legalTagCache.coalescedCount()));
+        res.put("countryCodes", toMap(countryCodeCache.stats(), countryCodeCache.coalescedCount()));
+        return Common.toResponse(res, HttpStatus.OK);
+    }
+
+    private static Map<String, Object> toMap(CacheStats stats, long coalesced) {
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("hits", stats.hitCount());
+        res.put("misses", stats.missCount());
+        res.put("evictions", stats.evictionCount());
+        res.put("coalescedWaiters", coalesced);
+        return res;
+    }
+}
@@ -17,6 +17,7 @@ package org.opengroup.osdu.wd.core.api;
 import org.opengroup.osdu.wd.core.auth.EntityRole;
 import org.opengroup.osdu.wd.core.models.EXISTENCE_KIND;
 import org.opengroup.osdu.wd.core.models.EntityDtoReturn;
+import org.opengroup.osdu.wd.core.models.EntityDtoReturnList;
 import org.opengroup.osdu.wd.core.services.DrillingReportService;
 import org.opengroup.osdu.wd.core.util.Common;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,8 +29,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.context.annotation.RequestScope;
-
-import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestScope
@@ -41,34 +41,34 @@ public class DrillingReportApi {
 
     @GetMapping("/by_wellbore/{wellbore_id}")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getDrillingReportsByWellbore(
+    public ResponseEntity<StreamingResponseBody> getDrillingReportsByWellbore(
             @PathVariable("wellbore_id") String wellbore_id) {
-        List<EntityDtoReturn> res = this.service.getDrillingReportsByWellbore(EXISTENCE_KIND.ACTUAL, wellbore_id);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        EntityDtoReturnList res = this.service.getDrillingReportsByWellbore(EXISTENCE_KIND.ACTUAL, wellbore_id);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 
     @GetMapping("/latest/by_wellbore/{wellbore_id}")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getLatestDrillingReportByWellbore(
+    public ResponseEntity<StreamingResponseBody> getLatestDrillingReportByWellbore(
             @PathVariable("wellbore_id") String wellbore_id) {
         EntityDtoReturn res = this.service.getLatestDrillingReportByWellbore(EXISTENCE_KIND.ACTUAL, wellbore_id);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 
     @GetMapping("/by_timeRange/{start_time}/{end_time}")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getDrillingReportsByTimeRange(
+    public ResponseEntity<StreamingResponseBody> getDrillingReportsByTimeRange(
             @PathVariable("start_time") String start_time,
             @PathVariable("end_time") String end_time) {
-        List<EntityDtoReturn> res = this.service.getDrillingReportsByTimeRange(EXISTENCE_KIND.ACTUAL, start_time, end_time);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        EntityDtoReturnList res = this.service.getDrillingReportsByTimeRange(EXISTENCE_KIND.ACTUAL, start_time, end_time);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 
     @GetMapping("reference_tree/by_drillingReport/{drilling_report_id}")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getLatestDrillingReportRefTree(
+    public ResponseEntity<StreamingResponseBody> getLatestDrillingReportRefTree(
             @PathVariable("drilling_report_id") String drilling_report_id) {
         Object res = this.service.getLatestDrillingReportRefTree(EXISTENCE_KIND.ACTUAL, drilling_report_id);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 }
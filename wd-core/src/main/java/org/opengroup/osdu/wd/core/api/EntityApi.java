@@ -15,6 +15,7 @@
 package org.opengroup.osdu.wd.core.api;
 
 import org.opengroup.osdu.wd.core.auth.EntityRole;
+import org.opengroup.osdu.wd.core.models.EntityBatchResult;
 import org.opengroup.osdu.wd.core.models.EntityDtoReturn;
 import org.opengroup.osdu.wd.core.models.VersionNumbers;
 import org.opengroup.osdu.wd.core.util.Common;
@@ -27,9 +28,11 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.context.annotation.RequestScope;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import java.util.List;
 
 @RestController
 @RequestScope
@@ -45,11 +48,25 @@ public class EntityApi {
      **/
     @PutMapping("/{type}")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> createOrUpdateEntities(
+    public ResponseEntity<StreamingResponseBody> createOrUpdateEntities(
             @PathVariable("type") String type,
             @RequestBody @Valid @NotNull Object entity) {
         EntityDtoReturn res = this.service.createOrUpdateEntities(type, entity);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.CREATED);
+        return Common.toResponse(res, HttpStatus.CREATED);
+    }
+
+    /**
+     * Create or update a batch of entities of the same type to system
+     * Each entity is validated independently, the result of each entity is returned in request order
+     **/
+    @PutMapping("/{type}:batch")
+    @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
+    public ResponseEntity<StreamingResponseBody> createOrUpdateEntitiesBatch(
+            @PathVariable("type") String type,
+            @RequestBody @Valid @NotNull List<Object> entities) {
+        List<EntityBatchResult> res = this.service.createOrUpdateEntitiesBatch(type, entities);
+        boolean allCreated = res.stream().allMatch(r -> r.getStatus() == HttpStatus.CREATED.value());
+        return Common.toResponse(res, allCreated ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS);
     }
 
     /**
@@ -58,11 +75,11 @@ public class EntityApi {
      **/
     @GetMapping("/{type}/{id}")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getLatestEntityVersion(
+    public ResponseEntity<StreamingResponseBody> getLatestEntityVersion(
             @PathVariable("type") String type,
             @PathVariable("id") String id) {
         EntityDtoReturn res = this.service.getLatestEntityVersion(type, id);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 
     /**
@@ -71,12 +88,12 @@ public class EntityApi {
      **/
     @GetMapping("/{type}/{id}/{version}")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getSpecificEntityVersion(
+    public ResponseEntity<StreamingResponseBody> getSpecificEntityVersion(
             @PathVariable("type") String type,
             @PathVariable("id") String id,
             @PathVariable("version") long version) {
         EntityDtoReturn res = this.service.getSpecificEntityVersion(type, id, version);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 
     /**
@@ -85,11 +102,11 @@ public class EntityApi {
      **/
     @GetMapping("/{type}/versions/{id}")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getEntityVersionNumbers(
+    public ResponseEntity<StreamingResponseBody> getEntityVersionNumbers(
             @PathVariable("type") String type,
             @PathVariable("id") String id) {
         VersionNumbers res = this.service.getEntityVersionNumbers(type, id);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 
     /**
@@ -17,7 +17,7 @@ package org.opengroup.osdu.wd.core.api;
 
 import org.opengroup.osdu.wd.core.auth.EntityRole;
 import org.opengroup.osdu.wd.core.models.EXISTENCE_KIND;
-import org.opengroup.osdu.wd.core.models.EntityDtoReturn;
+import org.opengroup.osdu.wd.core.models.EntityDtoReturnList;
 import org.opengroup.osdu.wd.core.services.FluidsReportQueryService;
 import org.opengroup.osdu.wd.core.util.Common;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -29,8 +29,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.context.annotation.RequestScope;
-
-import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestScope
@@ -42,10 +41,10 @@ public class FluidsReportApi {
 
     @GetMapping("/by_wellbore/{wellbore_id}")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getDrillingReportsByWellbore(
+    public ResponseEntity<StreamingResponseBody> getDrillingReportsByWellbore(
             @PathVariable("wellbore_id") String wellbore_id) {
-        List<EntityDtoReturn> res = this.service.getFluidsReportsByWellbore(EXISTENCE_KIND.ACTUAL, wellbore_id);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        EntityDtoReturnList res = this.service.getFluidsReportsByWellbore(EXISTENCE_KIND.ACTUAL, wellbore_id);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 
 }
@@ -16,7 +16,7 @@ package org.opengroup.osdu.wd.core.api;
 
 import org.opengroup.osdu.wd.core.auth.EntityRole;
 import org.opengroup.osdu.wd.core.models.EXISTENCE_KIND;
-import org.opengroup.osdu.wd.core.models.EntityDtoReturn;
+import org.opengroup.osdu.wd.core.models.EntityDtoReturnList;
 import org.opengroup.osdu.wd.core.services.HoleSectionQueryService;
 import org.opengroup.osdu.wd.core.util.Common;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,8 +28,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.context.annotation.RequestScope;
-
-import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestScope
@@ -45,9 +44,9 @@ public class HoleSectionApi {
      **/
     @GetMapping("/by_wellbore/{wellbore_id}")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getSectionsByWellbore_planned(
+    public ResponseEntity<StreamingResponseBody> getSectionsByWellbore_planned(
             @PathVariable("wellbore_id") String wellbore_id) {
-        List<EntityDtoReturn> res = this.service.getSectionsByWellbore(EXISTENCE_KIND.PLANNED, wellbore_id);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        EntityDtoReturnList res = this.service.getSectionsByWellbore(EXISTENCE_KIND.PLANNED, wellbore_id);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 }
@@ -0,0 +1,62 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.opengroup.osdu.wd.core.api;
+
+import org.opengroup.osdu.wd.core.auth.EntityRole;
+import org.opengroup.osdu.wd.core.dataaccess.impl.MongodbInit;
+import org.opengroup.osdu.wd.core.models.IndexStatus;
+import org.opengroup.osdu.wd.core.util.Common;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.annotation.RequestScope;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+
+@RestController
+@RequestScope
+@RequestMapping("admin/v1")
+@ConditionalOnProperty(name = "app.entity.source", havingValue = "mongodb", matchIfMissing = true)
+public class IndexApi {
+
+    @Autowired
+    private MongodbInit mongodbInit;
+
+    /**
+     * Report the required, missing, changed and extra indexes of all entity collections
+     **/
+    @GetMapping("/indexes")
+    @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.ADMIN + "')")
+    public ResponseEntity<StreamingResponseBody> getIndexes() {
+        List<IndexStatus> res = mongodbInit.checkIndexes(false);
+        return Common.toResponse(res, HttpStatus.OK);
+    }
+
+    /**
+     * Create the missing indexes of all entity collections, changed indexes are left as they are
+     **/
+    @PostMapping("/indexes")
+    @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.ADMIN + "')")
+    public ResponseEntity<StreamingResponseBody> createMissingIndexes() {
+        List<IndexStatus> res = mongodbInit.checkIndexes(true);
+        return Common.toResponse(res, HttpStatus.OK);
+    }
+}
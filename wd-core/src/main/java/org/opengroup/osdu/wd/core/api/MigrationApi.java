@@ -0,0 +1,68 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.opengroup.osdu.wd.core.api;
+
+import org.opengroup.osdu.wd.core.auth.EntityRole;
+import org.opengroup.osdu.wd.core.dataaccess.interfaces.IEntityDBClient;
+import org.opengroup.osdu.wd.core.util.Common;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.annotation.RequestScope;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestScope
+@RequestMapping("admin/v1/migrations")
+public class MigrationApi {
+
+    @Autowired
+    private IEntityDBClient entityDBClient;
+
+    /**
+     * Store entityId and version separately in the relationships of existing entities of the given type,
+     * the relationship lookups fall back to matching the id of relationships that do not carry them
+     **/
+    @PostMapping("/relationship-keys/{type}")
+    @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.ADMIN + "')")
+    public ResponseEntity<StreamingResponseBody> backfillRelationshipKeys(@PathVariable("type") String type) {
+        long cnt = entityDBClient.backfillRelationshipKeys(type);
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("entityType", type);
+        res.put("updated", cnt);
+        return Common.toResponse(res, HttpStatus.OK);
+    }
+
+    /**
+     * Write the relationship graph nodes of existing entities of the given type, the graph traversal only finds the
+     * entities saved since mongodb.tree.traversal=graph was set without it
+     **/
+    @PostMapping("/graph-nodes/{type}")
+    @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.ADMIN + "')")
+    public ResponseEntity<StreamingResponseBody> backfillGraphNodes(@PathVariable("type") String type) {
+        long cnt = entityDBClient.backfillGraphNodes(type);
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("entityType", type);
+        res.put("updated", cnt);
+        return Common.toResponse(res, HttpStatus.OK);
+    }
+}
@@ -28,6 +28,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.context.annotation.RequestScope;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
@@ -46,19 +47,19 @@ public class QueryApi {
 
     @PostMapping("/by_well/{type}:batch")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getEntitiesByWells_planned(
+    public ResponseEntity<StreamingResponseBody> getEntitiesByWells_planned(
             @PathVariable("type") @NotNull String type,
             @RequestBody @Valid @NotNull List<String> well_ids) {
 
         if(ENTITY_TYPE.WELLBORE_TRAJECTORY.equalsIgnoreCase(type))
         {
             List<EntityDtoReturn> res = this.trajectoryService.getTrajectoriesByWells(EXISTENCE_KIND.PLANNED, well_ids);
-            return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+            return Common.toResponse(res, HttpStatus.OK);
         }
         else if(ENTITY_TYPE.BHA_RUN.equalsIgnoreCase(type))
         {
             List<EntityDtoReturn> res = this.bhaRunService.getBHARunsByWells(EXISTENCE_KIND.PLANNED, well_ids);
-            return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+            return Common.toResponse(res, HttpStatus.OK);
         }
         else {
             throw new AppException(org.apache.http.HttpStatus.SC_BAD_REQUEST, "Bad Request", "Invalid entity type: " + type);
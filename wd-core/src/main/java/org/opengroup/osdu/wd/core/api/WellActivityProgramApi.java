@@ -28,6 +28,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.context.annotation.RequestScope;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -45,10 +46,10 @@ public class WellActivityProgramApi {
      **/
     @GetMapping("/by_well/{well_id}")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getLatestWellActivityProgramVersion(
+    public ResponseEntity<StreamingResponseBody> getLatestWellActivityProgramVersion(
             @PathVariable("well_id") String well_id) {
         EntityDtoReturn res = this.service.getLatestWellActivityProgramVersion(EXISTENCE_KIND.PLANNED, well_id);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 
     /**
@@ -57,11 +58,11 @@ public class WellActivityProgramApi {
      **/
     @GetMapping("/by_well/{well_id}/{wap_version}")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getSpecificWellActivityProgramVersion(
+    public ResponseEntity<StreamingResponseBody> getSpecificWellActivityProgramVersion(
             @PathVariable("well_id") String well_id,
             @PathVariable("wap_version") long wap_version) {
         EntityDtoReturn res = this.service.getSpecificWellActivityProgramVersion(EXISTENCE_KIND.PLANNED, well_id, wap_version);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 
     /**
@@ -70,10 +71,10 @@ public class WellActivityProgramApi {
      **/
     @GetMapping("reference_tree/by_well/{well_id}")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getLatestWellActivityProgramRefTree(
+    public ResponseEntity<StreamingResponseBody> getLatestWellActivityProgramRefTree(
             @PathVariable("well_id") String well_id) {
         Object res = this.service.getLatestWellActivityProgramRefTree(EXISTENCE_KIND.PLANNED, well_id);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 
     /**
@@ -82,26 +83,26 @@ public class WellActivityProgramApi {
      **/
     @GetMapping("reference_tree/by_well/{well_id}/{wap_version}")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getSpecificWellActivityProgramRefTree(
+    public ResponseEntity<StreamingResponseBody> getSpecificWellActivityProgramRefTree(
             @PathVariable("well_id") String well_id,
             @PathVariable("wap_version") long wap_version) {
         Object res = this.service.getSpecificWellActivityProgramRefTree(EXISTENCE_KIND.PLANNED, well_id, wap_version);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 
     @GetMapping("/versions/by_well/{well_id}")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getWellActivityProgramVersionNumbers(
+    public ResponseEntity<StreamingResponseBody> getWellActivityProgramVersionNumbers(
             @PathVariable("well_id") String well_id) {
         List<Long> res = this.service.getWellActivityProgramVersionNumbers(EXISTENCE_KIND.PLANNED, well_id);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 
     @GetMapping("full_content/by_well/{well_id}")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getLatestWellActivityProgramChildrenList(
+    public ResponseEntity<StreamingResponseBody> getLatestWellActivityProgramChildrenList(
             @PathVariable("well_id") String well_id) {
         List<EntityDtoReturn> res = this.service.getLatestWellActivityProgramChildrenList(EXISTENCE_KIND.PLANNED, well_id);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 }
@@ -28,6 +28,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.context.annotation.RequestScope;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -40,51 +41,51 @@ public class WellApi {
 
     @GetMapping("/versions/by_name/{name}:actual")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getWellVersionNumbers_actual(
+    public ResponseEntity<StreamingResponseBody> getWellVersionNumbers_actual(
             @PathVariable("name") String name) {
         List<Long> res = this.service.getWellVersionNumbers(EXISTENCE_KIND.ACTUAL, name);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 
     @GetMapping("/by_name/{name}:actual")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getLatestWellVersion_actual(
+    public ResponseEntity<StreamingResponseBody> getLatestWellVersion_actual(
             @PathVariable("name") String name) {
         EntityDtoReturn res = this.service.getLatestWellVersion(EXISTENCE_KIND.ACTUAL, name);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 
     @GetMapping("/by_name/{name}/{version}:actual")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getSpecificWellboreVersion_actual(
+    public ResponseEntity<StreamingResponseBody> getSpecificWellboreVersion_actual(
             @PathVariable("name") String name,
             @PathVariable("version") long version) {
         EntityDtoReturn res = this.service.getSpecificWellVersion(EXISTENCE_KIND.ACTUAL, name, version);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 
     @GetMapping("/versions/by_name/{name}:planned")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getWellVersionNumbers_planned(
+    public ResponseEntity<StreamingResponseBody> getWellVersionNumbers_planned(
             @PathVariable("name") String name) {
         List<Long> res = this.service.getWellVersionNumbers(EXISTENCE_KIND.PLANNED, name);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 
     @GetMapping("/by_name/{name}:planned")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getLatestWellVersion_planned(
+    public ResponseEntity<StreamingResponseBody> getLatestWellVersion_planned(
             @PathVariable("name") String name) {
         EntityDtoReturn res = this.service.getLatestWellVersion(EXISTENCE_KIND.PLANNED,name);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 
     @GetMapping("/by_name/{name}/{version}:planned")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getSpecificWellVersion_planned(
+    public ResponseEntity<StreamingResponseBody> getSpecificWellVersion_planned(
             @PathVariable("name") String name,
             @PathVariable("version") long version) {
         EntityDtoReturn res = this.service.getSpecificWellVersion(EXISTENCE_KIND.PLANNED,name, version);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 }
@@ -28,6 +28,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.context.annotation.RequestScope;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -41,51 +42,51 @@ public class WellboreApi {
 
     @GetMapping("/versions/by_well/{well_id}:actual")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getWellboreVersionNumbers_actual(
+    public ResponseEntity<StreamingResponseBody> getWellboreVersionNumbers_actual(
             @PathVariable("well_id") String well_id) {
         List<Long> res = this.service.getWellboreVersionNumbers(EXISTENCE_KIND.ACTUAL, well_id);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 
     @GetMapping("/by_well/{well_id}:actual")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getLatestWellboreVersion_actual(
+    public ResponseEntity<StreamingResponseBody> getLatestWellboreVersion_actual(
             @PathVariable("well_id") String well_id) {
         EntityDtoReturn res = this.service.getLatestWellboreVersion(EXISTENCE_KIND.ACTUAL, well_id);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 
     @GetMapping("/by_well/{well_id}/{wellbore_version}:actual")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getSpecificWellboreVersion_actual(
+    public ResponseEntity<StreamingResponseBody> getSpecificWellboreVersion_actual(
             @PathVariable("well_id") String well_id,
             @PathVariable("wellbore_version") long wellbore_version) {
         EntityDtoReturn res = this.service.getSpecificWellboreVersion(EXISTENCE_KIND.ACTUAL, well_id, wellbore_version);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 
     @GetMapping("/versions/by_well/{well_id}:planned")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getWellboreVersionNumbers_planned(
+    public ResponseEntity<StreamingResponseBody> getWellboreVersionNumbers_planned(
             @PathVariable("well_id") String well_id) {
         List<Long> res = this.service.getWellboreVersionNumbers(EXISTENCE_KIND.PLANNED, well_id);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 
     @GetMapping("/by_well/{well_id}:planned")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getLatestWellboreVersion_planned(
+    public ResponseEntity<StreamingResponseBody> getLatestWellboreVersion_planned(
             @PathVariable("well_id") String well_id) {
         EntityDtoReturn res = this.service.getLatestWellboreVersion(EXISTENCE_KIND.PLANNED, well_id);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 
     @GetMapping("/by_well/{well_id}/{wellbore_version}:planned")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getSpecificWellboreVersion_planned(
+    public ResponseEntity<StreamingResponseBody> getSpecificWellboreVersion_planned(
             @PathVariable("well_id") String well_id,
             @PathVariable("wellbore_version") long wellbore_version) {
         EntityDtoReturn res = this.service.getSpecificWellboreVersion(EXISTENCE_KIND.PLANNED, well_id, wellbore_version);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 }
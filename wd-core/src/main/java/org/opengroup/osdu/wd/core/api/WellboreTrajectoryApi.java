@@ -16,7 +16,7 @@ package org.opengroup.osdu.wd.core.api;
 
 import org.opengroup.osdu.wd.core.auth.EntityRole;
 import org.opengroup.osdu.wd.core.models.EXISTENCE_KIND;
-import org.opengroup.osdu.wd.core.models.EntityDtoReturn;
+import org.opengroup.osdu.wd.core.models.EntityDtoReturnList;
 import org.opengroup.osdu.wd.core.services.WellboreTrajectoryQueryService;
 import org.opengroup.osdu.wd.core.util.Common;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,6 +28,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.context.annotation.RequestScope;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -45,9 +46,9 @@ public class WellboreTrajectoryApi {
      **/
     @GetMapping("/by_wells/{well_ids}:planned")
     @PreAuthorize("@authorizationFilter.hasRole('" + EntityRole.VIEWER + "', '" + EntityRole.CREATOR + "', '" + EntityRole.ADMIN + "')")
-    public ResponseEntity<String> getTrajectoriesByWells_planned(
+    public ResponseEntity<StreamingResponseBody> getTrajectoriesByWells_planned(
             @PathVariable("well_ids") List<String> well_ids) {
-        List<EntityDtoReturn> res = this.service.getTrajectoriesByWells(EXISTENCE_KIND.PLANNED, well_ids);
-        return new ResponseEntity<String>(Common.toPrettyString(res), HttpStatus.OK);
+        EntityDtoReturnList res = this.service.getTrajectoriesByWells(EXISTENCE_KIND.PLANNED, well_ids);
+        return Common.toResponse(res, HttpStatus.OK);
     }
 }
@@ -58,6 +58,7 @@ public class EntityFilter implements Filter {
         }
 
         long startTime = System.currentTimeMillis();
+        String uri = requestInfo.getUri();
         try {
             if (!validateIsHttps(httpServletResponse)) {
                 //do nothing
@@ -67,7 +68,11 @@ public class EntityFilter implements Filter {
                 chain.doFilter(servletRequest, servletResponse);
             }
         } finally {
-            logRequest(httpServletRequest, httpServletResponse, startTime);
+            //Streamed bodies are written after the chain returns, the request is logged once they are
+            if (httpServletRequest.isAsyncStarted())
+                httpServletRequest.getAsyncContext().addListener(new RequestLogListener(uri, startTime));
+            else
+                logRequest(httpServletRequest, httpServletResponse, uri, startTime);
         }
     }
 
@@ -110,8 +115,7 @@ public class EntityFilter implements Filter {
         return uri.contains("/swagger") || uri.contains("/v2/api-docs") || uri.contains("/configuration/ui") || uri.contains("/webjars/");
     }
 
-    private void logRequest(HttpServletRequest servletRequest, HttpServletResponse servletResponse, long startTime) {
-        String uri = requestInfo.getUri();
+    private void logRequest(HttpServletRequest servletRequest, HttpServletResponse servletResponse, String uri, long startTime) {
         if(!uri.endsWith("/warmup")) {
             String info = String.format("requestMethod=%s latency=%s requestUrl=%s Status=%s ip=%s",
                     servletRequest.getMethod(),
@@ -126,4 +130,35 @@ public class EntityFilter implements Filter {
     public boolean isAcceptHttp() {
         return acceptHttp;
     }
+
+    private class RequestLogListener implements AsyncListener {
+
+        private final String uri;
+        private final long startTime;
+
+        RequestLogListener(String uri, long startTime) {
+            this.uri = uri;
+            this.startTime = startTime;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            logRequest((HttpServletRequest) event.getSuppliedRequest(), (HttpServletResponse) event.getSuppliedResponse(), uri, startTime);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            //onComplete follows
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            //onComplete follows
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            //do nothing
+        }
+    }
 }
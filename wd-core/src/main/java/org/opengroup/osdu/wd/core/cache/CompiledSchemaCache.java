@@ -0,0 +1,54 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.wd.core.cache;
+
+import com.google.common.cache.CacheStats;
+import com.networknt.schema.JsonSchema;
+import org.springframework.stereotype.Service;
+
+import java.util.function.Supplier;
+
+
+@Service
+public class CompiledSchemaCache {
+    private final ConcurrentCache<String, JsonSchema> _db = new ConcurrentCache<String, JsonSchema>(100, 600);
+
+    public JsonSchema get(String kind) {
+        return _db.get(kind);
+    }
+
+    /**
+     * Concurrent misses of the same kind share one call of the loader
+     **/
+    public JsonSchema getOrLoad(String kind, Supplier<JsonSchema> loader) {
+        return _db.get(kind, loader);
+    }
+
+    public void delete(String kind) {
+        _db.remove(kind);
+    }
+
+    public void save(String kind, JsonSchema schema) {
+        _db.set(kind, schema);
+    }
+
+    public CacheStats stats() {
+        return _db.stats();
+    }
+
+    public long coalescedCount() {
+        return _db.coalescedCount();
+    }
+}
@@ -0,0 +1,116 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.wd.core.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache with expiry, backed by a Guava cache: lock striped segments, each evicting least recently used entries.
+ * Reads and writes are O(1) and take only the lock of their segment, expired entries are dropped on access.
+ * Concurrent misses of the same key through get(key, loader) share one load.
+ **/
+public class ConcurrentCache<K, V> {
+
+    private static final int CONCURRENCY_LEVEL = 16;
+
+    private final Cache<K, V> _cache;
+    private final SingleFlight<K, V> _loads = new SingleFlight<>();
+
+    /**
+     * Entries expire the given minutes after they were written
+     **/
+    public ConcurrentCache(int capacity, int minutes) {
+        this(capacity, Duration.ofMinutes(minutes), null);
+    }
+
+    /**
+     * Entries expire expireAfterWrite after they were written, or expireAfterAccess after they were last read or written,
+     * whichever comes first. A null duration disables that expiry.
+     **/
+    public ConcurrentCache(int capacity, Duration expireAfterWrite, Duration expireAfterAccess) {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                .maximumSize(capacity)
+                .concurrencyLevel(CONCURRENCY_LEVEL)
+                .recordStats();
+        if (expireAfterWrite != null)
+            builder.expireAfterWrite(expireAfterWrite.toMillis(), TimeUnit.MILLISECONDS);
+        if (expireAfterAccess != null)
+            builder.expireAfterAccess(expireAfterAccess.toMillis(), TimeUnit.MILLISECONDS);
+        _cache = builder.build();
+    }
+
+    public V get(K key) {
+        return _cache.getIfPresent(key);
+    }
+
+    /**
+     * Get the value of the key, or load and cache it on a miss.
+     * Callers missing the same key while a load runs wait for that load instead of starting their own,
+     * a null loaded value is returned but not cached.
+     **/
+    public V get(K key, Supplier<? extends V> loader) {
+        V value = _cache.getIfPresent(key);
+        if (value != null)
+            return value;
+
+        return _loads.load(key, () -> {
+            // a load may have finished between the miss and this one starting, asMap() reads without counting a miss
+            V loaded = _cache.asMap().get(key);
+            if (loaded == null) {
+                loaded = loader.get();
+                set(key, loaded);
+            }
+            return loaded;
+        });
+    }
+
+    /**
+     * A null value removes the entry
+     **/
+    public void set(K key, V value) {
+        if (value == null)
+            _cache.invalidate(key);
+        else
+            _cache.put(key, value);
+    }
+
+    public void remove(K key) {
+        _cache.invalidate(key);
+    }
+
+    public long size() {
+        return _cache.size();
+    }
+
+    /**
+     * Hit, miss and eviction counts since the cache was created
+     **/
+    public CacheStats stats() {
+        return _cache.stats();
+    }
+
+    /**
+     * Number of callers that waited on a load started by another caller, since the cache was created
+     **/
+    public long coalescedCount() {
+        return _loads.coalescedCount();
+    }
+}
@@ -14,12 +14,17 @@
 
 package org.opengroup.osdu.wd.core.cache;
 
+import com.google.common.cache.CacheStats;
 import org.springframework.stereotype.Service;
 
+import java.util.HashSet;
+import java.util.Set;
+
 
 @Service
 public class CountryCodeCache {
-    private final LRUCache<String, Object> _db = new LRUCache<String, Object>(100, 600);
+    private final ConcurrentCache<String, Object> _db = new ConcurrentCache<String, Object>(100, 600);
+    private final SingleFlight<Set<String>, Boolean> _validations = new SingleFlight<>();
 
     public Object get(String countryCode) {
         return _db.get(countryCode);
@@ -32,4 +37,40 @@ public class CountryCodeCache {
     public void save(String countryCode) {
         _db.set(countryCode, "Valid CountryCode");
     }
+
+    /**
+     * Run the validator unless all country codes are cached, then cache them.
+     * Concurrent validations of the same set share one run, the validator throws if any of them is invalid.
+     **/
+    public void validate(Set<String> countryCodes, Runnable validator) {
+        if (isCached(countryCodes))
+            return;
+
+        _validations.load(new HashSet<>(countryCodes), () -> {
+            if (!isCached(countryCodes)) {
+                validator.run();
+                for (String countryCode : countryCodes) {
+                    save(countryCode);
+                }
+            }
+            return Boolean.TRUE;
+        });
+    }
+
+    private boolean isCached(Set<String> countryCodes) {
+        for (String countryCode : countryCodes) {
+            if (_db.get(countryCode) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public CacheStats stats() {
+        return _db.stats();
+    }
+
+    public long coalescedCount() {
+        return _validations.coalescedCount();
+    }
 }
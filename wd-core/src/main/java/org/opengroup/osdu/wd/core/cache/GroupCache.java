@@ -14,17 +14,56 @@
 
 package org.opengroup.osdu.wd.core.cache;
 
+import com.google.common.cache.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.function.Supplier;
+
 
 @Service
 public class GroupCache {
-    private final LRUCache<String, Object> _db = new LRUCache<String, Object>(100, 600);
+
+    @Value("${app.cache.groups.ttl-minutes:600}")
+    private int ttlMinutes = 600;
+
+    @Value("${app.cache.groups.refresh-after-ratio:0.75}")
+    private double refreshAfterRatio = 0.75;
+
+    @Value("${app.cache.groups.refresh-threads:2}")
+    private int refreshThreads = 2;
+
+    @Value("${app.cache.groups.refresh-queue-size:100}")
+    private int refreshQueueSize = 100;
+
+    private RefreshAheadCache<String, Object> _db;
+
+    @PostConstruct
+    public void init() {
+        _db = new RefreshAheadCache<>(100, Duration.ofMinutes(ttlMinutes), refreshAfterRatio,
+                refreshThreads, refreshQueueSize, "group-cache-refresh");
+    }
+
+    @PreDestroy
+    public void close() {
+        _db.close();
+    }
 
     public Object get(String key) {
         return _db.get(key);
     }
 
+    /**
+     * Concurrent misses of the same key share one call of the loader.
+     * Groups older than the refresh ratio of the time to live are returned and reloaded in the background by the refresher.
+     **/
+    public Object getOrLoad(String key, Supplier<Object> loader, Supplier<Object> refresher) {
+        return _db.get(key, loader, refresher);
+    }
+
     public void delete(String key) {
         _db.remove(key);
     }
@@ -32,4 +71,32 @@ public class GroupCache {
     public void save(String key, Object groupObj) {
         _db.set(key, groupObj);
     }
+
+    public CacheStats stats() {
+        return _db.stats();
+    }
+
+    public long coalescedCount() {
+        return _db.coalescedCount();
+    }
+
+    public long refreshCount() {
+        return _db.refreshCount();
+    }
+
+    public long refreshFailureCount() {
+        return _db.refreshFailureCount();
+    }
+
+    public long refreshRejectedCount() {
+        return _db.refreshRejectedCount();
+    }
+
+    public double averageRefreshMillis() {
+        return _db.averageRefreshMillis();
+    }
+
+    public double maxRefreshMillis() {
+        return _db.maxRefreshMillis();
+    }
 }
@@ -14,12 +14,17 @@
 
 package org.opengroup.osdu.wd.core.cache;
 
+import com.google.common.cache.CacheStats;
 import org.springframework.stereotype.Service;
 
+import java.util.HashSet;
+import java.util.Set;
+
 
 @Service
 public class LegalTagCache {
-    private final LRUCache<String, Object> _db = new LRUCache<String, Object>(100, 600);
+    private final ConcurrentCache<String, Object> _db = new ConcurrentCache<String, Object>(100, 600);
+    private final SingleFlight<Set<String>, Boolean> _validations = new SingleFlight<>();
 
     public Object get(String legalTagName) {
         return _db.get(legalTagName);
@@ -32,4 +37,40 @@ public class LegalTagCache {
     public void save(String legalTagName) {
         _db.set(legalTagName, "Valid LegalTag");
     }
+
+    /**
+     * Run the validator unless all legal tags are cached, then cache them.
+     * Concurrent validations of the same set share one run, the validator throws if any of them is invalid.
+     **/
+    public void validate(Set<String> legalTagNames, Runnable validator) {
+        if (isCached(legalTagNames))
+            return;
+
+        _validations.load(new HashSet<>(legalTagNames), () -> {
+            if (!isCached(legalTagNames)) {
+                validator.run();
+                for (String legalTagName : legalTagNames) {
+                    save(legalTagName);
+                }
+            }
+            return Boolean.TRUE;
+        });
+    }
+
+    private boolean isCached(Set<String> legalTagNames) {
+        for (String legalTagName : legalTagNames) {
+            if (_db.get(legalTagName) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public CacheStats stats() {
+        return _db.stats();
+    }
+
+    public long coalescedCount() {
+        return _validations.coalescedCount();
+    }
 }
@@ -14,12 +14,13 @@
 
 package org.opengroup.osdu.wd.core.cache;
 
+import com.google.common.cache.CacheStats;
 import org.springframework.stereotype.Service;
 
 
 @Service
 public class MongoConnStringCache {
-    private final LRUCache<String, Object> _db = new LRUCache<String, Object>(100, 600);
+    private final ConcurrentCache<String, Object> _db = new ConcurrentCache<String, Object>(100, 600);
 
     public Object get(String connString) {
         return _db.get(connString);
@@ -32,4 +33,8 @@ public class MongoConnStringCache {
     public void save(String connString, String value) {
         _db.set(connString, value);
     }
+
+    public CacheStats stats() {
+        return _db.stats();
+    }
 }
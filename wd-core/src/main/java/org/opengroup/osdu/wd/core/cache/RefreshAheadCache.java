@@ -0,0 +1,180 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.wd.core.cache;
+
+import com.google.common.cache.CacheStats;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cache that serves an entry older than the refresh age while reloading it on a bounded executor,
+ * and loads it on the caller's thread only once it is missing or older than the time to live.
+ * Concurrent synchronous loads of the same key share one load, one refresh at most runs per key,
+ * refreshes beyond the executor's queue are dropped and the entry is refreshed by a later caller.
+ **/
+public class RefreshAheadCache<K, V> {
+
+    private static final Logger LOGGER = Logger.getLogger(RefreshAheadCache.class.getName());
+
+    private final ConcurrentCache<K, Entry<V>> _cache;
+    private final long _refreshAfterMs;
+    private final ThreadPoolExecutor _executor;
+    private final Set<K> _refreshing = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder _refreshes = new LongAdder();
+    private final LongAdder _refreshFailures = new LongAdder();
+    private final LongAdder _refreshesRejected = new LongAdder();
+    private final LongAdder _refreshNanos = new LongAdder();
+    private final LongAccumulator _maxRefreshNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Entries are refreshed once they are older than refreshAfterRatio of the time to live,
+     * a ratio of 1 or more disables refreshing
+     **/
+    public RefreshAheadCache(int capacity, Duration timeToLive, double refreshAfterRatio,
+                             int refreshThreads, int refreshQueueSize, String threadName) {
+        _cache = new ConcurrentCache<>(capacity, timeToLive, null);
+        _refreshAfterMs = (long) (timeToLive.toMillis() * refreshAfterRatio);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        _executor = new ThreadPoolExecutor(refreshThreads, refreshThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(refreshQueueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, threadName + "-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        _executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Get the value of the key. The loader runs on the caller's thread when the entry is missing or expired,
+     * the refresher runs on the refresh executor when the entry is stale, so it must not use request scoped beans.
+     **/
+    public V get(K key, Supplier<? extends V> loader, Supplier<? extends V> refresher) {
+        Entry<V> entry = _cache.get(key, () -> newEntry(loader.get()));
+        if (entry == null)
+            return null;
+
+        if (System.currentTimeMillis() - entry.loadedAt >= _refreshAfterMs)
+            scheduleRefresh(key, refresher);
+        return entry.value;
+    }
+
+    public V get(K key) {
+        Entry<V> entry = _cache.get(key);
+        return entry == null ? null : entry.value;
+    }
+
+    public void set(K key, V value) {
+        _cache.set(key, newEntry(value));
+    }
+
+    public void remove(K key) {
+        _cache.remove(key);
+    }
+
+    public CacheStats stats() {
+        return _cache.stats();
+    }
+
+    public long coalescedCount() {
+        return _cache.coalescedCount();
+    }
+
+    public long refreshCount() {
+        return _refreshes.sum();
+    }
+
+    public long refreshFailureCount() {
+        return _refreshFailures.sum();
+    }
+
+    /**
+     * Number of refreshes dropped because the refresh queue was full
+     **/
+    public long refreshRejectedCount() {
+        return _refreshesRejected.sum();
+    }
+
+    public double averageRefreshMillis() {
+        long count = _refreshes.sum() + _refreshFailures.sum();
+        return count == 0 ? 0 : _refreshNanos.sum() / 1e6 / count;
+    }
+
+    public double maxRefreshMillis() {
+        return _maxRefreshNanos.get() / 1e6;
+    }
+
+    public void close() {
+        _executor.shutdownNow();
+    }
+
+    private void scheduleRefresh(K key, Supplier<? extends V> refresher) {
+        if (!_refreshing.add(key))
+            return;
+        try {
+            _executor.execute(() -> refresh(key, refresher));
+        } catch (RejectedExecutionException ex) {
+            _refreshing.remove(key);
+            _refreshesRejected.increment();
+        }
+    }
+
+    private void refresh(K key, Supplier<? extends V> refresher) {
+        long start = System.nanoTime();
+        try {
+            V value = refresher.get();
+            if (value != null)
+                set(key, value);
+            _refreshes.increment();
+        } catch (RuntimeException ex) {
+            // the stale entry is served until it expires, its next caller retries the refresh
+            _refreshFailures.increment();
+            LOGGER.log(Level.WARNING, "Failed to refresh cache entry", ex);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            _refreshNanos.add(elapsed);
+            _maxRefreshNanos.accumulate(elapsed);
+            _refreshing.remove(key);
+        }
+    }
+
+    private static <V> Entry<V> newEntry(V value) {
+        return value == null ? null : new Entry<>(value, System.currentTimeMillis());
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long loadedAt;
+
+        Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -14,17 +14,27 @@
 
 package org.opengroup.osdu.wd.core.cache;
 
+import com.google.common.cache.CacheStats;
 import org.springframework.stereotype.Service;
 
+import java.util.function.Supplier;
+
 
 @Service
 public class SchemaCache {
-    private final LRUCache<String, Object> _db = new LRUCache<String, Object>(100, 600);
+    private final ConcurrentCache<String, Object> _db = new ConcurrentCache<String, Object>(100, 600);
 
     public Object get(String id) {
         return _db.get(id);
     }
 
+    /**
+     * Concurrent misses of the same id share one call of the loader
+     **/
+    public Object getOrLoad(String id, Supplier<Object> loader) {
+        return _db.get(id, loader);
+    }
+
     public void delete(String id) {
         _db.remove(id);
     }
@@ -32,4 +42,12 @@ public class SchemaCache {
     public void save(String id, Object schema) {
         _db.set(id, schema);
     }
+
+    public CacheStats stats() {
+        return _db.stats();
+    }
+
+    public long coalescedCount() {
+        return _db.coalescedCount();
+    }
 }
@@ -0,0 +1,236 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.opengroup.osdu.wd.core.dataaccess.impl;
+
+import com.mongodb.MongoClient;
+import com.mongodb.MongoClientOptions;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListenerAdapter;
+import org.bson.Document;
+import org.opengroup.osdu.wd.core.dataaccess.interfaces.IMongodbConnection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * One long-lived pooled MongoClient per data partition, together with the collection handles opened through it.
+ * A client unused for clientEvictAfterMs is evicted on a later lookup and reopened on the next request of its partition.
+ * An evicted client is closed once none of its connections is checked out, or at the latest after clientCloseGraceMs.
+ **/
+@Component
+public class MongoClientRegistry {
+
+    private static final Logger LOGGER = Logger.getLogger(MongoClientRegistry.class.getName());
+    //requests which took a client just before it was evicted may not have checked out a connection yet
+    private static final long MIN_CLOSE_DELAY_MS = 1000L;
+
+    @Autowired
+    IMongodbConnection mongodbConnection;
+
+    @Value("${mongodb.pool.max-size:100}")
+    private int maxPoolSize = 100;
+
+    @Value("${mongodb.pool.min-size:0}")
+    private int minPoolSize;
+
+    @Value("${mongodb.pool.max-idle-time-ms:600000}")
+    private int maxConnectionIdleTimeMs = 600000;
+
+    @Value("${mongodb.pool.max-wait-time-ms:30000}")
+    private int maxWaitTimeMs = 30000;
+
+    @Value("${mongodb.pool.client-evict-after-ms:1800000}")
+    private long clientEvictAfterMs = 1800000L;
+
+    @Value("${mongodb.pool.client-close-grace-ms:120000}")
+    private long clientCloseGraceMs = 120000L;
+
+    private final Map<String, PartitionClient> clients = new ConcurrentHashMap<>();
+    private final Queue<PartitionClient> evictedClients = new ConcurrentLinkedQueue<>();
+    private volatile long nextEvictionAt;
+
+    /**
+     * The client of the partition, marked as used in the same atomic step that looks it up so that it cannot be
+     * evicted in between. A new client is opened outside of the map and dropped again if another request was faster.
+     **/
+    public PartitionClient get(String partitionId) {
+        evictIdleClients();
+        PartitionClient client = clients.computeIfPresent(partitionId, (id, current) -> current.touch());
+        if (client != null)
+            return client;
+
+        PartitionClient created = createClient(partitionId);
+        client = clients.merge(partitionId, created, (current, ignored) -> current.touch());
+        if (client != created)
+            created.getClient().close();
+        return client;
+    }
+
+    @PreDestroy
+    public void close() {
+        clients.values().forEach(client -> client.getClient().close());
+        clients.clear();
+        evictedClients.forEach(client -> client.getClient().close());
+        evictedClients.clear();
+    }
+
+    private PartitionClient createClient(String partitionId) {
+        MongoClientOptions.Builder options = MongoClientOptions.builder()
+                .connectionsPerHost(maxPoolSize)
+                .minConnectionsPerHost(minPoolSize)
+                .maxConnectionIdleTime(maxConnectionIdleTimeMs)
+                .maxWaitTime(maxWaitTimeMs);
+        AtomicInteger checkedOut = new AtomicInteger();
+        options.addConnectionPoolListener(new ConnectionPoolListenerAdapter() {
+            @Override
+            public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+                checkedOut.incrementAndGet();
+            }
+
+            @Override
+            public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+                checkedOut.decrementAndGet();
+            }
+        });
+        MongoClient client = MongodbFacade.createClient(mongodbConnection.get(partitionId), options);
+        LOGGER.log(Level.INFO, "Opened MongoDB client of data partition " + partitionId);
+        return new PartitionClient(partitionId, client, checkedOut);
+    }
+
+    private void evictIdleClients() {
+        long now = System.currentTimeMillis();
+        if (now < nextEvictionAt)
+            return;
+        nextEvictionAt = now + Math.max(1000L, clientEvictAfterMs / 4);
+
+        clients.forEach((partitionId, client) -> {
+            AtomicBoolean evicted = new AtomicBoolean();
+            clients.computeIfPresent(partitionId, (id, current) -> {
+                if (current != client || now - current.lastUsedAt <= clientEvictAfterMs)
+                    return current;
+                evicted.set(true);
+                return null;
+            });
+            if (evicted.get()) {
+                client.evictedAt = now;
+                evictedClients.add(client);
+            }
+        });
+
+        evictedClients.removeIf(client -> {
+            long evictedFor = now - client.evictedAt;
+            if (evictedFor < MIN_CLOSE_DELAY_MS || (client.checkedOut.get() > 0 && evictedFor < clientCloseGraceMs))
+                return false;
+            client.getClient().close();
+            LOGGER.log(Level.INFO, "Closed idle MongoDB client of data partition " + client.partitionId);
+            return true;
+        });
+    }
+
+    /**
+     * The client of a data partition, its collection handles keyed by collection name and the names of its existing collections.
+     * Handles are immutable and safe to share between requests.
+     **/
+    public static class PartitionClient {
+
+        private final String partitionId;
+        private final MongoClient client;
+        private final AtomicInteger checkedOut;
+        private final Map<String, MongoCollection<Document>> collections = new ConcurrentHashMap<>();
+        private final Object bootstrapLock = new Object();
+        private volatile boolean bootstrapped;
+        private volatile Set<String> collectionNames = ConcurrentHashMap.newKeySet();
+        private volatile long collectionNamesLoadedAt;
+        private volatile long lastUsedAt = System.currentTimeMillis();
+        private volatile long evictedAt;
+
+        PartitionClient(String partitionId, MongoClient client, AtomicInteger checkedOut) {
+            this.partitionId = partitionId;
+            this.client = client;
+            this.checkedOut = checkedOut;
+        }
+
+        private PartitionClient touch() {
+            lastUsedAt = System.currentTimeMillis();
+            return this;
+        }
+
+        public MongoClient getClient() {
+            return client;
+        }
+
+        /**
+         * The cached handle of the collection, opened by the loader on the first call. A null from the loader is not cached.
+         **/
+        public MongoCollection<Document> getCollection(String collectionName, Function<MongoClient, MongoCollection<Document>> loader) {
+            return collections.computeIfAbsent(collectionName, name -> loader.apply(client));
+        }
+
+        /**
+         * Runs the bootstrapper once, before the first use of the client
+         **/
+        public void bootstrap(Consumer<PartitionClient> bootstrapper) {
+            if (bootstrapped)
+                return;
+            synchronized (bootstrapLock) {
+                if (!bootstrapped) {
+                    bootstrapper.accept(this);
+                    bootstrapped = true;
+                }
+            }
+        }
+
+        /**
+         * Whether the collection is among the names last listed or added, the names are compared ignoring case
+         **/
+        public boolean isKnownCollection(String collectionName) {
+            return collectionNames.contains(collectionName.toLowerCase());
+        }
+
+        public void addCollectionName(String collectionName) {
+            collectionNames.add(collectionName.toLowerCase());
+        }
+
+        /**
+         * Lists the collection names again, unless they were listed less than minIntervalMs ago. Returns whether they were.
+         **/
+        public boolean refreshCollectionNames(Supplier<List<String>> lister, long minIntervalMs) {
+            long now = System.currentTimeMillis();
+            if (now - collectionNamesLoadedAt < minIntervalMs)
+                return false;
+            Set<String> names = ConcurrentHashMap.newKeySet();
+            lister.get().forEach(name -> names.add(name.toLowerCase()));
+            collectionNames = names;
+            collectionNamesLoadedAt = now;
+            return true;
+        }
+    }
+}
@@ -14,17 +14,28 @@
 
 package org.opengroup.osdu.wd.core.dataaccess.impl;
 
-import com.google.gson.Gson;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonType;
+import org.bson.ByteBuf;
 import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonValueCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.io.ByteBufferBsonInput;
 import org.bson.json.JsonMode;
 import org.bson.json.JsonWriterSettings;
 import org.opengroup.osdu.wd.core.models.*;
 import org.opengroup.osdu.wd.core.util.Common;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.*;
 
 @Data
@@ -32,6 +43,11 @@ import java.util.*;
 @NoArgsConstructor
 public class MongoEntity {
 
+    private static final JsonWriterSettings RELAXED = JsonWriterSettings.builder().outputMode(JsonMode.RELAXED).build();
+    private static final BsonValueCodec BSON_VALUE_CODEC = new BsonValueCodec();
+    private static final DocumentCodec DOCUMENT_CODEC = new DocumentCodec();
+    private static final DecoderContext DECODER_CONTEXT = DecoderContext.builder().build();
+
     @NonNull
     private String _id;
     @NonNull
@@ -103,17 +119,177 @@ public class MongoEntity {
     }
 
     public Document ToDocument() {
-        Gson gson = new Gson();
-        String json = gson.toJson(this);
-        Document doc = Document.parse(json);
+        //Build the document from the parsed body directly, null fields are skipped as Gson does
+        Document doc = new Document();
+        doc.put("_id", this._id);
+        putIfNotNull(doc, "origId", this.origId);
+        putIfNotNull(doc, "entityId", this.entityId);
+        putIfNotNull(doc, "entityType", this.entityType);
+        putIfNotNull(doc, "kind", this.kind);
+        putIfNotNull(doc, "schemaId", this.schemaId);
+        doc.put("version", this.version);
+        doc.put("deleted", this.deleted);
+        if (this.acl != null) {
+            Document aclDoc = new Document();
+            putIfNotNull(aclDoc, "viewers", toList(this.acl.getViewers()));
+            putIfNotNull(aclDoc, "owners", toList(this.acl.getOwners()));
+            doc.put("acl", aclDoc);
+        }
+        if (this.legal != null) {
+            Document legalDoc = new Document();
+            putIfNotNull(legalDoc, "legaltags", toList(this.legal.getLegaltags()));
+            putIfNotNull(legalDoc, "otherRelevantDataCountries", toList(this.legal.getOtherRelevantDataCountries()));
+            doc.put("legal", legalDoc);
+        }
+        if (this.relationships != null) {
+            List<Document> relationshipDocs = new ArrayList<>(this.relationships.size());
+            for (Relationship relationship : this.relationships) {
+                Document relationshipDoc = new Document();
+                putIfNotNull(relationshipDoc, "id", relationship.getId());
+                putIfNotNull(relationshipDoc, "entityType", relationship.getEntityType());
+                putIfNotNull(relationshipDoc, "entityId", relationship.getEntityId());
+                putIfNotNull(relationshipDoc, "version", relationship.getVersion());
+                relationshipDocs.add(relationshipDoc);
+            }
+            doc.put("relationships", relationshipDocs);
+        }
+        putIfNotNull(doc, "existenceKind", this.existenceKind);
+        doc.put("valid", this.valid);
+        putIfNotNull(doc, "timeStamp", this.timeStamp);
+        putIfNotNull(doc, "startTime", this.startTime);
+        putIfNotNull(doc, "endTime", this.endTime);
+        putIfNotNull(doc, "data", toBsonValue(this.data));
+        putIfNotNull(doc, "meta", toBsonValue(this.meta));
         return doc;
     }
 
+    /**
+     * Copy of a parsed JSON value the default codecs can encode: null members are left out and BigInteger and BigDecimal,
+     * which have no codec, become long or double, as they did when the document was parsed from Gson output
+     **/
+    static Object toBsonValue(Object value) {
+        if (value instanceof Map) {
+            Document doc = new Document();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (entry.getValue() != null)
+                    doc.put(String.valueOf(entry.getKey()), toBsonValue(entry.getValue()));
+            }
+            return doc;
+        }
+        if (value instanceof List) {
+            List<Object> list = new ArrayList<>(((List<?>) value).size());
+            for (Object item : (List<?>) value) {
+                list.add(toBsonValue(item));
+            }
+            return list;
+        }
+        if (value instanceof BigInteger) {
+            BigInteger number = (BigInteger) value;
+            return number.bitLength() < 64 ? (Object) number.longValue() : (Object) number.doubleValue();
+        }
+        if (value instanceof BigDecimal)
+            return ((BigDecimal) value).doubleValue();
+        return value;
+    }
+
+    private static void putIfNotNull(Document doc, String key, Object value) {
+        if (value != null)
+            doc.put(key, value);
+    }
+
+    private static List<String> toList(Set<String> values) {
+        return values == null ? null : new ArrayList<>(values);
+    }
+
     public static MongoEntity ToMongoEntity(Document doc) {
-        Gson gson = new Gson();
-        JsonWriterSettings relaxed = JsonWriterSettings.builder().outputMode(JsonMode.RELAXED).build();
-        String json = doc.toJson(relaxed);
-        MongoEntity entity = gson.fromJson(json, MongoEntity.class);
+        MongoEntity entity = new MongoEntity();
+        entity._id = doc.getString("_id");
+        entity.origId = doc.getString("origId");
+        entity.entityId = doc.getString("entityId");
+        entity.entityType = doc.getString("entityType");
+        entity.kind = doc.getString("kind");
+        entity.schemaId = doc.getString("schemaId");
+        entity.version = toLong(doc.get("version"));
+        entity.deleted = Boolean.TRUE.equals(doc.getBoolean("deleted"));
+        Document aclDoc = doc.get("acl", Document.class);
+        if (aclDoc != null) {
+            entity.acl = new ACL();
+            entity.acl.setViewers(toSet(aclDoc.get("viewers")));
+            entity.acl.setOwners(toSet(aclDoc.get("owners")));
+        }
+        Document legalDoc = doc.get("legal", Document.class);
+        if (legalDoc != null) {
+            entity.legal = new Legal();
+            entity.legal.setLegaltags(toSet(legalDoc.get("legaltags")));
+            entity.legal.setOtherRelevantDataCountries(toSet(legalDoc.get("otherRelevantDataCountries")));
+        }
+        Object relationshipDocs = doc.get("relationships");
+        if (relationshipDocs instanceof List) {
+            entity.relationships = new ArrayList<>();
+            for (Object item : (List<?>) relationshipDocs) {
+                Document relationshipDoc = (Document) item;
+                entity.relationships.add(new Relationship(relationshipDoc.getString("id"), relationshipDoc.getString("entityType")));
+            }
+        }
+        entity.existenceKind = doc.getString("existenceKind");
+        entity.valid = Boolean.TRUE.equals(doc.getBoolean("valid"));
+        entity.timeStamp = doc.getString("timeStamp");
+        entity.startTime = doc.getString("startTime");
+        entity.endTime = doc.getString("endTime");
+        entity.data = doc.get("data");
+        entity.meta = doc.get("meta");
         return entity;
     }
+
+    /**
+     * Build the entity from the raw BSON. Only the envelope fields are decoded, data and meta documents are sliced
+     * out of the raw bytes and kept as JSON text.
+     **/
+    public static MongoEntity ToMongoEntity(RawBsonDocument raw) {
+        ByteBuf buffer = raw.getByteBuffer();
+        BsonDocument envelope = new BsonDocument();
+        RawJson data = null;
+        RawJson meta = null;
+        try (BsonBinaryReader reader = new BsonBinaryReader(new ByteBufferBsonInput(buffer))) {
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                String name = reader.readName();
+                boolean payload = ENTITY_PROPERTY.DATA.equals(name) || ENTITY_PROPERTY.META.equals(name);
+                if (payload && reader.getCurrentBsonType() == BsonType.DOCUMENT) {
+                    int start = reader.getBsonInput().getPosition();
+                    reader.skipValue();
+                    int length = reader.getBsonInput().getPosition() - start;
+                    RawJson json = new RawJson(new RawBsonDocument(buffer.array(), start, length).toJson(RELAXED));
+                    if (ENTITY_PROPERTY.DATA.equals(name))
+                        data = json;
+                    else
+                        meta = json;
+                } else {
+                    envelope.put(name, BSON_VALUE_CODEC.decode(reader, DECODER_CONTEXT));
+                }
+            }
+            reader.readEndDocument();
+        }
+
+        MongoEntity entity = ToMongoEntity(DOCUMENT_CODEC.decode(new BsonDocumentReader(envelope), DECODER_CONTEXT));
+        if (data != null)
+            entity.data = data;
+        if (meta != null)
+            entity.meta = meta;
+        return entity;
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    private static Set<String> toSet(Object values) {
+        if (!(values instanceof List))
+            return null;
+        Set<String> set = new HashSet<>();
+        for (Object value : (List<?>) values) {
+            set.add((String) value);
+        }
+        return set;
+    }
 }
@@ -15,29 +15,42 @@
 package org.opengroup.osdu.wd.core.dataaccess.impl;
 
 import com.mongodb.client.MongoCollection;
+import org.apache.http.HttpStatus;
 import org.bson.Document;
 import org.opengroup.osdu.wd.core.dataaccess.interfaces.IEntityDBClient;
+import org.opengroup.osdu.wd.core.models.EntityBatchItem;
+import org.opengroup.osdu.wd.core.models.EntityBatchResult;
 import org.opengroup.osdu.wd.core.models.EntityDtoReturn;
 import org.opengroup.osdu.wd.core.models.EntityDto;
 import org.opengroup.osdu.wd.core.models.Relationship;
 import org.opengroup.osdu.wd.core.util.Common;
 import org.opengroup.osdu.wd.core.util.RecordConversion;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @ConditionalOnProperty(name = "app.entity.source", havingValue = "mongodb", matchIfMissing = true)
 public class MongoEntityClient implements IEntityDBClient {
 
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
     @Autowired
     MongodbInit mongodbInit;
 
     @Autowired
     RecordConversion conversion;
 
+    @Value("${mongodb.tree.traversal:recursive}")
+    String treeTraversal;
+
     @Override
     public EntityDtoReturn saveEntity(EntityDto dto, List<Relationship> relationships) {
         MongoCollection<Document> collection = mongodbInit.createOrGetEntityCollection(dto.getEntityType());
@@ -46,18 +59,76 @@ public class MongoEntityClient implements IEntityDBClient {
         String _id = entity.get_id();
         Document doc = entity.ToDocument();
         MongodbFacade.upsert(collection, _id, doc);
+        MongodbFacade.upsertHead(mongodbInit.getHeadCollection(dto.getEntityType()), dto.getEntityId(), dto.getVersion(), _id);
+        if (isGraphEnabled()) {
+            Document node = MongoGraphTraversal.toGraphNode(entity);
+            MongodbFacade.upsert(mongodbInit.createOrGetGraphCollection(), node.getString("_id"), node);
+        }
         return new EntityDtoReturn(dto, null);
     }
 
+    @Override
+    public List<EntityBatchResult> saveEntities(List<EntityBatchItem> items) {
+        Map<String, Map<String, Document>> docsByType = new LinkedHashMap<>();
+        List<MongoEntity> entities = new ArrayList<>(items.size());
+        for (EntityBatchItem item : items) {
+            MongoEntity entity = new MongoEntity(item.getDto(), item.getRelationships());
+            docsByType.computeIfAbsent(item.getDto().getEntityType(), k -> new LinkedHashMap<>())
+                    .put(entity.get_id(), entity.ToDocument());
+            entities.add(entity);
+        }
+
+        // heads only advance to versions that were written
+        Map<String, Map<String, String>> failedByType = new HashMap<>();
+        for (Map.Entry<String, Map<String, Document>> entry : docsByType.entrySet()) {
+            MongoCollection<Document> collection = mongodbInit.createOrGetEntityCollection(entry.getKey());
+            Map<String, String> failed = MongodbFacade.bulkUpsert(collection, entry.getValue());
+            failedByType.put(entry.getKey(), failed);
+
+            Map<String, Document> saved = new LinkedHashMap<>(entry.getValue());
+            saved.keySet().removeAll(failed.keySet());
+            MongodbFacade.bulkUpsertHeads(mongodbInit.getHeadCollection(entry.getKey()), saved);
+        }
+
+        List<EntityBatchResult> list = new ArrayList<>(items.size());
+        Map<String, Document> nodes = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            EntityDto dto = items.get(i).getDto();
+            MongoEntity entity = entities.get(i);
+            String error = failedByType.get(dto.getEntityType()).get(entity.get_id());
+            if (error != null) {
+                list.add(EntityBatchResult.failed(i, dto, HttpStatus.SC_INTERNAL_SERVER_ERROR, error));
+                continue;
+            }
+            if (isGraphEnabled()) {
+                Document node = MongoGraphTraversal.toGraphNode(entity);
+                nodes.put(node.getString("_id"), node);
+            }
+            list.add(EntityBatchResult.created(i, dto));
+        }
+        if (!nodes.isEmpty())
+            MongodbFacade.bulkUpsert(mongodbInit.createOrGetGraphCollection(), nodes);
+        return list;
+    }
+
     @Override
     public EntityDtoReturn getLatestEntityVersion(String entityType, String entityId) {
         MongoCollection<Document> collection = mongodbInit.getEntityCollection(entityType);
+        MongoCollection<Document> heads = mongodbInit.getHeadCollection(entityType);
+
+        Document head = MongodbFacade.findHead(heads, entityId);
+        Document doc = head == null ? null : MongodbFacade.findSpecificOne(collection, head.getString("docId"));
+        if (doc != null)
+            return MongoEntity.ToMongoEntity(doc).ToEntityDtoReturn();
 
-        Document doc = MongodbFacade.findLatestOne(collection, entityId);
+        // entities saved before the head was maintained
+        doc = MongodbFacade.findLatestOne(collection, entityId);
         if (doc == null || doc.isEmpty())
             return null;
 
         MongoEntity entity = MongoEntity.ToMongoEntity(doc);
+        if (!entity.isDeleted())
+            MongodbFacade.upsertHead(heads, entityId, entity.getVersion(), entity.get_id());
         return entity.ToEntityDtoReturn();
     }
 
@@ -87,6 +158,9 @@ public class MongoEntityClient implements IEntityDBClient {
         MongoCollection<Document> collection = mongodbInit.getEntityCollection(entityType);
 
         long cnt = MongodbFacade.deleteEntity(collection, entityId);
+        MongodbFacade.deleteHead(mongodbInit.getHeadCollection(entityType), entityId);
+        if (isGraphEnabled())
+            MongodbFacade.deleteGraphNodes(mongodbInit.createOrGetGraphCollection(), entityType, entityId);
         return cnt;
     }
 
@@ -95,6 +169,9 @@ public class MongoEntityClient implements IEntityDBClient {
         MongoCollection<Document> collection = mongodbInit.getEntityCollection(entityType);
 
         long cnt = MongodbFacade.purgeEntity(collection, entityId);
+        MongodbFacade.deleteHead(mongodbInit.getHeadCollection(entityType), entityId);
+        if (isGraphEnabled())
+            MongodbFacade.purgeGraphNodes(mongodbInit.createOrGetGraphCollection(), entityType, entityId);
         return cnt;
     }
 
@@ -104,6 +181,9 @@ public class MongoEntityClient implements IEntityDBClient {
 
         String _id = Common.buildId(entityId, version);
         int cnt = MongodbFacade.deleteOne(collection, _id);
+        MongodbFacade.refreshHead(collection, mongodbInit.getHeadCollection(entityType), entityId, version);
+        if (isGraphEnabled())
+            MongodbFacade.deleteOne(mongodbInit.createOrGetGraphCollection(), MongoGraphTraversal.buildKey(entityType, _id));
         return cnt;
     }
 
@@ -113,6 +193,31 @@ public class MongoEntityClient implements IEntityDBClient {
 
         String _id = Common.buildId(entityId, version);
         int cnt = MongodbFacade.purgeOne(collection, _id);
+        MongodbFacade.refreshHead(collection, mongodbInit.getHeadCollection(entityType), entityId, version);
+        if (isGraphEnabled())
+            MongodbFacade.purgeOne(mongodbInit.createOrGetGraphCollection(), MongoGraphTraversal.buildKey(entityType, _id));
         return cnt;
     }
+
+    @Override
+    public long backfillRelationshipKeys(String entityType) {
+        MongoCollection<Document> collection = mongodbInit.getEntityCollectionOrNull(entityType);
+        if (collection == null)
+            return 0;
+
+        return MongodbFacade.backfillRelationshipKeys(collection, BACKFILL_BATCH_SIZE);
+    }
+
+    @Override
+    public long backfillGraphNodes(String entityType) {
+        MongoCollection<Document> collection = mongodbInit.getEntityCollectionOrNull(entityType);
+        if (collection == null)
+            return 0;
+
+        return MongodbFacade.backfillGraphNodes(collection, mongodbInit.createOrGetGraphCollection(), BACKFILL_BATCH_SIZE);
+    }
+
+    private boolean isGraphEnabled() {
+        return "graph".equalsIgnoreCase(treeTraversal);
+    }
 }
@@ -0,0 +1,50 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.wd.core.dataaccess.impl;
+
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+
+/**
+ * Encode and decode MongoEntity straight to and from BSON, without an intermediate JSON string.
+ **/
+public class MongoEntityCodec implements Codec<MongoEntity> {
+
+    private final Codec<Document> documentCodec;
+
+    public MongoEntityCodec(CodecRegistry registry) {
+        this.documentCodec = registry.get(Document.class);
+    }
+
+    @Override
+    public void encode(BsonWriter writer, MongoEntity entity, EncoderContext encoderContext) {
+        documentCodec.encode(writer, entity.ToDocument(), encoderContext);
+    }
+
+    @Override
+    public MongoEntity decode(BsonReader reader, DecoderContext decoderContext) {
+        return MongoEntity.ToMongoEntity(documentCodec.decode(reader, decoderContext));
+    }
+
+    @Override
+    public Class<MongoEntity> getEncoderClass() {
+        return MongoEntity.class;
+    }
+}
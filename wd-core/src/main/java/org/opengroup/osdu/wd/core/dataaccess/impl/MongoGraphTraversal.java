@@ -0,0 +1,218 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.opengroup.osdu.wd.core.dataaccess.impl;
+
+import com.google.gson.JsonObject;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.opengroup.osdu.wd.core.dataaccess.interfaces.ITreeNodeSource;
+import org.opengroup.osdu.wd.core.models.EntityDto;
+import org.opengroup.osdu.wd.core.models.Relationship;
+import org.opengroup.osdu.wd.core.util.Common;
+import org.opengroup.osdu.wd.core.util.TreeTraversalEngine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves reference trees server side. The entity collections are split per type, so $graphLookup runs over a
+ * relationship graph collection holding one node per entity version: {_id: "type/entityId:version", entityId,
+ * entityType, typeKey, version, deleted, relationships, refKeys}. The nodes are kept up to date by MongoEntityClient.
+ **/
+@Component
+@RequestScope
+public class MongoGraphTraversal {
+
+    @Autowired
+    MongodbInit mongodbInit;
+
+    @Value("${mongodb.tree.max-depth:32}")
+    int maxDepth = 32;
+
+    private Set<String> idSet;
+
+    private boolean excludeContent = false;
+
+    public MongoGraphTraversal()
+    {
+        this.idSet = new HashSet<>();
+    }
+
+    public static String buildKey(String entityType, String id) {
+        return entityType.toLowerCase() + "/" + id;
+    }
+
+    public static Document toGraphNode(MongoEntity entity) {
+        return toGraphNode(entity.getEntityType(), entity.get_id(), entity.getEntityId(), entity.getVersion(), false,
+                entity.getRelationships());
+    }
+
+    /**
+     * Node of a stored entity document, for entities saved before the graph collection was maintained
+     **/
+    public static Document toGraphNode(Document doc) {
+        List<Relationship> relationships = new ArrayList<>();
+        List<Document> list = doc.getList("relationships", Document.class);
+        if (list != null) {
+            for (Document rs : list) {
+                relationships.add(new Relationship(rs.getString("id"), rs.getString("entityType")));
+            }
+        }
+        return toGraphNode(doc.getString("entityType"), doc.getString("_id"), doc.getString("entityId"),
+                ((Number) doc.get("version")).longValue(), Boolean.TRUE.equals(doc.getBoolean("deleted")), relationships);
+    }
+
+    private static Document toGraphNode(String entityType, String id, String entityId, long version, boolean deleted,
+                                        List<Relationship> list) {
+        List<Document> relationships = new ArrayList<>();
+        List<String> refKeys = new ArrayList<>();
+        if (list != null) {
+            for (Relationship rs : list) {
+                if (rs == null || rs.getId() == null || rs.getEntityType() == null)
+                    continue;
+                relationships.add(new Document("id", rs.getId()).append("entityType", rs.getEntityType()));
+                refKeys.add(buildKey(rs.getEntityType(), rs.getId()));
+            }
+        }
+        return new Document("_id", buildKey(entityType, id))
+                .append("entityId", entityId)
+                .append("entityType", entityType)
+                .append("typeKey", entityType.toLowerCase())
+                .append("version", version)
+                .append("deleted", deleted)
+                .append("relationships", relationships)
+                .append("refKeys", refKeys);
+    }
+
+    /**
+     * Skip loading data and meta of the referenced documents, for callers which fetch the content separately
+     **/
+    public void setExcludeContent(boolean excludeContent) {
+        this.excludeContent = excludeContent;
+    }
+
+    /**
+     * Same tree as MongoTreeTraversal.buildDocumentRef, null when the entity is not in the graph collection
+     **/
+    public JsonObject buildDocumentRef(Document doc) {
+        Graph graph = loadGraph(doc);
+        if (graph == null)
+            return null;
+        return new TreeTraversalEngine<>(graph, this.idSet).buildRef(graph.root);
+    }
+
+    /**
+     * Same list as MongoTreeTraversal.buildDocumentList, null when the entity is not in the graph collection
+     **/
+    public List<Document> buildDocumentList(Document doc) {
+        Graph graph = loadGraph(doc);
+        if (graph == null)
+            return null;
+        List<Document> nodes = new TreeTraversalEngine<>(graph, this.idSet).buildList(graph.root);
+
+        List<Document> res = new ArrayList<>();
+        res.add(doc);
+        if (excludeContent) {
+            for (Document node : nodes.subList(1, nodes.size())) {
+                res.add(new Document("_id", Common.buildId(node.getString("entityId"), node.getLong("version")))
+                        .append("entityId", node.getString("entityId"))
+                        .append("entityType", node.getString("entityType"))
+                        .append("version", node.getLong("version")));
+            }
+            return res;
+        }
+
+        Map<String, List<String>> idsByType = new LinkedHashMap<>();
+        for (Document node : nodes.subList(1, nodes.size())) {
+            idsByType.computeIfAbsent(node.getString("entityType"), k -> new ArrayList<>())
+                    .add(Common.buildId(node.getString("entityId"), node.getLong("version")));
+        }
+        Map<String, Document> docs = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : idsByType.entrySet()) {
+            MongoCollection<Document> collection = mongodbInit.getEntityCollectionOrNull(entry.getKey());
+            if (collection == null)
+                continue;
+            for (Document item : MongodbFacade.findSpecificList(collection, entry.getValue(), false)) {
+                docs.put(buildKey(entry.getKey(), item.getString("_id")), item);
+            }
+        }
+        for (Document node : nodes.subList(1, nodes.size())) {
+            Document item = docs.get(node.getString("_id"));
+            if (item != null)
+                res.add(item);
+        }
+        return res;
+    }
+
+    private Graph loadGraph(Document doc) {
+        String rootKey = buildKey(doc.getString("entityType"), doc.getString("_id"));
+        List<Document> nodes = MongodbFacade.getGraphNodes(mongodbInit.createOrGetGraphCollection(), rootKey, maxDepth);
+        if (nodes == null)
+            return null;
+        return new Graph(nodes);
+    }
+
+    private static class Graph implements ITreeNodeSource<Document> {
+        private final Document root;
+        private final Map<String, Document> nodes = new HashMap<>();
+
+        Graph(List<Document> list) {
+            this.root = list.get(0);
+            for (Document node : list) {
+                nodes.put(node.getString("_id"), node);
+            }
+        }
+
+        @Override
+        public EntityDto getHeader(Document node) {
+            EntityDto header = new EntityDto();
+            header.setEntityId(node.getString("entityId"));
+            header.setEntityType(node.getString("entityType"));
+            header.setVersion(node.getLong("version"));
+            return header;
+        }
+
+        @Override
+        public List<Relationship> getRelationships(Document node) {
+            List<Relationship> res = new ArrayList<>();
+            List<Document> relationships = node.getList("relationships", Document.class);
+            if (relationships == null)
+                return res;
+            for (Document rs : relationships) {
+                res.add(new Relationship(rs.getString("id"), rs.getString("entityType")));
+            }
+            return res;
+        }
+
+        @Override
+        public Map<String, Document> findByIds(String entityType, List<String> ids) {
+            Map<String, Document> res = new HashMap<>();
+            for (String id : ids) {
+                Document node = nodes.get(buildKey(entityType, id));
+                if (node != null)
+                    res.put(id, node);
+            }
+            return res;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.opengroup.osdu.wd.core.dataaccess.impl;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.IndexOptions;
+import org.bson.Document;
+import org.opengroup.osdu.wd.core.models.ENTITY_TYPE;
+import org.opengroup.osdu.wd.core.models.IndexStatus;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Indexes required by the query shapes of MongodbFacade, created in the background after the first use of an entity
+ * collection, the request does not wait for them.
+ * Indexes used only by reads of non deleted documents are partial on deleted:false.
+ * The Cosmos DB API for MongoDB supports neither partial indexes nor compound indexes over array fields,
+ * there the partial filter is left out and array compounds are split into single field indexes.
+ **/
+@Component
+public class MongoIndexManager {
+
+    private static final Logger LOGGER = Logger.getLogger(MongoIndexManager.class.getName());
+
+    private static final Document NOT_DELETED = new Document("deleted", false);
+
+    // the latest version of an entity is found by the numeric version, the "entityId:version" _id does not sort by it
+    static final List<IndexSpec> REQUIRED_INDEXES = Arrays.asList(
+            // legacy index, created with the collection
+            new IndexSpec("version_-1", new Document("version", -1), false, false),
+            // findLatestOne, findVersionNumbers, deleteEntity, purgeEntity
+            new IndexSpec("entityId_version", new Document("entityId", 1).append("version", -1), false, false),
+            // getIdList_Relationships_ByEntityId, getId_Relationship_ByEntityId
+            new IndexSpec("existenceKind_entityId_version",
+                    new Document("existenceKind", 1).append("entityId", 1).append("version", -1), true, false),
+            // *_ByRelatedEntityId, *_ByRelatedId
+            new IndexSpec("existenceKind_relatedEntity_version",
+                    new Document("existenceKind", 1).append("relationships.entityType", 1).append("relationships.entityId", 1)
+                            .append("relationships.version", 1).append("version", -1),
+                    true, true),
+            // *_ByName
+            new IndexSpec("existenceKind_facilityName_version",
+                    new Document("existenceKind", 1).append("data.FacilityName", 1).append("version", -1), true, false,
+                    ENTITY_TYPE.WELL),
+            // getIdList_LatestPerEntity_ByTimeRange
+            new IndexSpec("existenceKind_timeRange",
+                    new Document("existenceKind", 1).append("startTime", 1).append("endTime", 1), true, false,
+                    ENTITY_TYPE.DRILL_REPORT)
+    );
+
+    private final Set<String> ensured = ConcurrentHashMap.newKeySet();
+    private final Executor executor;
+
+    public MongoIndexManager() {
+        this(Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mongo-index-builder");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    MongoIndexManager(Executor executor) {
+        this.executor = executor;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (executor instanceof ExecutorService)
+            ((ExecutorService) executor).shutdownNow();
+    }
+
+    /**
+     * Create the missing indexes on the index builder thread, once per collection and process.
+     * A failed check is retried on the next use of the collection.
+     **/
+    public void ensureIndexes(MongoCollection<Document> collection, boolean cosmosApi) {
+        String key = collection.getNamespace().getFullName().toLowerCase();
+        if (!ensured.add(key))
+            return;
+        try {
+            executor.execute(() -> {
+                try {
+                    createMissingIndexes(collection, cosmosApi);
+                } catch (RuntimeException e) {
+                    ensured.remove(key);
+                    LOGGER.log(Level.WARNING, String.format("Failed to check the indexes of %s", key), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            ensured.remove(key);
+        }
+    }
+
+    public List<IndexStatus> createMissingIndexes(MongoCollection<Document> collection, boolean cosmosApi) {
+        List<IndexStatus> res = checkIndexes(collection, cosmosApi);
+        Map<String, IndexSpec> expected = new HashMap<>();
+        for (IndexSpec spec : getExpectedIndexes(collection, cosmosApi)) {
+            expected.put(spec.name, spec);
+        }
+        for (IndexStatus status : res) {
+            if (!IndexStatus.MISSING.equals(status.getStatus()))
+                continue;
+            IndexSpec spec = expected.get(status.getName());
+            try {
+                collection.createIndex(spec.keys, spec.toIndexOptions(cosmosApi));
+                status.setStatus(IndexStatus.OK);
+            } catch (MongoException e) {
+                String errorMessage = String.format("Failed to create index %s on %s", spec.name, status.getCollection());
+                LOGGER.log(Level.WARNING, errorMessage, e);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Compare the indexes of the collection with the required ones. Changed indexes are reported but never rebuilt.
+     **/
+    public List<IndexStatus> checkIndexes(MongoCollection<Document> collection, boolean cosmosApi) {
+        String collectionName = collection.getNamespace().getCollectionName();
+        Map<String, Document> existing = new HashMap<>();
+        for (Document index : collection.listIndexes()) {
+            existing.put(index.getString("name"), index);
+        }
+
+        List<IndexStatus> res = new ArrayList<>();
+        Set<String> required = new HashSet<>();
+        for (IndexSpec spec : getExpectedIndexes(collection, cosmosApi)) {
+            required.add(spec.name);
+            Document index = existing.get(spec.name);
+            String status = index == null ? IndexStatus.MISSING : spec.matches(index, cosmosApi) ? IndexStatus.OK : IndexStatus.CHANGED;
+            res.add(new IndexStatus(collectionName, spec.name, spec.keys.toJson(), status));
+        }
+        for (Map.Entry<String, Document> entry : existing.entrySet()) {
+            if (required.contains(entry.getKey()) || "_id_".equals(entry.getKey()))
+                continue;
+            Document keys = entry.getValue().get("key", Document.class);
+            res.add(new IndexStatus(collectionName, entry.getKey(), keys == null ? null : keys.toJson(), IndexStatus.EXTRA));
+        }
+        return res;
+    }
+
+    static List<IndexSpec> getExpectedIndexes(MongoCollection<Document> collection, boolean cosmosApi) {
+        String collectionName = collection.getNamespace().getCollectionName();
+        Map<String, IndexSpec> res = new LinkedHashMap<>();
+        for (IndexSpec spec : REQUIRED_INDEXES) {
+            if (!spec.appliesTo(collectionName))
+                continue;
+            if (cosmosApi && spec.arrayCompound) {
+                for (String field : spec.keys.keySet()) {
+                    Object order = spec.keys.get(field);
+                    res.putIfAbsent(field + "_" + order, new IndexSpec(field + "_" + order, new Document(field, order), false, false));
+                }
+            } else {
+                res.putIfAbsent(spec.name, spec);
+            }
+        }
+        return new ArrayList<>(res.values());
+    }
+
+    static class IndexSpec {
+        private final String name;
+        private final Document keys;
+        private final boolean partial;
+        private final boolean arrayCompound;
+        private final List<String> entityTypes;
+
+        IndexSpec(String name, Document keys, boolean partial, boolean arrayCompound, String... entityTypes) {
+            this.name = name;
+            this.keys = keys;
+            this.partial = partial;
+            this.arrayCompound = arrayCompound;
+            this.entityTypes = entityTypes.length == 0 ? Collections.emptyList() : Arrays.asList(entityTypes);
+        }
+
+        boolean appliesTo(String collectionName) {
+            if (entityTypes.isEmpty())
+                return true;
+            for (String entityType : entityTypes) {
+                if ((entityType + MongodbFacade.ENTITY_COLLECTION_SUFFIX).equalsIgnoreCase(collectionName))
+                    return true;
+            }
+            return false;
+        }
+
+        IndexOptions toIndexOptions(boolean cosmosApi) {
+            IndexOptions options = new IndexOptions().name(name).background(true);
+            if (partial && !cosmosApi)
+                options.partialFilterExpression(NOT_DELETED);
+            return options;
+        }
+
+        boolean matches(Document index, boolean cosmosApi) {
+            Document indexKeys = index.get("key", Document.class);
+            if (indexKeys == null || !new ArrayList<>(indexKeys.keySet()).equals(new ArrayList<>(keys.keySet())))
+                return false;
+            for (String field : keys.keySet()) {
+                Object value = indexKeys.get(field);
+                if (!(value instanceof Number) || ((Number) value).intValue() != keys.getInteger(field))
+                    return false;
+            }
+            Object partialFilter = index.get("partialFilterExpression");
+            if (partial && !cosmosApi)
+                return NOT_DELETED.equals(partialFilter);
+            return partialFilter == null;
+        }
+    }
+}
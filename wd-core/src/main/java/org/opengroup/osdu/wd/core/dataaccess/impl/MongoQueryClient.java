@@ -18,11 +18,14 @@ import com.google.gson.JsonObject;
 import com.mongodb.client.MongoCollection;
 import org.apache.http.HttpStatus;
 import org.bson.Document;
+import org.bson.RawBsonDocument;
 import org.opengroup.osdu.core.client.model.http.AppException;
 import org.opengroup.osdu.wd.core.models.ENTITY_TYPE;
 import org.opengroup.osdu.wd.core.models.EntityDtoReturn;
+import org.opengroup.osdu.wd.core.models.EntityDtoReturnList;
 import org.opengroup.osdu.wd.core.util.DateTimeUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
@@ -43,19 +46,26 @@ public class MongoQueryClient implements IQueryClient {
     RecordConversion conversion;
     @Autowired
     MongoTreeTraversal treeTraversal;
+    @Autowired
+    MongoGraphTraversal graphTraversal;
+
+    @Value("${app.entity.read.passthrough:false}")
+    boolean passthrough;
+
+    @Value("${mongodb.tree.traversal:recursive}")
+    String traversalMode;
 
     //BHARun
 
     @Override
-    public List<EntityDtoReturn> getBHARunsBySection(String existenceKind, String segmentEntityId) {
+    public EntityDtoReturnList getBHARunsBySection(String existenceKind, String segmentEntityId, Set<String> aclGroups) {
         MongoCollection<Document> runCollection = mongodbInit.getEntityCollection(ENTITY_TYPE.BHA_RUN.toLowerCase());
         List<String> ids = MongodbFacade.getIdList_LatestPerEntity_ByRelatedEntityId(runCollection, existenceKind, ENTITY_TYPE.HOLE_SECTION, segmentEntityId);
-        List<Document> docs = MongodbFacade.getEntityList_ByIdList(runCollection, ids);
-        return toEntityDtoReturnList(docs);
+        return readEntityList(runCollection, ids, aclGroups);
     }
 
     @Override
-    public List<EntityDtoReturn> getBHARunsByWells(String existenceKind, List<String> wellEntityIds) {
+    public EntityDtoReturnList getBHARunsByWells(String existenceKind, List<String> wellEntityIds, Set<String> aclGroups) {
         List<String> wellboreIds = getWellboreIdsByWells(existenceKind, wellEntityIds);
 
         MongoCollection<Document> runCollection = mongodbInit.getEntityCollection(ENTITY_TYPE.BHA_RUN.toLowerCase());
@@ -68,32 +78,29 @@ public class MongoQueryClient implements IQueryClient {
             }
             runIdList.addAll(ids);
         }
-        List<Document> docs = MongodbFacade.getEntityList_ByIdList(runCollection, runIdList);
-        return toEntityDtoReturnList(docs);
+        return readEntityList(runCollection, runIdList, aclGroups);
     }
 
     @Override
-    public List<EntityDtoReturn> getBHARunsByWellbore(String existenceKind, String wellboreEntityId) {
+    public EntityDtoReturnList getBHARunsByWellbore(String existenceKind, String wellboreEntityId, Set<String> aclGroups) {
         MongoCollection<Document> runCollection = mongodbInit.getEntityCollection(ENTITY_TYPE.BHA_RUN.toLowerCase());
         List<String> ids = MongodbFacade.getIdList_LatestPerEntity_ByRelatedEntityId(runCollection, existenceKind, ENTITY_TYPE.WELLBORE, wellboreEntityId);
-        List<Document> docs = MongodbFacade.getEntityList_ByIdList(runCollection, ids);
-        return toEntityDtoReturnList(docs);
+        return readEntityList(runCollection, ids, aclGroups);
     }
 
     //WellboreSegment
 
     @Override
-    public List<EntityDtoReturn> getHoleSectionsByWellbore(String existenceKind, String wellboreEntityId) {
+    public EntityDtoReturnList getHoleSectionsByWellbore(String existenceKind, String wellboreEntityId, Set<String> aclGroups) {
         MongoCollection<Document> segmentCollection = mongodbInit.getEntityCollection(ENTITY_TYPE.HOLE_SECTION.toLowerCase());
         List<String> ids = MongodbFacade.getIdList_LatestPerEntity_ByRelatedEntityId(segmentCollection, existenceKind, ENTITY_TYPE.WELLBORE, wellboreEntityId);
-        List<Document> docs = MongodbFacade.getEntityList_ByIdList(segmentCollection, ids);
-        return toEntityDtoReturnList(docs);
+        return readEntityList(segmentCollection, ids, aclGroups);
     }
 
     //WellboreTrajectory
 
     @Override
-    public List<EntityDtoReturn> getWellboreTrajectoriesByWells(String existenceKind, List<String> wellEntityIds) {
+    public EntityDtoReturnList getWellboreTrajectoriesByWells(String existenceKind, List<String> wellEntityIds, Set<String> aclGroups) {
         List<String> wellboreIds = getWellboreIdsByWells(existenceKind, wellEntityIds);
 
         MongoCollection<Document> trajectoryCollection = mongodbInit.getEntityCollection(ENTITY_TYPE.WELLBORE_TRAJECTORY.toLowerCase());
@@ -106,8 +113,7 @@ public class MongoQueryClient implements IQueryClient {
             }
             IdList.addAll(ids);
         }
-        List<Document> docs = MongodbFacade.getEntityList_ByIdList(trajectoryCollection, IdList);
-        return toEntityDtoReturnList(docs);
+        return readEntityList(trajectoryCollection, IdList, aclGroups);
     }
 
 
@@ -163,7 +169,7 @@ public class MongoQueryClient implements IQueryClient {
         if (doc == null || doc.isEmpty())
             throw new AppException(HttpStatus.SC_NOT_FOUND, "Not found", "Could not find latest well activity program with well id: " + wellEntityId);
 
-        JsonObject tree = treeTraversal.buildDocumentRef(doc);
+        JsonObject tree = buildRefTree(doc);
         return tree;
     }
 
@@ -176,7 +182,7 @@ public class MongoQueryClient implements IQueryClient {
         if (doc == null || doc.isEmpty())
             throw new AppException(HttpStatus.SC_NOT_FOUND, "Not found", "Could not find specific well activity program with well id: " + wellEntityId + " well activity program version : " + dpVersion);
 
-        JsonObject tree = treeTraversal.buildDocumentRef(doc);
+        JsonObject tree = buildRefTree(doc);
         return tree;
     }
 
@@ -198,7 +204,10 @@ public class MongoQueryClient implements IQueryClient {
         if (doc == null || doc.isEmpty())
             throw new AppException(HttpStatus.SC_NOT_FOUND, "Not found", "Could not find latest well activity program with well id: " + wellEntityId);
 
-        List<Document> tree = treeTraversal.buildDocumentList(doc);
+        List<Document> tree = buildChildrenList(doc);
+        if (passthrough)
+            return readEntityTree(tree);
+
         List<EntityDtoReturn> res = new ArrayList<>();
         for (Document item : tree) {
             MongoEntity entity = MongoEntity.ToMongoEntity(item);
@@ -273,11 +282,10 @@ public class MongoQueryClient implements IQueryClient {
     //DrillingReport
 
     @Override
-    public List<EntityDtoReturn> getDrillingReportsByWellbore(String existenceKind, String wellboreEntityId) {
+    public EntityDtoReturnList getDrillingReportsByWellbore(String existenceKind, String wellboreEntityId, Set<String> aclGroups) {
         MongoCollection<Document> drCollection = mongodbInit.getEntityCollection(ENTITY_TYPE.DRILL_REPORT.toLowerCase());
         List<String> ids = MongodbFacade.getIdList_LatestPerEntity_ByRelatedEntityId(drCollection, existenceKind, ENTITY_TYPE.WELLBORE, wellboreEntityId);
-        List<Document> docs = MongodbFacade.getEntityList_ByIdList(drCollection, ids);
-        return toEntityDtoReturnList(docs);
+        return readEntityList(drCollection, ids, aclGroups);
     }
 
     @Override
@@ -292,7 +300,7 @@ public class MongoQueryClient implements IQueryClient {
     }
 
     @Override
-    public List<EntityDtoReturn> getDrillingReportsByTimeRange(String existenceKind, String startTimeString, String endTimeString) {
+    public EntityDtoReturnList getDrillingReportsByTimeRange(String existenceKind, String startTimeString, String endTimeString, Set<String> aclGroups) {
         MongoCollection<Document> drCollection = mongodbInit.getEntityCollection(ENTITY_TYPE.DRILL_REPORT.toLowerCase());
 
         try {
@@ -305,8 +313,7 @@ public class MongoQueryClient implements IQueryClient {
         }
 
         List<String> ids = MongodbFacade.getIdList_LatestPerEntity_ByTimeRange(drCollection, existenceKind, startTimeString, endTimeString);
-        List<Document> docs = MongodbFacade.getEntityList_ByIdList(drCollection, ids);
-        return toEntityDtoReturnList(docs);
+        return readEntityList(drCollection, ids, aclGroups);
     }
 
     @Override
@@ -316,18 +323,17 @@ public class MongoQueryClient implements IQueryClient {
         if (doc == null || doc.isEmpty())
             throw new AppException(HttpStatus.SC_NOT_FOUND, "Not found", "Could not find drill report with id: " + drEntityId);
 
-        JsonObject tree = treeTraversal.buildDocumentRef(doc);
+        JsonObject tree = buildRefTree(doc);
         return tree;
     }
 
     //FluidsReports
 
     @Override
-    public List<EntityDtoReturn> getFluidsReportsByWellbore(String existenceKind, String wellboreEntityId) {
+    public EntityDtoReturnList getFluidsReportsByWellbore(String existenceKind, String wellboreEntityId, Set<String> aclGroups) {
         MongoCollection<Document> dfCollection = mongodbInit.getEntityCollection(ENTITY_TYPE.FLUIDS_REPORT.toLowerCase());
         List<String> ids = MongodbFacade.getIdList_LatestPerEntity_ByRelatedEntityId(dfCollection, existenceKind, ENTITY_TYPE.WELLBORE, wellboreEntityId);
-        List<Document> docs = MongodbFacade.getEntityList_ByIdList(dfCollection, ids);
-        return toEntityDtoReturnList(docs);
+        return readEntityList(dfCollection, ids, aclGroups);
     }
 
     private String getWellboreEntityIdByWell(String existenceKind, String wellEntityId) {
@@ -350,11 +356,67 @@ public class MongoQueryClient implements IQueryClient {
         return wellboreIds;
     }
 
-    private List<EntityDtoReturn> toEntityDtoReturnList(List<Document> docs) {
+    private JsonObject buildRefTree(Document doc) {
+        if ("graph".equalsIgnoreCase(traversalMode)) {
+            JsonObject tree = graphTraversal.buildDocumentRef(doc);
+            if (tree != null)
+                return tree;
+        }
+        return treeTraversal.buildDocumentRef(doc);
+    }
+
+    private List<Document> buildChildrenList(Document doc) {
+        if ("graph".equalsIgnoreCase(traversalMode)) {
+            graphTraversal.setExcludeContent(passthrough);
+            List<Document> tree = graphTraversal.buildDocumentList(doc);
+            if (tree != null)
+                return tree;
+        }
+        treeTraversal.setExcludeContent(passthrough);
+        return treeTraversal.buildDocumentList(doc);
+    }
+
+    private EntityDtoReturnList readEntityList(MongoCollection<Document> collection, List ids, Set<String> aclGroups) {
+        List<EntityDtoReturn> res;
+        if (!passthrough) {
+            res = toEntityDtoReturnList(MongodbFacade.getEntities_ByIdList(collection, ids, aclGroups));
+        } else {
+            res = new ArrayList<>();
+            for (RawBsonDocument raw : MongodbFacade.getRawEntityList_ByIdList(collection, ids, aclGroups)) {
+                res.add(MongoEntity.ToMongoEntity(raw).ToEntityDtoReturn());
+            }
+        }
+        return EntityDtoReturnList.ofAclGroups(res, aclGroups, () -> MongodbFacade.countAclFiltered_ByIdList(collection, ids, aclGroups));
+    }
+
+    private List<EntityDtoReturn> readEntityTree(List<Document> tree) {
+        Map<String, List<String>> idsByType = new LinkedHashMap<>();
+        for (Document item : tree) {
+            idsByType.computeIfAbsent(item.getString("entityType"), k -> new ArrayList<>()).add(item.getString("_id"));
+        }
+
+        Map<String, EntityDtoReturn> entities = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : idsByType.entrySet()) {
+            MongoCollection<Document> collection = mongodbInit.getEntityCollection(entry.getKey());
+            for (RawBsonDocument raw : MongodbFacade.getRawEntityList_ByIdList(collection, entry.getValue())) {
+                MongoEntity entity = MongoEntity.ToMongoEntity(raw);
+                entities.put(entity.get_id(), entity.ToEntityDtoReturn());
+            }
+        }
+
+        List<EntityDtoReturn> res = new ArrayList<>();
+        for (Document item : tree) {
+            EntityDtoReturn ret = entities.get(item.getString("_id"));
+            if (ret != null)
+                res.add(ret);
+        }
+        return res;
+    }
+
+    private List<EntityDtoReturn> toEntityDtoReturnList(List<MongoEntity> entities) {
         List<EntityDtoReturn> res = new ArrayList<>();
-        for (Document doc : docs) {
-            if (doc != null && !doc.isEmpty()) {
-                MongoEntity entity = MongoEntity.ToMongoEntity(doc);
+        for (MongoEntity entity : entities) {
+            if (entity != null) {
                 res.add(entity.ToEntityDtoReturn());
             }
         }
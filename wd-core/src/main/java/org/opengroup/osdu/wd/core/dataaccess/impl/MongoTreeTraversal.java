@@ -14,127 +14,86 @@
 
 package org.opengroup.osdu.wd.core.dataaccess.impl;
 
-import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.mongodb.client.MongoCollection;
-import org.apache.commons.lang3.StringUtils;
 import org.bson.Document;
+import org.opengroup.osdu.wd.core.dataaccess.interfaces.ITreeNodeSource;
+import org.opengroup.osdu.wd.core.models.EntityDto;
+import org.opengroup.osdu.wd.core.models.Relationship;
+import org.opengroup.osdu.wd.core.util.TreeTraversalEngine;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.annotation.RequestScope;
 
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @Component
 @RequestScope
-public class MongoTreeTraversal  {
+public class MongoTreeTraversal implements ITreeNodeSource<Document> {
 
     @Autowired
     MongodbInit mongodbInit;
 
     private Set<String> idSet;
 
+    private boolean excludeContent = false;
+
     public MongoTreeTraversal()
     {
         this.idSet = new HashSet<>();
     }
 
+    /**
+     * Skip loading data and meta of the referenced documents, for callers which fetch the content separately
+     **/
+    public void setExcludeContent(boolean excludeContent) {
+        this.excludeContent = excludeContent;
+    }
+
     public JsonObject buildDocumentRef(Document doc) {
-        JsonObject res = new JsonObject();
+        return new TreeTraversalEngine<>(this, this.idSet).buildRef(doc);
+    }
 
-        String entityId = doc.getString("entityId");
-        String entityType = doc.getString("entityType");
-        if (!this.idSet.contains(entityType + entityId))
-            this.idSet.add(entityType + entityId);
+    public List<Document> buildDocumentList(Document doc) {
+        return new TreeTraversalEngine<>(this, this.idSet).buildList(doc);
+    }
 
-        res.addProperty("id", entityId);
-        res.addProperty("version", doc.getLong("version"));
-        res.addProperty("type", entityType);
+    @Override
+    public EntityDto getHeader(Document doc) {
+        EntityDto header = new EntityDto();
+        header.setEntityId(doc.getString("entityId"));
+        header.setEntityType(doc.getString("entityType"));
+        header.setVersion(doc.getLong("version"));
+        return header;
+    }
 
+    @Override
+    public List<Relationship> getRelationships(Document doc) {
         List<Document> relationships = doc.getList("relationships", Document.class);
-        if (relationships == null || relationships.size() == 0)
+        List<Relationship> res = new ArrayList<>();
+        if (relationships == null)
             return res;
-
-        JsonArray arr = new JsonArray();
         for (Document rs : relationships) {
-            String id = rs.getString("id");
-            String type = rs.getString("entityType");
-            if (StringUtils.isBlank(id) || StringUtils.isBlank(type) || !id.matches("^[^:]+:[0-9]+$"))
-                continue;
-            if (this.idSet.contains(type + id.split(":")[0]))
-                continue;
-            else
-                this.idSet.add(type + id.split(":")[0]);
-
-            MongoCollection<Document> subCollection = mongodbInit.getEntityCollectionOrNull(type);
-            if(subCollection != null) {
-                Document sub = getSpecificDocument(subCollection, id);
-                if (sub != null && !sub.isEmpty()) {
-                    JsonObject children = buildDocumentRef(sub);
-                    arr.add(children);
-                }
-            }
+            res.add(new Relationship(rs.getString("id"), rs.getString("entityType")));
         }
-        if (arr.size() > 0)
-            res.add("items", arr);
-
         return res;
     }
 
-    public List<Document> buildDocumentList(Document doc) {
-        List<Document> res = new ArrayList<>();
-
-        String entityId = doc.getString("entityId");
-        String entityType = doc.getString("entityType");
-        if (!this.idSet.contains(entityType + entityId))
-            this.idSet.add(entityType + entityId);
-        res.add(doc);
-
-        List<Document> relationships = doc.getList("relationships", Document.class);
-        if (relationships == null || relationships.size() == 0)
+    @Override
+    public Map<String, Document> findByIds(String entityType, List<String> ids) {
+        Map<String, Document> res = new HashMap<>();
+        MongoCollection<Document> collection = mongodbInit.getEntityCollectionOrNull(entityType);
+        if (collection == null)
             return res;
-
-        for (Document rs : relationships) {
-            String id = rs.getString("id");
-            String type = rs.getString("entityType");
-            if (StringUtils.isBlank(id) || StringUtils.isBlank(type))
-                continue;
-            if (this.idSet.contains(type + id.split(":")[0]))
-                continue;
-            else
-                this.idSet.add(type + id.split(":")[0]);
-
-            MongoCollection<Document> subCollection = mongodbInit.getEntityCollectionOrNull(type);
-            if(subCollection != null) {
-                Document sub = getSpecificDocument(subCollection, id);
-                if (sub != null && !sub.isEmpty()) {
-                    List<Document> children = buildDocumentList(sub);
-                    res.addAll(children);
-                }
-            }
+        for (Document doc : MongodbFacade.findSpecificList(collection, ids, excludeContent)) {
+            res.put(doc.getString("_id"), doc);
         }
         return res;
     }
-
-    private Document getLatestDocument(MongoCollection<Document> collection, String id) {
-        if (StringUtils.isBlank(id))
-            return null;
-        Document doc = MongodbFacade.findLatestOne(collection, id);
-        if (doc == null || doc.isEmpty())
-            return null;
-        return  doc;
-    }
-
-    private Document getSpecificDocument(MongoCollection<Document> collection, String id) {
-        if (StringUtils.isBlank(id))
-            return null;
-        Document doc = MongodbFacade.findSpecificOne(collection, id);
-        if (doc == null || doc.isEmpty())
-            return null;
-        return  doc;
-    }
 }
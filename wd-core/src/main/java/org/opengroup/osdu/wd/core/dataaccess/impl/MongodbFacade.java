@@ -14,8 +14,13 @@
 
 package org.opengroup.osdu.wd.core.dataaccess.impl;
 
+import com.mongodb.MongoClientOptions;
 import com.mongodb.MongoClientURI;
+import com.mongodb.BulkWriteError;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
 import com.mongodb.MongoException;
+import com.mongodb.MongoWriteException;
 import com.mongodb.MongoClient;
 import com.mongodb.client.*;
 import com.mongodb.client.model.*;
@@ -27,16 +32,21 @@ import org.apache.http.HttpStatus;
 import java.util.*;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
 
 import org.bson.Document;
+import org.bson.RawBsonDocument;
 import org.bson.codecs.configuration.CodecRegistry;
 import org.bson.codecs.configuration.CodecProvider;
 import org.bson.codecs.pojo.PojoCodecProvider;
+import org.bson.conversions.Bson;
 import org.opengroup.osdu.core.client.model.http.AppException;
+import org.opengroup.osdu.wd.core.models.Relationship;
 
 import static com.mongodb.client.model.Aggregates.*;
 import static com.mongodb.client.model.Filters.*;
 import static com.mongodb.client.model.Accumulators.*;
+import static org.bson.codecs.configuration.CodecRegistries.fromCodecs;
 import static org.bson.codecs.configuration.CodecRegistries.fromRegistries;
 import static org.bson.codecs.configuration.CodecRegistries.fromProviders;
 
@@ -44,6 +54,12 @@ public class MongodbFacade {
 
     private static final Logger LOGGER = Logger.getLogger(MongodbFacade.class.getName());
 
+    public static final String ENTITY_COLLECTION_SUFFIX = "Container";
+
+    public static final String HEAD_COLLECTION_SUFFIX = "Head";
+
+    private static final CodecRegistry CODEC_REGISTRY = buildCodecRegistry();
+
 
     /////////////////////////////////////////
     // General Entity
@@ -62,13 +78,47 @@ public class MongodbFacade {
         }
     }
 
+    /**
+     * Upserts the documents in one unordered bulk write, returns the error message of each document that was not written by its _id
+     **/
+    public static Map<String, String> bulkUpsert(MongoCollection<Document> collection, Map<String, Document> docs) {
+        if (docs.isEmpty())
+            return Collections.emptyMap();
+
+        List<String> ids = new ArrayList<>(docs.size());
+        List<WriteModel<Document>> requests = new ArrayList<>(docs.size());
+        for (Map.Entry<String, Document> entry : docs.entrySet()) {
+            ids.add(entry.getKey());
+            requests.add(new ReplaceOneModel<>(Filters.eq("_id", entry.getKey()),
+                                    entry.getValue(),
+                                    new ReplaceOptions().upsert(true)));
+        }
+        try {
+            collection.bulkWrite(requests, new BulkWriteOptions().ordered(false));
+            return Collections.emptyMap();
+        } catch (MongoBulkWriteException e) {
+            LOGGER.log(Level.WARNING, "Failed to put some items into MongoDB", e);
+            Map<String, String> failed = new HashMap<>();
+            for (BulkWriteError error : e.getWriteErrors())
+                failed.put(ids.get(error.getIndex()), error.getMessage());
+            // a write concern error leaves it unknown which writes were applied
+            if (e.getWriteConcernError() != null)
+                ids.forEach(id -> failed.putIfAbsent(id, e.getWriteConcernError().getMessage()));
+            return failed;
+        } catch (MongoException e) {
+            String errorMessage = "Unexpectedly failed to put items into MongoDB";
+            LOGGER.log(Level.WARNING, errorMessage, e);
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, e.getMessage(), e);
+        }
+    }
+
     public static Document findLatestOne(MongoCollection<Document> collection, String entityId) {
         try {
             FindIterable<Document> docs = collection.find(
                        Filters.and(
                             Filters.eq("entityId", entityId),
                             Filters.eq("deleted", false)))
-                    .sort(Sorts.descending("_id"))
+                    .sort(Sorts.descending("version"))
                     .limit(1);
             return docs != null && docs.iterator().hasNext() ? docs.first() : null;
         } catch (MongoException e) {
@@ -92,6 +142,41 @@ public class MongodbFacade {
         }
     }
 
+    public static Document findSpecificOneWithoutContent(MongoCollection<Document> collection, String _id) {
+        try {
+            FindIterable<Document> docs = collection.find(
+                    Filters.and(
+                            Filters.eq("_id", _id),
+                            Filters.eq("deleted", false)))
+                    .projection(Projections.exclude("data", "meta"));
+            return docs != null && docs.iterator().hasNext() ? docs.first() : null;
+        } catch (MongoException e) {
+            String errorMessage = "Unexpectedly failed to find item from MongoDB";
+            LOGGER.log(Level.WARNING, errorMessage, e);
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, e.getMessage(), e);
+        }
+    }
+
+    public static List<Document> findSpecificList(MongoCollection<Document> collection, List<String> ids, boolean excludeContent) {
+        try {
+            FindIterable<Document> docs = collection.find(
+                    Filters.and(
+                            Filters.in("_id", ids),
+                            Filters.eq("deleted", false)));
+            if (excludeContent)
+                docs = docs.projection(Projections.exclude("data", "meta"));
+            List<Document> list = new ArrayList<>();
+            for (Document doc : docs) {
+                list.add(doc);
+            }
+            return list;
+        } catch (MongoException e) {
+            String errorMessage = "Unexpectedly failed to find item from MongoDB";
+            LOGGER.log(Level.WARNING, errorMessage, e);
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, e.getMessage(), e);
+        }
+    }
+
     public static List<Long> findVersionNumbers(MongoCollection<Document> collection, String entityId) {
         try {
             MongoIterable<Long> res = collection.find(
@@ -158,6 +243,164 @@ public class MongodbFacade {
     }
 
 
+    /////////////////////////////////////////
+    // Head version
+    ////////////////////////////////////////
+
+    /**
+     * Point the head of the entity at the given version unless a newer version is already the head
+     **/
+    public static void upsertHead(MongoCollection<Document> heads, String entityId, long version, String _id) {
+        try {
+            heads.updateOne(Filters.and(
+                            Filters.eq("_id", entityId),
+                            Filters.lte("version", version)),
+                    Updates.combine(
+                            Updates.set("version", version),
+                            Updates.set("docId", _id)),
+                    new UpdateOptions().upsert(true));
+        } catch (MongoWriteException e) {
+            // the head exists with a newer version, the upsert collided with it
+            if (e.getError().getCategory() != ErrorCategory.DUPLICATE_KEY) {
+                String errorMessage = "Unexpectedly failed to update head version in MongoDB";
+                LOGGER.log(Level.WARNING, errorMessage, e);
+                throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, e.getMessage(), e);
+            }
+        } catch (MongoException e) {
+            String errorMessage = "Unexpectedly failed to update head version in MongoDB";
+            LOGGER.log(Level.WARNING, errorMessage, e);
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, e.getMessage(), e);
+        }
+    }
+
+    public static void bulkUpsertHeads(MongoCollection<Document> heads, Map<String, Document> docs) {
+        Map<String, Document> latest = new HashMap<>();
+        for (Document doc : docs.values()) {
+            String entityId = doc.getString("entityId");
+            Document current = latest.get(entityId);
+            if (current == null || toLong(current.get("version")) <= toLong(doc.get("version")))
+                latest.put(entityId, doc);
+        }
+        for (Map.Entry<String, Document> entry : latest.entrySet()) {
+            upsertHead(heads, entry.getKey(), toLong(entry.getValue().get("version")), entry.getValue().getString("_id"));
+        }
+    }
+
+    public static Document findHead(MongoCollection<Document> heads, String entityId) {
+        try {
+            return heads.find(Filters.eq("_id", entityId)).first();
+        } catch (MongoException e) {
+            String errorMessage = "Unexpectedly failed to find head version from MongoDB";
+            LOGGER.log(Level.WARNING, errorMessage, e);
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, e.getMessage(), e);
+        }
+    }
+
+    public static void deleteHead(MongoCollection<Document> heads, String entityId) {
+        try {
+            heads.deleteOne(Filters.eq("_id", entityId));
+        } catch (MongoException e) {
+            String errorMessage = "Unexpectedly failed to delete head version from MongoDB";
+            LOGGER.log(Level.WARNING, errorMessage, e);
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * After a version is deleted, move the head to the latest live version if it pointed at the deleted one
+     **/
+    public static void refreshHead(MongoCollection<Document> collection, MongoCollection<Document> heads, String entityId, long version) {
+        try {
+            DeleteResult res = heads.deleteOne(Filters.and(
+                    Filters.eq("_id", entityId),
+                    Filters.eq("version", version)));
+            if (res.getDeletedCount() == 0)
+                return;
+            Document latest = collection.find(
+                        Filters.and(
+                            Filters.eq("entityId", entityId),
+                            Filters.eq("deleted", false)))
+                    .projection(Projections.include("version"))
+                    .sort(Sorts.descending("version"))
+                    .limit(1)
+                    .first();
+            if (latest != null)
+                upsertHead(heads, entityId, toLong(latest.get("version")), latest.getString("_id"));
+        } catch (MongoException e) {
+            String errorMessage = "Unexpectedly failed to refresh head version in MongoDB";
+            LOGGER.log(Level.WARNING, errorMessage, e);
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, e.getMessage(), e);
+        }
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : Long.parseLong(String.valueOf(value));
+    }
+
+    /////////////////////////////////////////
+    // Relationship graph
+    ////////////////////////////////////////
+
+    public static long deleteGraphNodes(MongoCollection<Document> graph, String entityType, String entityId) {
+        try {
+            UpdateResult res = graph.updateMany(
+                    Filters.and(
+                            Filters.eq("typeKey", entityType.toLowerCase()),
+                            Filters.eq("entityId", entityId)),
+                    Updates.set("deleted", true));
+            return res.getMatchedCount();
+        } catch (MongoException e) {
+            String errorMessage = "Unexpectedly failed to delete entity from MongoDB";
+            LOGGER.log(Level.WARNING, errorMessage, e);
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, e.getMessage(), e);
+        }
+    }
+
+    public static long purgeGraphNodes(MongoCollection<Document> graph, String entityType, String entityId) {
+        try {
+            DeleteResult res = graph.deleteMany(
+                    Filters.and(
+                            Filters.eq("typeKey", entityType.toLowerCase()),
+                            Filters.eq("entityId", entityId)));
+            return res.getDeletedCount();
+        } catch (MongoException e) {
+            String errorMessage = "Unexpectedly failed to purge entity from MongoDB";
+            LOGGER.log(Level.WARNING, errorMessage, e);
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The root node followed by every node reachable through refKeys within maxDepth relationships, from one $graphLookup.
+     * Returns null if the root is not in the graph collection.
+     **/
+    public static List<Document> getGraphNodes(MongoCollection<Document> graph, String rootKey, int maxDepth) {
+        try {
+            // the direct references of the root are depth 0 of $graphLookup
+            Document root = graph.aggregate(Arrays.asList(
+                    match(Filters.eq("_id", rootKey)),
+                    graphLookup(graph.getNamespace().getCollectionName(), "$refKeys", "refKeys", "_id", "nodes",
+                            new GraphLookupOptions()
+                                    .maxDepth(Math.max(maxDepth - 1, 0))
+                                    .restrictSearchWithMatch(Filters.eq("deleted", false)))))
+                    .first();
+            if (root == null)
+                return null;
+
+            List<Document> nodes = new ArrayList<>();
+            List<Document> reached = root.getList("nodes", Document.class);
+            root.remove("nodes");
+            nodes.add(root);
+            if (reached != null)
+                nodes.addAll(reached);
+            return nodes;
+        } catch (MongoException e) {
+            String errorMessage = "Unexpectedly failed to find item from MongoDB";
+            LOGGER.log(Level.WARNING, errorMessage, e);
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, e.getMessage(), e);
+        }
+    }
+
     /////////////////////////////////////////
     // Query Operation
     ////////////////////////////////////////
@@ -170,7 +413,7 @@ public class MongodbFacade {
                             eq("data.FacilityName", name),
                             eq("deleted", false)
                     ))
-                    .sort(Sorts.descending("_id"))
+                    .sort(Sorts.descending("version"))
                     .limit(1);
             return docs != null && docs.iterator().hasNext() ? docs.first() : null;
         } catch (MongoException e) {
@@ -228,7 +471,7 @@ public class MongodbFacade {
                             eq("existenceKind", existenceKind.toLowerCase()),
                             eq("deleted", false)
                         ))
-                    .sort(Sorts.descending("_id"))
+                    .sort(Sorts.descending("version"))
                     .limit(1)
                     .map(x -> x.getList("relationships", Document.class));
             MongoCursor<List<Document>> it = res.iterator();
@@ -261,7 +504,7 @@ public class MongodbFacade {
                             eq("existenceKind", existenceKind.toLowerCase()),
                             eq("deleted", false)
                     ))
-                    .sort(Sorts.descending("_id"))
+                    .sort(Sorts.descending("version"))
                     .limit(1)
                     .map(x -> x.getList("relationships", Document.class));
             MongoCursor<List<Document>> it = res.iterator();
@@ -291,12 +534,7 @@ public class MongodbFacade {
                     and(
                             eq("existenceKind", existenceKind.toLowerCase()),
                             eq("deleted", false),
-                            elemMatch("relationships",
-                                    and(
-                                            eq("entityType", relatedType.toLowerCase()),
-                                            regex("id", "^" + relatedEntityId + ":")
-                                    )
-                            )
+                            relatedEntity(relatedType, relatedEntityId)
                     ))
                     .sort(Sorts.descending("version"))
                     .limit(1);
@@ -314,12 +552,7 @@ public class MongodbFacade {
                     and(
                             eq("existenceKind", existenceKind.toLowerCase()),
                             eq("deleted", false),
-                            elemMatch("relationships",
-                                    and(
-                                            eq("entityType", relatedType.toLowerCase()),
-                                            eq("id", relatedId)
-                                    )
-                            )
+                            relatedVersion(relatedType, relatedId)
                     ))
                     .sort(Sorts.descending("version"))
                     .limit(1);
@@ -338,12 +571,7 @@ public class MongodbFacade {
                             eq("existenceKind", existenceKind.toLowerCase()),
                             eq("version", verison),
                             eq("deleted", false),
-                            elemMatch("relationships",
-                                    and(
-                                            eq("entityType", relatedType.toLowerCase()),
-                                            regex("id", "^" + relatedEntityId + ":")
-                                    )
-                            )
+                            relatedEntity(relatedType, relatedEntityId)
                     ))
                     .limit(1);
             return res != null && res.iterator().hasNext() ? res.first() : null;
@@ -360,12 +588,7 @@ public class MongodbFacade {
                     and(
                             eq("existenceKind", existenceKind.toLowerCase()),
                             eq("deleted", false),
-                            elemMatch("relationships",
-                                    and(
-                                            eq("entityType", relatedType.toLowerCase()),
-                                            regex("id", "^" + relatedEntityId + ":")
-                                    )
-                            )
+                            relatedEntity(relatedType, relatedEntityId)
                     ))
                     .sort(Sorts.descending("version"))
                     .limit(1);
@@ -384,12 +607,7 @@ public class MongodbFacade {
                     and(
                             eq("existenceKind", existenceKind.toLowerCase()),
                             eq("deleted", false),
-                            elemMatch("relationships",
-                                    and(
-                                            eq("entityType", relatedType.toLowerCase()),
-                                            eq("id", relatedId)
-                                    )
-                            )
+                            relatedVersion(relatedType, relatedId)
                     ))
                     .sort(Sorts.descending("version"))
                     .limit(1);
@@ -403,85 +621,46 @@ public class MongodbFacade {
     }
 
     public static List<String> getIdList_LatestPerEntity_ByRelatedEntityId(MongoCollection<Document> collection, String existenceKind, String relatedType, String relatedEntityId) {
-        try {
-            MongoIterable<Document> res = collection.aggregate(
-                    Arrays.asList(
-                            match(and(
-                                    eq("existenceKind", existenceKind.toLowerCase()),
-                                    eq("deleted", false),
-                                    elemMatch("relationships",
-                                            and(
-                                                    eq("entityType", relatedType.toLowerCase()),
-                                                    regex("id", "^" + relatedEntityId + ":")
-                                            )
-                                    )
-                            )),
-                            group("$entityId", max("max", "$_id"))
-                    )
-            );
-            List<String> list = new ArrayList<>();
-            for (Document doc : res) {
-                String current = doc.getString("max");
-                if (!StringUtils.isBlank(current)) {
-                    list.add(current);
-                }
-            }
-            return list;
-        } catch (MongoException e) {
-            String errorMessage = "Unexpectedly failed to find item from MongoDB";
-            LOGGER.log(Level.WARNING, errorMessage, e);
-            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, e.getMessage(), e);
-        }
+        return getIdList_LatestPerEntity(collection, and(
+                eq("existenceKind", existenceKind.toLowerCase()),
+                eq("deleted", false),
+                relatedEntity(relatedType, relatedEntityId)
+        ));
     }
 
     public static List<String> getIdList_LatestPerEntity_ByRelatedId(MongoCollection<Document> collection, String existenceKind, String relatedType, String relatedId) {
-        try {
-            MongoIterable<Document> res = collection.aggregate(
-                    Arrays.asList(
-                            match(and(
-                                    eq("existenceKind", existenceKind.toLowerCase()),
-                                    eq("deleted", false),
-                                    elemMatch("relationships",
-                                            and(
-                                                    eq("entityType", relatedType.toLowerCase()),
-                                                    eq("id", relatedId)
-                                            )
-                                    )
-                            )),
-                            group("$entityId", max("max", "$_id"))
-                    )
-            );
-            List<String> list = new ArrayList<>();
-            for (Document doc : res) {
-                String current = doc.getString("max");
-                if (!StringUtils.isBlank(current)) {
-                    list.add(current);
-                }
-            }
-            return list;
-        } catch (MongoException e) {
-            String errorMessage = "Unexpectedly failed to find item from MongoDB";
-            LOGGER.log(Level.WARNING, errorMessage, e);
-            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, e.getMessage(), e);
-        }
+        return getIdList_LatestPerEntity(collection, and(
+                eq("existenceKind", existenceKind.toLowerCase()),
+                eq("deleted", false),
+                relatedVersion(relatedType, relatedId)
+        ));
     }
 
     public static List<String> getIdList_LatestPerEntity_ByTimeRange(MongoCollection<Document> collection, String existenceKind, String startTime, String endTime) {
+        return getIdList_LatestPerEntity(collection, and(
+                eq("existenceKind", existenceKind.toLowerCase()),
+                eq("deleted", false),
+                lte("startTime", endTime),
+                gte("endTime", startTime)
+        ));
+    }
+
+    /**
+     * Id of the highest version of every entity matching the filter. The group takes the max of {version, _id},
+     * documents compare field by field so the numeric version decides and not the string order of the ids.
+     **/
+    private static List<String> getIdList_LatestPerEntity(MongoCollection<Document> collection, Bson filter) {
         try {
             MongoIterable<Document> res = collection.aggregate(
                     Arrays.asList(
-                            match(and(
-                                    eq("existenceKind", existenceKind.toLowerCase()),
-                                    eq("deleted", false),
-                                    lte("startTime", endTime),
-                                    gte("endTime", startTime)
-                            )),
-                            group("$entityId", Accumulators.max("max", "$_id"))
+                            match(filter),
+                            group("$entityId", max("max", new Document("version", "$version").append("_id", "$_id")))
                     )
             );
             List<String> list = new ArrayList<>();
             for (Document doc : res) {
-                String current = doc.getString("max");
+                Document max = doc.get("max", Document.class);
+                String current = max == null ? null : max.getString("_id");
                 if (!StringUtils.isBlank(current)) {
                     list.add(current);
                 }
@@ -500,12 +679,7 @@ public class MongodbFacade {
                     and(
                             eq("existenceKind", existenceKind.toLowerCase()),
                             eq("deleted", false),
-                            elemMatch("relationships",
-                                    and(
-                                            eq("entityType", relatedType.toLowerCase()),
-                                            regex("id", "^" + relatedEntityId + ":")
-                                    )
-                            )
+                            relatedEntity(relatedType, relatedEntityId)
                     ))
                     .map(x -> x.getLong("version"));
             List<Long> list = new ArrayList<>();
@@ -537,18 +711,203 @@ public class MongodbFacade {
         }
     }
 
+    public static List<MongoEntity> getEntities_ByIdList(MongoCollection<Document> collection, List idLlist) {
+        return getEntities_ByIdList(collection, idLlist, null);
+    }
+
+    /**
+     * Entities of the id list which have one of the acl groups as viewer or owner, all of them when aclGroups is null
+     **/
+    public static List<MongoEntity> getEntities_ByIdList(MongoCollection<Document> collection, List idLlist, Collection<String> aclGroups) {
+        try {
+            MongoIterable<MongoEntity> res = collection.withDocumentClass(MongoEntity.class).find(idListFilter(idLlist, aclGroups));
+            List<MongoEntity> list = new ArrayList<>();
+            for (MongoEntity entity : res) {
+                list.add(entity);
+            }
+            return list;
+        } catch (MongoException e) {
+            String errorMessage = "Unexpectedly failed to find item from MongoDB";
+            LOGGER.log(Level.WARNING, errorMessage, e);
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, e.getMessage(), e);
+        }
+    }
+
+    public static List<RawBsonDocument> getRawEntityList_ByIdList(MongoCollection<Document> collection, List idLlist) {
+        return getRawEntityList_ByIdList(collection, idLlist, null);
+    }
+
+    public static List<RawBsonDocument> getRawEntityList_ByIdList(MongoCollection<Document> collection, List idLlist, Collection<String> aclGroups) {
+        try {
+            MongoIterable<RawBsonDocument> res = collection.withDocumentClass(RawBsonDocument.class).find(idListFilter(idLlist, aclGroups));
+            List<RawBsonDocument> list = new ArrayList<>();
+            for (RawBsonDocument doc : res) {
+                list.add(doc);
+            }
+            return list;
+        } catch (MongoException e) {
+            String errorMessage = "Unexpectedly failed to find item from MongoDB";
+            LOGGER.log(Level.WARNING, errorMessage, e);
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Number of entities of the id list which have none of the acl groups as viewer or owner
+     **/
+    public static long countAclFiltered_ByIdList(MongoCollection<Document> collection, List idLlist, Collection<String> aclGroups) {
+        try {
+            return collection.countDocuments(and(in("_id", idLlist), nor(aclFilter(aclGroups))));
+        } catch (MongoException e) {
+            String errorMessage = "Unexpectedly failed to count items from MongoDB";
+            LOGGER.log(Level.WARNING, errorMessage, e);
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, e.getMessage(), e);
+        }
+    }
+
+    private static Bson idListFilter(List idList, Collection<String> aclGroups) {
+        if (aclGroups == null)
+            return in("_id", idList);
+        return and(in("_id", idList), aclFilter(aclGroups));
+    }
+
+    // $in on an array field matches when any element is in the list
+    private static Bson aclFilter(Collection<String> aclGroups) {
+        return or(in("acl.viewers", aclGroups), in("acl.owners", aclGroups));
+    }
+
+    // Relationships stored before entityId and version were kept separately are matched on id
+    // until the relationship-keys backfill has run for the type.
+    private static Bson relatedEntity(String relatedType, String relatedEntityId) {
+        return or(
+                elemMatch("relationships",
+                        and(
+                                eq("entityType", relatedType.toLowerCase()),
+                                eq("entityId", relatedEntityId)
+                        )
+                ),
+                elemMatch("relationships",
+                        and(
+                                eq("entityType", relatedType.toLowerCase()),
+                                exists("entityId", false),
+                                regex("id", "^" + Pattern.quote(relatedEntityId) + ":")
+                        )
+                )
+        );
+    }
+
+    private static Bson relatedVersion(String relatedType, String relatedId) {
+        Long version = Relationship.parseVersion(relatedId);
+        if (version == null)
+            return elemMatch("relationships", and(eq("entityType", relatedType.toLowerCase()), eq("id", relatedId)));
+        return or(
+                elemMatch("relationships",
+                        and(
+                                eq("entityType", relatedType.toLowerCase()),
+                                eq("entityId", Relationship.parseEntityId(relatedId)),
+                                eq("version", version)
+                        )
+                ),
+                elemMatch("relationships",
+                        and(
+                                eq("entityType", relatedType.toLowerCase()),
+                                exists("entityId", false),
+                                eq("id", relatedId)
+                        )
+                )
+        );
+    }
+
+    /////////////////////////////////////////
+    // Migration
+    ////////////////////////////////////////
+
+    /**
+     * Fill in entityId and version of the relationships stored before they were kept separately,
+     * returns the number of updated documents
+     **/
+    public static long backfillRelationshipKeys(MongoCollection<Document> collection, int batchSize) {
+        try {
+            FindIterable<Document> res = collection.find(elemMatch("relationships", exists("entityId", false)))
+                    .projection(Projections.include("relationships"))
+                    .batchSize(batchSize);
+            long cnt = 0;
+            List<WriteModel<Document>> requests = new ArrayList<>(batchSize);
+            for (Document doc : res) {
+                List<Document> relationships = doc.getList("relationships", Document.class);
+                for (Document relationship : relationships) {
+                    String id = relationship.getString("id");
+                    if (id == null || relationship.containsKey("entityId"))
+                        continue;
+                    relationship.put("entityId", Relationship.parseEntityId(id));
+                    Long version = Relationship.parseVersion(id);
+                    if (version != null)
+                        relationship.put("version", version);
+                }
+                requests.add(new UpdateOneModel<>(eq("_id", doc.get("_id")), Updates.set("relationships", relationships)));
+                if (requests.size() >= batchSize) {
+                    cnt += collection.bulkWrite(requests, new BulkWriteOptions().ordered(false)).getModifiedCount();
+                    requests.clear();
+                }
+            }
+            if (!requests.isEmpty())
+                cnt += collection.bulkWrite(requests, new BulkWriteOptions().ordered(false)).getModifiedCount();
+            return cnt;
+        } catch (MongoException e) {
+            String errorMessage = "Unexpectedly failed to backfill relationships in MongoDB";
+            LOGGER.log(Level.WARNING, errorMessage, e);
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Write the graph node of every entity version of the collection, for entities saved before the graph collection
+     * was maintained, returns the number of written nodes
+     **/
+    public static long backfillGraphNodes(MongoCollection<Document> collection, MongoCollection<Document> graph, int batchSize) {
+        try {
+            FindIterable<Document> res = collection.find()
+                    .projection(Projections.include("entityId", "entityType", "version", "deleted", "relationships"))
+                    .batchSize(batchSize);
+            long cnt = 0;
+            Map<String, Document> nodes = new LinkedHashMap<>();
+            for (Document doc : res) {
+                Document node = MongoGraphTraversal.toGraphNode(doc);
+                nodes.put(node.getString("_id"), node);
+                if (nodes.size() >= batchSize) {
+                    cnt += nodes.size() - bulkUpsert(graph, nodes).size();
+                    nodes.clear();
+                }
+            }
+            if (!nodes.isEmpty())
+                cnt += nodes.size() - bulkUpsert(graph, nodes).size();
+            return cnt;
+        } catch (MongoException e) {
+            String errorMessage = "Unexpectedly failed to backfill relationship graph in MongoDB";
+            LOGGER.log(Level.WARNING, errorMessage, e);
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, e.getMessage(), e);
+        }
+    }
+
     /////////////////////////////////////////
     // mongodb operation
     ////////////////////////////////////////
 
     public static MongoClient createClient(String mongodbUri) {
+        return createClient(mongodbUri, MongoClientOptions.builder());
+    }
+
+    /**
+     * Create a client with the given pool options, options set in the connection string take precedence
+     **/
+    public static MongoClient createClient(String mongodbUri, MongoClientOptions.Builder options) {
 
         if (StringUtils.isBlank(mongodbUri)) {
             String errorMessage = "Mongodb url is null";
             LOGGER.log(Level.WARNING, errorMessage);
             throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, errorMessage, errorMessage);
         }
-        MongoClientURI uri = new MongoClientURI(mongodbUri);
+        MongoClientURI uri = new MongoClientURI(mongodbUri, options);
         return new MongoClient(uri);
     }
 
@@ -585,12 +944,59 @@ public class MongodbFacade {
         return db.getCollection(collectionName);
     }
 
+    public static MongoCollection<Document> createOrGetGraphCollection(MongoClient client, String dbName, String collectionName) {
+        validateParameters(client, dbName, collectionName);
+        MongoDatabase db = getDatabase(client, dbName);
+        if (!checkIfCollectionExisted(db, collectionName)) {
+            db.createCollection(collectionName);
+            MongoCollection<Document> collection = db.getCollection(collectionName);
+            collection.createIndex(Indexes.ascending("entityId", "typeKey"));
+            return collection;
+        }
+        return db.getCollection(collectionName);
+    }
+
+    public static MongoCollection<Document> getHeadCollection(MongoClient client, String dbName, String collectionName) {
+        validateParameters(client, dbName, collectionName);
+        // created implicitly with the first head, _id is the only key needed
+        return getDatabase(client, dbName).getCollection(collectionName);
+    }
+
+    /**
+     * Open the collection without checking that it exists
+     **/
+    public static MongoCollection<Document> openCollection(MongoClient client, String dbName, String collectionName) {
+        validateParameters(client, dbName, collectionName);
+        return getDatabase(client, dbName).getCollection(collectionName);
+    }
+
+    public static List<String> listCollectionNames(MongoClient client, String dbName) {
+        validateParameters(client, dbName, ENTITY_COLLECTION_SUFFIX);
+        return getDatabase(client, dbName).listCollectionNames().into(new ArrayList<>());
+    }
+
+    public static List<MongoCollection<Document>> getEntityCollections(MongoClient client, String dbName) {
+        validateParameters(client, dbName, ENTITY_COLLECTION_SUFFIX);
+        MongoDatabase db = getDatabase(client, dbName);
+        List<MongoCollection<Document>> list = new ArrayList<>();
+        for (String name : db.listCollectionNames()) {
+            if (name.endsWith(ENTITY_COLLECTION_SUFFIX)) {
+                list.add(db.getCollection(name));
+            }
+        }
+        return list;
+    }
+
     private static MongoDatabase getDatabase(MongoClient client, String dbName) {
+        MongoDatabase db = client.getDatabase(dbName).withCodecRegistry(CODEC_REGISTRY);
+        return db;
+    }
+
+    private static CodecRegistry buildCodecRegistry() {
         CodecRegistry defaultCodecRegistry = MongoClient.getDefaultCodecRegistry();
         CodecProvider pojoCodecProvider = PojoCodecProvider.builder().automatic(true).build();
-        CodecRegistry pojoCodecRegistry = fromRegistries(defaultCodecRegistry, fromProviders(pojoCodecProvider));
-        MongoDatabase db = client.getDatabase(dbName).withCodecRegistry(pojoCodecRegistry);
-        return db;
+        CodecRegistry entityCodecRegistry = fromCodecs(new MongoEntityCodec(defaultCodecRegistry));
+        return fromRegistries(entityCodecRegistry, defaultCodecRegistry, fromProviders(pojoCodecProvider));
     }
 
     private static void validateParameters(MongoClient client, String dbName, String collectionName){
@@ -14,22 +14,41 @@
 
 package org.opengroup.osdu.wd.core.dataaccess.impl;
 
-import com.mongodb.MongoClient;
 import com.mongodb.client.MongoCollection;
 import org.bson.Document;
 import org.opengroup.osdu.wd.core.auth.RequestInfo;
-import org.opengroup.osdu.wd.core.dataaccess.interfaces.IMongodbConnection;
+import org.opengroup.osdu.wd.core.models.ENTITY_TYPE;
+import org.opengroup.osdu.wd.core.models.IndexStatus;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collection handles of the data partition of the current request, opened once per partition and collection.
+ * The collection names of a partition are listed when its client is opened, and again only on a miss,
+ * so requests on known collections make no metadata round trips.
+ **/
 @Component
 public class MongodbInit {
 
+    private static final String GRAPH_COLLECTION = "entityRelationshipGraph";
+
+    static final List<String> KNOWN_ENTITY_TYPES = Arrays.asList(
+            ENTITY_TYPE.WELL, ENTITY_TYPE.WP_WELL, ENTITY_TYPE.WELLBORE, ENTITY_TYPE.WP_WELLBORE,
+            ENTITY_TYPE.WELL_ACTIVITY_PROGRAM, ENTITY_TYPE.ACTIVITY_PLAN, ENTITY_TYPE.WELLBORE_ARCHITECTURE,
+            ENTITY_TYPE.WELLBORE_TRAJECTORY, ENTITY_TYPE.HOLE_SECTION, ENTITY_TYPE.BHA_RUN,
+            ENTITY_TYPE.DRILL_REPORT, ENTITY_TYPE.FLUIDS_REPORT);
+
     @Autowired
-    IMongodbConnection mongodbConnection;
+    MongoClientRegistry clientRegistry;
     @Autowired
     private RequestInfo requestInfo;
+    @Autowired
+    MongoIndexManager indexManager;
 
     @Value("${mongodb.database}")
     private String mongoDBName;
@@ -37,43 +56,115 @@ public class MongodbInit {
     @Value("${mongodb.api.cosmosdb}")
     private String cosmosdbAPI;
 
-    private MongoClient mongoClient;
-    private MongoCollection<Document> entityCollection;
+    @Value("${mongodb.bootstrap.create-collections:true}")
+    private boolean createKnownCollections = true;
+
+    @Value("${mongodb.collections.refresh-interval-ms:30000}")
+    private long collectionNamesRefreshIntervalMs = 30000L;
 
     public MongoCollection<Document> getEntityCollection(String entityType) {
-        if (mongoClient == null)
-            mongoClient = getMongoClient();
-        String collectionName = entityType + "Container";
-        if (entityCollection == null || !collectionName.equalsIgnoreCase(entityCollection.getNamespace().getCollectionName())) {
-            entityCollection = MongodbFacade.getCollection(mongoClient, this.mongoDBName, collectionName);
-        }
-        return entityCollection;
+        String collectionName = entityType + MongodbFacade.ENTITY_COLLECTION_SUFFIX;
+        MongoClientRegistry.PartitionClient partitionClient = getPartitionClient();
+        return partitionClient.getCollection(collectionName, client -> {
+            MongoCollection<Document> collection;
+            if (partitionClient.isKnownCollection(collectionName)) {
+                collection = MongodbFacade.openCollection(client, this.mongoDBName, collectionName);
+            } else {
+                collection = MongodbFacade.getCollection(client, this.mongoDBName, collectionName);
+                partitionClient.addCollectionName(collectionName);
+            }
+            indexManager.ensureIndexes(collection, isCosmosAPI());
+            return collection;
+        });
     }
 
     public MongoCollection<Document> getEntityCollectionOrNull(String entityType) {
-        if (mongoClient == null)
-            mongoClient = getMongoClient();
-        String collectionName = entityType + "Container";
-        if (entityCollection == null || !collectionName.equalsIgnoreCase(entityCollection.getNamespace().getCollectionName())) {
-            entityCollection = MongodbFacade.getCollectionOrNull(mongoClient, this.mongoDBName, collectionName);
-        }
-        return entityCollection;
+        String collectionName = entityType + MongodbFacade.ENTITY_COLLECTION_SUFFIX;
+        MongoClientRegistry.PartitionClient partitionClient = getPartitionClient();
+        return partitionClient.getCollection(collectionName, client -> {
+            if (!partitionClient.isKnownCollection(collectionName)
+                    && !(partitionClient.refreshCollectionNames(() -> MongodbFacade.listCollectionNames(client, this.mongoDBName), collectionNamesRefreshIntervalMs)
+                    && partitionClient.isKnownCollection(collectionName)))
+                return null;
+            MongoCollection<Document> collection = MongodbFacade.openCollection(client, this.mongoDBName, collectionName);
+            indexManager.ensureIndexes(collection, isCosmosAPI());
+            return collection;
+        });
     }
 
     public MongoCollection<Document> createOrGetEntityCollection(String entityType) {
-        if (mongoClient == null)
-            mongoClient = getMongoClient();
-        String collectionName = entityType + "Container";
-        if (entityCollection == null || !collectionName.equalsIgnoreCase(entityCollection.getNamespace().getCollectionName())){
-            Boolean isCosmosAPI =  "true".equalsIgnoreCase(this.cosmosdbAPI);
-            entityCollection = MongodbFacade.createOrGetCollection(mongoClient, this.mongoDBName, collectionName, isCosmosAPI);
+        String collectionName = entityType + MongodbFacade.ENTITY_COLLECTION_SUFFIX;
+        MongoClientRegistry.PartitionClient partitionClient = getPartitionClient();
+        return partitionClient.getCollection(collectionName, client -> {
+            MongoCollection<Document> collection;
+            if (partitionClient.isKnownCollection(collectionName)) {
+                collection = MongodbFacade.openCollection(client, this.mongoDBName, collectionName);
+            } else {
+                collection = MongodbFacade.createOrGetCollection(client, this.mongoDBName, collectionName, isCosmosAPI());
+                partitionClient.addCollectionName(collectionName);
+            }
+            indexManager.ensureIndexes(collection, isCosmosAPI());
+            return collection;
+        });
+    }
+
+    public MongoCollection<Document> getHeadCollection(String entityType) {
+        String collectionName = entityType + MongodbFacade.HEAD_COLLECTION_SUFFIX;
+        return getPartitionClient().getCollection(collectionName,
+                client -> MongodbFacade.getHeadCollection(client, this.mongoDBName, collectionName));
+    }
+
+    public MongoCollection<Document> createOrGetGraphCollection() {
+        MongoClientRegistry.PartitionClient partitionClient = getPartitionClient();
+        return partitionClient.getCollection(GRAPH_COLLECTION, client -> {
+            if (partitionClient.isKnownCollection(GRAPH_COLLECTION))
+                return MongodbFacade.openCollection(client, this.mongoDBName, GRAPH_COLLECTION);
+            MongoCollection<Document> collection = MongodbFacade.createOrGetGraphCollection(client, this.mongoDBName, GRAPH_COLLECTION);
+            partitionClient.addCollectionName(GRAPH_COLLECTION);
+            return collection;
+        });
+    }
+
+    /**
+     * Index drift of all entity collections, with createMissing the missing indexes are created first
+     **/
+    public List<IndexStatus> checkIndexes(boolean createMissing) {
+        List<IndexStatus> res = new ArrayList<>();
+        for (MongoCollection<Document> collection : MongodbFacade.getEntityCollections(getPartitionClient().getClient(), this.mongoDBName)) {
+            res.addAll(createMissing
+                    ? indexManager.createMissingIndexes(collection, isCosmosAPI())
+                    : indexManager.checkIndexes(collection, isCosmosAPI()));
         }
-        return entityCollection;
+        return res;
     }
 
-    private MongoClient getMongoClient() {
-        String partitionId = requestInfo.getDpsHeaders().getPartitionId();
-        String connectionString = mongodbConnection.get(partitionId);
-        return MongodbFacade.createClient(connectionString);
+    private boolean isCosmosAPI() {
+        return "true".equalsIgnoreCase(this.cosmosdbAPI);
+    }
+
+    private MongoClientRegistry.PartitionClient getPartitionClient() {
+        MongoClientRegistry.PartitionClient partitionClient = clientRegistry.get(requestInfo.getDpsHeaders().getPartitionId());
+        partitionClient.bootstrap(this::bootstrap);
+        return partitionClient;
+    }
+
+    /**
+     * Lists the existing collections of a newly opened client and, unless disabled, creates the entity collections of the known types
+     **/
+    private void bootstrap(MongoClientRegistry.PartitionClient partitionClient) {
+        partitionClient.refreshCollectionNames(() -> MongodbFacade.listCollectionNames(partitionClient.getClient(), this.mongoDBName), 0L);
+        if (!createKnownCollections)
+            return;
+        for (String entityType : KNOWN_ENTITY_TYPES) {
+            String collectionName = entityType.toLowerCase() + MongodbFacade.ENTITY_COLLECTION_SUFFIX;
+            partitionClient.getCollection(collectionName, client -> {
+                MongoCollection<Document> collection = partitionClient.isKnownCollection(collectionName)
+                        ? MongodbFacade.openCollection(client, this.mongoDBName, collectionName)
+                        : MongodbFacade.createOrGetCollection(client, this.mongoDBName, collectionName, isCosmosAPI());
+                partitionClient.addCollectionName(collectionName);
+                indexManager.ensureIndexes(collection, isCosmosAPI());
+                return collection;
+            });
+        }
     }
 }
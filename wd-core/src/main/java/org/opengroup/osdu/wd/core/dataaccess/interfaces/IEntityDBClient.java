@@ -14,6 +14,8 @@
 
 package org.opengroup.osdu.wd.core.dataaccess.interfaces;
 
+import org.opengroup.osdu.wd.core.models.EntityBatchItem;
+import org.opengroup.osdu.wd.core.models.EntityBatchResult;
 import org.opengroup.osdu.wd.core.models.EntityDtoReturn;
 import org.opengroup.osdu.wd.core.models.EntityDto;
 import org.opengroup.osdu.wd.core.models.Relationship;
@@ -23,6 +25,11 @@ import java.util.List;
 public interface IEntityDBClient {
     EntityDtoReturn saveEntity(EntityDto dto, List<Relationship> relationships);
 
+    /**
+     * Saves the items in bulk and returns the outcome of each of them, in the order of the items
+     **/
+    List<EntityBatchResult> saveEntities(List<EntityBatchItem> items);
+
     EntityDtoReturn getLatestEntityVersion(String entityType, String entityId);
 
     EntityDtoReturn  getSpecificEntityVersion(String entityType, String entityId, long version);
@@ -36,4 +43,14 @@ public interface IEntityDBClient {
     long deleteEntityVersion(String entityType, String entityId, long version);
 
     long purgeEntityVersion(String entityType, String entityId, long version);
+
+    long backfillRelationshipKeys(String entityType);
+
+    /**
+     * Writes the relationship graph nodes of the entities of the given type saved before the graph was maintained,
+     * only the Mongo graph traversal keeps such a graph
+     **/
+    default long backfillGraphNodes(String entityType) {
+        return 0;
+    }
 }
\ No newline at end of file
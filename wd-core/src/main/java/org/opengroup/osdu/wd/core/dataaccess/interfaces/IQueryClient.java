@@ -16,22 +16,28 @@ package org.opengroup.osdu.wd.core.dataaccess.interfaces;
 
 
 import org.opengroup.osdu.wd.core.models.EntityDtoReturn;
+import org.opengroup.osdu.wd.core.models.EntityDtoReturnList;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
+/**
+ * The list queries take the group emails of the caller as aclGroups. Unless it is null they return only the entities
+ * with one of the groups as viewer or owner, filtered by the database, and count the matching entities left out.
+ **/
 public interface IQueryClient {
 
     //BHARun
-    List<EntityDtoReturn> getBHARunsBySection(String existenceKind, String sectionId);
-    List<EntityDtoReturn> getBHARunsByWells(String existenceKind, List<String> wellIds);
-    List<EntityDtoReturn> getBHARunsByWellbore(String existenceKind, String wellboreId);
+    EntityDtoReturnList getBHARunsBySection(String existenceKind, String sectionId, Set<String> aclGroups);
+    EntityDtoReturnList getBHARunsByWells(String existenceKind, List<String> wellIds, Set<String> aclGroups);
+    EntityDtoReturnList getBHARunsByWellbore(String existenceKind, String wellboreId, Set<String> aclGroups);
 
     //HoleSection
-    List<EntityDtoReturn> getHoleSectionsByWellbore(String existenceKind, String wellboreId);
+    EntityDtoReturnList getHoleSectionsByWellbore(String existenceKind, String wellboreId, Set<String> aclGroups);
 
     //WellboreTrajectory
-    List<EntityDtoReturn> getWellboreTrajectoriesByWells(String existenceKind, List<String> wellIds);
+    EntityDtoReturnList getWellboreTrajectoriesByWells(String existenceKind, List<String> wellIds, Set<String> aclGroups);
 
     //ActivityPlan
     EntityDtoReturn getLatestActivityPlanByWell(String existenceKind, String wellId);
@@ -55,11 +61,11 @@ public interface IQueryClient {
     EntityDtoReturn getSpecificWellVersion(String existenceKind, String name, long version);
 
     //DrillingReport
-    List<EntityDtoReturn> getDrillingReportsByWellbore(String existenceKind, String wellboreId);
+    EntityDtoReturnList getDrillingReportsByWellbore(String existenceKind, String wellboreId, Set<String> aclGroups);
     EntityDtoReturn getLatestDrillingReportByWellbore(String existenceKind, String wellboreId);
-    List<EntityDtoReturn> getDrillingReportsByTimeRange(String existenceKind, String startTimeString, String endTimeString);
+    EntityDtoReturnList getDrillingReportsByTimeRange(String existenceKind, String startTimeString, String endTimeString, Set<String> aclGroups);
     Object getLatestDrillingReportRefTree(String existenceKind, String drillingReportId);
 
     //FluidsReport
-    List<EntityDtoReturn> getFluidsReportsByWellbore(String existenceKind, String wellboreId);
+    EntityDtoReturnList getFluidsReportsByWellbore(String existenceKind, String wellboreId, Set<String> aclGroups);
 }
@@ -0,0 +1,39 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.opengroup.osdu.wd.core.dataaccess.interfaces;
+
+import org.opengroup.osdu.wd.core.models.EntityDto;
+import org.opengroup.osdu.wd.core.models.Relationship;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provider side of the reference tree traversal, see TreeTraversalEngine
+ **/
+public interface ITreeNodeSource<T> {
+
+    /**
+     * entityId, entityType and version of the stored entity, other fields may be left empty
+     **/
+    EntityDto getHeader(T entity);
+
+    List<Relationship> getRelationships(T entity);
+
+    /**
+     * Fetch the referenced entities of one type in one round trip.
+     * ids are relationship ids ("entityId:version"), the result is keyed by the requested id and leaves out the ids not found
+     **/
+    Map<String, T> findByIds(String entityType, List<String> ids);
+}
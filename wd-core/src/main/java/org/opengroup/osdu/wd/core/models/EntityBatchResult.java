@@ -0,0 +1,49 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.wd.core.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.apache.http.HttpStatus;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EntityBatchResult {
+    private int index;
+    private String id;
+    private long version;
+    private int status;
+    private boolean valid;
+    private List<String> errors;
+    private String message;
+
+    /**
+     * Outcome of a saved item of a bulk write
+     **/
+    public static EntityBatchResult created(int index, EntityDto dto) {
+        return new EntityBatchResult(index, dto.getId(), dto.getVersion(), HttpStatus.SC_CREATED, dto.isValid(), null, null);
+    }
+
+    /**
+     * Outcome of an item the db did not save
+     **/
+    public static EntityBatchResult failed(int index, EntityDto dto, int status, String message) {
+        return new EntityBatchResult(index, dto.getId(), dto.getVersion(), status, false, null, message);
+    }
+}
@@ -0,0 +1,56 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.wd.core.models;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.LongSupplier;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entities of a list query, and the number of matching entities left out because the caller is not in their ACL
+ **/
+@Data
+@NoArgsConstructor
+public class EntityDtoReturnList {
+
+    private List<EntityDtoReturn> entities;
+    private long aclFilteredCount;
+    private boolean aclFiltered;
+
+    public EntityDtoReturnList(List<EntityDtoReturn> entities) {
+        this.entities = entities;
+    }
+
+    public EntityDtoReturnList(List<EntityDtoReturn> entities, long aclFilteredCount) {
+        this.entities = entities;
+        this.aclFilteredCount = aclFilteredCount;
+        this.aclFiltered = true;
+    }
+
+    /**
+     * Entities read with the acl groups of the caller, the filtered count is only queried when the ACL filter is on (aclGroups not null)
+     **/
+    public static EntityDtoReturnList ofAclGroups(List<EntityDtoReturn> entities, Collection<String> aclGroups, LongSupplier aclFilteredCount) {
+        if (aclGroups == null)
+            return new EntityDtoReturnList(entities);
+        return new EntityDtoReturnList(entities, aclFilteredCount.getAsLong());
+    }
+
+    public boolean noneMatched() {
+        return entities.isEmpty() && aclFilteredCount == 0;
+    }
+}
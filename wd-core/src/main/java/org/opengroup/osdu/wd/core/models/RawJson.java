@@ -0,0 +1,55 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.wd.core.models;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+
+/**
+ * JSON text read from the database which is written to the response as-is, without being parsed.
+ **/
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonSerialize(using = RawJson.Serializer.class)
+public class RawJson {
+    private String json;
+
+    public static class Serializer extends StdSerializer<RawJson> {
+        public Serializer() {
+            super(RawJson.class);
+        }
+
+        private static final ObjectMapper mapper = new ObjectMapper();
+
+        @Override
+        public void serialize(RawJson value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            //Raw text can only be copied into JSON output, binary formats need the parsed value
+            if (gen instanceof JsonGeneratorImpl)
+                gen.writeRawValue(value.getJson());
+            else
+                gen.writeTree(mapper.readTree(value.getJson()));
+        }
+    }
+}
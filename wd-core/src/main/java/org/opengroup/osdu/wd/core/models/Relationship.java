@@ -25,5 +25,47 @@ public class Relationship {
 
     private String id;                     //entityid_version
     private String entityType;
+    private String entityId;               //versionless part of id
+    private Long version;                  //null when id carries no version
     //private String relationshipType;
+
+    public Relationship(String id, String entityType) {
+        this(id, entityType, parseEntityId(id), parseVersion(id));
+    }
+
+    /**
+     * Fill in entityId and version from id, for relationships stored before they were kept separately
+     **/
+    public boolean normalize() {
+        if (this.entityId != null || this.id == null)
+            return false;
+        this.entityId = parseEntityId(this.id);
+        this.version = parseVersion(this.id);
+        return true;
+    }
+
+    public static String parseEntityId(String id) {
+        if (id == null)
+            return null;
+        int pos = versionSeparator(id);
+        return pos < 0 ? id : id.substring(0, pos);
+    }
+
+    public static Long parseVersion(String id) {
+        if (id == null)
+            return null;
+        int pos = versionSeparator(id);
+        return pos < 0 ? null : Long.valueOf(id.substring(pos + 1));
+    }
+
+    private static int versionSeparator(String id) {
+        int pos = id.lastIndexOf(':');
+        if (pos < 1 || pos == id.length() - 1)
+            return -1;
+        for (int i = pos + 1; i < id.length(); i++) {
+            if (!Character.isDigit(id.charAt(i)))
+                return -1;
+        }
+        return id.length() - pos - 1 > 18 ? -1 : pos;
+    }
 }
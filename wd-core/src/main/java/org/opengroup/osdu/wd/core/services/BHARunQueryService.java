@@ -18,7 +18,7 @@ import org.opengroup.osdu.core.client.model.http.AppException;
 import org.opengroup.osdu.wd.core.dataaccess.interfaces.IQueryClient;
 
 import org.apache.http.HttpStatus;
-import org.opengroup.osdu.wd.core.models.EntityDtoReturn;
+import org.opengroup.osdu.wd.core.models.EntityDtoReturnList;
 import org.opengroup.osdu.wd.core.models.HttpErrorStrings;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -32,25 +32,25 @@ public class BHARunQueryService {
     @Autowired
     private EntityValidateService validate;
 
-    public List<EntityDtoReturn> getBHARunsBySection(String existenceKind, String segmentId) {
-        List<EntityDtoReturn> res = queryClient.getBHARunsBySection(existenceKind, segmentId);
-        if (res.isEmpty())
+    public EntityDtoReturnList getBHARunsBySection(String existenceKind, String segmentId) {
+        EntityDtoReturnList res = queryClient.getBHARunsBySection(existenceKind, segmentId, validate.getAclFilterGroups());
+        if (res.noneMatched())
             throw new AppException(HttpStatus.SC_NOT_FOUND, HttpErrorStrings.NOT_FOUND, "Not found " + existenceKind + " BHA runs with wellbore segment id :" + segmentId);
         validate.ValidateEntityReturnList(res);
         return res;
     }
 
-    public List<EntityDtoReturn> getBHARunsByWells(String existenceKind, List<String> wellIds) {
-        List<EntityDtoReturn> res = queryClient.getBHARunsByWells(existenceKind, wellIds);
-        if (res.isEmpty())
+    public EntityDtoReturnList getBHARunsByWells(String existenceKind, List<String> wellIds) {
+        EntityDtoReturnList res = queryClient.getBHARunsByWells(existenceKind, wellIds, validate.getAclFilterGroups());
+        if (res.noneMatched())
             throw new AppException(HttpStatus.SC_NOT_FOUND, HttpErrorStrings.NOT_FOUND, "Not found " + existenceKind + " BHA runs with well ids: " + String.join(",", wellIds));
         validate.ValidateEntityReturnList(res);
         return res;
     }
 
-    public List<EntityDtoReturn> getBHARunsByWellbore(String existenceKind, String wellboreId) {
-        List<EntityDtoReturn> res = queryClient.getBHARunsByWellbore(existenceKind, wellboreId);
-        if (res.isEmpty())
+    public EntityDtoReturnList getBHARunsByWellbore(String existenceKind, String wellboreId) {
+        EntityDtoReturnList res = queryClient.getBHARunsByWellbore(existenceKind, wellboreId, validate.getAclFilterGroups());
+        if (res.noneMatched())
             throw new AppException(HttpStatus.SC_NOT_FOUND, HttpErrorStrings.NOT_FOUND, "Not found " + existenceKind + " BHA runs with wellbore id: " + wellboreId);
         validate.ValidateEntityReturnList(res);
         return res;
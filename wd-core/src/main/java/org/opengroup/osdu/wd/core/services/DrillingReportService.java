@@ -18,12 +18,11 @@ import org.apache.http.HttpStatus;
 import org.opengroup.osdu.core.client.model.http.AppException;
 import org.opengroup.osdu.wd.core.dataaccess.interfaces.IQueryClient;
 import org.opengroup.osdu.wd.core.models.EntityDtoReturn;
+import org.opengroup.osdu.wd.core.models.EntityDtoReturnList;
 import org.opengroup.osdu.wd.core.models.HttpErrorStrings;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-
 @Service
 public class DrillingReportService {
     @Autowired
@@ -31,9 +30,9 @@ public class DrillingReportService {
     @Autowired
     private EntityValidateService validate;
 
-    public List<EntityDtoReturn> getDrillingReportsByWellbore(String existenceKind, String wellboreId) {
-        List<EntityDtoReturn> res = queryClient.getDrillingReportsByWellbore(existenceKind, wellboreId);
-        if (res.isEmpty())
+    public EntityDtoReturnList getDrillingReportsByWellbore(String existenceKind, String wellboreId) {
+        EntityDtoReturnList res = queryClient.getDrillingReportsByWellbore(existenceKind, wellboreId, validate.getAclFilterGroups());
+        if (res.noneMatched())
             throw new AppException(HttpStatus.SC_NOT_FOUND, HttpErrorStrings.NOT_FOUND, "Not found related drill reports with wellbore id :" + wellboreId);
         validate.ValidateEntityReturnList(res);
         return res;
@@ -47,9 +46,9 @@ public class DrillingReportService {
         return dto;
     }
 
-    public List<EntityDtoReturn> getDrillingReportsByTimeRange(String existenceKind, String startTimeString, String endTimeString) {
-        List<EntityDtoReturn> res = queryClient.getDrillingReportsByTimeRange(existenceKind, startTimeString, endTimeString);
-        if (res.isEmpty())
+    public EntityDtoReturnList getDrillingReportsByTimeRange(String existenceKind, String startTimeString, String endTimeString) {
+        EntityDtoReturnList res = queryClient.getDrillingReportsByTimeRange(existenceKind, startTimeString, endTimeString, validate.getAclFilterGroups());
+        if (res.noneMatched())
             throw new AppException(HttpStatus.SC_NOT_FOUND, HttpErrorStrings.NOT_FOUND, "Not found drill reports with between " + startTimeString + " and " + endTimeString);
         validate.ValidateEntityReturnList(res);
         return res;
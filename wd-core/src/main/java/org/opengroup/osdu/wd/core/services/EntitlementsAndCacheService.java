@@ -27,6 +27,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -69,14 +70,14 @@ public class EntitlementsAndCacheService {
     public Groups getGroups() {
         DpsHeaders headers = requestInfo.getDpsHeaders();
         String cacheKey = this.getGroupCacheKey(headers);
-        Groups groups = (Groups) this.groupCache.get(cacheKey);
-        if (groups != null) {
-            return groups;
-        }
-        groups = entitlementsClient.getGroups(headers);
-        this.groupCache.save(cacheKey, groups);
-        this.logger.info("Entitlements cache miss");
-        return groups;
+        // the refresh runs after the request, on a copy of its headers
+        Map<String, String> requestHeaders = requestInfo.getHeaders();
+        return (Groups) this.groupCache.getOrLoad(cacheKey,
+                () -> {
+                    this.logger.info("Entitlements cache miss");
+                    return entitlementsClient.getGroups(headers);
+                },
+                () -> entitlementsClient.getGroups(DpsHeaders.createFromMap(requestHeaders)));
     }
 
     protected static String getGroupCacheKey(DpsHeaders headers) {
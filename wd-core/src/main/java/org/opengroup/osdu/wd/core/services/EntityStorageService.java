@@ -38,8 +38,13 @@ import javax.validation.ValidationException;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 
 @Service
@@ -62,6 +67,9 @@ public class EntityStorageService {
     @Value("${app.entity.storage}")
     private String saveStorage;
 
+    @Value("${app.entity.batch.size:500}")
+    private int maxBatchSize;
+
     private final String fullIdRegex = "^[\\w\\-\\.]+:[0-9a-zA-Z\\-]+\\-\\-[\\w\\-]*:[\\w\\-\\.\\:\\%]+$";
     private final String entityTypeRegex = "^[0-9a-zA-Z\\-]*$";
     private final String fullRefIdRegex = "^[\\w\\-\\.]+:[0-9a-zA-Z\\-]+\\-\\-[\\w\\-]*:[\\w\\-\\.\\:\\%]+:[0-9]+$";
@@ -70,8 +78,158 @@ public class EntityStorageService {
     private final long invalid_version = 20000;
 
     public EntityDtoReturn createOrUpdateEntities(String type, Object entity) {
-        EntityDto dto = new EntityDto();
         JsonNode node = helper.toJsonNode(entity);
+        EntityDto dto = readEntityHeader(type, node);
+
+        //Verify Legal and ACL fields
+        validate.ValidateEntity(node, dto);
+
+        //Verify SchemaID field and load the compiled schema
+        JsonSchema schema = schemaService.getCompiledSchema(dto.getKind());
+        if (schema == null)
+            throw new ValidationException(String.format("The schema is not existed for Kind %s.", dto.getKind()));
+
+        //Verify entity against schema
+        List<String> errors = helper.validateJson(node, schema);
+        dto.setValid(errors == null || errors.size() == 0);
+
+        List<Relationship> relationships = readEntityData(entity, node, dto);
+
+        //Save entity to storage service
+        saveToStorage(dto);
+
+        //Save entity to db
+        this.entityDBClient.saveEntity(dto, relationships);
+
+        //Return EntityDtoReturn object
+        return new EntityDtoReturn(dto, errors);
+    }
+
+    public List<EntityBatchResult> createOrUpdateEntitiesBatch(String type, List<Object> entities) {
+        if (!type.matches(entityTypeRegex))
+            throw new ValidationException("Invalid entity type: " + type);
+        if (entities.isEmpty())
+            throw new ValidationException("Entity batch is empty.");
+        if (entities.size() > maxBatchSize)
+            throw new ValidationException(String.format("Entity batch size %d exceeds the limit of %d.", entities.size(), maxBatchSize));
+
+        int size = entities.size();
+        EntityBatchResult[] results = new EntityBatchResult[size];
+        JsonNode[] nodes = new JsonNode[size];
+        EntityDto[] dtos = new EntityDto[size];
+
+        //Verify ID, Kind, version, Legal and ACL fields of each entity without calling core services
+        for (int i = 0; i < size; i++) {
+            try {
+                nodes[i] = helper.toJsonNode(entities.get(i));
+                dtos[i] = readEntityHeader(type, nodes[i]);
+                validate.ReadLegalAndAcl(nodes[i], dtos[i]);
+            } catch (ValidationException | AppException ex) {
+                results[i] = toFailedResult(i, dtos[i], ex);
+                dtos[i] = null;
+            }
+        }
+
+        //Verify Legal and ACL values of the whole batch at once, fall back to each entity to locate the failure
+        List<EntityDto> pending = new ArrayList<>();
+        for (EntityDto dto : dtos) {
+            if (dto != null)
+                pending.add(dto);
+        }
+        try {
+            validate.ValidateLegalAndAcl(pending);
+        } catch (ValidationException | AppException ex) {
+            for (int i = 0; i < size; i++) {
+                if (dtos[i] == null)
+                    continue;
+                try {
+                    validate.ValidateLegalAndAcl(Collections.singletonList(dtos[i]));
+                } catch (ValidationException | AppException itemEx) {
+                    results[i] = toFailedResult(i, dtos[i], itemEx);
+                    dtos[i] = null;
+                }
+            }
+        }
+
+        //Verify entities against schemas
+        EntityBatchItem[] batchItems = new EntityBatchItem[size];
+        Map<Integer, List<String>> schemaErrors = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            EntityDto dto = dtos[i];
+            if (dto == null)
+                continue;
+            try {
+                JsonSchema schema = schemaService.getCompiledSchema(dto.getKind());
+                if (schema == null)
+                    throw new ValidationException(String.format("The schema is not existed for Kind %s.", dto.getKind()));
+                List<String> errors = helper.validateJson(nodes[i], schema);
+                dto.setValid(errors == null || errors.size() == 0);
+
+                List<Relationship> relationships = readEntityData(entities.get(i), nodes[i], dto);
+                batchItems[i] = new EntityBatchItem(dto, relationships);
+                schemaErrors.put(i, errors);
+            } catch (ValidationException | AppException ex) {
+                results[i] = toFailedResult(i, dto, ex);
+            }
+        }
+
+        //Save entities to storage service, an entity rejected by Storage is not saved to db
+        List<EntityBatchItem> items = new ArrayList<>();
+        List<Integer> itemIndexes = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (batchItems[i] == null)
+                continue;
+            try {
+                saveToStorage(batchItems[i].getDto());
+                items.add(batchItems[i]);
+                itemIndexes.add(i);
+            } catch (AppException ex) {
+                results[i] = toFailedResult(i, batchItems[i].getDto(), ex);
+            } catch (RuntimeException ex) {
+                results[i] = toFailedResult(i, batchItems[i].getDto(), HttpStatus.SC_INTERNAL_SERVER_ERROR, ex.getMessage());
+            }
+        }
+
+        //Save entities to db in bulk, an entity is only reported as created once it is in the db
+        List<EntityBatchResult> saved = saveToDb(items);
+        for (int k = 0; k < items.size(); k++) {
+            int i = itemIndexes.get(k);
+            EntityDto dto = items.get(k).getDto();
+            EntityBatchResult res = saved.get(k);
+            if (res.getStatus() == HttpStatus.SC_CREATED)
+                results[i] = new EntityBatchResult(i, dto.getId(), dto.getVersion(), HttpStatus.SC_CREATED, dto.isValid(), schemaErrors.get(i), null);
+            else
+                results[i] = toFailedResult(i, dto, res.getStatus(), res.getMessage());
+        }
+
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Outcome of each item, in order. A failure of the whole bulk write fails every item,
+     * the items already saved to Storage are overwritten when the caller retries them.
+     **/
+    private List<EntityBatchResult> saveToDb(List<EntityBatchItem> items) {
+        if (items.isEmpty())
+            return Collections.emptyList();
+        try {
+            return this.entityDBClient.saveEntities(items);
+        } catch (RuntimeException ex) {
+            int status = HttpStatus.SC_INTERNAL_SERVER_ERROR;
+            String message = ex.getMessage();
+            if (ex instanceof AppException) {
+                status = ((AppException) ex).getError().getCode();
+                message = ((AppException) ex).getError().getMessage();
+            }
+            List<EntityBatchResult> res = new ArrayList<>(items.size());
+            for (int k = 0; k < items.size(); k++)
+                res.add(EntityBatchResult.failed(k, items.get(k).getDto(), status, message));
+            return res;
+        }
+    }
+
+    private EntityDto readEntityHeader(String type, JsonNode node) {
+        EntityDto dto = new EntityDto();
 
         //Verify ID field
         if (checkIfStringPropertyEmpty(node, ENTITY_PROPERTY.ID))
@@ -99,20 +257,10 @@ public class EntityStorageService {
                 version = node.get(ENTITY_PROPERTY.VERSION).longValue();
         }
         dto.setVersion(version);
+        return dto;
+    }
 
-        //Verify Legal and ACL fields
-        validate.ValidateEntity(node, dto);
-
-        //Verify SchemaID field and load schemaObj
-        Object schemaObj = schemaService.getSchema(dto.getKind());
-        if (schemaObj == null)
-            throw new ValidationException(String.format("The schema is not existed for Kind %s.", dto.getKind()));
-
-        //Verify entity against schemaObj
-        JsonSchema schema = helper.toJsonSchema(schemaObj);
-        List<String> errors = helper.validateJson(node, schema);
-        dto.setValid(errors == null || errors.size() == 0);
-
+    private List<Relationship> readEntityData(Object entity, JsonNode node, EntityDto dto) {
         //Verify if data is null
         JsonNode data = node.get(ENTITY_PROPERTY.DATA);
         if (data == null)
@@ -164,18 +312,30 @@ public class EntityStorageService {
             relationships.addAll(relationships1);
         }
         //updateRelationshipVersions(relationships, refIdRegex);
+        return relationships;
+    }
 
-        //Save entity to storage service
-        if (this.saveStorage.equalsIgnoreCase("true") && version > invalid_version) {
+    private void saveToStorage(EntityDto dto) {
+        if (this.saveStorage.equalsIgnoreCase("true") && dto.getVersion() > invalid_version) {
             Record rec = conversion.toRecord(dto);
             StorageClient.saveRecord(requestInfo.getDpsHeaders(), rec);
         }
+    }
 
-        //Save entity to db
-        this.entityDBClient.saveEntity(dto, relationships);
+    private EntityBatchResult toFailedResult(int index, EntityDto dto, RuntimeException ex) {
+        int status = HttpStatus.SC_BAD_REQUEST;
+        String message = ex.getMessage();
+        if (ex instanceof AppException) {
+            status = ((AppException) ex).getError().getCode();
+            message = ((AppException) ex).getError().getMessage();
+        }
+        return toFailedResult(index, dto, status, message);
+    }
 
-        //Return EntityDtoReturn object
-        return new EntityDtoReturn(dto, errors);
+    private EntityBatchResult toFailedResult(int index, EntityDto dto, int status, String message) {
+        String id = dto == null ? null : dto.getId();
+        long version = dto == null ? 0 : dto.getVersion();
+        return new EntityBatchResult(index, id, version, status, false, null, message);
     }
 
     private void updateRelationshipVersions(List<Relationship> relationships, String refIdRegex) {
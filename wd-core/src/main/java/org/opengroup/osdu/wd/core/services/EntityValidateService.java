@@ -23,13 +23,18 @@ import org.opengroup.osdu.core.client.model.http.AppException;
 import org.apache.http.HttpStatus;
 import org.opengroup.osdu.wd.core.models.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.validation.ValidationException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 @Service
 public class EntityValidateService {
@@ -41,7 +46,15 @@ public class EntityValidateService {
     @Autowired
     private EntitlementsAndCacheService entitlementsCache;
 
+    @Value("${app.entity.read.acl-filter:false}")
+    private boolean aclFilter;
+
     public void ValidateEntity(JsonNode node, EntityDto info) {
+        ReadLegalAndAcl(node, info);
+        ValidateLegalAndAcl(Collections.singletonList(info));
+    }
+
+    public void ReadLegalAndAcl(JsonNode node, EntityDto info) {
         if (node.at("/legal") == null || node.at("/legal").isEmpty())
             throw new ValidationException("Legal are empty");
         JsonNode legalTagsNode = node.at("/legal/legaltags");
@@ -59,29 +72,65 @@ public class EntityValidateService {
         if (!hasValues(viewersNode))
             throw new ValidationException("Viewer Acls are empty");
 
-        Set<String> legalTags = getValues(legalTagsNode);
-        Set<String> countries = getValues(countriesNode);
-        Set<String> viewerAcls = getValues(viewersNode);
-        Set<String> ownerAcls = getValues(ownersNode);
+        info.setLegal(new Legal());
+        info.getLegal().setLegaltags(getValues(legalTagsNode));
+        info.getLegal().setOtherRelevantDataCountries(getValues(countriesNode));
+        info.setAcl(new ACL());
+        info.getAcl().setOwners(getValues(ownersNode));
+        info.getAcl().setViewers(getValues(viewersNode));
+    }
+
+    /**
+     * Validate the legal tags, countries and ACLs of the entities against core services.
+     * The values of all entities are merged, so each distinct value is checked only once.
+     **/
+    public void ValidateLegalAndAcl(Collection<EntityDto> infos) {
+        if (infos.isEmpty())
+            return;
+        Set<String> legalTags = new HashSet<>();
+        Set<String> countries = new HashSet<>();
+        Set<String> viewerAcls = new HashSet<>();
+        Set<String> ownerAcls = new HashSet<>();
+        for (EntityDto info : infos) {
+            legalTags.addAll(info.getLegal().getLegaltags());
+            countries.addAll(info.getLegal().getOtherRelevantDataCountries());
+            viewerAcls.addAll(info.getAcl().getViewers());
+            ownerAcls.addAll(info.getAcl().getOwners());
+        }
 
         legelClientService.validateLegalTag(legalTags);
         legelClientService.validateCountryCode(countries);
         validateAcls(ownerAcls, viewerAcls);
+    }
 
-        info.setLegal(new Legal());
-        info.getLegal().setLegaltags(legalTags);
-        info.getLegal().setOtherRelevantDataCountries(countries);
-        info.setAcl(new ACL());
-        info.getAcl().setOwners(ownerAcls);
-        info.getAcl().setViewers(viewerAcls);
+    /**
+     * Group emails of the caller for the list queries to filter by, or null when list results are checked after they are read
+     **/
+    public Set<String> getAclFilterGroups() {
+        if (!aclFilter)
+            return null;
+        Groups groups = this.entitlementsCache.getGroups();
+        return groups.getGroups().stream().map(x -> x.getEmail()).collect(Collectors.toSet());
     }
 
-    public void ValidateEntityReturnList(List<EntityDtoReturn> list) {
+    /**
+     * With the ACL filter the database only returned entities the user can see, the others are counted in the list.
+     * Without it the whole list is rejected if the user can not see one of its entities.
+     **/
+    public void ValidateEntityReturnList(EntityDtoReturnList list) {
+        if (aclFilter) {
+            if (list.getAclFilteredCount() > 0)
+                this.logger.info("Left out " + list.getAclFilteredCount() + " entities the user does not have access to");
+            return;
+        }
+
         Groups groups = this.entitlementsCache.getGroups();
+        // entities of a list mostly share their ACL, each distinct ACL is checked once
+        Map<ACL, Boolean> checked = new HashMap<>();
         boolean hasAllAccess = true;
-        for (EntityDtoReturn dto : list) {
+        for (EntityDtoReturn dto : list.getEntities()) {
             ACL acl = dto.getAcl();
-            if (!hasAccess(acl, groups)) {
+            if (!checked.computeIfAbsent(acl, x -> hasAccess(x, groups))) {
                 this.logger.severe("The user does not have access to the entity " + dto.getId());
                 hasAllAccess = false;
             }
@@ -17,13 +17,11 @@ package org.opengroup.osdu.wd.core.services;
 import org.apache.http.HttpStatus;
 import org.opengroup.osdu.core.client.model.http.AppException;
 import org.opengroup.osdu.wd.core.dataaccess.interfaces.IQueryClient;
-import org.opengroup.osdu.wd.core.models.EntityDtoReturn;
+import org.opengroup.osdu.wd.core.models.EntityDtoReturnList;
 import org.opengroup.osdu.wd.core.models.HttpErrorStrings;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-
 @Service
 public class FluidsReportQueryService {
     @Autowired
@@ -31,9 +29,9 @@ public class FluidsReportQueryService {
     @Autowired
     private EntityValidateService validate;
 
-    public List<EntityDtoReturn> getFluidsReportsByWellbore(String existenceKind, String wellboreId) {
-        List<EntityDtoReturn> res = queryClient.getFluidsReportsByWellbore(existenceKind, wellboreId);
-        if (res.isEmpty())
+    public EntityDtoReturnList getFluidsReportsByWellbore(String existenceKind, String wellboreId) {
+        EntityDtoReturnList res = queryClient.getFluidsReportsByWellbore(existenceKind, wellboreId, validate.getAclFilterGroups());
+        if (res.noneMatched())
             throw new AppException(HttpStatus.SC_NOT_FOUND, HttpErrorStrings.NOT_FOUND, "Not found related fluids reports with wellbore id :" + wellboreId);
         validate.ValidateEntityReturnList(res);
         return res;
@@ -18,13 +18,11 @@ import org.opengroup.osdu.core.client.model.http.AppException;
 import org.opengroup.osdu.wd.core.dataaccess.interfaces.IQueryClient;
 
 import org.apache.http.HttpStatus;
-import org.opengroup.osdu.wd.core.models.EntityDtoReturn;
+import org.opengroup.osdu.wd.core.models.EntityDtoReturnList;
 import org.opengroup.osdu.wd.core.models.HttpErrorStrings;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-
 @Service
 public class HoleSectionQueryService {
     @Autowired
@@ -32,9 +30,9 @@ public class HoleSectionQueryService {
     @Autowired
     private EntityValidateService validate;
 
-    public List<EntityDtoReturn> getSectionsByWellbore(String existenceKind, String wellboreId) {
-        List<EntityDtoReturn> res = queryClient.getHoleSectionsByWellbore(existenceKind, wellboreId);
-        if (res.isEmpty())
+    public EntityDtoReturnList getSectionsByWellbore(String existenceKind, String wellboreId) {
+        EntityDtoReturnList res = queryClient.getHoleSectionsByWellbore(existenceKind, wellboreId, validate.getAclFilterGroups());
+        if (res.noneMatched())
             throw new AppException(HttpStatus.SC_NOT_FOUND, HttpErrorStrings.NOT_FOUND, "Not found wellbore segments with wellbore id :" + wellboreId);
         validate.ValidateEntityReturnList(res);
         return res;
@@ -38,40 +38,12 @@ public class LegelAndCacheService {
     private RequestInfo requestInfo;
 
     public void validateLegalTag(Set<String> legalTags) {
-        if(this.isLegalTagInCache(legalTags)){
-            return;
-        }
-        this.legalClient.validateLegalTags(requestInfo.getDpsHeaders(), legalTags);
-        for (String legalTag : legalTags) {
-            this.legalTagCache.save(legalTag);
-        }
-    }
-
-    private boolean isLegalTagInCache(Set<String> legalTags) {
-        for (String legalTag : legalTags) {
-            if (this.legalTagCache.get(legalTag) == null) {
-                return false;
-            }
-        }
-        return true;
+        this.legalTagCache.validate(legalTags,
+                () -> this.legalClient.validateLegalTags(requestInfo.getDpsHeaders(), legalTags));
     }
 
     public void validateCountryCode(Set<String>  countryCodes) {
-        if(this.isCountryCodeInCache(countryCodes)){
-            return;
-        }
-        this.legalClient.validateOtherRelevantDataCountries(requestInfo.getDpsHeaders(), countryCodes);
-        for (String countryCode : countryCodes) {
-            this.countryCodeCache.save(countryCode);
-        }
-    }
-
-    private boolean isCountryCodeInCache(Set<String> countryCodes) {
-        for (String countryCode : countryCodes) {
-            if (this.countryCodeCache.get(countryCode) == null) {
-                return false;
-            }
-        }
-        return true;
+        this.countryCodeCache.validate(countryCodes,
+                () -> this.legalClient.validateOtherRelevantDataCountries(requestInfo.getDpsHeaders(), countryCodes));
     }
 }
@@ -14,9 +14,12 @@
 
 package org.opengroup.osdu.wd.core.services;
 
+import com.networknt.schema.JsonSchema;
 import org.opengroup.osdu.core.client.schema.ISchemaClient;
 import org.opengroup.osdu.wd.core.auth.RequestInfo;
+import org.opengroup.osdu.wd.core.cache.CompiledSchemaCache;
 import org.opengroup.osdu.wd.core.cache.SchemaCache;
+import org.opengroup.osdu.wd.core.util.Helper;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -29,17 +32,24 @@ public class SchemaAndCacheService {
     @Autowired
     private SchemaCache schemaCache;
     @Autowired
+    private CompiledSchemaCache compiledSchemaCache;
+    @Autowired
     private RequestInfo requestInfo;
+    @Autowired
+    private Helper helper;
 
     public Object getSchema(String id) {
-        Object schema = schemaCache.get(id);
-        if (schema != null) {
-            return schema;
-        }
-
-        schema = schemaClient.getSchema(requestInfo.getDpsHeaders(), id);
+        return schemaCache.getOrLoad(id, () -> schemaClient.getSchema(requestInfo.getDpsHeaders(), id));
+    }
 
-        schemaCache.save(id, schema);
-        return schema;
+    /**
+     * Get the compiled schema of the kind, or null if the schema does not exist.
+     * The compiled schema is thread-safe and shared by all requests until it expires.
+     **/
+    public JsonSchema getCompiledSchema(String kind) {
+        return compiledSchemaCache.getOrLoad(kind, () -> {
+            Object schemaObj = getSchema(kind);
+            return schemaObj == null ? null : helper.toJsonSchema(schemaObj);
+        });
     }
 }
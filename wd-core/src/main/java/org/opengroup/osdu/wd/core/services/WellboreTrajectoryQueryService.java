@@ -18,7 +18,7 @@ import org.opengroup.osdu.core.client.model.http.AppException;
 import org.opengroup.osdu.wd.core.dataaccess.interfaces.IQueryClient;
 
 import org.apache.http.HttpStatus;
-import org.opengroup.osdu.wd.core.models.EntityDtoReturn;
+import org.opengroup.osdu.wd.core.models.EntityDtoReturnList;
 import org.opengroup.osdu.wd.core.models.HttpErrorStrings;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -32,9 +32,9 @@ public class WellboreTrajectoryQueryService {
     @Autowired
     private EntityValidateService validate;
 
-    public List<EntityDtoReturn> getTrajectoriesByWells(String existenceKind, List<String> wellIds) {
-        List<EntityDtoReturn> res = queryClient.getWellboreTrajectoriesByWells(existenceKind, wellIds);
-        if (res.isEmpty())
+    public EntityDtoReturnList getTrajectoriesByWells(String existenceKind, List<String> wellIds) {
+        EntityDtoReturnList res = queryClient.getWellboreTrajectoriesByWells(existenceKind, wellIds, validate.getAclFilterGroups());
+        if (res.noneMatched())
             throw new AppException(HttpStatus.SC_NOT_FOUND, HttpErrorStrings.NOT_FOUND, "Not found trajectories with well ids: " + String.join(",", wellIds));
         validate.ValidateEntityReturnList(res);
         return res;
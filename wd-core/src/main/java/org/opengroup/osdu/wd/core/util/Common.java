@@ -14,19 +14,193 @@
 
 package org.opengroup.osdu.wd.core.util;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.apache.commons.lang3.StringUtils;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+import org.opengroup.osdu.wd.core.models.EntityDtoReturnList;
+import org.opengroup.osdu.wd.core.models.RawJson;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 public class Common {
 
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+    public static final MediaType APPLICATION_MSGPACK = new MediaType("application", "x-msgpack");
+
+    public static final String ACL_FILTERED_COUNT_HEADER = "x-acl-filtered-count";
+
+    private static final Gson compactGson = new GsonBuilder().disableHtmlEscaping()
+            .registerTypeAdapter(RawJson.class, new RawJsonAdapter())
+            .create();
+
+    private static final Gson prettyGson = new GsonBuilder().disableHtmlEscaping().setPrettyPrinting()
+            .registerTypeAdapter(RawJson.class, new RawJsonAdapter())
+            .create();
+
+    private static final ObjectMapper jsonMapper = new ObjectMapper();
+
+    private static final Map<MediaType, ObjectMapper> binaryMappers = buildBinaryMappers();
+
+    private static final String PRETTY_PARAMETER = "pretty";
+
     public static String toPrettyString(Object obj) {
-        Gson gson = new GsonBuilder().disableHtmlEscaping().setPrettyPrinting().create();
-        String jsonString = gson.toJson(obj);
+        String jsonString = prettyGson.toJson(obj);
         return jsonString;
     }
 
+    /**
+     * Build a response which is written straight to the response stream.
+     * CBOR, Smile or MessagePack is returned when the Accept header prefers one of them, otherwise JSON.
+     * The JSON output is compact unless the request asks for pretty output with ?pretty=true or an Accept parameter pretty=true
+     **/
+    public static ResponseEntity<StreamingResponseBody> toResponse(Object obj, HttpStatus status) {
+        HttpServletRequest request = getCurrentRequest();
+        List<MediaType> acceptTypes = getAcceptTypes(request);
+
+        MediaType binaryType = getBinaryType(acceptTypes);
+        if (binaryType != null) {
+            ObjectMapper mapper = binaryMappers.get(binaryType);
+            StreamingResponseBody body = out -> mapper.writeValue(out, toJacksonValue(obj));
+            return ResponseEntity.status(status).contentType(binaryType).body(body);
+        }
+
+        Gson gson = isPrettyRequested(request, acceptTypes) ? prettyGson : compactGson;
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            gson.toJson(obj, writer);
+            writer.flush();
+        };
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Build the response of a list query. The body is the entity list,
+     * the number of entities left out because the user is not in their ACL is returned in the x-acl-filtered-count header
+     **/
+    public static ResponseEntity<StreamingResponseBody> toResponse(EntityDtoReturnList list, HttpStatus status) {
+        ResponseEntity<StreamingResponseBody> res = toResponse((Object) list.getEntities(), status);
+        if (!list.isAclFiltered())
+            return res;
+        return ResponseEntity.status(status)
+                .headers(res.getHeaders())
+                .header(ACL_FILTERED_COUNT_HEADER, String.valueOf(list.getAclFilteredCount()))
+                .body(res.getBody());
+    }
+
+    private static Map<MediaType, ObjectMapper> buildBinaryMappers() {
+        Map<MediaType, ObjectMapper> mappers = new LinkedHashMap<>();
+        mappers.put(MediaType.APPLICATION_CBOR, buildBinaryMapper(new CBORFactory()));
+        mappers.put(APPLICATION_SMILE, buildBinaryMapper(new SmileFactory()));
+        mappers.put(APPLICATION_MSGPACK, buildBinaryMapper(new MessagePackFactory()));
+        return mappers;
+    }
+
+    private static ObjectMapper buildBinaryMapper(JsonFactory factory) {
+        //The stream is owned by the servlet container, and null fields are skipped to match the JSON output
+        factory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return new ObjectMapper(factory).setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    }
+
+    private static Object toJacksonValue(Object obj) throws IOException {
+        //Reference trees are built as Gson objects, which Jackson can not serialize directly
+        if (obj instanceof JsonElement)
+            return jsonMapper.readTree(obj.toString());
+        return obj;
+    }
+
+    private static MediaType getBinaryType(List<MediaType> acceptTypes) {
+        for (MediaType acceptType : acceptTypes) {
+            if (acceptType.isWildcardType() || acceptType.isCompatibleWith(MediaType.APPLICATION_JSON))
+                return null;
+            for (MediaType binaryType : binaryMappers.keySet()) {
+                if (binaryType.isCompatibleWith(acceptType))
+                    return binaryType;
+            }
+            if (acceptType.equalsTypeAndSubtype(new MediaType("application", "msgpack")))
+                return APPLICATION_MSGPACK;
+        }
+        return null;
+    }
+
+    private static boolean isPrettyRequested(HttpServletRequest request, List<MediaType> acceptTypes) {
+        if (request != null && Boolean.parseBoolean(request.getParameter(PRETTY_PARAMETER)))
+            return true;
+        for (MediaType mediaType : acceptTypes) {
+            if (Boolean.parseBoolean(mediaType.getParameter(PRETTY_PARAMETER)))
+                return true;
+        }
+        return false;
+    }
+
+    private static HttpServletRequest getCurrentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes))
+            return null;
+        return ((ServletRequestAttributes) attributes).getRequest();
+    }
+
+    private static List<MediaType> getAcceptTypes(HttpServletRequest request) {
+        if (request == null)
+            return Collections.emptyList();
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (StringUtils.isBlank(accept))
+            return Collections.emptyList();
+        try {
+            List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+            MediaType.sortByQualityValue(mediaTypes);
+            return mediaTypes;
+        } catch (InvalidMediaTypeException ex) {
+            return Collections.emptyList();
+        }
+    }
+
     public static String buildId(String entityId, long version)
     {
         return String.format("%s:%s", entityId, version);
     }
+
+    private static class RawJsonAdapter extends TypeAdapter<RawJson> {
+        @Override
+        public void write(JsonWriter out, RawJson value) throws IOException {
+            if (value == null || value.getJson() == null)
+                out.nullValue();
+            else
+                out.jsonValue(value.getJson());
+        }
+
+        @Override
+        public RawJson read(JsonReader in) throws IOException {
+            return new RawJson(JsonParser.parseReader(in).toString());
+        }
+    }
 }
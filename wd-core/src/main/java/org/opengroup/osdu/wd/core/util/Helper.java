@@ -17,6 +17,7 @@ package org.opengroup.osdu.wd.core.util;
 import org.apache.commons.lang3.StringUtils;
 import org.opengroup.osdu.core.client.model.http.AppException;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.networknt.schema.*;
@@ -36,13 +37,21 @@ import java.util.stream.Collectors;
 @Component
 public class Helper {
 
+    //Null members are left out, as the Gson round trip this replaced did, so that they are not validated against the schema
+    private static final ObjectMapper treeMapper = new ObjectMapper()
+            .setDefaultPropertyInclusion(JsonInclude.Value.construct(JsonInclude.Include.NON_NULL, JsonInclude.Include.NON_NULL));
+
+    private static final JsonSchemaFactory schemaFactory = JsonSchemaFactory
+            .builder(JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7))
+            .objectMapper(new ObjectMapper())
+            .build();
+
     public JsonNode toJsonNode(Object dataObj){
         try {
-            Gson gson = new Gson();
-            String jsonInString = gson.toJson(dataObj);
-            ObjectMapper treeMapper = new ObjectMapper();
-            JsonNode nodes = treeMapper.readTree(jsonInString);
-            return nodes;
+            if (dataObj instanceof JsonNode)
+                return (JsonNode) dataObj;
+            //Convert the already parsed body to a tree without serializing and parsing it again
+            return treeMapper.valueToTree(dataObj);
         }catch (Exception ex) {
             throw new AppException(HttpStatus.SC_BAD_REQUEST, "Bad request", ex.getMessage());
         }
@@ -52,9 +61,7 @@ public class Helper {
         try {
             Gson gson = new Gson();
             String schemaInString = gson.toJson(schemaObj);
-            ObjectMapper mapper = new ObjectMapper();
-            JsonSchemaFactory factory = JsonSchemaFactory.builder(JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7)).objectMapper(mapper).build();
-            JsonSchema schema = factory.getSchema(schemaInString);
+            JsonSchema schema = schemaFactory.getSchema(schemaInString);
             return schema;
         } catch (Exception ex) {
             String error = ex.getMessage() != null ? ex.getMessage() : "The schema is invalid";
@@ -0,0 +1,87 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.wd.core.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.apache.http.HttpStatus;
+import org.opengroup.osdu.core.client.model.http.AppException;
+import org.opengroup.osdu.wd.core.models.ENTITY_PROPERTY;
+import org.opengroup.osdu.wd.core.models.RawJson;
+
+import java.io.IOException;
+
+/**
+ * Split a stored entity JSON into its envelope and the raw text of data and meta.
+ * Only the envelope is parsed into a tree, data and meta are located by a streaming scan and kept as text.
+ **/
+public class RawEntityReader {
+
+    private static final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Data
+    @AllArgsConstructor
+    public static class RawEntity {
+        private ObjectNode envelope;
+        private RawJson data;
+        private RawJson meta;
+    }
+
+    public static RawEntity read(String json) {
+        try (JsonParser parser = mapper.getFactory().createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                throw new IOException("The stored entity is not a JSON object");
+
+            ObjectNode envelope = mapper.createObjectNode();
+            RawJson data = null;
+            RawJson meta = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if (ENTITY_PROPERTY.DATA.equals(name) || ENTITY_PROPERTY.META.equals(name)) {
+                    if (token == JsonToken.VALUE_NULL)
+                        continue;
+                    int start = (int) parser.getTokenLocation().getCharOffset();
+                    parser.skipChildren();
+                    int end = (int) parser.getCurrentLocation().getCharOffset();
+                    RawJson raw = new RawJson(json.substring(start, end));
+                    if (ENTITY_PROPERTY.DATA.equals(name))
+                        data = raw;
+                    else
+                        meta = raw;
+                } else {
+                    envelope.set(name, mapper.readTree(parser));
+                }
+            }
+            return new RawEntity(envelope, data, meta);
+        } catch (IOException ex) {
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, "Invalid stored entity", ex.getMessage(), ex);
+        }
+    }
+
+    public static <T> T toValue(ObjectNode envelope, Class<T> valueType) {
+        try {
+            return mapper.treeToValue(envelope, valueType);
+        } catch (IOException ex) {
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, "Invalid stored entity", ex.getMessage(), ex);
+        }
+    }
+}
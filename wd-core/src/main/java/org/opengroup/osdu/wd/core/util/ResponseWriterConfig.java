@@ -0,0 +1,66 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.wd.core.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Response bodies built by Common.toResponse are written on a pool of their own instead of the shared application
+ * task executor. When the pool and its queue are full the body is written on the request thread.
+ * The time a response may take is set by spring.mvc.async.request-timeout.
+ **/
+@Configuration
+public class ResponseWriterConfig implements WebMvcConfigurer {
+
+    @Value("${app.response.writer-threads:16}")
+    private int writerThreads = 16;
+
+    @Value("${app.response.writer-queue-size:100}")
+    private int writerQueueSize = 100;
+
+    private ThreadPoolTaskExecutor executor;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(getExecutor());
+    }
+
+    @PreDestroy
+    public void close() {
+        if (executor != null)
+            executor.shutdown();
+    }
+
+    private synchronized ThreadPoolTaskExecutor getExecutor() {
+        if (executor == null) {
+            ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+            pool.setCorePoolSize(writerThreads);
+            pool.setMaxPoolSize(writerThreads);
+            pool.setQueueCapacity(writerQueueSize);
+            pool.setThreadNamePrefix("response-writer-");
+            pool.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+            pool.initialize();
+            executor = pool;
+        }
+        return executor;
+    }
+}
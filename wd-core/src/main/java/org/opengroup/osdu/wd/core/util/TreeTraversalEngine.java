@@ -0,0 +1,178 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.opengroup.osdu.wd.core.util;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.apache.commons.lang3.StringUtils;
+import org.opengroup.osdu.wd.core.dataaccess.interfaces.ITreeNodeSource;
+import org.opengroup.osdu.wd.core.models.EntityDto;
+import org.opengroup.osdu.wd.core.models.Relationship;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Walks the relationships of an entity level by level. The unresolved references of a level are grouped by
+ * entity type and fetched with one bulk call per type, so the number of round trips follows the tree depth
+ * instead of the node count.
+ *
+ * The tree is then linked in a depth-first pass over the fetched entities. An entity is visited once per idSet:
+ * when several nodes refer to it, the first one in depth-first order gets it, as in the recursive traversals.
+ **/
+public class TreeTraversalEngine<T> {
+
+    private static final String VERSIONED_ID_PATTERN = "^[^:]+:[0-9]+$";
+
+    private final ITreeNodeSource<T> source;
+    private final Set<String> idSet;
+
+    public TreeTraversalEngine(ITreeNodeSource<T> source, Set<String> idSet) {
+        this.source = source;
+        this.idSet = idSet;
+    }
+
+    /**
+     * Reference tree of id, version, type and nested items, only references with a versioned id are followed
+     **/
+    public JsonObject buildRef(T root) {
+        return toRef(traverse(root, true));
+    }
+
+    /**
+     * The entity and all referenced entities, in depth-first pre-order of the tree
+     **/
+    public List<T> buildList(T root) {
+        List<T> res = new ArrayList<>();
+        collect(traverse(root, false), res);
+        return res;
+    }
+
+    private Node<T> traverse(T root, boolean versionedOnly) {
+        Node<T> rootNode = new Node<>(root, source.getHeader(root));
+        idSet.add(rootNode.header.getEntityType() + rootNode.header.getEntityId());
+
+        Map<String, Map<String, T>> found = fetchReachable(root, versionedOnly);
+        link(rootNode, found, versionedOnly);
+        return rootNode;
+    }
+
+    /**
+     * Every entity reachable from root which is not in idSet yet, keyed by entity type and relationship id
+     **/
+    private Map<String, Map<String, T>> fetchReachable(T root, boolean versionedOnly) {
+        Map<String, Map<String, T>> found = new HashMap<>();
+        Map<String, Set<String>> requested = new HashMap<>();
+
+        List<T> level = Collections.singletonList(root);
+        while (!level.isEmpty()) {
+            Map<String, List<String>> idsByType = new LinkedHashMap<>();
+            for (T entity : level) {
+                List<Relationship> relationships = source.getRelationships(entity);
+                if (relationships == null)
+                    continue;
+                for (Relationship rs : relationships) {
+                    String key = followedKey(rs, versionedOnly);
+                    if (key == null || idSet.contains(key))
+                        continue;
+                    if (!requested.computeIfAbsent(rs.getEntityType(), k -> new HashSet<>()).add(rs.getId()))
+                        continue;
+                    idsByType.computeIfAbsent(rs.getEntityType(), k -> new ArrayList<>()).add(rs.getId());
+                }
+            }
+
+            List<T> next = new ArrayList<>();
+            for (Map.Entry<String, List<String>> entry : idsByType.entrySet()) {
+                Map<String, T> entities = source.findByIds(entry.getKey(), entry.getValue());
+                found.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).putAll(entities);
+                for (String id : entry.getValue()) {
+                    T entity = entities.get(id);
+                    if (entity != null)
+                        next.add(entity);
+                }
+            }
+            level = next;
+        }
+        return found;
+    }
+
+    // Same order as the recursive traversals: a reference is claimed in idSet before its own references are followed
+    private void link(Node<T> node, Map<String, Map<String, T>> found, boolean versionedOnly) {
+        List<Relationship> relationships = source.getRelationships(node.entity);
+        if (relationships == null)
+            return;
+        for (Relationship rs : relationships) {
+            String key = followedKey(rs, versionedOnly);
+            if (key == null || !idSet.add(key))
+                continue;
+
+            T child = found.getOrDefault(rs.getEntityType(), Collections.emptyMap()).get(rs.getId());
+            if (child == null)
+                continue;
+            Node<T> childNode = new Node<>(child, source.getHeader(child));
+            node.children.add(childNode);
+            link(childNode, found, versionedOnly);
+        }
+    }
+
+    private static String followedKey(Relationship rs, boolean versionedOnly) {
+        String id = rs.getId();
+        String type = rs.getEntityType();
+        if (StringUtils.isBlank(id) || StringUtils.isBlank(type))
+            return null;
+        if (versionedOnly && !id.matches(VERSIONED_ID_PATTERN))
+            return null;
+        return type + id.split(":")[0];
+    }
+
+    private JsonObject toRef(Node<T> node) {
+        JsonObject res = new JsonObject();
+        res.addProperty("id", node.header.getEntityId());
+        res.addProperty("version", node.header.getVersion());
+        res.addProperty("type", node.header.getEntityType());
+
+        if (!node.children.isEmpty()) {
+            JsonArray arr = new JsonArray();
+            for (Node<T> child : node.children) {
+                arr.add(toRef(child));
+            }
+            res.add("items", arr);
+        }
+        return res;
+    }
+
+    private void collect(Node<T> node, List<T> res) {
+        res.add(node.entity);
+        for (Node<T> child : node.children) {
+            collect(child, res);
+        }
+    }
+
+    private static class Node<T> {
+        private final T entity;
+        private final EntityDto header;
+        private final List<Node<T>> children = new ArrayList<>();
+
+        Node(T entity, EntityDto header) {
+            this.entity = entity;
+            this.header = header;
+        }
+    }
+}
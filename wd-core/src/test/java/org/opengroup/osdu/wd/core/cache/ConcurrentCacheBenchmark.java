@@ -0,0 +1,79 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.wd.core.cache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contention of the cache at 64 threads, with a read heavy mix over a key space larger than the capacity.
+ * Not part of the unit tests, run with
+ * mvn test-compile exec:java -Dexec.mainClass=org.opengroup.osdu.wd.core.cache.ConcurrentCacheBenchmark -Dexec.classpathScope=test
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(64)
+public class ConcurrentCacheBenchmark {
+
+    private static final int CAPACITY = 100;
+    private static final int KEYS = 200;
+
+    private ConcurrentCache<String, Object> cache;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        cache = new ConcurrentCache<>(CAPACITY, 600);
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "opendes:wks:entity:" + i;
+            if (i < CAPACITY)
+                cache.set(keys[i], keys[i]);
+        }
+    }
+
+    @Benchmark
+    public Object readMostly() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String key = keys[random.nextInt(KEYS)];
+        Object value = cache.get(key);
+        if (value == null && random.nextInt(10) == 0)
+            cache.set(key, key);
+        return value;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ConcurrentCacheBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,79 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.wd.core.cache;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ConcurrentCacheTest {
+
+    @Test
+    public void should_returnValue_when_notExpired() {
+        ConcurrentCache<String, String> cache = new ConcurrentCache<>(10, 600);
+        cache.set("key", "value");
+
+        assertEquals("value", cache.get("key"));
+        assertEquals(1, cache.stats().hitCount());
+    }
+
+    @Test
+    public void should_returnNull_when_expiredAfterWrite() throws InterruptedException {
+        ConcurrentCache<String, String> cache = new ConcurrentCache<>(10, Duration.ofMillis(50), null);
+        cache.set("key", "value");
+
+        Thread.sleep(100);
+
+        assertNull(cache.get("key"));
+        assertEquals(1, cache.stats().missCount());
+    }
+
+    @Test
+    public void should_returnNull_when_expiredAfterAccess() throws InterruptedException {
+        ConcurrentCache<String, String> cache = new ConcurrentCache<>(10, null, Duration.ofMillis(50));
+        cache.set("key", "value");
+
+        Thread.sleep(100);
+
+        assertNull(cache.get("key"));
+    }
+
+    @Test
+    public void should_evict_when_overCapacity() {
+        ConcurrentCache<Integer, Integer> cache = new ConcurrentCache<>(10, 600);
+        for (int i = 0; i < 100; i++) {
+            cache.set(i, i);
+        }
+
+        assertEquals(10, cache.size());
+        assertEquals(90, cache.stats().evictionCount());
+    }
+
+    @Test
+    public void should_removeEntry_when_setNullOrRemoved() {
+        ConcurrentCache<String, String> cache = new ConcurrentCache<>(10, 600);
+        cache.set("a", "value");
+        cache.set("b", "value");
+
+        cache.set("a", null);
+        cache.remove("b");
+
+        assertNull(cache.get("a"));
+        assertNull(cache.get("b"));
+    }
+}
@@ -0,0 +1,92 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.wd.core.cache;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RefreshAheadCacheTest {
+
+    private final RefreshAheadCache<String, String> cache =
+            new RefreshAheadCache<>(10, Duration.ofMillis(400), 0.25, 1, 1, "test-refresh");
+
+    @After
+    public void tearDown() {
+        cache.close();
+    }
+
+    @Test
+    public void should_serveCachedValue_when_fresh() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("key", () -> "v" + loads.incrementAndGet(), () -> "refreshed");
+        String value = cache.get("key", () -> "v" + loads.incrementAndGet(), () -> "refreshed");
+
+        assertEquals("v1", value);
+        assertEquals(1, loads.get());
+        assertEquals(0, cache.refreshCount());
+    }
+
+    @Test
+    public void should_serveStaleAndRefresh_when_olderThanRefreshAge() throws InterruptedException {
+        cache.get("key", () -> "loaded", () -> "refreshed");
+        Thread.sleep(150);
+
+        String value = cache.get("key", () -> "reloaded", () -> "refreshed");
+
+        assertEquals("loaded", value);
+        waitFor(() -> cache.refreshCount() == 1);
+        assertEquals("refreshed", cache.get("key"));
+    }
+
+    @Test
+    public void should_keepStaleValue_when_refreshFails() throws InterruptedException {
+        cache.get("key", () -> "loaded", () -> "refreshed");
+        Thread.sleep(150);
+
+        cache.get("key", () -> "reloaded", () -> {
+            throw new IllegalStateException("failed");
+        });
+
+        waitFor(() -> cache.refreshFailureCount() == 1);
+        assertEquals("loaded", cache.get("key"));
+    }
+
+    @Test
+    public void should_loadSynchronously_when_expired() throws InterruptedException {
+        cache.get("key", () -> "loaded", () -> "refreshed");
+        Thread.sleep(500);
+
+        String value = cache.get("key", () -> "reloaded", () -> "refreshed");
+
+        assertEquals("reloaded", value);
+        assertEquals(0, cache.refreshCount());
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,117 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.wd.core.cache;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    @Test
+    public void should_callLoaderOnce_when_concurrentMissesOfSameKey() throws Exception {
+        ConcurrentCache<String, String> cache = new ConcurrentCache<>(10, 600);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = runConcurrently(() -> cache.get("key", () -> {
+            calls.incrementAndGet();
+            await(release);
+            return "value";
+        }), cache::coalescedCount, release);
+
+        for (Future<String> result : results) {
+            assertEquals("value", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(CALLERS - 1, cache.coalescedCount());
+        assertEquals("value", cache.get("key"));
+    }
+
+    @Test
+    public void should_throwToAllWaiters_when_loaderFails() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = runConcurrently(() -> flight.load("key", () -> {
+            await(release);
+            throw new IllegalStateException("failed");
+        }), flight::coalescedCount, release);
+
+        for (Future<String> result : results) {
+            try {
+                result.get(5, TimeUnit.SECONDS);
+                fail("expected the loader failure");
+            } catch (java.util.concurrent.ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof IllegalStateException);
+            }
+        }
+        assertEquals(0, flight.inFlightCount());
+    }
+
+    @Test
+    public void should_loadAgain_when_previousLoadFinished() {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        flight.load("key", calls::incrementAndGet);
+        flight.load("key", calls::incrementAndGet);
+
+        assertEquals(2, calls.get());
+        assertEquals(0, flight.coalescedCount());
+    }
+
+    private static List<Future<String>> runConcurrently(java.util.concurrent.Callable<String> task,
+                                                       java.util.function.LongSupplier coalesced,
+                                                       CountDownLatch release) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(task));
+            }
+            // hold the first load until every other caller waits on it
+            long deadline = System.currentTimeMillis() + 5000;
+            while (coalesced.getAsLong() < CALLERS - 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.opengroup.osdu.wd.core.dataaccess.impl;
+
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.opengroup.osdu.wd.core.dataaccess.interfaces.IMongodbConnection;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MongoClientRegistryTest {
+
+    @Mock
+    private IMongodbConnection mongodbConnection;
+
+    @Mock
+    private MongoCollection<Document> collection;
+
+    private MongoClientRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new MongoClientRegistry();
+        registry.mongodbConnection = mongodbConnection;
+    }
+
+    @After
+    public void tearDown() {
+        registry.close();
+    }
+
+    @Test
+    public void should_reuseClientPerPartition_when_requestedTwice() {
+        when(mongodbConnection.get("opendes")).thenReturn("mongodb://localhost:27017");
+        when(mongodbConnection.get("tenant2")).thenReturn("mongodb://localhost:27018");
+
+        MongoClientRegistry.PartitionClient first = registry.get("opendes");
+
+        assertSame(first, registry.get("opendes"));
+        assertNotSame(first, registry.get("tenant2"));
+        verify(mongodbConnection, times(1)).get("opendes");
+    }
+
+    @Test
+    public void should_openNewClient_when_previousWasEvicted() {
+        when(mongodbConnection.get("opendes")).thenReturn("mongodb://localhost:27017");
+        ReflectionTestUtils.setField(registry, "clientEvictAfterMs", -1L);
+        MongoClientRegistry.PartitionClient first = registry.get("opendes");
+
+        ReflectionTestUtils.setField(registry, "nextEvictionAt", 0L);
+        MongoClientRegistry.PartitionClient second = registry.get("opendes");
+
+        assertNotSame(first, second);
+        verify(mongodbConnection, times(2)).get("opendes");
+    }
+
+    @Test
+    public void should_openCollectionOnce_when_loaderReturnsHandle() {
+        when(mongodbConnection.get("opendes")).thenReturn("mongodb://localhost:27017");
+        MongoClientRegistry.PartitionClient client = registry.get("opendes");
+        AtomicInteger loads = new AtomicInteger();
+
+        client.getCollection("wellContainer", c -> {
+            loads.incrementAndGet();
+            return collection;
+        });
+        assertSame(collection, client.getCollection("wellContainer", c -> {
+            loads.incrementAndGet();
+            return collection;
+        }));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void should_notCacheMissingCollection_when_loaderReturnsNull() {
+        when(mongodbConnection.get("opendes")).thenReturn("mongodb://localhost:27017");
+        MongoClientRegistry.PartitionClient client = registry.get("opendes");
+
+        assertNull(client.getCollection("wellContainer", c -> null));
+        assertSame(collection, client.getCollection("wellContainer", c -> collection));
+    }
+
+    @Test
+    public void should_listNamesOnceWithinInterval_when_refreshedOnMiss() {
+        when(mongodbConnection.get("opendes")).thenReturn("mongodb://localhost:27017");
+        MongoClientRegistry.PartitionClient client = registry.get("opendes");
+        AtomicInteger listings = new AtomicInteger();
+
+        assertTrue(client.refreshCollectionNames(() -> {
+            listings.incrementAndGet();
+            return Collections.singletonList("wellContainer");
+        }, 60000L));
+        assertFalse(client.refreshCollectionNames(() -> {
+            listings.incrementAndGet();
+            return Collections.emptyList();
+        }, 60000L));
+
+        assertTrue(client.isKnownCollection("WELLContainer"));
+        assertFalse(client.isKnownCollection("wellboreContainer"));
+        assertEquals(1, listings.get());
+    }
+}
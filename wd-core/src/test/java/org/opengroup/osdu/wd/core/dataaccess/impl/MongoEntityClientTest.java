@@ -0,0 +1,114 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.wd.core.dataaccess.impl;
+
+import com.mongodb.MongoClient;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOptions;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.opengroup.osdu.wd.core.models.ACL;
+import org.opengroup.osdu.wd.core.models.EntityDto;
+import org.opengroup.osdu.wd.core.models.EntityDtoReturn;
+import org.opengroup.osdu.wd.core.models.Legal;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MongoEntityClientTest {
+
+    @Mock
+    MongodbInit mongodbInit;
+
+    @Mock
+    MongoCollection<Document> mockCollection;
+
+    @Mock
+    MongoCollection<Document> mockHeadCollection;
+
+    @Mock
+    FindIterable<Document> mockFindIterable;
+
+    @Mock
+    FindIterable<Document> mockHeadIterable;
+
+    @Mock
+    MongoCursor<Document> mockCursor;
+
+    @InjectMocks
+    MongoEntityClient sut;
+
+    @Test
+    public void should_returnAndStoreHighestVersion_when_NoHeadAndVersions9And10Exist() {
+        Document version9 = buildDocument(9L);
+        Document version10 = buildDocument(10L);
+        AtomicReference<Bson> sort = new AtomicReference<>();
+        when(mongodbInit.getEntityCollection("wellbore")).thenReturn(mockCollection);
+        when(mongodbInit.getHeadCollection("wellbore")).thenReturn(mockHeadCollection);
+        when(mockHeadCollection.find(any(Bson.class))).thenReturn(mockHeadIterable);
+        when(mockHeadIterable.first()).thenReturn(null);
+        when(mockCollection.find(any(Bson.class))).thenReturn(mockFindIterable);
+        when(mockFindIterable.sort(any(Bson.class))).thenAnswer(invocation -> {
+            sort.set(invocation.getArgument(0));
+            return mockFindIterable;
+        });
+        when(mockFindIterable.limit(1)).thenReturn(mockFindIterable);
+        when(mockFindIterable.iterator()).thenReturn(mockCursor);
+        when(mockCursor.hasNext()).thenReturn(true);
+        // "wb:9" sorts above "wb:10" as a string
+        when(mockFindIterable.first()).thenAnswer(invocation ->
+                Sorts.descending("version").equals(sort.get()) ? version10 : version9);
+
+        EntityDtoReturn res = sut.getLatestEntityVersion("wellbore", "wb");
+
+        assertEquals(10L, res.getVersion());
+        ArgumentCaptor<Bson> update = ArgumentCaptor.forClass(Bson.class);
+        verify(mockHeadCollection).updateOne(any(Bson.class), update.capture(), any(UpdateOptions.class));
+        BsonDocument set = update.getValue().toBsonDocument(BsonDocument.class, MongoClient.getDefaultCodecRegistry()).getDocument("$set");
+        assertEquals(10L, set.getInt64("version").getValue());
+        assertEquals("wb:10", set.getString("docId").getValue());
+    }
+
+    private static Document buildDocument(long version) {
+        EntityDto dto = new EntityDto();
+        dto.setId("opendes:wellbore--Wellbore:wb");
+        dto.setEntityId("wb");
+        dto.setEntityType("wellbore");
+        dto.setVersion(version);
+        dto.setAcl(new ACL());
+        dto.getAcl().setOwners(new HashSet<>(Collections.singletonList("owner@opendes.com")));
+        dto.getAcl().setViewers(new HashSet<>(Collections.singletonList("viewer@opendes.com")));
+        dto.setLegal(new Legal());
+        dto.setData(new Document("FacilityName", "wb"));
+        return new MongoEntity(dto, Collections.emptyList()).ToDocument();
+    }
+}
@@ -0,0 +1,140 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.wd.core.dataaccess.impl;
+
+import com.mongodb.MongoClient;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.junit.Test;
+import org.opengroup.osdu.wd.core.models.ACL;
+import org.opengroup.osdu.wd.core.models.EntityDto;
+import org.opengroup.osdu.wd.core.models.Legal;
+import org.opengroup.osdu.wd.core.models.RawJson;
+import org.opengroup.osdu.wd.core.models.Relationship;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MongoEntityCodecTest {
+
+    private final MongoEntityCodec sut = new MongoEntityCodec(MongoClient.getDefaultCodecRegistry());
+
+    @Test
+    public void should_returnSameEntity_when_EncodeAndDecode() {
+        MongoEntity entity = new MongoEntity(buildDto(), buildRelationships());
+
+        BsonDocument bson = new BsonDocument();
+        sut.encode(new BsonDocumentWriter(bson), entity, EncoderContext.builder().build());
+        MongoEntity actual = sut.decode(new BsonDocumentReader(bson), DecoderContext.builder().build());
+
+        assertEquals("entity_id:1234567890123", bson.getString("_id").getValue());
+        assertEquals(1234567890123L, bson.getInt64("version").getValue());
+        assertEquals(entity.get_id(), actual.get_id());
+        assertEquals(entity.getVersion(), actual.getVersion());
+        assertEquals(entity.getAcl(), actual.getAcl());
+        assertEquals(entity.getLegal(), actual.getLegal());
+        assertEquals(entity.getRelationships(), actual.getRelationships());
+        assertEquals("planned", actual.getExistenceKind());
+        assertEquals(4324, ((Map) actual.getData()).get("Depth"));
+        assertEquals("my name", ((Map) actual.getData()).get("Name"));
+    }
+
+    @Test
+    public void should_encodeBigNumbersAndSkipNulls_when_DataIsParsedJson() {
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("Count", BigInteger.valueOf(42));
+        nested.put("Comment", null);
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("Depth", new BigDecimal("4324.5"));
+        data.put("Huge", new BigInteger("123456789012345678901234567890"));
+        data.put("Name", null);
+        data.put("Items", Arrays.asList(nested, null));
+        EntityDto dto = buildDto();
+        dto.setData(data);
+
+        BsonDocument bson = new BsonDocument();
+        sut.encode(new BsonDocumentWriter(bson), new MongoEntity(dto, buildRelationships()), EncoderContext.builder().build());
+
+        BsonDocument actual = bson.getDocument("data");
+        assertEquals(4324.5, actual.getDouble("Depth").getValue(), 0);
+        assertEquals(1.2345678901234568E29, actual.getDouble("Huge").getValue(), 1E15);
+        assertFalse(actual.containsKey("Name"));
+        BsonDocument item = actual.getArray("Items").get(0).asDocument();
+        assertEquals(42L, item.getInt64("Count").getValue());
+        assertFalse(item.containsKey("Comment"));
+        assertTrue(actual.getArray("Items").get(1).isNull());
+    }
+
+    @Test
+    public void should_keepDataAsJsonText_when_ReadingRawDocument() {
+        MongoEntity entity = new MongoEntity(buildDto(), buildRelationships());
+        BsonDocument bson = new BsonDocument();
+        sut.encode(new BsonDocumentWriter(bson), entity, EncoderContext.builder().build());
+
+        MongoEntity actual = MongoEntity.ToMongoEntity(new RawBsonDocument(bson, new BsonDocumentCodec()));
+
+        assertEquals(entity.get_id(), actual.get_id());
+        assertEquals(entity.getVersion(), actual.getVersion());
+        assertEquals(entity.getAcl(), actual.getAcl());
+        assertEquals(entity.getLegal(), actual.getLegal());
+        assertEquals(entity.getRelationships(), actual.getRelationships());
+        assertTrue(actual.getData() instanceof RawJson);
+        assertEquals(bson.getDocument("data"), BsonDocument.parse(((RawJson) actual.getData()).getJson()));
+        assertNull(actual.getMeta());
+    }
+
+    private EntityDto buildDto() {
+        EntityDto dto = new EntityDto();
+        dto.setId("opendes:wellbore--Wellbore:entity_id");
+        dto.setEntityId("entity_id");
+        dto.setEntityType("wellbore");
+        dto.setKind("opendes:wks:wellbore:1.0.0");
+        dto.setVersion(1234567890123L);
+        dto.setExistenceKind("planned");
+        dto.setValid(true);
+        dto.setAcl(new ACL());
+        dto.getAcl().setOwners(new HashSet<>(Collections.singletonList("owner@opendes.com")));
+        dto.getAcl().setViewers(new HashSet<>(Collections.singletonList("viewer@opendes.com")));
+        dto.setLegal(new Legal());
+        dto.getLegal().setLegaltags(new HashSet<>(Collections.singletonList("opendes-legaltag")));
+        dto.getLegal().setOtherRelevantDataCountries(new HashSet<>(Collections.singletonList("US")));
+        Document data = new Document();
+        data.put("Name", "my name");
+        data.put("Depth", 4324);
+        dto.setData(data);
+        return dto;
+    }
+
+    private List<Relationship> buildRelationships() {
+        return Collections.singletonList(new Relationship("opendes:well--Well:well_id:123", "well"));
+    }
+}
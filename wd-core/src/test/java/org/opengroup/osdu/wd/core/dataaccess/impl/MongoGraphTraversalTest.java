@@ -0,0 +1,79 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.opengroup.osdu.wd.core.dataaccess.impl;
+
+import org.bson.Document;
+import org.junit.Test;
+import org.opengroup.osdu.wd.core.models.ACL;
+import org.opengroup.osdu.wd.core.models.EntityDto;
+import org.opengroup.osdu.wd.core.models.Legal;
+import org.opengroup.osdu.wd.core.models.Relationship;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MongoGraphTraversalTest {
+
+    @Test
+    public void should_keyNodeByTypeAndId_when_BuildingGraphNode() {
+        MongoEntity entity = new MongoEntity(buildDto(), Arrays.asList(
+                new Relationship("well_id:123", "Well"),
+                new Relationship(null, "well")));
+
+        Document node = MongoGraphTraversal.toGraphNode(entity);
+
+        assertEquals("wellbore/entity_id:1234567890123", node.getString("_id"));
+        assertEquals("entity_id", node.getString("entityId"));
+        assertEquals("WellBore", node.getString("entityType"));
+        assertEquals("wellbore", node.getString("typeKey"));
+        assertEquals(1234567890123L, (long) node.getLong("version"));
+        assertFalse(node.getBoolean("deleted"));
+        assertEquals(Collections.singletonList("well/well_id:123"), node.getList("refKeys", String.class));
+
+        List<Document> relationships = node.getList("relationships", Document.class);
+        assertEquals(1, relationships.size());
+        assertEquals("well_id:123", relationships.get(0).getString("id"));
+        assertEquals("Well", relationships.get(0).getString("entityType"));
+    }
+
+    @Test
+    public void should_buildSameNode_when_BuildingFromStoredDocument() {
+        MongoEntity entity = new MongoEntity(buildDto(), Collections.singletonList(new Relationship("well_id:123", "Well")));
+
+        Document node = MongoGraphTraversal.toGraphNode(entity.ToDocument().append("deleted", true));
+
+        assertEquals("wellbore/entity_id:1234567890123", node.getString("_id"));
+        assertEquals(1234567890123L, (long) node.getLong("version"));
+        assertTrue(node.getBoolean("deleted"));
+        assertEquals(Collections.singletonList("well/well_id:123"), node.getList("refKeys", String.class));
+    }
+
+    private EntityDto buildDto() {
+        EntityDto dto = new EntityDto();
+        dto.setId("opendes:wellbore--Wellbore:entity_id");
+        dto.setEntityId("entity_id");
+        dto.setEntityType("WellBore");
+        dto.setKind("opendes:wks:wellbore:1.0.0");
+        dto.setVersion(1234567890123L);
+        dto.setAcl(new ACL());
+        dto.setLegal(new Legal());
+        dto.setData(new Document());
+        return dto;
+    }
+}
@@ -0,0 +1,169 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.opengroup.osdu.wd.core.dataaccess.impl;
+
+import com.mongodb.MongoException;
+import com.mongodb.MongoNamespace;
+import com.mongodb.ServerAddress;
+import com.mongodb.ServerCursor;
+import com.mongodb.client.ListIndexesIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.IndexOptions;
+import org.bson.Document;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.opengroup.osdu.wd.core.models.IndexStatus;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MongoIndexManagerTest {
+
+    @Mock
+    MongoCollection<Document> mockCollection;
+
+    @Mock
+    ListIndexesIterable<Document> mockIndexes;
+
+    private final MongoIndexManager sut = new MongoIndexManager(Runnable::run);
+
+    @Before
+    public void setup() {
+        when(mockCollection.getNamespace()).thenReturn(new MongoNamespace("well-delivery", "wellContainer"));
+        when(mockCollection.listIndexes()).thenReturn(mockIndexes);
+        when(mockIndexes.iterator()).thenReturn(cursor(Arrays.asList(
+                index("_id_", new Document("_id", 1), null),
+                index("version_-1", new Document("version", -1), null),
+                index("entityId_version", new Document("entityId", 1).append("version", -1), null),
+                index("existenceKind_entityId_version", new Document("existenceKind", 1).append("entityId", 1).append("version", -1), null),
+                index("name_1", new Document("name", 1), null))));
+    }
+
+    @Test
+    public void should_reportDrift_when_IndexesDiffer() {
+        Map<String, String> status = byName(sut.checkIndexes(mockCollection, false));
+
+        assertEquals(IndexStatus.OK, status.get("version_-1"));
+        assertEquals(IndexStatus.OK, status.get("entityId_version"));
+        assertEquals(IndexStatus.CHANGED, status.get("existenceKind_entityId_version"));
+        assertEquals(IndexStatus.MISSING, status.get("existenceKind_relatedEntity_version"));
+        assertEquals(IndexStatus.MISSING, status.get("existenceKind_facilityName_version"));
+        assertEquals(IndexStatus.EXTRA, status.get("name_1"));
+        assertFalse(status.containsKey("existenceKind_timeRange"));
+        assertFalse(status.containsKey("_id_"));
+    }
+
+    @Test
+    public void should_createMissingPartialIndexes_when_EnsuringIndexes() {
+        sut.ensureIndexes(mockCollection, false);
+        sut.ensureIndexes(mockCollection, false);
+
+        ArgumentCaptor<IndexOptions> options = ArgumentCaptor.forClass(IndexOptions.class);
+        verify(mockCollection, times(2)).createIndex(any(Document.class), options.capture());
+        List<String> names = options.getAllValues().stream().map(IndexOptions::getName).collect(Collectors.toList());
+        assertEquals(Arrays.asList("existenceKind_relatedEntity_version", "existenceKind_facilityName_version"), names);
+        assertEquals(new Document("deleted", false), options.getValue().getPartialFilterExpression());
+    }
+
+    @Test
+    public void should_retryIndexes_when_PreviousCheckFailed() {
+        when(mockCollection.listIndexes()).thenThrow(new MongoException("not reachable")).thenReturn(mockIndexes);
+
+        sut.ensureIndexes(mockCollection, false);
+        sut.ensureIndexes(mockCollection, false);
+
+        verify(mockCollection, times(2)).createIndex(any(Document.class), any(IndexOptions.class));
+    }
+
+    @Test
+    public void should_splitArrayCompoundsWithoutPartialFilter_when_CosmosApi() {
+        List<IndexStatus> res = sut.createMissingIndexes(mockCollection, true);
+        Map<String, String> status = byName(res);
+
+        assertEquals(IndexStatus.OK, status.get("existenceKind_entityId_version"));
+        assertTrue(status.containsKey("relationships.entityType_1"));
+        assertTrue(status.containsKey("relationships.entityId_1"));
+        assertTrue(status.containsKey("relationships.version_1"));
+        assertFalse(status.containsKey("existenceKind_relatedEntity_version"));
+
+        ArgumentCaptor<IndexOptions> options = ArgumentCaptor.forClass(IndexOptions.class);
+        verify(mockCollection, times(5)).createIndex(any(Document.class), options.capture());
+        for (IndexOptions option : options.getAllValues()) {
+            assertNull(option.getPartialFilterExpression());
+        }
+    }
+
+    private static Map<String, String> byName(List<IndexStatus> list) {
+        return list.stream().collect(Collectors.toMap(IndexStatus::getName, IndexStatus::getStatus));
+    }
+
+    private static Document index(String name, Document keys, Document partialFilter) {
+        Document index = new Document("v", 2).append("key", keys).append("name", name);
+        if (partialFilter != null)
+            index.append("partialFilterExpression", partialFilter);
+        return index;
+    }
+
+    private static MongoCursor<Document> cursor(List<Document> docs) {
+        Iterator<Document> it = docs.iterator();
+        return new MongoCursor<Document>() {
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public Document next() {
+                return it.next();
+            }
+
+            @Override
+            public Document tryNext() {
+                return it.hasNext() ? it.next() : null;
+            }
+
+            @Override
+            public ServerCursor getServerCursor() {
+                return null;
+            }
+
+            @Override
+            public ServerAddress getServerAddress() {
+                return null;
+            }
+        };
+    }
+}
@@ -19,21 +19,30 @@ import com.mongodb.client.*;
 import com.mongodb.client.model.*;
 import com.mongodb.client.result.DeleteResult;
 import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonDocument;
 import org.bson.Document;
 import org.bson.conversions.Bson;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.opengroup.osdu.core.client.model.http.AppException;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import static com.mongodb.client.model.Aggregates.*;
@@ -46,6 +55,9 @@ public class MongodbFacadeTest {
     @Mock
     MongoCollection<Document> mockCollection;
 
+    @Mock
+    MongoCollection<Document> mockHeadCollection;
+
     @Mock
     FindIterable<Document> mockFindIterable;
 
@@ -58,6 +70,9 @@ public class MongodbFacadeTest {
     @Mock
     MongoIterable<Long> mockLongIterable;
 
+    @Mock
+    AggregateIterable<Document> mockAggregateIterable;
+
     @Mock
     List<Long> mockLongList;
 
@@ -99,12 +114,62 @@ public class MongodbFacadeTest {
         }
     }
 
+    @Test
+    public void should_writeOnce_when_bulkUpsert_ObjectsAreValid() {
+
+        Map<String, Document> docs = new LinkedHashMap<>();
+        docs.put("id_test1", Document.parse("{\"id\": \"id_test1\"}"));
+        docs.put("id_test2", Document.parse("{\"id\": \"id_test2\"}"));
+        MongodbFacade.bulkUpsert(mockCollection, docs);
+        verify(mockCollection, times(1)).bulkWrite(anyList(), any(BulkWriteOptions.class));
+    }
+
+    @Test
+    public void should_notWrite_when_bulkUpsert_ObjectsAreEmpty() {
+
+        MongodbFacade.bulkUpsert(mockCollection, new LinkedHashMap<>());
+        verify(mockCollection, never()).bulkWrite(anyList(), any(BulkWriteOptions.class));
+    }
+
+    @Test
+    public void should_returnException_when_bulkUpsert_ObjectIsInvalid() {
+
+        Map<String, Document> docs = new LinkedHashMap<>();
+        docs.put("id_test", Document.parse("{\"id\": \"id_test\"}"));
+        when(mockCollection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenThrow(new MongoException("error"));
+        try {
+            MongodbFacade.bulkUpsert(mockCollection, docs);
+            Assert.fail("Expected an AppException to be thrown");
+        } catch (AppException ex) {
+            assertEquals(500, ex.getError().getCode());
+            assertEquals("error", ex.getError().getMessage());
+        }
+    }
+
+    @Test
+    public void should_groupByNumericVersion_when_getIdList_LatestPerEntity() {
+        when(mockCollection.aggregate(anyList())).thenReturn(mockAggregateIterable);
+        when(mockAggregateIterable.iterator()).thenReturn(mockCursor);
+        when(mockCursor.hasNext()).thenReturn(true, false);
+        when(mockCursor.next()).thenReturn(new Document("_id", "wb1").append("max", new Document("version", 10L).append("_id", "wb1:10")));
+
+        List<String> res = MongodbFacade.getIdList_LatestPerEntity_ByTimeRange(mockCollection, "planned", "2020-01-01", "2020-12-31");
+
+        assertEquals(Collections.singletonList("wb1:10"), res);
+        ArgumentCaptor<List> pipeline = ArgumentCaptor.forClass(List.class);
+        verify(mockCollection).aggregate(pipeline.capture());
+        BsonDocument group = ((Bson) pipeline.getValue().get(1)).toBsonDocument(BsonDocument.class, MongoClient.getDefaultCodecRegistry());
+        BsonDocument max = group.getDocument("$group").getDocument("max").getDocument("$max");
+        assertEquals("$version", max.getString("version").getValue());
+        assertEquals("$_id", max.getString("_id").getValue());
+    }
+
     @Test
     public void should_returnSuccess_when_findLatestOne_ObjectIsValid() {
 
         String entityId = "entityId_test";
         when(mockCollection.find((any(Bson.class)))).thenReturn(mockFindIterable);
-        when(mockFindIterable.sort(Sorts.descending("_id"))).thenReturn(mockFindIterable);
+        when(mockFindIterable.sort(Sorts.descending("version"))).thenReturn(mockFindIterable);
         when(mockFindIterable.limit(1)).thenReturn(mockFindIterable);
         when(mockFindIterable.iterator()).thenReturn(mockCursor);
         when(mockCursor.hasNext()).thenReturn(true);
@@ -128,6 +193,27 @@ public class MongodbFacadeTest {
         }
     }
 
+    @Test
+    public void should_keepNewerHead_when_upsertHead_DuplicateKey() {
+
+        when(mockCollection.updateOne(any(Bson.class), any(Bson.class), any(UpdateOptions.class)))
+                .thenThrow(new MongoWriteException(new WriteError(11000, "duplicate key", new BsonDocument()), new ServerAddress()));
+
+        MongodbFacade.upsertHead(mockCollection, "entityId_test", 1L, "entityId_test:1");
+        verify(mockCollection, times(1)).updateOne(any(Bson.class), any(Bson.class), any(UpdateOptions.class));
+    }
+
+    @Test
+    public void should_skipRefresh_when_refreshHead_HeadIsOtherVersion() {
+
+        when(mockHeadCollection.deleteOne(any(Bson.class))).thenReturn(mockDeleteResult);
+        when(mockDeleteResult.getDeletedCount()).thenReturn(0L);
+
+        MongodbFacade.refreshHead(mockCollection, mockHeadCollection, "entityId_test", 1L);
+        verify(mockCollection, never()).find(any(Bson.class));
+        verify(mockHeadCollection, never()).updateOne(any(Bson.class), any(Bson.class), any(UpdateOptions.class));
+    }
+
     @Test
     public void should_returnSuccess_when_findSpecificOne_ObjectIsValid() {
 
@@ -273,7 +359,7 @@ public class MongodbFacadeTest {
         String name = "name_test";
 
         when(mockCollection.find((any(Bson.class)))).thenReturn(mockFindIterable);
-        when(mockFindIterable.sort(Sorts.descending("_id"))).thenReturn(mockFindIterable);
+        when(mockFindIterable.sort(Sorts.descending("version"))).thenReturn(mockFindIterable);
         when(mockFindIterable.limit(1)).thenReturn(mockFindIterable);
         when(mockFindIterable.iterator()).thenReturn(mockCursor);
         when(mockCursor.hasNext()).thenReturn(true);
@@ -506,4 +592,19 @@ public class MongodbFacadeTest {
             assertEquals("error", ex.getError().getMessage());
         }
     }
+
+    @Test
+    public void should_countIdsOutsideAclGroups_when_countAclFiltered_ByIdList() {
+
+        List<String> ids = Collections.singletonList("wb:1");
+        List<String> groups = Collections.singletonList("viewers@opendes");
+        when(mockCollection.countDocuments(any(Bson.class))).thenReturn(2L);
+
+        assertEquals(2L, MongodbFacade.countAclFiltered_ByIdList(mockCollection, ids, groups));
+        ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+        verify(mockCollection).countDocuments(filter.capture());
+        Bson expected = and(in("_id", ids), nor(or(in("acl.viewers", groups), in("acl.owners", groups))));
+        assertEquals(expected.toBsonDocument(BsonDocument.class, MongoClient.getDefaultCodecRegistry()),
+                filter.getValue().toBsonDocument(BsonDocument.class, MongoClient.getDefaultCodecRegistry()));
+    }
 }
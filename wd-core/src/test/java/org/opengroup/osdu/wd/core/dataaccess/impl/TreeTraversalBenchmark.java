@@ -0,0 +1,158 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.wd.core.dataaccess.impl;
+
+import com.mongodb.MongoClient;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.opengroup.osdu.wd.core.models.ACL;
+import org.opengroup.osdu.wd.core.models.EntityDto;
+import org.opengroup.osdu.wd.core.models.Legal;
+import org.opengroup.osdu.wd.core.models.Relationship;
+import org.opengroup.osdu.wd.core.util.Common;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reference tree of one entity resolved level by level (MongoTreeTraversal) and with one $graphLookup
+ * (MongoGraphTraversal). The root references fanOut entities, each of which references fanOut entities of the
+ * next type, levels deep. Needs a MongoDB server, given by -Dmongodb.uri, and writes to its wd-tree-benchmark database.
+ * Not part of the unit tests, run with
+ * mvn test-compile exec:java -Dexec.mainClass=org.opengroup.osdu.wd.core.dataaccess.impl.TreeTraversalBenchmark -Dexec.classpathScope=test
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TreeTraversalBenchmark {
+
+    private static final String DB_NAME = "wd-tree-benchmark";
+    private static final String GRAPH_COLLECTION = "entityRelationshipGraph";
+    private static final String[] TYPES = {"drillingreport", "holesection", "wellbore", "well"};
+
+    @Param({"2", "8"})
+    private int fanOut;
+
+    @Param({"3"})
+    private int levels;
+
+    private MongoClient client;
+    private Map<String, MongoCollection<Document>> collections;
+    private MongoCollection<Document> graph;
+    private Document root;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        client = MongodbFacade.createClient(System.getProperty("mongodb.uri", "mongodb://localhost:27017"));
+        client.getDatabase(DB_NAME).drop();
+
+        collections = new HashMap<>();
+        for (String type : TYPES) {
+            collections.put(type, MongodbFacade.createOrGetCollection(client, DB_NAME, type + MongodbFacade.ENTITY_COLLECTION_SUFFIX, false));
+        }
+        graph = MongodbFacade.createOrGetGraphCollection(client, DB_NAME, GRAPH_COLLECTION);
+
+        root = save(0, "root", buildChildren(1, "root"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.getDatabase(DB_NAME).drop();
+        client.close();
+    }
+
+    @Benchmark
+    public List<Document> recursive() {
+        MongoTreeTraversal traversal = new MongoTreeTraversal();
+        traversal.mongodbInit = new BenchmarkMongodbInit();
+        return traversal.buildDocumentList(root);
+    }
+
+    @Benchmark
+    public List<Document> graphLookup() {
+        MongoGraphTraversal traversal = new MongoGraphTraversal();
+        traversal.mongodbInit = new BenchmarkMongodbInit();
+        return traversal.buildDocumentList(root);
+    }
+
+    private List<Relationship> buildChildren(int level, String parentId) {
+        List<Relationship> res = new ArrayList<>();
+        if (level > levels)
+            return res;
+        for (int i = 0; i < fanOut; i++) {
+            String entityId = parentId + "-" + i;
+            Document child = save(level, entityId, buildChildren(level + 1, entityId));
+            res.add(new Relationship(child.getString("_id"), child.getString("entityType")));
+        }
+        return res;
+    }
+
+    private Document save(int level, String entityId, List<Relationship> relationships) {
+        EntityDto dto = new EntityDto();
+        dto.setEntityType(TYPES[Math.min(level, TYPES.length - 1)]);
+        dto.setEntityId(entityId);
+        dto.setId("opendes:" + dto.getEntityType() + ":" + entityId);
+        dto.setVersion(1L);
+        dto.setAcl(new ACL());
+        dto.setLegal(new Legal());
+        dto.setData(new Document("FacilityName", entityId));
+
+        MongoEntity entity = new MongoEntity(dto, relationships);
+        Document doc = entity.ToDocument();
+        MongodbFacade.upsert(collections.get(dto.getEntityType()), Common.buildId(entityId, 1L), doc);
+        Document node = MongoGraphTraversal.toGraphNode(entity);
+        MongodbFacade.upsert(graph, node.getString("_id"), node);
+        return doc;
+    }
+
+    private class BenchmarkMongodbInit extends MongodbInit {
+
+        @Override
+        public MongoCollection<Document> getEntityCollectionOrNull(String entityType) {
+            return collections.get(entityType.toLowerCase());
+        }
+
+        @Override
+        public MongoCollection<Document> createOrGetGraphCollection() {
+            return graph;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TreeTraversalBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -14,10 +14,28 @@
 
 package org.opengroup.osdu.wd.core.util;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import com.google.gson.Gson;
 import org.junit.Assert;
 import org.junit.Test;
+import org.opengroup.osdu.wd.core.models.EntityDtoReturn;
+import org.opengroup.osdu.wd.core.models.RawJson;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
@@ -33,6 +51,62 @@ public class CommonTest {
         assertEquals("{\n  \"Name\": 4324.0\n}", actual);
     }
 
+    @Test
+    public void should_writeCompactJson_when_PrettyNotRequested() throws IOException {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            ResponseEntity<StreamingResponseBody> response = Common.toResponse(Collections.singletonList("a"), HttpStatus.OK);
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals("[\"a\"]", write(response.getBody()));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Test
+    public void should_writePrettyJson_when_PrettyRequested() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.ACCEPT, "application/json;pretty=true");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        try {
+            ResponseEntity<StreamingResponseBody> response = Common.toResponse(Collections.singletonList("a"), HttpStatus.OK);
+            assertEquals("[\n  \"a\"\n]", write(response.getBody()));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Test
+    public void should_writeCbor_when_CborAccepted() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.ACCEPT, "application/cbor, application/json;q=0.5");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        try {
+            EntityDtoReturn dto = new EntityDtoReturn();
+            dto.setId("id1");
+            dto.setVersion(123);
+            dto.setData(new RawJson("{\"Depth\": 12.5}"));
+            ResponseEntity<StreamingResponseBody> response = Common.toResponse(Collections.singletonList(dto), HttpStatus.OK);
+            assertEquals(MediaType.APPLICATION_CBOR, response.getHeaders().getContentType());
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            response.getBody().writeTo(out);
+            JsonNode actual = new ObjectMapper(new CBORFactory()).readTree(out.toByteArray());
+            assertEquals("id1", actual.get(0).get("id").asText());
+            assertEquals(123, actual.get(0).get("version").asLong());
+            assertEquals(12.5, actual.get(0).get("data").get("Depth").asDouble(), 0);
+            Assert.assertFalse(actual.get(0).has("meta"));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    private String write(StreamingResponseBody body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
     @Test
     public void should_returnId_when_EntityIdVersionValid() {
         String entityId = "fdsfhdjsfds";
@@ -15,6 +15,8 @@
 package org.opengroup.osdu.wd.core.util;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.gson.Gson;
 import com.networknt.schema.JsonSchema;
 import org.junit.Test;
@@ -25,6 +27,9 @@ import org.opengroup.osdu.core.client.model.http.AppException;
 import org.opengroup.osdu.wd.core.models.IdType;
 import org.opengroup.osdu.wd.core.models.Relationship;
 
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -45,6 +50,40 @@ public class HelperTest {
         assertEquals(4324, actual);
     }
 
+    @Test
+    public void should_returnSameNode_when_InputIsJsonNode() {
+        ObjectNode input = new ObjectMapper().createObjectNode();
+        input.put("Name", 4324);
+        JsonNode node = this.sut.toJsonNode(input);
+        assertSame(input, node);
+    }
+
+    @Test
+    public void should_leaveOutNullMembers_when_ConvertingParsedBody() {
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("Comment", null);
+        nested.put("Depth", new BigDecimal("4324.5"));
+        Map<String, Object> input = new LinkedHashMap<>();
+        input.put("Name", null);
+        input.put("Nested", nested);
+        input.put("Items", Arrays.asList("a", null));
+        JsonNode node = this.sut.toJsonNode(input);
+        assertFalse(node.has("Name"));
+        assertFalse(node.get("Nested").has("Comment"));
+        assertEquals(4324.5, node.get("Nested").get("Depth").asDouble(), 0);
+        assertEquals(2, node.get("Items").size());
+    }
+
+    @Test
+    public void should_returnValid_when_MemberIsNull() {
+        Gson gson = new Gson();
+        String schemaStr = "{'properties': { 'name': { 'type': 'string' }}}";
+        JsonSchema schema = this.sut.toJsonSchema(gson.fromJson(schemaStr, Map.class));
+        Map<String, Object> input = new LinkedHashMap<>();
+        input.put("name", null);
+        assertNull(this.sut.validateJson(this.sut.toJsonNode(input), schema));
+    }
+
     @Test
     public void should_returnJsonSchema_when_SchemaIsValid() {
         Gson gson = new Gson();
@@ -155,6 +194,8 @@ public class HelperTest {
         assertEquals(5, relationships.size());
         assertEquals("activityplan", relationships.get(0).getEntityType());
         assertEquals("9ced4cc5-02c8-5208-883d-520cbec39df7:547654785", relationships.get(0).getId());
+        assertEquals("9ced4cc5-02c8-5208-883d-520cbec39df7", relationships.get(0).getEntityId());
+        assertEquals(Long.valueOf(547654785L), relationships.get(0).getVersion());
         assertEquals("risk", relationships.get(1).getEntityType());
         assertEquals("5ead54cc5-02c8-5208-883d-520cbec39df7:543546554565", relationships.get(1).getId());
         assertEquals("risk", relationships.get(2).getEntityType());
@@ -0,0 +1,61 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.wd.core.util;
+
+import org.junit.Test;
+import org.opengroup.osdu.core.client.model.http.AppException;
+import org.opengroup.osdu.wd.core.models.EntityDto;
+import org.opengroup.osdu.wd.core.models.RawJson;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class RawEntityReaderTest {
+
+    @Test
+    public void should_returnRawContent_when_JsonIsValid() {
+        String json = "{\"id\": \"opendes:well--Well:w1\", \"version\": 123, \"data\": {\"Name\": \"w1\", \"Items\": [1, {\"a\": null}]}, " +
+                "\"acl\": {\"owners\": [\"o@opendes.com\"], \"viewers\": [\"v@opendes.com\"]}, \"meta\": [{\"kind\": \"Unit\"}]}";
+
+        RawEntityReader.RawEntity actual = RawEntityReader.read(json);
+
+        assertEquals("{\"Name\": \"w1\", \"Items\": [1, {\"a\": null}]}", actual.getData().getJson());
+        assertEquals("[{\"kind\": \"Unit\"}]", actual.getMeta().getJson());
+        assertFalse(actual.getEnvelope().has("data"));
+        EntityDto dto = RawEntityReader.toValue(actual.getEnvelope(), EntityDto.class);
+        assertEquals("opendes:well--Well:w1", dto.getId());
+        assertEquals(123, dto.getVersion());
+        assertEquals(Collections.singleton("o@opendes.com"), dto.getAcl().getOwners());
+    }
+
+    @Test
+    public void should_returnNullContent_when_DataIsMissing() {
+        RawEntityReader.RawEntity actual = RawEntityReader.read("{\"id\": \"id1\", \"meta\": null}");
+        assertNull(actual.getData());
+        assertNull(actual.getMeta());
+    }
+
+    @Test
+    public void should_writeRawContent_when_PrettyPrinting() {
+        String actual = Common.toPrettyString(Collections.singletonMap("data", new RawJson("{\"a\":1}")));
+        assertEquals("{\n  \"data\": {\"a\":1}\n}", actual);
+    }
+
+    @Test(expected = AppException.class)
+    public void should_returnAppException_when_JsonIsNotObject() {
+        RawEntityReader.read("[1, 2]");
+    }
+}
@@ -0,0 +1,150 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.opengroup.osdu.wd.core.util;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengroup.osdu.wd.core.dataaccess.interfaces.ITreeNodeSource;
+import org.opengroup.osdu.wd.core.models.EntityDto;
+import org.opengroup.osdu.wd.core.models.Relationship;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class TreeTraversalEngineTest {
+
+    private FakeSource source;
+    private EntityDto program;
+
+    @Before
+    public void setup() {
+        source = new FakeSource();
+        program = source.add("wellactivityprogram", "wap-1",
+                new Relationship("wellbore-1:1", "wellbore"),
+                new Relationship("plan-1:1", "activityplan"),
+                new Relationship("phase-1:1", "phase"));
+        source.add("wellbore", "wellbore-1", new Relationship("well-1:1", "well"));
+        source.add("well", "well-1");
+        source.add("activityplan", "plan-1", new Relationship("wellbore-1:1", "wellbore"));
+        source.add("phase", "phase-1",
+                new Relationship("activity-1:1", "activity"),
+                new Relationship("activity-2:1", "activity"),
+                new Relationship("activity-3:1", "activity"),
+                new Relationship("activity-4", "activity"));
+        source.add("activity", "activity-1");
+        source.add("activity", "activity-2");
+    }
+
+    @Test
+    public void should_fetchOncePerTypeAndLevel_when_BuildingRefTree() {
+        JsonObject tree = new TreeTraversalEngine<>(source, new HashSet<>()).buildRef(program);
+
+        assertEquals(Arrays.asList("wellbore", "activityplan", "phase", "well", "activity"), source.fetchedTypes);
+        assertEquals(Arrays.asList("activity-1:1", "activity-2:1", "activity-3:1"), source.fetchedIds.get(4));
+
+        assertEquals("wap-1", tree.get("id").getAsString());
+        assertEquals(1, tree.get("version").getAsLong());
+        assertEquals("wellactivityprogram", tree.get("type").getAsString());
+        JsonArray items = tree.getAsJsonArray("items");
+        assertEquals(3, items.size());
+        assertEquals("well-1", items.get(0).getAsJsonObject().getAsJsonArray("items").get(0).getAsJsonObject().get("id").getAsString());
+        assertFalse(items.get(1).getAsJsonObject().has("items"));
+        assertEquals(2, items.get(2).getAsJsonObject().getAsJsonArray("items").size());
+    }
+
+    @Test
+    public void should_returnPreOrderList_when_BuildingList() {
+        List<EntityDto> list = new TreeTraversalEngine<>(source, new HashSet<>()).buildList(program);
+
+        List<String> ids = list.stream().map(EntityDto::getEntityId).collect(Collectors.toList());
+        assertEquals(Arrays.asList("wap-1", "wellbore-1", "well-1", "plan-1", "phase-1", "activity-1", "activity-2"), ids);
+        assertEquals(Arrays.asList("activity-1:1", "activity-2:1", "activity-3:1", "activity-4"), source.fetchedIds.get(4));
+    }
+
+    @Test
+    public void should_nestSharedEntityUnderFirstParentInDepthFirstOrder_when_ReachableFromTwoParents() {
+        EntityDto root = source.add("wellactivityprogram", "wap-2",
+                new Relationship("wellbore-2:1", "wellbore"),
+                new Relationship("phase-2:1", "phase"));
+        source.add("wellbore", "wellbore-2", new Relationship("phase-2:1", "phase"));
+        source.add("phase", "phase-2", new Relationship("activity-5:1", "activity"));
+        source.add("activity", "activity-5");
+
+        JsonObject tree = new TreeTraversalEngine<>(source, new HashSet<>()).buildRef(root);
+
+        assertEquals(Arrays.asList("wellbore", "phase", "activity"), source.fetchedTypes);
+        JsonArray items = tree.getAsJsonArray("items");
+        assertEquals(1, items.size());
+        JsonObject wellbore = items.get(0).getAsJsonObject();
+        assertEquals("wellbore-2", wellbore.get("id").getAsString());
+        JsonObject phase = wellbore.getAsJsonArray("items").get(0).getAsJsonObject();
+        assertEquals("phase-2", phase.get("id").getAsString());
+        assertEquals("activity-5", phase.getAsJsonArray("items").get(0).getAsJsonObject().get("id").getAsString());
+
+        List<EntityDto> list = new TreeTraversalEngine<>(source, new HashSet<>()).buildList(root);
+        List<String> ids = list.stream().map(EntityDto::getEntityId).collect(Collectors.toList());
+        assertEquals(Arrays.asList("wap-2", "wellbore-2", "phase-2", "activity-5"), ids);
+    }
+
+    private static class FakeSource implements ITreeNodeSource<EntityDto> {
+        private final Map<String, EntityDto> entities = new HashMap<>();
+        private final Map<EntityDto, List<Relationship>> relationships = new HashMap<>();
+        private final List<String> fetchedTypes = new ArrayList<>();
+        private final List<List<String>> fetchedIds = new ArrayList<>();
+
+        EntityDto add(String type, String entityId, Relationship... rs) {
+            EntityDto dto = new EntityDto();
+            dto.setId(Common.buildId(entityId, 1));
+            dto.setEntityId(entityId);
+            dto.setEntityType(type);
+            dto.setVersion(1);
+            entities.put(type + dto.getId(), dto);
+            relationships.put(dto, Arrays.asList(rs));
+            return dto;
+        }
+
+        @Override
+        public EntityDto getHeader(EntityDto entity) {
+            return entity;
+        }
+
+        @Override
+        public List<Relationship> getRelationships(EntityDto entity) {
+            return relationships.getOrDefault(entity, Collections.emptyList());
+        }
+
+        @Override
+        public Map<String, EntityDto> findByIds(String entityType, List<String> ids) {
+            fetchedTypes.add(entityType);
+            fetchedIds.add(new ArrayList<>(ids));
+            Map<String, EntityDto> res = new HashMap<>();
+            for (String id : ids) {
+                EntityDto dto = entities.get(entityType + id);
+                if (dto != null)
+                    res.put(id, dto);
+            }
+            return res;
+        }
+    }
+}
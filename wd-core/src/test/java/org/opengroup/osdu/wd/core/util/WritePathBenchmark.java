@@ -0,0 +1,117 @@
+// Copyright 2020 Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.wd.core.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.Gson;
+import org.bson.Document;
+import org.opengroup.osdu.wd.core.dataaccess.impl.MongoEntity;
+import org.opengroup.osdu.wd.core.models.ACL;
+import org.opengroup.osdu.wd.core.models.EntityDto;
+import org.opengroup.osdu.wd.core.models.Legal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversions of one parsed ActivityPlan body of about 220 KB on the write path: the schema validation tree and the
+ * stored document. gsonRoundTrip is how they were built before, by serializing with Gson and parsing the text again.
+ * Not part of the unit tests, run with
+ * mvn test-compile exec:java -Dexec.mainClass=org.opengroup.osdu.wd.core.util.WritePathBenchmark -Dexec.classpathScope=test
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WritePathBenchmark {
+
+    private static final int ACTIVITIES = 1000;
+
+    private final Helper helper = new Helper();
+    private final Gson gson = new Gson();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private Map<String, Object> body;
+    private EntityDto dto;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<Object> activities = new ArrayList<>();
+        for (int i = 0; i < ACTIVITIES; i++) {
+            Map<String, Object> activity = new LinkedHashMap<>();
+            activity.put("ActivityID", "opendes:work-product-component--Activity:" + i + ":1");
+            activity.put("Name", "Drill 8 1/2in section " + i);
+            activity.put("StartDepth", 1250.5 + i);
+            activity.put("EndDepth", 1350.5 + i);
+            activity.put("PlannedDuration", 3600L * i);
+            activity.put("Remarks", null);
+            activities.add(activity);
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("FacilityName", "ActivityPlan-1");
+        data.put("WellboreID", "opendes:master-data--Wellbore:wb-1:1");
+        data.put("Activities", activities);
+
+        // parsed the way Spring parses the request body
+        body = mapper.readValue(mapper.writeValueAsString(data), Map.class);
+
+        dto = new EntityDto();
+        dto.setEntityId("ap-1");
+        dto.setEntityType("activityplan");
+        dto.setVersion(1L);
+        dto.setAcl(new ACL());
+        dto.setLegal(new Legal());
+        dto.setData(body);
+    }
+
+    @Benchmark
+    public void parsedOnce(Blackhole blackhole) {
+        blackhole.consume(helper.toJsonNode(body));
+        blackhole.consume(new MongoEntity(dto, null).ToDocument());
+    }
+
+    @Benchmark
+    public void gsonRoundTrip(Blackhole blackhole) throws IOException {
+        JsonNode node = mapper.readTree(gson.toJson(body));
+        blackhole.consume(node);
+        MongoEntity entity = new MongoEntity(dto, null);
+        blackhole.consume(Document.parse(gson.toJson(entity)));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(WritePathBenchmark.class.getSimpleName()).build()).run();
+    }
+}